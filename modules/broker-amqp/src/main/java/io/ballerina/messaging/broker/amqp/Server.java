@@ -41,6 +41,7 @@ import io.ballerina.messaging.broker.core.Broker;
 import io.ballerina.messaging.broker.core.BrokerFactory;
 import io.ballerina.messaging.broker.core.DefaultBrokerFactory;
 import io.ballerina.messaging.broker.core.SecureBrokerFactory;
+import io.ballerina.messaging.broker.core.memory.MessageMemoryTracker;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
@@ -82,6 +83,7 @@ public class Server {
     private final BrokerFactory brokerFactory;
     private final AmqpServerConfiguration configuration;
     private final AmqpMetricManager metricManager;
+    private final MessageMemoryTracker memoryTracker;
     private EventLoopGroup bossGroup;
     private EventLoopGroup workerGroup;
     private EventExecutorGroup ioExecutors;
@@ -114,6 +116,14 @@ public class Server {
             throw new RuntimeException("Could not find the broker class to initialize AMQP server");
         }
 
+        MessageMemoryTracker tracker = startupContext.getService(MessageMemoryTracker.class);
+        if (Objects.nonNull(tracker)) {
+            memoryTracker = tracker;
+        } else {
+            // Track the message content without blocking publishers
+            memoryTracker = new MessageMemoryTracker(0, 0);
+        }
+
         AuthManager authManager = startupContext.getService(AuthManager.class);
         if (null != authManager && authManager.isAuthenticationEnabled() && authManager.isAuthorizationEnabled()) {
             brokerFactory = new SecureBrokerFactory(startupContext);
@@ -198,7 +208,8 @@ public class Server {
             socketChannel.pipeline()
                          .addLast(new AmqpDecoder(amqMethodRegistryFactory.newInstance()))
                          .addLast(new AmqpEncoder())
-                         .addLast(new AmqpConnectionHandler(configuration, brokerFactory, metricManager))
+                         .addLast(new AmqpConnectionHandler(configuration, brokerFactory, metricManager,
+                                                            memoryTracker))
                          .addLast(ioExecutors, new AmqpMessageWriter())
                          .addLast(ioExecutors, new BlockingTaskHandler());
         }
@@ -219,7 +230,8 @@ public class Server {
                          .addLast(sslHandlerFactory.create())
                          .addLast(new AmqpDecoder(amqMethodRegistryFactory.newInstance()))
                          .addLast(new AmqpEncoder())
-                         .addLast(new AmqpConnectionHandler(configuration, brokerFactory, metricManager))
+                         .addLast(new AmqpConnectionHandler(configuration, brokerFactory, metricManager,
+                                                            memoryTracker))
                          .addLast(ioExecutors, new AmqpMessageWriter())
                          .addLast(ioExecutors, new BlockingTaskHandler());
         }
@@ -33,6 +33,7 @@ import io.ballerina.messaging.broker.core.Broker;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.Consumer;
 import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.memory.MessageMemoryTracker;
 import io.ballerina.messaging.broker.core.transaction.AutoCommitTransaction;
 import io.ballerina.messaging.broker.core.transaction.BrokerTransaction;
 import io.ballerina.messaging.broker.core.util.MessageTracer;
@@ -43,11 +44,11 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -137,16 +138,18 @@ public class AmqpChannel {
     public AmqpChannel(AmqpServerConfiguration configuration,
                        Broker broker,
                        int channelId,
-                       AmqpMetricManager metricManager) {
+                       AmqpMetricManager metricManager,
+                       MessageMemoryTracker memoryTracker) {
         this.broker = broker;
         this.channelId = channelId;
         this.metricManager = metricManager;
-        this.consumerMap = new HashMap<>();
+        this.consumerMap = new ConcurrentHashMap<>();
         this.transaction = new AutoCommitTransaction(broker);
-        this.messageAggregator = new InMemoryMessageAggregator(transaction);
+        this.messageAggregator = new InMemoryMessageAggregator(transaction, memoryTracker);
         this.flowManager = new ChannelFlowManager(this,
                                                   configuration.getChannelFlow().getLowLimit(),
-                                                  configuration.getChannelFlow().getHighLimit());
+                                                  configuration.getChannelFlow().getHighLimit(),
+                                                  memoryTracker);
         this.maxRedeliveryCount = Integer.parseInt(configuration.getMaxRedeliveryCount());
         traceChannelIdField = new TraceField(CHANNEL_ID_FIELD_NAME, channelId);
     }
@@ -192,6 +195,7 @@ public class AmqpChannel {
 
     public void close() {
         closed.set(true);
+        flowManager.close();
         for (Consumer consumer : consumerMap.values()) {
             closeConsumer(consumer);
         }
@@ -338,7 +342,20 @@ public class AmqpChannel {
     }
 
     public void setFlow(boolean active) {
-        flow.set(active);
+        if (flow.getAndSet(active) != active && active) {
+            notifyConsumersReady();
+        }
+    }
+
+    /**
+     * Wake up the delivery of the queues consumed through this channel once the channel becomes ready.
+     */
+    private void notifyConsumersReady() {
+        if (isReady()) {
+            for (Consumer consumer : consumerMap.values()) {
+                consumer.notifyReady();
+            }
+        }
     }
 
     /**
@@ -386,6 +403,7 @@ public class AmqpChannel {
 
     public void setPrefetchCount(int prefetchCount) {
         this.prefetchCount = prefetchCount;
+        unackedMessageMap.checkAndEnableHasRoom();
     }
 
     public AmqpDeliverMessage createDeliverMessage(Message message, ShortString consumerTag, String queueName) {
@@ -519,7 +537,9 @@ public class AmqpChannel {
             pendingAcknowledgments.clear();
             entries.addAll(markedAcknowledgments.values());
             markedAcknowledgments.clear();
-            hasRoom.set(true);
+            if (!hasRoom.getAndSet(true)) {
+                notifyConsumersReady();
+            }
             return entries;
         }
 
@@ -532,6 +552,7 @@ public class AmqpChannel {
         private void checkAndEnableHasRoom() {
             if (!hasRoom.get() && pendingAcknowledgments.size() < prefetchCount) {
                 hasRoom.set(true);
+                notifyConsumersReady();
             }
         }
 
@@ -30,6 +30,7 @@ import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.ContentChunk;
 import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.memory.MessageMemoryTracker;
 import io.ballerina.messaging.broker.core.transaction.BrokerTransaction;
 import io.ballerina.messaging.broker.core.util.MessageTracer;
 import io.ballerina.messaging.broker.core.util.TraceField;
@@ -60,8 +61,11 @@ public class InMemoryMessageAggregator {
 
     private long receivedPayloadSize;
 
-    InMemoryMessageAggregator(BrokerTransaction transaction) {
+    private final MessageMemoryTracker memoryTracker;
+
+    InMemoryMessageAggregator(BrokerTransaction transaction, MessageMemoryTracker memoryTracker) {
         this.transaction = transaction;
+        this.memoryTracker = memoryTracker;
     }
 
     public void basicPublishReceived(ShortString routingKey, ShortString exchangeName) {
@@ -111,8 +115,17 @@ public class InMemoryMessageAggregator {
         transaction.enqueue(message);
     }
 
+    /**
+     * Add a content frame of the message. The payload is handed over to the {@link MessageMemoryTracker}, which
+     * tracks its bytes until the last copy of the message content is released.
+     *
+     * @param length  length of the payload
+     * @param payload content of the frame
+     * @return true if all the content of the message is received
+     * @throws AmqpException if more content than the expected content length is received
+     */
     public boolean contentBodyReceived(long length, ByteBuf payload) throws AmqpException {
-        ContentChunk contentChunk = new ContentChunk(receivedPayloadSize, payload);
+        ContentChunk contentChunk = new ContentChunk(receivedPayloadSize, memoryTracker.track(payload));
         message.addChunk(contentChunk);
         receivedPayloadSize += length;
         long contentLength = message.getMetadata().getContentLength();
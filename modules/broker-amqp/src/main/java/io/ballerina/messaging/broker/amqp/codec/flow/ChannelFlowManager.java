@@ -21,6 +21,8 @@ package io.ballerina.messaging.broker.amqp.codec.flow;
 
 import io.ballerina.messaging.broker.amqp.codec.AmqpChannel;
 import io.ballerina.messaging.broker.amqp.codec.frames.ChannelFlow;
+import io.ballerina.messaging.broker.core.memory.MemoryWatermarkListener;
+import io.ballerina.messaging.broker.core.memory.MessageMemoryTracker;
 import io.netty.channel.ChannelHandlerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,37 +30,89 @@ import org.slf4j.LoggerFactory;
 /**
  * ChannelFlowManager is responsible for managing flow rate of publishers. The flow should be disabled and enabled
  * depending on the server load.
+ * <p>
+ * The flow is primarily controlled by the broker wide {@link MessageMemoryTracker}. The flow of every channel is
+ * disabled when the message content held in memory reaches the high watermark and enabled again once it falls to the
+ * low watermark. In addition, the flow of a single channel is disabled when the number of messages it has in flight
+ * exceeds the high limit.
  */
-public class ChannelFlowManager {
+public class ChannelFlowManager implements MemoryWatermarkListener {
     private static final Logger LOGGER = LoggerFactory.getLogger(ChannelFlowManager.class);
 
     private final int highLimit;
     private final int lowLimit;
     private int messagesInFlight = 0;
+    private boolean messageLimitExceeded = false;
     private boolean inflowEnabled = true;
     private final AmqpChannel channel;
+    private final MessageMemoryTracker memoryTracker;
 
-    public ChannelFlowManager(AmqpChannel channel, int lowLimit, int highLimit) {
+    /**
+     * Context of the connection the channel belongs to. Set when the first message is received since the flow of a
+     * channel is only relevant once it starts publishing.
+     */
+    private volatile ChannelHandlerContext ctx;
+
+    public ChannelFlowManager(AmqpChannel channel, int lowLimit, int highLimit, MessageMemoryTracker memoryTracker) {
         this.channel = channel;
         this.lowLimit = lowLimit;
         this.highLimit = highLimit;
+        this.memoryTracker = memoryTracker;
+        memoryTracker.addListener(this);
     }
 
     public void notifyMessageAddition(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
         messagesInFlight++;
-        if (messagesInFlight > highLimit && inflowEnabled) {
-            inflowEnabled = false;
-            ctx.writeAndFlush(new ChannelFlow(channel.getChannelId(), false));
-            LOGGER.info("Inflow disabled for channel {}-{}", channel.getChannelId(), ctx.channel().remoteAddress());
+        if (messagesInFlight > highLimit) {
+            messageLimitExceeded = true;
         }
+        updateFlow(ctx);
     }
 
     public void notifyMessageRemoval(ChannelHandlerContext ctx) {
         messagesInFlight--;
-        if (messagesInFlight < lowLimit && !inflowEnabled) {
-            inflowEnabled = true;
-            ctx.writeAndFlush(new ChannelFlow(channel.getChannelId(), true));
-            LOGGER.info("Inflow enabled for channel {}-{}", channel.getChannelId(), ctx.channel().remoteAddress());
+        if (messagesInFlight < lowLimit) {
+            messageLimitExceeded = false;
+        }
+        updateFlow(ctx);
+    }
+
+    @Override
+    public void onHighWatermark() {
+        scheduleFlowUpdate();
+    }
+
+    @Override
+    public void onLowWatermark() {
+        scheduleFlowUpdate();
+    }
+
+    /**
+     * Stop listening to memory watermark changes. Invoked when the channel is closed.
+     */
+    public void close() {
+        memoryTracker.removeListener(this);
+    }
+
+    /**
+     * Watermark notifications arrive on arbitrary threads. The flow state is only updated from the event loop of
+     * the connection.
+     */
+    private void scheduleFlowUpdate() {
+        ChannelHandlerContext ctx = this.ctx;
+        if (ctx != null) {
+            ctx.executor().execute(() -> updateFlow(ctx));
+        }
+    }
+
+    private void updateFlow(ChannelHandlerContext ctx) {
+        boolean enableInflow = !messageLimitExceeded && !memoryTracker.isAboveHighWatermark();
+        if (enableInflow != inflowEnabled) {
+            inflowEnabled = enableInflow;
+            ctx.writeAndFlush(new ChannelFlow(channel.getChannelId(), enableInflow));
+            LOGGER.info("Inflow {} for channel {}-{}", enableInflow ? "enabled" : "disabled", channel.getChannelId(),
+                        ctx.channel().remoteAddress());
         }
     }
 }
@@ -30,6 +30,7 @@ import io.ballerina.messaging.broker.amqp.codec.frames.ProtocolInitFrame;
 import io.ballerina.messaging.broker.amqp.metrics.AmqpMetricManager;
 import io.ballerina.messaging.broker.core.Broker;
 import io.ballerina.messaging.broker.core.BrokerFactory;
+import io.ballerina.messaging.broker.core.memory.MessageMemoryTracker;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import org.slf4j.Logger;
@@ -51,13 +52,16 @@ public class AmqpConnectionHandler extends ChannelInboundHandlerAdapter {
     private Broker broker;
     private final BrokerFactory brokerFactory;
     private final AmqpMetricManager metricManager;
+    private final MessageMemoryTracker memoryTracker;
 
     public AmqpConnectionHandler(AmqpServerConfiguration configuration,
                                  BrokerFactory brokerFactory,
-                                 AmqpMetricManager metricManager) {
+                                 AmqpMetricManager metricManager,
+                                 MessageMemoryTracker memoryTracker) {
         this.configuration = configuration;
         this.brokerFactory = brokerFactory;
         this.metricManager = metricManager;
+        this.memoryTracker = memoryTracker;
         metricManager.incrementConnectionCount();
     }
 
@@ -103,7 +107,7 @@ public class AmqpConnectionHandler extends ChannelInboundHandlerAdapter {
             throw new ConnectionException(ConnectionException.CHANNEL_ERROR,
                     "Channel ID " + channelId + " Already exists");
         }
-        channels.put(channelId, new AmqpChannel(configuration, broker, channelId, metricManager));
+        channels.put(channelId, new AmqpChannel(configuration, broker, channelId, metricManager, memoryTracker));
         metricManager.incrementChannelCount();
     }
 
@@ -20,6 +20,7 @@
 package io.ballerina.messaging.broker.amqp.consumer;
 
 import io.ballerina.messaging.broker.amqp.codec.AmqpChannel;
+import io.ballerina.messaging.broker.amqp.codec.handlers.AmqpMessageWriter;
 import io.ballerina.messaging.broker.common.data.types.ShortString;
 import io.ballerina.messaging.broker.core.Broker;
 import io.ballerina.messaging.broker.core.Consumer;
@@ -27,9 +28,14 @@ import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.util.MessageTracer;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
 /**
  * AMQP based message consumer.
  */
@@ -53,6 +59,11 @@ public class AmqpConsumer extends Consumer {
 
     private final ChannelFutureListenerFactory channelFutureListenerFactory;
 
+    /**
+     * Messages sent to the consumer since the last flush. Accessed only by the delivery task of the queue.
+     */
+    private List<AmqpDeliverMessage> pendingDeliveries = new ArrayList<>();
+
     public AmqpConsumer(ChannelHandlerContext ctx,
                         Broker broker,
                         AmqpChannel channel,
@@ -84,10 +95,36 @@ public class AmqpConsumer extends Consumer {
                          consumerTag,
                          queueName);
         }
-        AmqpDeliverMessage deliverMessage = channel.createDeliverMessage(message, consumerTag, queueName);
+        pendingDeliveries.add(channel.createDeliverMessage(message, consumerTag, queueName));
+    }
 
-        ChannelFuture channelFuture = context.channel().writeAndFlush(deliverMessage);
-        channelFuture.addListener(channelFutureListenerFactory.createListener(message));
+    /**
+     * Write the pending messages and flush the channel with a single hand-off to the {@link AmqpMessageWriter}
+     * executor. Otherwise each write is handed off to the executor separately.
+     */
+    @Override
+    public void flush() {
+        if (pendingDeliveries.isEmpty()) {
+            return;
+        }
+
+        List<AmqpDeliverMessage> deliveries = pendingDeliveries;
+        pendingDeliveries = new ArrayList<>(deliveries.size());
+        getWriterExecutor().execute(() -> {
+            for (AmqpDeliverMessage deliverMessage : deliveries) {
+                ChannelFuture channelFuture = context.channel().write(deliverMessage);
+                channelFuture.addListener(channelFutureListenerFactory.createListener(deliverMessage.getMessage()));
+            }
+            context.channel().flush();
+        });
+    }
+
+    private EventExecutor getWriterExecutor() {
+        ChannelHandlerContext writerContext = context.pipeline().context(AmqpMessageWriter.class);
+        if (Objects.nonNull(writerContext)) {
+            return writerContext.executor();
+        }
+        return context.channel().eventLoop();
     }
 
     @Override
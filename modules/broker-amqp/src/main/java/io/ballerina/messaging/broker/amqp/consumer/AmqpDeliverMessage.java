@@ -32,6 +32,7 @@ import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Metadata;
 import io.ballerina.messaging.broker.core.util.MessageTracer;
 import io.ballerina.messaging.broker.core.util.TraceField;
+import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -66,6 +67,10 @@ public class AmqpDeliverMessage {
         this.broker = broker;
     }
 
+    Message getMessage() {
+        return message;
+    }
+
     public void write(ChannelHandlerContext ctx) {
         if (channel.isClosed()) {
             try {
@@ -107,10 +112,10 @@ public class AmqpDeliverMessage {
             headerFrame.setHeaders(metadata.getHeaders());
             ctx.write(basicDeliverFrame);
             ctx.write(headerFrame);
+            // Content is shared with the copies of the message in other queues. Frames consume and release a slice
             for (ContentChunk chunk : message.getContentChunks()) {
-                ContentFrame contentFrame = new ContentFrame(channel.getChannelId(),
-                                                             chunk.getByteBuf().capacity(),
-                                                             chunk.getByteBuf());
+                ByteBuf payload = chunk.getByteBuf().retainedSlice();
+                ContentFrame contentFrame = new ContentFrame(channel.getChannelId(), payload.capacity(), payload);
                 ctx.write(contentFrame);
             }
 
@@ -123,7 +128,8 @@ public class AmqpDeliverMessage {
                                     new TraceField(CONSUMER_ADDRESS_FIELD, ctx.channel().remoteAddress())
                                     );
             }
-
+            // The copy recorded for the acknowledgement keeps the content
+            message.release();
         }
     }
 }
@@ -21,8 +21,12 @@ package io.ballerina.messaging.broker.amqp.codec.flow;
 
 import io.ballerina.messaging.broker.amqp.codec.AmqpChannel;
 import io.ballerina.messaging.broker.amqp.codec.frames.ChannelFlow;
+import io.ballerina.messaging.broker.core.memory.MessageMemoryTracker;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.testng.annotations.BeforeMethod;
@@ -35,13 +39,16 @@ public class ChannelFlowManagerTest {
     private ChannelFlowManager channelFlowManager;
     private ChannelHandlerContext ctx;
     private ArgumentCaptor<ChannelFlow> argumentCaptor;
+    private MessageMemoryTracker memoryTracker;
 
     @BeforeMethod
     public void setUp() throws Exception {
         AmqpChannel channel = Mockito.mock(AmqpChannel.class);
         ctx = Mockito.mock(ChannelHandlerContext.class);
         Mockito.when(ctx.channel()).thenReturn(Mockito.mock(Channel.class));
-        channelFlowManager = new ChannelFlowManager(channel, 2, 10);
+        Mockito.when(ctx.executor()).thenReturn(ImmediateEventExecutor.INSTANCE);
+        memoryTracker = new MessageMemoryTracker(100, 50);
+        channelFlowManager = new ChannelFlowManager(channel, 2, 10, memoryTracker);
 
         argumentCaptor = ArgumentCaptor.forClass(ChannelFlow.class);
     }
@@ -80,4 +87,40 @@ public class ChannelFlowManagerTest {
         // 2 times since flow is disabled and enables
         Mockito.verify(ctx, Mockito.times(2)).writeAndFlush(argumentCaptor.capture());
     }
+
+    @Test
+    public void testFlowDisabledOnHighWatermarkAndEnabledOnLowWatermark() throws Exception {
+        channelFlowManager.notifyMessageAddition(ctx);
+
+        ByteBuf first = memoryTracker.track(Unpooled.wrappedBuffer(new byte[60]));
+        ByteBuf second = memoryTracker.track(Unpooled.wrappedBuffer(new byte[40]));
+        second.release();
+        first.release();
+
+        // 2 times since flow is disabled and enabled
+        Mockito.verify(ctx, Mockito.times(2)).writeAndFlush(argumentCaptor.capture());
+    }
+
+    @Test
+    public void testFlowNotEnabledWhileAboveHighWatermark() throws Exception {
+        ByteBuf content = memoryTracker.track(Unpooled.wrappedBuffer(new byte[100]));
+        IntStream.rangeClosed(1, 11)
+                 .forEach(i -> channelFlowManager.notifyMessageAddition(ctx));
+        IntStream.rangeClosed(1, 10)
+                 .forEach(i -> channelFlowManager.notifyMessageRemoval(ctx));
+        // Message count fell below the low limit, but memory is still above the high watermark
+        Mockito.verify(ctx, Mockito.times(1)).writeAndFlush(argumentCaptor.capture());
+
+        content.release();
+        Mockito.verify(ctx, Mockito.times(2)).writeAndFlush(argumentCaptor.capture());
+    }
+
+    @Test
+    public void testClosedFlowManagerIgnoresWatermarks() throws Exception {
+        channelFlowManager.notifyMessageAddition(ctx);
+        channelFlowManager.close();
+
+        memoryTracker.track(Unpooled.wrappedBuffer(new byte[100])).release();
+        Mockito.verify(ctx, Mockito.never()).writeAndFlush(argumentCaptor.capture());
+    }
 }
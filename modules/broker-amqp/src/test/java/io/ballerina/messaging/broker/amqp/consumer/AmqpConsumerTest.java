@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.amqp.consumer;
+
+import io.ballerina.messaging.broker.amqp.codec.AmqpChannel;
+import io.ballerina.messaging.broker.amqp.codec.handlers.AmqpMessageWriter;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.Broker;
+import io.ballerina.messaging.broker.core.Message;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AmqpConsumerTest {
+
+    private static final String QUEUE_NAME = "AmqpConsumerTestQueue";
+
+    private EmbeddedChannel embeddedChannel;
+
+    private RecordingMessageWriter messageWriter;
+
+    private AmqpConsumer consumer;
+
+    @BeforeMethod
+    public void setUp() {
+        messageWriter = new RecordingMessageWriter();
+        embeddedChannel = new EmbeddedChannel(messageWriter, new ChannelDuplexHandler());
+        ChannelHandlerContext ctx = embeddedChannel.pipeline().lastContext();
+
+        Broker broker = Mockito.mock(Broker.class);
+        AmqpChannel amqpChannel = Mockito.mock(AmqpChannel.class);
+        Mockito.when(amqpChannel.createDeliverMessage(ArgumentMatchers.any(Message.class),
+                                                      ArgumentMatchers.any(ShortString.class),
+                                                      ArgumentMatchers.anyString()))
+               .thenAnswer(invocation -> new AmqpDeliverMessage(invocation.getArgument(0),
+                                                                invocation.getArgument(1),
+                                                                amqpChannel,
+                                                                invocation.getArgument(2),
+                                                                broker));
+        consumer = new AmqpConsumer(ctx, broker, amqpChannel, QUEUE_NAME, ShortString.parseString("ctag"), false);
+    }
+
+    @Test
+    public void testMessagesAreWrittenOnFlush() {
+        for (int i = 0; i < 3; i++) {
+            consumer.send(Mockito.mock(Message.class));
+        }
+        embeddedChannel.runPendingTasks();
+        Assert.assertTrue(messageWriter.writtenMessages.isEmpty(), "Messages should not be written before flush");
+
+        consumer.flush();
+        embeddedChannel.runPendingTasks();
+        Assert.assertEquals(messageWriter.writtenMessages.size(), 3);
+        Assert.assertEquals(messageWriter.flushCount, 1, "Channel should be flushed once per batch");
+    }
+
+    @Test
+    public void testFlushWithoutMessages() {
+        consumer.flush();
+        embeddedChannel.runPendingTasks();
+        Assert.assertTrue(messageWriter.writtenMessages.isEmpty());
+        Assert.assertEquals(messageWriter.flushCount, 0);
+    }
+
+    /**
+     * Records the delivery messages instead of writing frames.
+     */
+    private static class RecordingMessageWriter extends AmqpMessageWriter {
+
+        private final List<Object> writtenMessages = new ArrayList<>();
+
+        private int flushCount;
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            writtenMessages.add(msg);
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) {
+            flushCount++;
+            ctx.flush();
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.benchmark.amqp;
+
+import io.ballerina.messaging.broker.amqp.codec.handlers.AmqpMessageWriter;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.EventExecutorGroup;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares writing a delivery round of small messages to a consumer channel with a write and flush per message,
+ * which is how the AMQP consumer wrote messages earlier, against writing the whole round with a single hand-off to
+ * the {@link AmqpMessageWriter} executor followed by a single flush.
+ * <p>
+ * The consumer channel has the same executor arrangement as the AMQP transport, i.e. the message writer runs on a
+ * separate executor group. Run with {@code java -jar target/benchmarks.jar DeliveryWriteBenchmark}. The score is the
+ * number of messages written per millisecond.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeliveryWriteBenchmark {
+
+    private static final int MESSAGES_PER_ROUND = 1000;
+
+    private static final int MESSAGE_SIZE = 64;
+
+    private EventLoopGroup eventLoopGroup;
+
+    private EventExecutorGroup ioExecutors;
+
+    private Channel serverChannel;
+
+    private Channel consumerChannel;
+
+    private EventExecutor writerExecutor;
+
+    private ByteBuf message;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        eventLoopGroup = new DefaultEventLoopGroup(2);
+        ioExecutors = new DefaultEventExecutorGroup(1);
+        LocalAddress address = new LocalAddress("DeliveryWriteBenchmark");
+
+        serverChannel = new ServerBootstrap()
+                .group(eventLoopGroup)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel channel) {
+                        channel.pipeline().addLast(new DiscardHandler());
+                    }
+                })
+                .bind(address).sync().channel();
+
+        consumerChannel = new Bootstrap()
+                .group(eventLoopGroup)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel channel) {
+                        channel.pipeline().addLast(ioExecutors, new AmqpMessageWriter());
+                    }
+                })
+                .connect(address).sync().channel();
+        writerExecutor = consumerChannel.pipeline().context(AmqpMessageWriter.class).executor();
+
+        message = Unpooled.unreleasableBuffer(Unpooled.directBuffer(MESSAGE_SIZE).writeZero(MESSAGE_SIZE));
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        consumerChannel.close().sync();
+        serverChannel.close().sync();
+        ioExecutors.shutdownGracefully().sync();
+        eventLoopGroup.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_ROUND)
+    public void writeAndFlushPerMessage() throws InterruptedException {
+        ChannelFuture lastWrite = null;
+        for (int i = 0; i < MESSAGES_PER_ROUND; i++) {
+            lastWrite = consumerChannel.writeAndFlush(message.duplicate());
+        }
+        lastWrite.sync();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_ROUND)
+    public void writeRoundAndFlushOnce() throws InterruptedException {
+        Promise<Void> roundWritten = writerExecutor.newPromise();
+        writerExecutor.execute(() -> {
+            ChannelFuture lastWrite = null;
+            for (int i = 0; i < MESSAGES_PER_ROUND; i++) {
+                lastWrite = consumerChannel.write(message.duplicate());
+            }
+            consumerChannel.flush();
+            lastWrite.addListener(future -> roundWritten.setSuccess(null));
+        });
+        roundWritten.sync();
+    }
+
+    /**
+     * Releases the messages received by the peer.
+     */
+    private static class DiscardHandler extends ChannelInboundHandlerAdapter {
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.benchmark.exchange;
+
+import io.ballerina.messaging.broker.common.FastTopicMatcher;
+import io.ballerina.messaging.broker.common.TrieTopicMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the {@link TrieTopicMatcher} used by the topic exchange against the {@link FastTopicMatcher} for matching
+ * routing keys and for bind churn, i.e. removing a binding pattern and adding it back.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar TopicMatcherBenchmark}. Adding patterns to the
+ * {@link FastTopicMatcher} is quadratic in the number of patterns, hence the setup takes a while for large binding
+ * counts. Add {@code -prof gc} to compare the allocations of matching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicMatcherBenchmark {
+
+    private static final String[] WORDS = {"sports", "news", "weather", "stocks", "eu", "us", "asia", "live"};
+
+    private static final int ROUTING_KEY_COUNT = 1024;
+
+    @Param({"1000", "10000"})
+    public int bindingCount;
+
+    private FastTopicMatcher fastTopicMatcher;
+
+    private TrieTopicMatcher trieTopicMatcher;
+
+    private String[] patterns;
+
+    private String[] routingKeys;
+
+    private int nextRoutingKey;
+
+    private int nextPattern;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        patterns = new String[bindingCount];
+        fastTopicMatcher = new FastTopicMatcher();
+        trieTopicMatcher = new TrieTopicMatcher();
+        for (int i = 0; i < bindingCount; i++) {
+            patterns[i] = createPattern(random, i);
+            fastTopicMatcher.add(patterns[i]);
+            trieTopicMatcher.add(patterns[i]);
+        }
+
+        routingKeys = new String[ROUTING_KEY_COUNT];
+        for (int i = 0; i < ROUTING_KEY_COUNT; i++) {
+            routingKeys[i] = WORDS[random.nextInt(WORDS.length)] + "." + WORDS[random.nextInt(WORDS.length)] + "."
+                    + random.nextInt(bindingCount);
+        }
+    }
+
+    /**
+     * Create a pattern of the form {@code word.word.id}. A few patterns use wildcards in place of the words.
+     */
+    private static String createPattern(Random random, int id) {
+        int kind = random.nextInt(20);
+        String first = kind == 0 ? "*" : WORDS[random.nextInt(WORDS.length)];
+        if (kind == 1) {
+            return first + ".#";
+        }
+        String second = kind == 2 ? "*" : WORDS[random.nextInt(WORDS.length)];
+        return first + "." + second + "." + id;
+    }
+
+    @Benchmark
+    public void fastTopicMatcherMatch(Blackhole blackhole) {
+        fastTopicMatcher.matchingBindings(nextRoutingKey(), blackhole::consume);
+    }
+
+    @Benchmark
+    public void trieTopicMatcherMatch(Blackhole blackhole) {
+        trieTopicMatcher.matchingBindings(nextRoutingKey(), blackhole::consume);
+    }
+
+    @Benchmark
+    public void fastTopicMatcherBindChurn() {
+        String pattern = nextPattern();
+        fastTopicMatcher.remove(pattern);
+        fastTopicMatcher.add(pattern);
+    }
+
+    @Benchmark
+    public void trieTopicMatcherBindChurn() {
+        String pattern = nextPattern();
+        trieTopicMatcher.remove(pattern);
+        trieTopicMatcher.add(pattern);
+    }
+
+    private String nextRoutingKey() {
+        nextRoutingKey = (nextRoutingKey + 1) & (ROUTING_KEY_COUNT - 1);
+        return routingKeys[nextRoutingKey];
+    }
+
+    private String nextPattern() {
+        nextPattern = (nextPattern + 1) % bindingCount;
+        return patterns[nextPattern];
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.benchmark.message;
+
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of distributing a published message to the queues of a fan-out route. Each operation creates a
+ * copy of the message for every target queue, as the broker does when publishing, and releases the copies as the
+ * queues would once the message is acknowledged.
+ * <p>
+ * Run with the GC profiler to get the allocated bytes per operation,
+ * {@code java -jar target/benchmarks.jar FanoutAllocationBenchmark -prof gc}. Divide {@code gc.alloc.rate.norm} by
+ * the number of target queues to get the allocation per fan-out target.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FanoutAllocationBenchmark {
+
+    @Param({"200"})
+    public int targetQueues;
+
+    @Param({"2"})
+    public int contentChunks;
+
+    private Message message;
+
+    private Message[] copies;
+
+    @Setup
+    public void setup() {
+        Metadata metadata = new Metadata("sports.cricket", "amq.topic", 1024L * contentChunks);
+        metadata.addHeader("region", "eu-1");
+        message = new Message(1, metadata);
+        for (int i = 0; i < contentChunks; i++) {
+            ByteBuf content = PooledByteBufAllocator.DEFAULT.buffer(1024);
+            content.writeZero(1024);
+            message.addChunk(new ContentChunk(1024L * i, content));
+        }
+        copies = new Message[targetQueues];
+    }
+
+    @TearDown
+    public void tearDown() {
+        message.release();
+    }
+
+    @Benchmark
+    public Message[] fanout() {
+        for (int i = 0; i < copies.length; i++) {
+            copies[i] = message.shallowCopy();
+        }
+        for (Message copy : copies) {
+            copy.release();
+        }
+        return copies;
+    }
+}
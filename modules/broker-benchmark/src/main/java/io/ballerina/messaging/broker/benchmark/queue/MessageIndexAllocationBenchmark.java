@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.benchmark.queue;
+
+import io.ballerina.messaging.broker.common.util.ConcurrentLongHashMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocations of the message ID index used by the queue buffers against a
+ * {@link ConcurrentHashMap}. Each operation indexes a new message and removes the oldest one, keeping a constant
+ * number of messages in flight.
+ * <p>
+ * Run with the GC profiler to get the allocated bytes per operation,
+ * {@code java -jar target/benchmarks.jar MessageIndexAllocationBenchmark -prof gc}, and compare the
+ * {@code gc.alloc.rate.norm} values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageIndexAllocationBenchmark {
+
+    private static final Object NODE = new Object();
+
+    @Param({"10000"})
+    public int inFlightMessages;
+
+    private Map<Long, Object> concurrentHashMap;
+
+    private ConcurrentLongHashMap<Object> concurrentLongHashMap;
+
+    private long nextMessageId;
+
+    @Setup
+    public void setup() {
+        concurrentHashMap = new ConcurrentHashMap<>();
+        concurrentLongHashMap = new ConcurrentLongHashMap<>();
+        for (nextMessageId = 0; nextMessageId < inFlightMessages; nextMessageId++) {
+            concurrentHashMap.put(nextMessageId, NODE);
+            concurrentLongHashMap.put(nextMessageId, NODE);
+        }
+    }
+
+    @Benchmark
+    public Object concurrentHashMap() {
+        long messageId = nextMessageId++;
+        concurrentHashMap.put(messageId, NODE);
+        return concurrentHashMap.remove(messageId - inFlightMessages);
+    }
+
+    @Benchmark
+    public Object concurrentLongHashMap() {
+        long messageId = nextMessageId++;
+        concurrentLongHashMap.put(messageId, NODE);
+        return concurrentLongHashMap.remove(messageId - inFlightMessages);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.benchmark.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.queue.QueueBuffer;
+import io.ballerina.messaging.broker.core.queue.QueueBufferFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of a {@link QueueBuffer} when publishers, the delivery task and acknowledgements access the
+ * buffer at the same time. Each buffer type is created through the {@link QueueBufferFactory}.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar QueueBufferContentionBenchmark}. Calls that could not do any work
+ * (publishing to a full buffer, delivering from an empty buffer etc.) are included in the primary score. Therefore
+ * compare the published, delivered and acknowledged secondary scores which only count the successful calls.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBufferContentionBenchmark {
+
+    @Param({"synchronized", "concurrent"})
+    public String bufferType;
+
+    @Param({"10000"})
+    public String inMemoryCacheLimit;
+
+    /**
+     * Publishers stop adding messages when the buffer grows beyond this limit to keep the heap usage bounded. Use a
+     * value larger than the in-memory cache limit to include message data reads.
+     */
+    @Param({"10000"})
+    public int maxBacklog;
+
+    private QueueBuffer buffer;
+
+    private Metadata metadata;
+
+    private final AtomicLong messageIdGenerator = new AtomicLong();
+
+    private final Queue<Message> deliveredMessages = new ConcurrentLinkedQueue<>();
+
+    @Setup
+    public void setup() {
+        BrokerCoreConfiguration configuration = new BrokerCoreConfiguration();
+        configuration.setDurableQueueBufferType(bufferType);
+        configuration.setDurableQueueInMemoryCacheLimit(inMemoryCacheLimit);
+
+        metadata = new Metadata("queue1", "amq.direct", 0);
+        // Data of the messages beyond the in-memory limit is cleared. Fill them back immediately as a DB read would.
+        buffer = new QueueBufferFactory(configuration).createBuffer((queueBuffer, message) -> {
+            message.setMetadata(metadata);
+            queueBuffer.markMessageFilled(message);
+        });
+    }
+
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(4)
+    public void publish(OperationCounters counters) {
+        if (buffer.size() < maxBacklog) {
+            buffer.add(new Message(messageIdGenerator.incrementAndGet(), metadata));
+            counters.published++;
+        }
+    }
+
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(1)
+    public void deliver(OperationCounters counters) {
+        Message message = buffer.getFirstDeliverable();
+        if (message != null) {
+            deliveredMessages.add(message);
+            counters.delivered++;
+        }
+    }
+
+    @Benchmark
+    @Group("contention")
+    @GroupThreads(2)
+    public void acknowledge(OperationCounters counters) {
+        Message message = deliveredMessages.poll();
+        if (message != null) {
+            buffer.remove(message);
+            counters.acknowledged++;
+        }
+    }
+
+    /**
+     * Counts the calls which did some work on the buffer.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class OperationCounters {
+        public long published;
+        public long delivered;
+        public long acknowledged;
+    }
+}
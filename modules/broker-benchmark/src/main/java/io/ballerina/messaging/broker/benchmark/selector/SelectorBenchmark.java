@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.benchmark.selector;
+
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.selector.BooleanExpression;
+import io.ballerina.messaging.broker.core.selector.ConstantExpression;
+import io.ballerina.messaging.broker.core.selector.EqualityExpression;
+import io.ballerina.messaging.broker.core.selector.JmsPropertyExpression;
+import io.ballerina.messaging.broker.core.selector.generated.MessageFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluates the selectors of filtered bindings sharing one routing key against a message, the way the broker does
+ * when routing. Compares the compiled selectors created by the {@link MessageFilter} against the generic
+ * {@link EqualityExpression} which converts the property value to a Java object for each comparison.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar SelectorBenchmark -prof gc} to compare the allocations per
+ * routed message as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SelectorBenchmark {
+
+    @Param({"1000"})
+    public int bindingCount;
+
+    private BooleanExpression[] compiledSelectors;
+
+    private BooleanExpression[] genericSelectors;
+
+    private Metadata[] messages;
+
+    private int nextMessage;
+
+    @Setup
+    public void setup() throws Exception {
+        compiledSelectors = new BooleanExpression[bindingCount];
+        genericSelectors = new BooleanExpression[bindingCount];
+        for (int i = 0; i < bindingCount; i++) {
+            String region = "region-" + i;
+            if (i % 2 == 0) {
+                compiledSelectors[i] = new MessageFilter("region = '" + region + "'").parse();
+                genericSelectors[i] = new EqualityExpression(new JmsPropertyExpression("region"),
+                                                             new ConstantExpression(region)::evaluate);
+            } else {
+                compiledSelectors[i] = new MessageFilter("priority = " + i).parse();
+                genericSelectors[i] = new EqualityExpression(new JmsPropertyExpression("priority"),
+                                                             new ConstantExpression(i)::evaluate);
+            }
+        }
+
+        messages = new Metadata[16];
+        for (int i = 0; i < messages.length; i++) {
+            Metadata metadata = new Metadata("orders", "amq.topic", 0);
+            metadata.addHeader("region", "region-" + (i * bindingCount / messages.length));
+            metadata.addHeader("customer", "customer-" + i);
+            messages[i] = metadata;
+        }
+    }
+
+    @Benchmark
+    public int compiled() {
+        return evaluate(compiledSelectors);
+    }
+
+    @Benchmark
+    public int generic() {
+        return evaluate(genericSelectors);
+    }
+
+    private int evaluate(BooleanExpression[] selectors) {
+        Metadata metadata = messages[nextMessage++ & (messages.length - 1)];
+        int matches = 0;
+        for (BooleanExpression selector : selectors) {
+            if (selector.evaluate(metadata)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
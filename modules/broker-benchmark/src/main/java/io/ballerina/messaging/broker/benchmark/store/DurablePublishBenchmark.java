@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.benchmark.store;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.ballerina.messaging.broker.core.BrokerException;
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.DbBackedStoreFactory;
+import io.ballerina.messaging.broker.core.store.MessageStore;
+import io.ballerina.messaging.broker.core.trace.NoOpBrokerTracingManager;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the durable publish throughput of the database message store for different numbers of database writers.
+ * <p>
+ * Publishing only blocks once the ring buffer of the store is full, after which the score is the rate at which the
+ * writers persist messages. Use enough warmup for the ring to fill. The default database is an in-memory H2 database
+ * which gains little from parallel writers. To measure against a database server, pass its URL and credentials, for
+ * example {@code java -jar target/benchmarks.jar DurablePublishBenchmark -p jdbcUrl=jdbc:mysql://localhost/mb
+ * -p user=mb -p password=mb}. The database schema must already exist. Use a dedicated database since all stored
+ * messages are deleted before each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class DurablePublishBenchmark {
+
+    private static final String QUEUE_NAME = "durable-publish-benchmark";
+
+    @Param({"1", "2", "4", "8"})
+    public String writerCount;
+
+    @Param({"jdbc:h2:mem:mbDB;DB_CLOSE_DELAY=-1;"
+            + "INIT=RUNSCRIPT FROM '../launcher/src/main/resources/dbscripts/h2-mb.sql'"})
+    public String jdbcUrl;
+
+    @Param({""})
+    public String user;
+
+    @Param({""})
+    public String password;
+
+    @Param({"1024"})
+    public int contentSize;
+
+    private HikariDataSource dataSource;
+
+    private MessageStore messageStore;
+
+    private Metadata metadata;
+
+    private byte[] content;
+
+    private final AtomicLong messageIdGenerator = new AtomicLong();
+
+    @Setup
+    public void setup() throws SQLException, BrokerException {
+        HikariConfig dataSourceConfig = new HikariConfig();
+        dataSourceConfig.setJdbcUrl(jdbcUrl);
+        dataSourceConfig.setUsername(user);
+        dataSourceConfig.setPassword(password);
+        dataSourceConfig.setAutoCommit(false);
+        dataSource = new HikariDataSource(dataSourceConfig);
+        createQueue();
+
+        BrokerCoreConfiguration configuration = new BrokerCoreConfiguration();
+        configuration.getMessageStorage().setWriterCount(writerCount);
+        messageStore = new DbBackedStoreFactory(dataSource, new NullBrokerMetricManager(), configuration,
+                                                new NoOpBrokerTracingManager()).getMessageStore();
+
+        metadata = new Metadata(QUEUE_NAME, "amq.direct", contentSize);
+        content = new byte[contentSize];
+    }
+
+    @TearDown
+    public void tearDown() {
+        dataSource.close();
+    }
+
+    @Benchmark
+    public void publish() throws BrokerException {
+        Message message = new Message(messageIdGenerator.incrementAndGet(), metadata.shallowCopy());
+        message.addChunk(new ContentChunk(0, Unpooled.wrappedBuffer(content)));
+        messageStore.add(message);
+        messageStore.attach(QUEUE_NAME, message.getInternalId());
+        messageStore.flush(message.getInternalId());
+    }
+
+    /**
+     * Create the benchmark queue and delete the stored messages so that message ids can start from 1 in each trial.
+     */
+    private void createQueue() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM MB_QUEUE_METADATA WHERE QUEUE_NAME = '" + QUEUE_NAME + "'");
+                statement.executeUpdate("DELETE FROM MB_METADATA");
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO MB_QUEUE_METADATA (QUEUE_NAME, QUEUE_ARGUMENTS) VALUES (?, ?)")) {
+                statement.setString(1, QUEUE_NAME);
+                statement.setBytes(2, new byte[0]);
+                statement.executeUpdate();
+            }
+            connection.commit();
+        }
+    }
+}
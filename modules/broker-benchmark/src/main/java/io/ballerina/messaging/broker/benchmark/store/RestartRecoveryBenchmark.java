@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.benchmark.store;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.ballerina.messaging.broker.common.DaoException;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import io.ballerina.messaging.broker.core.store.dao.impl.DaoFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Measures the time to recover the message ids of the durable queues on restart, with and without the queue index
+ * checkpoint.
+ * <p>
+ * Each invocation creates the message DAO as the broker does on startup and reads the stored messages of every queue
+ * page by page. With the checkpoint, the ids come from the checkpoint file and only the rows written after it are read
+ * from the database. The defaults keep the setup short. To measure a restart with 10M persisted messages, run
+ * {@code java -Xmx8g -jar target/benchmarks.jar RestartRecoveryBenchmark -p messageCount=10000000}. As with
+ * {@link DurablePublishBenchmark}, pass {@code jdbcUrl}, {@code user} and {@code password} to use a database server
+ * and use a dedicated database since all stored messages are deleted before each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RestartRecoveryBenchmark {
+
+    private static final String QUEUE_NAME_PREFIX = "restart-recovery-benchmark-";
+
+    private static final int INSERT_BATCH_SIZE = 10000;
+
+    private static final long CHECKPOINT_WAIT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    @Param({"1000000"})
+    public long messageCount;
+
+    @Param({"10"})
+    public int queueCount;
+
+    @Param({"false", "true"})
+    public boolean checkpoint;
+
+    @Param({"jdbc:h2:mem:mbDB;DB_CLOSE_DELAY=-1;"
+            + "INIT=RUNSCRIPT FROM '../launcher/src/main/resources/dbscripts/h2-mb.sql'"})
+    public String jdbcUrl;
+
+    @Param({""})
+    public String user;
+
+    @Param({""})
+    public String password;
+
+    @Param({"10000"})
+    public int pageSize;
+
+    private HikariDataSource dataSource;
+
+    private Path checkpointDirectory;
+
+    private Object checkpointFileKey;
+
+    /**
+     * Message ids created after the stored messages, used as the boundaries of the checkpoints.
+     */
+    private final AtomicLong messageIdGenerator = new AtomicLong();
+
+    @Setup
+    public void setup() throws Exception {
+        HikariConfig dataSourceConfig = new HikariConfig();
+        dataSourceConfig.setJdbcUrl(jdbcUrl);
+        dataSourceConfig.setUsername(user);
+        dataSourceConfig.setPassword(password);
+        dataSourceConfig.setAutoCommit(false);
+        dataSource = new HikariDataSource(dataSourceConfig);
+        storeMessages();
+        messageIdGenerator.set(messageCount);
+
+        checkpointDirectory = Files.createTempDirectory("queue-index-checkpoint");
+        if (checkpoint) {
+            // The first recovery reads all the messages from the database and writes the initial checkpoint
+            beforeIteration();
+            recover();
+            afterIteration();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        dataSource.close();
+        try (Stream<Path> files = Files.walk(checkpointDirectory)) {
+            files.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void beforeIteration() throws IOException {
+        checkpointFileKey = getCheckpointFileKey();
+    }
+
+    /**
+     * Wait for the checkpoint written in the background after recovery so that it does not overlap the next
+     * recovery.
+     */
+    @TearDown(Level.Iteration)
+    public void afterIteration() throws IOException, InterruptedException {
+        if (!checkpoint) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + CHECKPOINT_WAIT_MILLIS;
+        while (Objects.equals(checkpointFileKey, getCheckpointFileKey())) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("Queue index checkpoint was not written in " + checkpointDirectory);
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    @Benchmark
+    public long recover() throws DaoException {
+        DaoFactory daoFactory = new DaoFactory(dataSource, new NullBrokerMetricManager());
+        MessageDao messageDao;
+        if (checkpoint) {
+            // Periodic checkpoints are not taken during the benchmark
+            messageDao = daoFactory.createCheckpointedMessageDao(0, checkpointDirectory, TimeUnit.DAYS.toSeconds(1),
+                                                                 pageSize, messageIdGenerator::incrementAndGet);
+        } else {
+            messageDao = daoFactory.createMessageDao(0);
+        }
+
+        long recoveredMessageCount = 0;
+        for (int i = 0; i < queueCount; i++) {
+            String queueName = QUEUE_NAME_PREFIX + i;
+            StoredMessageRange storedMessageRange = messageDao.getStoredMessageRange(queueName);
+            long lastRecoveredMessageId = 0;
+            while (lastRecoveredMessageId < storedMessageRange.getLastMessageId()) {
+                Collection<Message> messages = messageDao.readPage(queueName, lastRecoveredMessageId,
+                                                                   storedMessageRange.getLastMessageId(), pageSize);
+                if (messages.isEmpty()) {
+                    break;
+                }
+                for (Message message : messages) {
+                    lastRecoveredMessageId = message.getInternalId();
+                }
+                recoveredMessageCount += messages.size();
+            }
+        }
+        if (recoveredMessageCount != messageCount) {
+            throw new IllegalStateException("Recovered " + recoveredMessageCount + " of " + messageCount
+                                                    + " stored messages");
+        }
+        return recoveredMessageCount;
+    }
+
+    /**
+     * The checkpoint file is replaced on each write, which changes its file key.
+     */
+    private Object getCheckpointFileKey() throws IOException {
+        Path checkpointFile = checkpointDirectory.resolve("queue-index.checkpoint");
+        if (Files.notExists(checkpointFile)) {
+            return null;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(checkpointFile, BasicFileAttributes.class);
+        return attributes.lastModifiedTime() + ":" + attributes.fileKey();
+    }
+
+    /**
+     * Store messages with ids starting from 1, spread over the queues in round robin.
+     */
+    private void storeMessages() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM MB_QUEUE_METADATA WHERE QUEUE_NAME LIKE '"
+                                                + QUEUE_NAME_PREFIX + "%'");
+                statement.executeUpdate("DELETE FROM MB_METADATA");
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO MB_QUEUE_METADATA (QUEUE_NAME, QUEUE_ARGUMENTS) VALUES (?, ?)")) {
+                for (int i = 0; i < queueCount; i++) {
+                    statement.setString(1, QUEUE_NAME_PREFIX + i);
+                    statement.setBytes(2, new byte[0]);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            connection.commit();
+
+            try (PreparedStatement metadataStatement = connection.prepareStatement(
+                    "INSERT INTO MB_METADATA (MESSAGE_ID, EXCHANGE_NAME, ROUTING_KEY, CONTENT_LENGTH, "
+                            + "MESSAGE_METADATA) VALUES (?, ?, ?, ?, ?)");
+                 PreparedStatement mappingStatement = connection.prepareStatement(
+                         "INSERT INTO MB_QUEUE_MAPPING (MESSAGE_ID, QUEUE_NAME) VALUES (?, ?)")) {
+                for (long messageId = 1; messageId <= messageCount; messageId++) {
+                    String queueName = QUEUE_NAME_PREFIX + (messageId % queueCount);
+                    metadataStatement.setLong(1, messageId);
+                    metadataStatement.setString(2, "amq.direct");
+                    metadataStatement.setString(3, queueName);
+                    metadataStatement.setLong(4, 0);
+                    metadataStatement.setBytes(5, new byte[0]);
+                    metadataStatement.addBatch();
+                    mappingStatement.setLong(1, messageId);
+                    mappingStatement.setString(2, queueName);
+                    mappingStatement.addBatch();
+                    if (messageId % INSERT_BATCH_SIZE == 0 || messageId == messageCount) {
+                        metadataStatement.executeBatch();
+                        mappingStatement.executeBatch();
+                        connection.commit();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -18,11 +18,14 @@
  */
 package io.ballerina.messaging.broker.client.cmd.impl.create;
 
+import com.beust.jcommander.DynamicParameter;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
 import io.ballerina.messaging.broker.client.resources.Binding;
 import io.ballerina.messaging.broker.client.utils.Constants;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -48,6 +51,11 @@ public class CreateBindingCmd extends CreateCmd {
                description = "filter expression")
     private String filterExpression = "";
 
+    @DynamicParameter(names = { "--argument", "-A" },
+                      description = "binding argument in the form key=value, matched against message headers by "
+                              + "headers exchanges")
+    private Map<String, String> arguments = new HashMap<>();
+
     public CreateBindingCmd(String rootCommand) {
         super(rootCommand, "Binding created successfully");
     }
@@ -64,6 +72,7 @@ public class CreateBindingCmd extends CreateCmd {
         }
 
         Binding binding = new Binding(queueName, bindingPattern, exchangeName, filterExpression);
+        binding.setArguments(arguments);
 
         performResourceCreationOverHttp(
                 Constants.QUEUES_URL_PARAM + binding.getQueueName() + Constants.BINDINGS_URL_PARAM,
@@ -34,7 +34,7 @@ public class CreateExchangeCmd extends CreateCmd {
     private String exchangeName;
 
     @Parameter(names = { "--type", "-t" },
-               description = "type of the exchange")
+               description = "type of the exchange (direct, topic, fanout, headers or x-consistent-hash)")
     private String type = "direct";
 
     @Parameter(names = { "--durable", "-d" },
@@ -20,6 +20,9 @@ package io.ballerina.messaging.broker.client.resources;
 
 import com.google.gson.JsonObject;
 
+import java.util.Collections;
+import java.util.Map;
+
 /**
  * Representation of binding in the broker.
  */
@@ -29,6 +32,7 @@ public class Binding {
     public static final String EXCHANGE_NAME = "exchangeName";
     public static final String QUEUE_NAME = "queueName";
     public static final String FILTER_EXPRESSION = "filterExpression";
+    public static final String ARGUMENTS = "arguments";
 
     private String queueName;
 
@@ -38,6 +42,8 @@ public class Binding {
 
     private String filterExpression;
 
+    private Map<String, String> arguments = Collections.emptyMap();
+
     public Binding(String queueName, String bindingPattern, String exchangeName, String filterExpression) {
         this.queueName = queueName;
         this.bindingPattern = bindingPattern;
@@ -77,11 +83,24 @@ public class Binding {
         this.filterExpression = filterExpression;
     }
 
+    public Map<String, String> getArguments() {
+        return arguments;
+    }
+
+    public void setArguments(Map<String, String> arguments) {
+        this.arguments = arguments;
+    }
+
     public String getAsJsonString() {
         JsonObject jsonObject = new JsonObject();
         jsonObject.addProperty(BINDING_PATTERN, bindingPattern);
         jsonObject.addProperty(EXCHANGE_NAME, exchangeName);
         jsonObject.addProperty(FILTER_EXPRESSION, filterExpression);
+        if (!arguments.isEmpty()) {
+            JsonObject argumentsObject = new JsonObject();
+            arguments.forEach(argumentsObject::addProperty);
+            jsonObject.add(ARGUMENTS, argumentsObject);
+        }
         return jsonObject.toString();
     }
 }
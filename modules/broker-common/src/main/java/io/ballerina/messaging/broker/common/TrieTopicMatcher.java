@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Topic matcher which keeps the subscribed patterns in a trie of pattern words. A publish walks down the trie
+ * following the exact word, the single word wildcard ({@code *}) and the multiple word wildcard ({@code #}) children
+ * of each node, hence the cost of matching depends on the depth of the topic and not on the number of patterns.
+ * <p>
+ * Consecutive multiple word wildcards match the same topics as a single one and share the path of a single wildcard
+ * in the trie. Below a multiple word wildcard a node can be reached at the same word of the topic in more than one
+ * way. Each node is matched only once for each word of the topic, so that the patterns are reported once and the
+ * cost of a match stays polynomial in the depth of the topic.
+ * <p>
+ * Matching is lock free and does not allocate in the steady state. Words of the topic are looked up as character
+ * ranges of the topic name. Adding and removing patterns are serialized and touch only the nodes along the path of
+ * the pattern. Readers concurrent to an update see the trie either before or after the update.
+ */
+public class TrieTopicMatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrieTopicMatcher.class);
+
+    private static final char DELIMITER = '.';
+
+    private static final String SINGLE_WORD_WILDCARD = "*";
+
+    private static final String MULTIPLE_WORD_WILDCARD = "#";
+
+    private static final String[] NO_PATTERNS = new String[0];
+
+    private static final AtomicInteger NODE_IDS = new AtomicInteger();
+
+    private static final ThreadLocal<VisitedSet> VISITED_NODES = ThreadLocal.withInitial(VisitedSet::new);
+
+    private final Node root = new Node(null, null);
+
+    /**
+     * Add a subscribed topic pattern. Adding an existing pattern has no effect.
+     *
+     * @param topicPattern topic pattern
+     */
+    public synchronized void add(String topicPattern) {
+        Node node = root;
+        int start = 0;
+        while (start <= topicPattern.length()) {
+            int end = wordEnd(topicPattern, start);
+            if (!isRepeatedWildcard(node, topicPattern, start, end)) {
+                String word = topicPattern.substring(start, end);
+                Node child = node.getChild(word);
+                if (Objects.isNull(child)) {
+                    child = node.addChild(word);
+                }
+                node = child;
+            }
+            start = end + 1;
+        }
+        node.addPattern(topicPattern);
+    }
+
+    /**
+     * Remove a subscribed topic pattern.
+     *
+     * @param topicPattern topic pattern
+     */
+    public synchronized void remove(String topicPattern) {
+        Node node = root;
+        int start = 0;
+        while (Objects.nonNull(node) && start <= topicPattern.length()) {
+            int end = wordEnd(topicPattern, start);
+            if (!isRepeatedWildcard(node, topicPattern, start, end)) {
+                node = node.getChild(topicPattern.substring(start, end));
+            }
+            start = end + 1;
+        }
+
+        if (Objects.isNull(node) || !node.removePattern(topicPattern)) {
+            LOGGER.debug("Topic pattern {} not found.", topicPattern);
+            return;
+        }
+
+        // Prune the nodes which no longer lead to a pattern
+        while (node != root && node.isEmpty()) {
+            node.parent.removeChild(node);
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Check whether a word of a pattern is a multiple word wildcard following another one, which is skipped.
+     */
+    private static boolean isRepeatedWildcard(Node node, String topicPattern, int start, int end) {
+        return end - start == 1 && topicPattern.startsWith(MULTIPLE_WORD_WILDCARD, start)
+                && MULTIPLE_WORD_WILDCARD.equals(node.word);
+    }
+
+    /**
+     * Method to retrieve matching bindings. Each matching pattern is passed to the consumer once.
+     *
+     * @param topicName               the topic name to match against
+     * @param matchedPatternsConsumer the consumer implementation accepting matches
+     */
+    public void matchingBindings(String topicName, Consumer<String> matchedPatternsConsumer) {
+        if (topicName.isEmpty()) {
+            return;
+        }
+        VisitedSet visitedNodes = VISITED_NODES.get();
+        visitedNodes.clear();
+        match(root, topicName, 0, matchedPatternsConsumer, visitedNodes, false);
+    }
+
+    /**
+     * Check whether a topic pattern matches a topic name, following the same rules as the matcher.
+     *
+     * @param topicPattern topic pattern
+     * @param topicName    topic name
+     * @return true if the pattern matches the topic
+     */
+    public static boolean isMatch(String topicPattern, String topicName) {
+        return !topicName.isEmpty() && isMatch(topicPattern, 0, topicName, 0);
+    }
+
+    private static boolean isMatch(String pattern, int patternStart, String topic, int topicStart) {
+        if (patternStart > pattern.length()) {
+            return topicStart > topic.length();
+        }
+
+        int patternEnd = wordEnd(pattern, patternStart);
+        int wordLength = patternEnd - patternStart;
+        if (pattern.startsWith(MULTIPLE_WORD_WILDCARD, patternStart) && wordLength == 1) {
+            // Consecutive multiple word wildcards match the same as a single one
+            while (pattern.startsWith(MULTIPLE_WORD_WILDCARD + DELIMITER + MULTIPLE_WORD_WILDCARD, patternStart)
+                    && wordEnd(pattern, patternStart + 2) == patternStart + 3) {
+                patternStart += 2;
+                patternEnd += 2;
+            }
+            int nextStart = topicStart;
+            while (nextStart <= topic.length()) {
+                if (isMatch(pattern, patternEnd + 1, topic, nextStart)) {
+                    return true;
+                }
+                nextStart = wordEnd(topic, nextStart) + 1;
+            }
+            return isMatch(pattern, patternEnd + 1, topic, nextStart);
+        }
+
+        if (topicStart > topic.length()) {
+            return false;
+        }
+        int topicEnd = wordEnd(topic, topicStart);
+        boolean wordMatches = (pattern.startsWith(SINGLE_WORD_WILDCARD, patternStart) && wordLength == 1)
+                || (topicEnd - topicStart == wordLength
+                && topic.regionMatches(topicStart, pattern, patternStart, wordLength));
+        return wordMatches && isMatch(pattern, patternEnd + 1, topic, topicEnd + 1);
+    }
+
+    /**
+     * Match the words of the topic starting from the given index against the sub trie.
+     *
+     * @param node            root of the sub trie
+     * @param topic           topic name
+     * @param start           start index of the next word. A value larger than the topic length means no words are
+     *                        left
+     * @param consumer        the consumer implementation accepting matches
+     * @param visitedNodes    nodes matched so far below a multiple word wildcard with the index they were matched at
+     * @param belowWildcard   true if a multiple word wildcard is on the path to the node, in which case the node might
+     *                        be reached again at the same index
+     */
+    private static void match(Node node, String topic, int start, Consumer<String> consumer,
+                              VisitedSet visitedNodes, boolean belowWildcard) {
+        if (belowWildcard && !visitedNodes.add(((long) node.id << 32) | start)) {
+            return;
+        }
+
+        Node multipleWordsChild = node.multipleWordsChild;
+        if (start > topic.length()) {
+            for (String pattern : node.patterns) {
+                consumer.accept(pattern);
+            }
+            if (Objects.nonNull(multipleWordsChild)) {
+                match(multipleWordsChild, topic, start, consumer, visitedNodes, true);
+            }
+            return;
+        }
+
+        int end = wordEnd(topic, start);
+        Node child = node.findChild(topic, start, end);
+        if (Objects.nonNull(child)) {
+            match(child, topic, end + 1, consumer, visitedNodes, belowWildcard);
+        }
+
+        Node singleWordChild = node.singleWordChild;
+        if (Objects.nonNull(singleWordChild)) {
+            match(singleWordChild, topic, end + 1, consumer, visitedNodes, belowWildcard);
+        }
+
+        if (Objects.nonNull(multipleWordsChild)) {
+            // The wildcard can consume any number of the remaining words, including none
+            int nextStart = start;
+            while (nextStart <= topic.length()) {
+                match(multipleWordsChild, topic, nextStart, consumer, visitedNodes, true);
+                nextStart = wordEnd(topic, nextStart) + 1;
+            }
+            match(multipleWordsChild, topic, nextStart, consumer, visitedNodes, true);
+        }
+    }
+
+    private static int wordEnd(String topic, int start) {
+        int end = topic.indexOf(DELIMITER, start);
+        return end == -1 ? topic.length() : end;
+    }
+
+    /**
+     * Trie node representing a word of the subscribed patterns. Exact word children are kept in an open addressing
+     * hash table. Removed children are replaced with a tombstone instead of shifting the entries that follow, so that
+     * a concurrent lookup never misses an entry. The table is rebuilt when tombstones accumulate.
+     */
+    private static final class Node {
+
+        private static final int INITIAL_CAPACITY = 4;
+
+        private static final Node TOMBSTONE = new Node(null, null);
+
+        private final int id = NODE_IDS.incrementAndGet();
+
+        private final String word;
+
+        private final Node parent;
+
+        /**
+         * Patterns ending at this node. Patterns differing only in repeated multiple word wildcards end at the same
+         * node. Replaced on each update.
+         */
+        private volatile String[] patterns = NO_PATTERNS;
+
+        private volatile Node singleWordChild;
+
+        private volatile Node multipleWordsChild;
+
+        private volatile AtomicReferenceArray<Node> children;
+
+        /**
+         * Number of exact word children. Accessed only by writers.
+         */
+        private int childCount;
+
+        /**
+         * Number of table slots holding either a child or a tombstone. Accessed only by writers.
+         */
+        private int usedSlots;
+
+        Node(String word, Node parent) {
+            this.word = word;
+            this.parent = parent;
+        }
+
+        void addPattern(String pattern) {
+            String[] currentPatterns = patterns;
+            if (!Arrays.asList(currentPatterns).contains(pattern)) {
+                String[] newPatterns = Arrays.copyOf(currentPatterns, currentPatterns.length + 1);
+                newPatterns[currentPatterns.length] = pattern;
+                patterns = newPatterns;
+            }
+        }
+
+        /**
+         * Remove a pattern ending at this node.
+         *
+         * @return true if the pattern was found
+         */
+        boolean removePattern(String pattern) {
+            String[] currentPatterns = patterns;
+            int index = Arrays.asList(currentPatterns).indexOf(pattern);
+            if (index < 0) {
+                return false;
+            }
+            String[] newPatterns = new String[currentPatterns.length - 1];
+            System.arraycopy(currentPatterns, 0, newPatterns, 0, index);
+            System.arraycopy(currentPatterns, index + 1, newPatterns, index, newPatterns.length - index);
+            patterns = newPatterns;
+            return true;
+        }
+
+        boolean isEmpty() {
+            return patterns.length == 0 && childCount == 0
+                    && Objects.isNull(singleWordChild) && Objects.isNull(multipleWordsChild);
+        }
+
+        Node getChild(String childWord) {
+            if (SINGLE_WORD_WILDCARD.equals(childWord)) {
+                return singleWordChild;
+            } else if (MULTIPLE_WORD_WILDCARD.equals(childWord)) {
+                return multipleWordsChild;
+            }
+            return findChild(childWord, 0, childWord.length());
+        }
+
+        /**
+         * Find the exact word child matching the given range of the text.
+         */
+        Node findChild(String text, int start, int end) {
+            AtomicReferenceArray<Node> table = children;
+            if (Objects.isNull(table)) {
+                return null;
+            }
+
+            int length = end - start;
+            int mask = table.length() - 1;
+            int index = spread(hash(text, start, end)) & mask;
+            Node child;
+            while ((child = table.get(index)) != null) {
+                if (child != TOMBSTONE && child.word.length() == length
+                        && text.regionMatches(start, child.word, 0, length)) {
+                    return child;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Add a child for a word which is not already a child of the node.
+         */
+        Node addChild(String childWord) {
+            Node child = new Node(childWord, this);
+            if (SINGLE_WORD_WILDCARD.equals(childWord)) {
+                singleWordChild = child;
+                return child;
+            } else if (MULTIPLE_WORD_WILDCARD.equals(childWord)) {
+                multipleWordsChild = child;
+                return child;
+            }
+
+            AtomicReferenceArray<Node> table = children;
+            if (Objects.isNull(table)) {
+                table = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+                children = table;
+            } else if ((usedSlots + 1) * 2 > table.length()) {
+                table = rebuild(childCount + 1);
+            }
+
+            int mask = table.length() - 1;
+            int index = spread(childWord.hashCode()) & mask;
+            Node existing;
+            while ((existing = table.get(index)) != null && existing != TOMBSTONE) {
+                index = (index + 1) & mask;
+            }
+            if (existing == null) {
+                usedSlots++;
+            }
+            table.set(index, child);
+            childCount++;
+            return child;
+        }
+
+        void removeChild(Node child) {
+            if (child == singleWordChild) {
+                singleWordChild = null;
+                return;
+            } else if (child == multipleWordsChild) {
+                multipleWordsChild = null;
+                return;
+            }
+
+            AtomicReferenceArray<Node> table = children;
+            int mask = table.length() - 1;
+            int index = spread(child.word.hashCode()) & mask;
+            while (table.get(index) != child) {
+                index = (index + 1) & mask;
+            }
+            table.set(index, TOMBSTONE);
+            childCount--;
+
+            if (childCount == 0) {
+                children = null;
+                usedSlots = 0;
+            } else if (usedSlots > childCount * 4) {
+                rebuild(childCount);
+            }
+        }
+
+        /**
+         * Copy the children to a new table sized for the expected number of children and publish it.
+         */
+        private AtomicReferenceArray<Node> rebuild(int expectedChildren) {
+            AtomicReferenceArray<Node> oldTable = children;
+            int capacity = INITIAL_CAPACITY;
+            while (capacity < expectedChildren * 4) {
+                capacity <<= 1;
+            }
+
+            AtomicReferenceArray<Node> newTable = new AtomicReferenceArray<>(capacity);
+            int mask = capacity - 1;
+            for (int i = 0; i < oldTable.length(); i++) {
+                Node child = oldTable.get(i);
+                if (child != null && child != TOMBSTONE) {
+                    int index = spread(child.word.hashCode()) & mask;
+                    while (newTable.get(index) != null) {
+                        index = (index + 1) & mask;
+                    }
+                    newTable.set(index, child);
+                }
+            }
+            usedSlots = childCount;
+            children = newTable;
+            return newTable;
+        }
+
+        /**
+         * Mix the high order bits into the low order bits used to index the table.
+         */
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        /**
+         * Same as the {@link String#hashCode()} of the substring, computed without creating the substring.
+         */
+        private static int hash(String text, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            return hash;
+        }
+    }
+
+    /**
+     * Set of node and topic index pairs visited by a match. Entries of earlier matches are invalidated by advancing
+     * the stamp instead of clearing the table, so that a set reused by a thread is cleared in constant time.
+     */
+    private static final class VisitedSet {
+
+        private static final int INITIAL_CAPACITY = 64;
+
+        private long[] keys = new long[INITIAL_CAPACITY];
+
+        private int[] stamps = new int[INITIAL_CAPACITY];
+
+        private int stamp = 1;
+
+        private int size;
+
+        void clear() {
+            size = 0;
+            stamp++;
+            if (stamp == 0) {
+                Arrays.fill(stamps, 0);
+                stamp = 1;
+            }
+        }
+
+        /**
+         * Add a key to the set.
+         *
+         * @return false if the key is already in the set
+         */
+        boolean add(long key) {
+            if ((size + 1) * 2 > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int index = mix(key) & mask;
+            while (stamps[index] == stamp) {
+                if (keys[index] == key) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            stamps[index] = stamp;
+            size++;
+            return true;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            int[] oldStamps = stamps;
+            keys = new long[oldKeys.length * 2];
+            stamps = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldStamps[i] == stamp) {
+                    int index = mix(oldKeys[i]) & mask;
+                    while (stamps[index] == stamp) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = oldKeys[i];
+                    stamps[index] = stamp;
+                }
+            }
+        }
+
+        private static int mix(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
@@ -57,10 +57,18 @@ public class Boolean implements EncodableData {
         return (obj instanceof Boolean) && (value == ((Boolean) obj).value);
     }
 
+    public boolean getBoolean() {
+        return value != 0;
+    }
+
     public static Boolean parse(ByteBuf buf) {
         return new Boolean(buf.readByte());
     }
 
+    public static Boolean parse(boolean value) {
+        return new Boolean((byte) (value ? 1 : 0));
+    }
+
     @Override
     public String toString() {
         return (value == 0) ? "false" : "true";
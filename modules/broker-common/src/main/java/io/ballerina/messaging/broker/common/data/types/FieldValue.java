@@ -45,6 +45,8 @@ import io.netty.buffer.ByteBuf;
  */
 public class FieldValue implements EncodableData {
 
+    private static final FieldValue VOID_VALUE = new FieldValue(Type.VOID, new VoidData());
+
     private final Type type;
 
     private final EncodableData value;
@@ -62,7 +64,8 @@ public class FieldValue implements EncodableData {
         LONG_STRING('S'),
         LONG_INT('I'),
         LONG_LONG_INT('L'),
-        FIELD_TABLE('F');
+        FIELD_TABLE('F'),
+        VOID('V');
 
         private final char type;
 
@@ -96,6 +99,8 @@ public class FieldValue implements EncodableData {
                     return LONG_LONG_INT;
                 case 'F':
                     return FIELD_TABLE;
+                case 'V':
+                    return VOID;
                 default:
                     throw new Exception("Unknown field table data type. Char value: '" + value + "'");
             }
@@ -141,8 +146,12 @@ public class FieldValue implements EncodableData {
                 return FieldValue.parseShortString(ShortString.parse(buf));
             case SHORT_SHORT_INT:
                 return parseShortShortInt(ShortShortInt.parse(buf));
+            case SHORT_INT:
+                return parseShortInt(ShortInt.parse(buf));
             case FIELD_TABLE:
                 return FieldValue.parseFieldTable(FieldTable.parse(buf));
+            case VOID:
+                return VOID_VALUE;
             default:
                 throw new Exception("Unsupported AMQP field value type " + type);
         }
@@ -192,6 +201,14 @@ public class FieldValue implements EncodableData {
         return new FieldValue(Type.SHORT_SHORT_INT, value);
     }
 
+    public static FieldValue parseShortInt(short value) {
+        return parseShortInt(ShortInt.parse(value));
+    }
+
+    public static FieldValue parseShortInt(ShortInt value) {
+        return new FieldValue(Type.SHORT_INT, value);
+    }
+
     public static FieldValue parseLongLongInt(long value) {
         return new FieldValue(Type.LONG_LONG_INT, LongLongInt.parse(value));
     }
@@ -204,6 +221,13 @@ public class FieldValue implements EncodableData {
         return new FieldValue(Type.FIELD_TABLE, fieldTable);
     }
 
+    /**
+     * Get the void field value, which carries no data.
+     */
+    public static FieldValue parseVoid() {
+        return VOID_VALUE;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -224,4 +248,35 @@ public class FieldValue implements EncodableData {
     public String toString() {
         return value.toString();
     }
+
+    /**
+     * Data of the void field value.
+     */
+    private static final class VoidData implements EncodableData {
+
+        @Override
+        public long getSize() {
+            return 0L;
+        }
+
+        @Override
+        public void write(ByteBuf buf) {
+            // Void values have no data
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof VoidData;
+        }
+
+        @Override
+        public String toString() {
+            return "";
+        }
+    }
 }
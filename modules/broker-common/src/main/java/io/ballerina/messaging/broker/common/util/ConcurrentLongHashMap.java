@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Thread safe hash map with primitive long keys.
+ * <p>
+ * Keys are neither boxed nor wrapped in entry objects. The map is split into a fixed number of segments, each
+ * guarded by its own monitor. A segment stores keys and values in two arrays using open addressing with linear
+ * probing. Removals shift the following entries back instead of leaving tombstones. Hence adding and removing
+ * entries does not allocate unless a segment needs to be resized.
+ *
+ * @param <V> type of the values. Null values are not permitted
+ */
+public class ConcurrentLongHashMap<V> {
+
+    private static final int DEFAULT_EXPECTED_SIZE = 256;
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static final int MINIMUM_SEGMENT_CAPACITY = 4;
+
+    private final Segment<V>[] segments;
+
+    /**
+     * Mask applied on the high order hash bits to select the segment. Low order bits select the slot within the
+     * segment.
+     */
+    private final int segmentMask;
+
+    public ConcurrentLongHashMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Create a map.
+     *
+     * @param expectedSize     number of entries the map is expected to hold without resizing
+     * @param concurrencyLevel number of threads expected to update the map concurrently
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongHashMap(int expectedSize, int concurrencyLevel) {
+        if (expectedSize < 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("Invalid map size " + expectedSize + " or concurrency level "
+                                                       + concurrencyLevel);
+        }
+
+        int segmentCount = nextPowerOfTwo(concurrencyLevel);
+        segments = new Segment[segmentCount];
+        segmentMask = segmentCount - 1;
+
+        // Segments are kept at most half full
+        int segmentCapacity = Math.max(MINIMUM_SEGMENT_CAPACITY, nextPowerOfTwo(expectedSize * 2 / segmentCount));
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+    }
+
+    /**
+     * Get the value mapped to the key.
+     *
+     * @param key key
+     * @return the mapped value or null if there is no mapping for the key
+     */
+    public V get(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).get(key, (int) hash);
+    }
+
+    /**
+     * Map the value to the key replacing any existing mapping.
+     *
+     * @param key   key
+     * @param value value to map
+     * @return previously mapped value or null if the key was not mapped
+     */
+    public V put(long key, V value) {
+        Objects.requireNonNull(value, "Null values are not supported");
+        long hash = hash(key);
+        return segmentFor(hash).put(key, value, (int) hash);
+    }
+
+    /**
+     * Remove the mapping for the key.
+     *
+     * @param key key
+     * @return removed value or null if the key was not mapped
+     */
+    public V remove(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, (int) hash);
+    }
+
+    /**
+     * Number of mappings in the map. The value can be stale if the map is updated concurrently.
+     *
+     * @return number of mappings
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Copy of the values in the map. Each segment is copied atomically, but updates to other segments made while
+     * copying may or may not be reflected in the result.
+     *
+     * @return list of values
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>(size());
+        for (Segment<V> segment : segments) {
+            segment.copyValuesTo(values);
+        }
+        return values;
+    }
+
+    /**
+     * Remove all the mappings.
+     */
+    public void clear() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return segments[(int) (hash >>> 32) & segmentMask];
+    }
+
+    /**
+     * Spread the key bits since message IDs and similar keys differ mostly in a few bit ranges. This is the
+     * finalization step of the MurmurHash3 64 bit hash.
+     */
+    private static long hash(long key) {
+        long hash = key;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        if (value <= 1) {
+            return 1;
+        }
+        int highestOneBit = Integer.highestOneBit(value - 1) << 1;
+        if (highestOneBit <= 0) {
+            throw new IllegalArgumentException("Value is too large " + value);
+        }
+        return highestOneBit;
+    }
+
+    /**
+     * Open addressing hash table holding a part of the map. A slot is empty when its value is null.
+     *
+     * @param <V> type of the values
+     */
+    private static final class Segment<V> {
+
+        private final int initialCapacity;
+
+        private long[] keys;
+
+        private Object[] values;
+
+        /**
+         * Read without holding the lock by {@link ConcurrentLongHashMap#size()}.
+         */
+        private volatile int size;
+
+        Segment(int capacity) {
+            initialCapacity = capacity;
+            keys = new long[capacity];
+            values = new Object[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V get(long key, int hash) {
+            int mask = keys.length - 1;
+            int index = hash & mask;
+            Object value;
+            while ((value = values[index]) != null) {
+                if (keys[index] == key) {
+                    return (V) value;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V put(long key, V value, int hash) {
+            int mask = keys.length - 1;
+            int index = hash & mask;
+            Object existing;
+            while ((existing = values[index]) != null) {
+                if (keys[index] == key) {
+                    values[index] = value;
+                    return (V) existing;
+                }
+                index = (index + 1) & mask;
+            }
+
+            keys[index] = key;
+            values[index] = value;
+            int newSize = size + 1;
+            size = newSize;
+            if (newSize > keys.length >>> 1) {
+                rehash(keys.length << 1);
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V remove(long key, int hash) {
+            int mask = keys.length - 1;
+            int index = hash & mask;
+            Object existing;
+            while ((existing = values[index]) != null) {
+                if (keys[index] == key) {
+                    shiftBack(index);
+                    int newSize = size - 1;
+                    size = newSize;
+                    if (keys.length > initialCapacity && newSize < keys.length >>> 3) {
+                        rehash(keys.length >>> 1);
+                    }
+                    return (V) existing;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        /**
+         * Empty the given slot and move back the entries of the same probe sequence which can no longer be reached
+         * through the emptied slot.
+         */
+        private void shiftBack(int emptiedIndex) {
+            int mask = keys.length - 1;
+            int gap = emptiedIndex;
+            int index = (gap + 1) & mask;
+            while (values[index] != null) {
+                int home = (int) hash(keys[index]) & mask;
+                // Move the entry if its home slot is not within the range (gap, index] considering the wrap around
+                if (((index - home) & mask) >= ((index - gap) & mask)) {
+                    keys[gap] = keys[index];
+                    values[gap] = values[index];
+                    gap = index;
+                }
+                index = (index + 1) & mask;
+            }
+            values[gap] = null;
+        }
+
+        private void rehash(int newCapacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new long[newCapacity];
+            values = new Object[newCapacity];
+            int mask = newCapacity - 1;
+            for (int i = 0; i < oldValues.length; i++) {
+                Object value = oldValues[i];
+                if (value != null) {
+                    int index = (int) hash(oldKeys[i]) & mask;
+                    while (values[index] != null) {
+                        index = (index + 1) & mask;
+                    }
+                    keys[index] = oldKeys[i];
+                    values[index] = value;
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void copyValuesTo(List<V> target) {
+            for (Object value : values) {
+                if (value != null) {
+                    target.add((V) value);
+                }
+            }
+        }
+
+        synchronized void clear() {
+            keys = new long[initialCapacity];
+            values = new Object[initialCapacity];
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.common;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for trie topic matcher.
+ */
+public class TrieTopicMatcherTest {
+
+    private TrieTopicMatcher topicMatcher;
+
+    @BeforeMethod
+    public void setUp() {
+        topicMatcher = new TrieTopicMatcher();
+    }
+
+    @DataProvider(name = "topicMatches")
+    public Object[][] topicMatches() {
+        return new Object[][] {
+                {"aa.bb.cc", "aa.bb.cc", true},
+                {"aa.bb.cc", "aa.bb", false},
+                {"aa.bb", "aa.bb.cc", false},
+                {"*.bb.*", "aa.bb.cc", true},
+                {"*.bb.*", "aa.bb", false},
+                {"*", "aa", true},
+                {"*", "aa.bb", false},
+                {"aa.#", "aa", true},
+                {"aa.#", "aa.bb.cc", true},
+                {"aa.#", "bb.aa", false},
+                {"#", "aa.bb.cc", true},
+                {"#.cc", "cc", true},
+                {"#.cc", "aa.bb.cc", true},
+                {"#.cc", "aa.cc.bb", false},
+                {"aa.#.cc", "aa.cc", true},
+                {"aa.#.cc", "aa.bb.dd.cc", true},
+                {"aa.#.cc", "aa.bb.dd", false},
+                {"aa.*.#", "aa", false},
+                {"aa.*.#", "aa.bb", true},
+                {"aa..cc", "aa..cc", true},
+                {"aa.*.cc", "aa..cc", true},
+                {"sports", "sports.cricket", false},
+                {"#.#", "aa", true},
+                {"aa.#.#.cc", "aa.cc", true},
+                {"aa.#.#.cc", "aa.bb.dd.cc", true},
+                {"aa.#.#.cc", "aa.bb.dd", false},
+        };
+    }
+
+    @Test(dataProvider = "topicMatches")
+    public void testTopicMatching(String pattern, String topic, boolean expectedMatch) {
+        topicMatcher.add(pattern);
+
+        Set<String> matchedPatterns = new HashSet<>();
+        topicMatcher.matchingBindings(topic, matchedPatterns::add);
+        Assert.assertEquals(matchedPatterns.contains(pattern), expectedMatch,
+                            "Unexpected match result for pattern " + pattern + " and topic " + topic);
+        Assert.assertEquals(TrieTopicMatcher.isMatch(pattern, topic), expectedMatch,
+                            "Unexpected isMatch result for pattern " + pattern + " and topic " + topic);
+    }
+
+    @Test
+    public void testMultipleTopicMatching() {
+        String pattern1 = "aa.bb.cc";
+        String pattern2 = "*.bb.*";
+        String pattern3 = "aa.bb.*";
+        String pattern4 = "*.cc.*";
+        String pattern5 = "*.dd.#";
+        String pattern6 = "aa.bb.#";
+        String pattern7 = "aa.#";
+        String pattern8 = "aa.dd.kk.ll.*.rr.#";
+
+        for (String pattern : Arrays.asList(pattern1, pattern2, pattern3, pattern4, pattern5, pattern6, pattern7,
+                                            pattern8)) {
+            topicMatcher.add(pattern);
+        }
+
+        Assert.assertEquals(match("aa.bb.cc"),
+                            new HashSet<>(Arrays.asList(pattern1, pattern2, pattern3, pattern6, pattern7)));
+        Assert.assertEquals(match("aa.dd.kk.ll.kk.rr.ff.tt"),
+                            new HashSet<>(Arrays.asList(pattern5, pattern7, pattern8)));
+    }
+
+    @Test
+    public void testTopicRemoval() {
+        String pattern1 = "aa.bb.cc";
+        String pattern2 = "aa.bb";
+        String pattern3 = "aa.bb.*";
+
+        topicMatcher.add(pattern1);
+        topicMatcher.add(pattern2);
+        topicMatcher.add(pattern3);
+
+        topicMatcher.remove(pattern2);
+        Assert.assertTrue(match(pattern2).isEmpty(), "Removed pattern should not match");
+        Assert.assertEquals(match(pattern1), new HashSet<>(Arrays.asList(pattern1, pattern3)));
+
+        topicMatcher.remove(pattern1);
+        topicMatcher.remove(pattern3);
+        Assert.assertTrue(match(pattern1).isEmpty(), "No pattern should match");
+
+        // Removing a pattern which is not there is ignored
+        topicMatcher.remove("aa.bb.dd");
+        topicMatcher.add(pattern1);
+        Assert.assertEquals(match(pattern1), new HashSet<>(Arrays.asList(pattern1)));
+    }
+
+    @Test
+    public void testAddingExistingPattern() {
+        topicMatcher.add("aa.bb");
+        topicMatcher.add("aa.bb");
+
+        List<String> matchedPatterns = new ArrayList<>();
+        topicMatcher.matchingBindings("aa.bb", matchedPatterns::add);
+        Assert.assertEquals(matchedPatterns, Arrays.asList("aa.bb"));
+
+        topicMatcher.remove("aa.bb");
+        Assert.assertTrue(match("aa.bb").isEmpty());
+    }
+
+    @Test(timeOut = 5000, description = "Test patterns with many multiple word wildcards match deep topics once")
+    public void testMultipleWordWildcards() {
+        List<String> patterns = Arrays.asList("#.#.#.#", "aa.#", "aa.#.#", "#.*.#.*.#.*.#", "#.bb.#.bb.#");
+        patterns.forEach(topicMatcher::add);
+
+        StringBuilder topic = new StringBuilder("aa");
+        for (int i = 0; i < 40; i++) {
+            topic.append(".bb");
+        }
+        List<String> matchedPatterns = new ArrayList<>();
+        topicMatcher.matchingBindings(topic.toString(), matchedPatterns::add);
+        Assert.assertEquals(matchedPatterns.size(), patterns.size(), "Each pattern should match once");
+        Assert.assertEquals(new HashSet<>(matchedPatterns), new HashSet<>(patterns));
+        Assert.assertTrue(TrieTopicMatcher.isMatch("#.#.#.#", topic.toString()));
+
+        // Patterns sharing the path of a single wildcard are removed separately
+        topicMatcher.remove("aa.#.#");
+        Assert.assertEquals(match("aa.cc"), new HashSet<>(Arrays.asList("#.#.#.#", "aa.#")));
+    }
+
+    @Test
+    public void testManyPatternsWithBindChurn() {
+        Random random = new Random(42);
+        String[] words = {"aa", "bb", "cc", "dd", "ee", "*", "#"};
+        Set<String> patterns = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            String pattern = randomTopic(random, words) + "." + i % 200;
+            patterns.add(pattern);
+            topicMatcher.add(pattern);
+        }
+
+        // Remove half of the patterns to exercise table shrinking and node pruning
+        List<String> removedPatterns = new ArrayList<>();
+        for (String pattern : patterns) {
+            if (random.nextBoolean()) {
+                removedPatterns.add(pattern);
+                topicMatcher.remove(pattern);
+            }
+        }
+        patterns.removeAll(removedPatterns);
+
+        String[] topicWords = {"aa", "bb", "cc", "dd", "ee", "ff"};
+        for (int i = 0; i < 500; i++) {
+            String topic = randomTopic(random, topicWords) + "." + random.nextInt(200);
+            Set<String> expectedMatches = new HashSet<>();
+            for (String pattern : patterns) {
+                boolean expectedMatch = matches(pattern.split("\\.", -1), 0, topic.split("\\.", -1), 0);
+                Assert.assertEquals(TrieTopicMatcher.isMatch(pattern, topic), expectedMatch);
+                if (expectedMatch) {
+                    expectedMatches.add(pattern);
+                }
+            }
+            Assert.assertEquals(match(topic), expectedMatches, "Unexpected matches for topic " + topic);
+        }
+    }
+
+    private Set<String> match(String topic) {
+        Set<String> matchedPatterns = new HashSet<>();
+        topicMatcher.matchingBindings(topic, matchedPatterns::add);
+        return matchedPatterns;
+    }
+
+    private static String randomTopic(Random random, String[] words) {
+        int length = 1 + random.nextInt(4);
+        StringBuilder topic = new StringBuilder(words[random.nextInt(words.length)]);
+        for (int i = 1; i < length; i++) {
+            topic.append('.').append(words[random.nextInt(words.length)]);
+        }
+        return topic.toString();
+    }
+
+    /**
+     * Reference implementation of the AMQP topic matching rules.
+     */
+    private static boolean matches(String[] pattern, int patternIndex, String[] topic, int topicIndex) {
+        if (patternIndex == pattern.length) {
+            return topicIndex == topic.length;
+        }
+        if ("#".equals(pattern[patternIndex])) {
+            for (int i = topicIndex; i <= topic.length; i++) {
+                if (matches(pattern, patternIndex + 1, topic, i)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return topicIndex < topic.length
+                && ("*".equals(pattern[patternIndex]) || pattern[patternIndex].equals(topic[topicIndex]))
+                && matches(pattern, patternIndex + 1, topic, topicIndex + 1);
+    }
+}
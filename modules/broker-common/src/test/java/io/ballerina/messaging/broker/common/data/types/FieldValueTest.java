@@ -53,6 +53,28 @@ public class FieldValueTest {
         Assert.assertEquals(parsedValue, testValue, "Encoding and decoding should result in the same object");
     }
 
+    @Test
+    public void testWriteShortInt() throws Exception {
+        FieldValue testValue = FieldValue.parseShortInt((short) -300);
+        ByteBuf buf = Unpooled.buffer(3);
+        testValue.write(buf);
+
+        Assert.assertEquals(testValue.getSize(), 1 + 2);
+        FieldValue parsedValue = FieldValue.parse(buf);
+        Assert.assertEquals(parsedValue, testValue, "Encoding and decoding should result in the same object");
+    }
+
+    @Test
+    public void testWriteVoid() throws Exception {
+        FieldValue testValue = FieldValue.parseVoid();
+        ByteBuf buf = Unpooled.buffer(1);
+        testValue.write(buf);
+
+        Assert.assertEquals(buf.readableBytes(), testValue.getSize(), "Void value should have only the type");
+        FieldValue parsedValue = FieldValue.parse(buf);
+        Assert.assertEquals(parsedValue, testValue, "Encoding and decoding should result in the same object");
+    }
+
 
     @Test
     public void testEquals() throws Exception {
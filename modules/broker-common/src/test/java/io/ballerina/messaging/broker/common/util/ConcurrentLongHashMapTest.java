@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.common.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConcurrentLongHashMapTest {
+
+    @Test
+    public void testPutGetAndRemove() {
+        ConcurrentLongHashMap<String> map = new ConcurrentLongHashMap<>(4, 1);
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.put(1, "one"));
+        Assert.assertNull(map.put(-1, "minus one"));
+        Assert.assertNull(map.put(Long.MAX_VALUE, "max"));
+        Assert.assertNull(map.put(0, "zero"));
+
+        Assert.assertEquals(map.put(1, "uno"), "one", "Previous value should be returned when replacing");
+        Assert.assertEquals(map.size(), 4);
+        Assert.assertEquals(map.get(1), "uno");
+        Assert.assertEquals(map.get(-1), "minus one");
+        Assert.assertEquals(map.get(Long.MAX_VALUE), "max");
+        Assert.assertEquals(map.get(0), "zero");
+        Assert.assertNull(map.get(2));
+
+        Assert.assertEquals(map.remove(-1), "minus one");
+        Assert.assertNull(map.remove(-1), "Removing a missing key should return null");
+        Assert.assertNull(map.get(-1));
+        Assert.assertEquals(map.size(), 3);
+
+        map.clear();
+        Assert.assertTrue(map.isEmpty());
+        Assert.assertNull(map.get(1));
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<>(8, 4);
+        Map<Long, Long> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Small key range to get a lot of collisions, removals from probe sequences and resizing in both directions
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(i < 100_000 ? 5000 : 50);
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(map.remove(key), expected.remove(key), "Removed value mismatch for " + key);
+            } else {
+                Assert.assertEquals(map.put(key, (long) i), expected.put(key, (long) i),
+                                    "Replaced value mismatch for " + key);
+            }
+        }
+
+        Assert.assertEquals(map.size(), expected.size());
+        for (long key = 0; key < 5000; key++) {
+            Assert.assertEquals(map.get(key), expected.get(key), "Value mismatch for " + key);
+        }
+        Assert.assertEquals(map.values().size(), expected.size());
+        Assert.assertTrue(map.values().containsAll(expected.values()));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        ConcurrentLongHashMap<Long> map = new ConcurrentLongHashMap<>();
+        int threadCount = 4;
+        int keysPerThread = 20_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threadCount; thread++) {
+                long firstKey = (long) thread * keysPerThread;
+                futures.add(executorService.submit(() -> {
+                    for (long key = firstKey; key < firstKey + keysPerThread; key++) {
+                        map.put(key, key);
+                    }
+                    // Remove every other key added by this thread
+                    for (long key = firstKey; key < firstKey + keysPerThread; key += 2) {
+                        Assert.assertEquals(map.remove(key), Long.valueOf(key));
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Assert.assertEquals(map.size(), threadCount * keysPerThread / 2);
+        for (long key = 0; key < threadCount * keysPerThread; key++) {
+            if (key % 2 == 0) {
+                Assert.assertNull(map.get(key));
+            } else {
+                Assert.assertEquals(map.get(key), Long.valueOf(key));
+            }
+        }
+    }
+}
@@ -22,6 +22,8 @@ package io.ballerina.messaging.broker.core.rest.model;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.annotations.ApiModelProperty;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Objects;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
@@ -32,6 +34,7 @@ public class BindingCreateRequest {
   private @Valid String bindingPattern = null;
   private @Valid String exchangeName = null;
   private @Valid String filterExpression = null;
+  private @Valid Map<String, String> arguments = new HashMap<String, String>();
 
   /**
    * Binding pattern that should routing keys
@@ -89,6 +92,24 @@ public class BindingCreateRequest {
     this.filterExpression = filterExpression;
   }
 
+  /**
+   * Binding arguments. Headers exchanges match the message headers against these arguments
+   **/
+  public BindingCreateRequest arguments(Map<String, String> arguments) {
+    this.arguments = arguments;
+    return this;
+  }
+
+  
+  @ApiModelProperty(value = "Binding arguments. Headers exchanges match the message headers against these arguments")
+  @JsonProperty("arguments")
+  public Map<String, String> getArguments() {
+    return arguments;
+  }
+  public void setArguments(Map<String, String> arguments) {
+    this.arguments = arguments;
+  }
+
 
   @Override
   public boolean equals(Object o) {
@@ -101,12 +122,13 @@ public class BindingCreateRequest {
     BindingCreateRequest bindingCreateRequest = (BindingCreateRequest) o;
     return Objects.equals(bindingPattern, bindingCreateRequest.bindingPattern) &&
         Objects.equals(exchangeName, bindingCreateRequest.exchangeName) &&
-        Objects.equals(filterExpression, bindingCreateRequest.filterExpression);
+        Objects.equals(filterExpression, bindingCreateRequest.filterExpression) &&
+        Objects.equals(arguments, bindingCreateRequest.arguments);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(bindingPattern, exchangeName, filterExpression);
+    return Objects.hash(bindingPattern, exchangeName, filterExpression, arguments);
   }
 
   @Override
@@ -117,6 +139,7 @@ public class BindingCreateRequest {
     sb.append("    bindingPattern: ").append(toIndentedString(bindingPattern)).append("\n");
     sb.append("    exchangeName: ").append(toIndentedString(exchangeName)).append("\n");
     sb.append("    filterExpression: ").append(toIndentedString(filterExpression)).append("\n");
+    sb.append("    arguments: ").append(toIndentedString(arguments)).append("\n");
     sb.append("}");
     return sb.toString();
   }
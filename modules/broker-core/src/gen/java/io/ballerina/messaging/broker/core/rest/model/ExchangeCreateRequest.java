@@ -53,7 +53,7 @@ public class ExchangeCreateRequest   {
   }
 
   /**
-   * Type of exchange
+   * Type of exchange.  One of direct, topic, fanout, headers or x-consistent-hash
    **/
   public ExchangeCreateRequest type(String type) {
     this.type = type;
@@ -61,7 +61,7 @@ public class ExchangeCreateRequest   {
   }
 
   
-  @ApiModelProperty(required = true, value = "Type of exchange")
+  @ApiModelProperty(required = true, value = "Type of exchange.  One of direct, topic, fanout, headers or x-consistent-hash")
   @JsonProperty("type")
   @NotNull
   public String getType() {
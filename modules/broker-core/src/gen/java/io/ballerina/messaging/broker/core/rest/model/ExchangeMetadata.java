@@ -56,7 +56,7 @@ public class ExchangeMetadata   {
   }
 
   /**
-   * Type of exchange.  for instance amq.direct, amq.topic
+   * Type of exchange.  One of direct, topic, fanout, headers or x-consistent-hash
    **/
   public ExchangeMetadata type(String type) {
     this.type = type;
@@ -64,7 +64,7 @@ public class ExchangeMetadata   {
   }
 
   
-  @ApiModelProperty(value = "Type of exchange.  for instance amq.direct, amq.topic")
+  @ApiModelProperty(value = "Type of exchange.  One of direct, topic, fanout, headers or x-consistent-hash")
   @JsonProperty("type")
   public String getType() {
     return type;
@@ -23,9 +23,11 @@ import io.ballerina.messaging.broker.common.ValidationException;
 import io.ballerina.messaging.broker.common.data.types.FieldValue;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Set of {@link Binding} objects organised into bindings with filters and without filters.
@@ -34,6 +36,12 @@ public class BindingSet {
 
     private static final BindingSet EMPTY_SET = new EmptyBindingSet();
 
+    /**
+     * Minimum number of filtered bindings for which the selectors are evaluated through a {@link SelectorIndex}.
+     * Evaluating fewer selectors one by one is cheaper than building and looking up the index.
+     */
+    private static final int MIN_INDEXED_BINDINGS = 8;
+
     public static BindingSet emptySet() {
         return EMPTY_SET;
     }
@@ -42,10 +50,48 @@ public class BindingSet {
 
     private final Map<Queue, Binding> unfilteredQueueBindings;
 
+    /**
+     * Whether the selectors may be matched through a {@link SelectorIndex}. Sets used for a single message are not
+     * indexed since building the index costs more than evaluating each selector once.
+     */
+    private final boolean indexable;
+
+    /**
+     * Created on first use since only sets with enough filtered bindings are indexed.
+     */
+    private volatile BindingSnapshot<SelectorIndex> selectorIndex;
 
     BindingSet() {
-        filteredQueueBindings = new ConcurrentHashMap<>();
-        unfilteredQueueBindings = new ConcurrentHashMap<>();
+        this(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), true);
+    }
+
+    private BindingSet(Map<Queue, Binding> filteredQueueBindings, Map<Queue, Binding> unfilteredQueueBindings,
+                       boolean indexable) {
+        this.filteredQueueBindings = filteredQueueBindings;
+        this.unfilteredQueueBindings = unfilteredQueueBindings;
+        this.indexable = indexable;
+    }
+
+    /**
+     * Create a binding set collecting the bindings matched by a single message. The set is confined to the routing
+     * thread and its selectors are not indexed.
+     *
+     * @return empty binding set
+     */
+    static BindingSet forSingleRoute() {
+        return new BindingSet(new HashMap<>(), new HashMap<>(), false);
+    }
+
+    /**
+     * Create an unmodifiable snapshot of the given binding set. Updates to the snapshot fail with an
+     * {@link UnsupportedOperationException}.
+     *
+     * @param bindingSet binding set to copy
+     * @return unmodifiable copy
+     */
+    static BindingSet unmodifiableCopyOf(BindingSet bindingSet) {
+        return new UnmodifiableBindingSet(new HashMap<>(bindingSet.filteredQueueBindings),
+                                          new HashMap<>(bindingSet.unfilteredQueueBindings));
     }
 
     boolean add(Binding binding) throws ValidationException {
@@ -53,20 +99,33 @@ public class BindingSet {
         Binding existingBinding = validateBinding(binding);
 
         if (Objects.isNull(existingBinding)) {
-            Map<Queue, Binding> queueBindingMap;
-            FieldValue selectorValue = binding.getArgument(Binding.JMS_SELECTOR_ARGUMENT);
-            if (Objects.nonNull(selectorValue) && !selectorValue.getValue().toString().isEmpty()) {
-                queueBindingMap = filteredQueueBindings;
-            } else {
-                queueBindingMap = unfilteredQueueBindings;
-            }
-            queueBindingMap.put(binding.getQueue(), binding);
+            addMatched(binding);
             return true;
         }
         return false;
 
     }
 
+    /**
+     * Add a binding which matched a routed message. Unlike {@link #add(Binding)} the binding is not validated since
+     * a queue can match through more than one of its bindings. Only one of them is kept.
+     *
+     * @param binding matching binding
+     */
+    void addMatched(Binding binding) {
+        getQueueBindingMap(binding).put(binding.getQueue(), binding);
+        invalidateSelectorIndex();
+    }
+
+    private Map<Queue, Binding> getQueueBindingMap(Binding binding) {
+        FieldValue selectorValue = binding.getArgument(Binding.JMS_SELECTOR_ARGUMENT);
+        if (Objects.nonNull(selectorValue) && !selectorValue.getValue().toString().isEmpty()) {
+            return filteredQueueBindings;
+        } else {
+            return unfilteredQueueBindings;
+        }
+    }
+
     private Binding validateBinding(Binding binding) throws ValidationException {
         Binding existingBinding = unfilteredQueueBindings.get(binding.getQueue());
         if (Objects.isNull(existingBinding)) {
@@ -83,12 +142,15 @@ public class BindingSet {
     void add(BindingSet bindingSet) {
         bindingSet.filteredQueueBindings.forEach(filteredQueueBindings::put);
         bindingSet.unfilteredQueueBindings.forEach(unfilteredQueueBindings::put);
+        invalidateSelectorIndex();
     }
 
     public void remove(Queue queue) {
         Binding binding = filteredQueueBindings.remove(queue);
         if (Objects.isNull(binding)) {
             binding = unfilteredQueueBindings.remove(queue);
+        } else {
+            invalidateSelectorIndex();
         }
 
         if (Objects.nonNull(binding)) {
@@ -108,6 +170,43 @@ public class BindingSet {
         return filteredQueueBindings.values();
     }
 
+    /**
+     * Perform the action for each filtered binding whose selector matches the message. Selectors comparing the same
+     * message property with constants are matched through a {@link SelectorIndex} when there are enough of them,
+     * unless the set is used for a single message.
+     *
+     * @param metadata metadata of the message
+     * @param action   action to perform on the matching bindings
+     */
+    void forEachMatchingFilteredBinding(Metadata metadata, Consumer<Binding> action) {
+        if (!indexable || filteredQueueBindings.size() < MIN_INDEXED_BINDINGS) {
+            for (Binding binding : filteredQueueBindings.values()) {
+                if (binding.getFilterExpression().evaluate(metadata)) {
+                    action.accept(binding);
+                }
+            }
+        } else {
+            getSelectorIndex().get().forEachMatch(metadata, action);
+        }
+    }
+
+    private BindingSnapshot<SelectorIndex> getSelectorIndex() {
+        BindingSnapshot<SelectorIndex> index = selectorIndex;
+        if (Objects.isNull(index)) {
+            // A snapshot created concurrently is equivalent since it is built from the bindings on first use
+            index = new BindingSnapshot<>(() -> SelectorIndex.create(filteredQueueBindings.values()));
+            selectorIndex = index;
+        }
+        return index;
+    }
+
+    private void invalidateSelectorIndex() {
+        BindingSnapshot<SelectorIndex> index = selectorIndex;
+        if (Objects.nonNull(index)) {
+            index.invalidate();
+        }
+    }
+
     /**
      * Empty binding set implementation.
      */
@@ -127,6 +226,11 @@ public class BindingSet {
             throw new UnsupportedOperationException("Cannot modify Unmodifiable binding set.");
         }
 
+        @Override
+        void addMatched(Binding binding) {
+            throw new UnsupportedOperationException("Cannot modify Unmodifiable binding set.");
+        }
+
         @Override
         public void remove(Queue queue) {
             throw new UnsupportedOperationException("Cannot modify Unmodifiable binding set.");
@@ -137,4 +241,35 @@ public class BindingSet {
             return true;
         }
     }
+
+    /**
+     * Unmodifiable binding set implementation.
+     */
+    private static class UnmodifiableBindingSet extends BindingSet {
+
+        private UnmodifiableBindingSet(Map<Queue, Binding> filteredQueueBindings,
+                                       Map<Queue, Binding> unfilteredQueueBindings) {
+            super(filteredQueueBindings, unfilteredQueueBindings, true);
+        }
+
+        @Override
+        boolean add(Binding binding) {
+            throw new UnsupportedOperationException("Cannot modify Unmodifiable binding set.");
+        }
+
+        @Override
+        void add(BindingSet bindingSet) {
+            throw new UnsupportedOperationException("Cannot modify Unmodifiable binding set.");
+        }
+
+        @Override
+        void addMatched(Binding binding) {
+            throw new UnsupportedOperationException("Cannot modify Unmodifiable binding set.");
+        }
+
+        @Override
+        public void remove(Queue queue) {
+            throw new UnsupportedOperationException("Cannot modify Unmodifiable binding set.");
+        }
+    }
 }
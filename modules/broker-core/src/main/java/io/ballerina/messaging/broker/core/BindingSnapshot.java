@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Routing data derived from the bindings of an exchange. The data is built on first use after it is invalidated.
+ * Hence a burst of binding changes, for instance while recovering bindings, results in a single rebuild.
+ *
+ * @param <T> type of the routing data. Instances should not be modified once built
+ */
+final class BindingSnapshot<T> {
+
+    private final Supplier<T> builder;
+
+    private final AtomicReference<T> snapshot = new AtomicReference<>();
+
+    /**
+     * Incremented on each invalidation to detect snapshots built from bindings which changed while building.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    BindingSnapshot(Supplier<T> builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Get the current snapshot building it if needed.
+     *
+     * @return routing data reflecting the bindings
+     */
+    T get() {
+        T current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+
+        long buildGeneration = generation.get();
+        T built = builder.get();
+        if (snapshot.compareAndSet(null, built) && generation.get() != buildGeneration) {
+            // Bindings changed while building. Discard the snapshot unless it is already replaced
+            snapshot.compareAndSet(built, null);
+        }
+        return built;
+    }
+
+    /**
+     * Discard the current snapshot. Should be called after the bindings are changed.
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+    }
+}
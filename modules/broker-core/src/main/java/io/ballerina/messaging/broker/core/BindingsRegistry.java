@@ -26,14 +26,16 @@ import io.ballerina.messaging.broker.core.store.dao.BindingDao;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * Manages the bindings for a given {@link Exchange}.
+ * Manages the bindings for a given {@link Exchange}. Bindings are looked up for routing without locking while binding
+ * changes of the exchange are serialized.
  */
 public final class BindingsRegistry {
 
@@ -52,16 +54,16 @@ public final class BindingsRegistry {
     private List<BindingsRegistryListener> bindingsRegistryListeners;
 
     BindingsRegistry(Exchange exchange, BindingDao bindingDao) {
-        this.bindingPatternToBindingsMap = new HashMap<>();
+        this.bindingPatternToBindingsMap = new ConcurrentHashMap<>();
         this.exchange = exchange;
         this.bindingDao = bindingDao;
         this.unmodifiableBindingSetView = Collections.unmodifiableMap(bindingPatternToBindingsMap);
         bindingDeleteListener = new BindingDeleteListener();
-        bindingsRegistryListeners = new ArrayList<>();
+        bindingsRegistryListeners = new CopyOnWriteArrayList<>();
     }
 
-    void bind(QueueHandler queueHandler, String bindingKey, FieldTable arguments) throws BrokerException,
-            ValidationException {
+    synchronized void bind(QueueHandler queueHandler, String bindingKey, FieldTable arguments)
+            throws BrokerException, ValidationException {
         BindingSet bindingSet = bindingPatternToBindingsMap.computeIfAbsent(bindingKey, k -> new BindingSet());
         Queue queue = queueHandler.getQueue();
         Binding binding = new Binding(queue, bindingKey, arguments);
@@ -69,6 +71,17 @@ public final class BindingsRegistry {
 
         if (success) {
             queueHandler.addBinding(binding, bindingDeleteListener);
+            // The queue could have been deleted concurrently after it was looked up. Deleting a queue marks it as
+            // released before removing its bindings, hence the check is done after adding the binding.
+            if (queueHandler.isReleased()) {
+                bindingSet.remove(queue);
+                if (bindingSet.isEmpty()) {
+                    bindingPatternToBindingsMap.remove(bindingKey);
+                }
+                // Routing data computed while the binding was present is dropped
+                notifyOnUnbind(bindingKey, bindingSet.isEmpty());
+                throw new ValidationException("Unknown queue name: " + queue.getName());
+            }
             if (queue.isDurable()) {
                 bindingDao.persist(exchange.getName(), binding);
             }
@@ -77,8 +90,12 @@ public final class BindingsRegistry {
         notifyOnBind(bindingKey);
     }
 
-    void unbind(Queue queue, String routingKey) throws BrokerException {
+    synchronized void unbind(Queue queue, String routingKey) throws BrokerException {
         BindingSet bindingSet = bindingPatternToBindingsMap.get(routingKey);
+        if (Objects.isNull(bindingSet)) {
+            LOGGER.debug("No bindings found for queue {} with pattern {}", queue, routingKey);
+            return;
+        }
         if (queue.isDurable()) {
             bindingDao.delete(queue.getName(), routingKey, exchange.getName());
         }
@@ -103,7 +120,7 @@ public final class BindingsRegistry {
         return bindingPatternToBindingsMap.isEmpty();
     }
 
-    public void retrieveAllBindingsForExchange(QueueRegistry queueRegistry) throws BrokerException {
+    public synchronized void retrieveAllBindingsForExchange(QueueRegistry queueRegistry) throws BrokerException {
         bindingDao.retrieveBindingsForExchange(exchange.getName(), (queueName, bindingKey, filterTable) -> {
             QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
 
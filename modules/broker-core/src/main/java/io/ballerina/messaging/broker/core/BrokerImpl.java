@@ -33,12 +33,14 @@ import io.ballerina.messaging.broker.coordination.BasicHaListener;
 import io.ballerina.messaging.broker.coordination.HaListener;
 import io.ballerina.messaging.broker.coordination.HaStrategy;
 import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.memory.MessageMemoryTracker;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import io.ballerina.messaging.broker.core.metrics.DefaultBrokerMetricManager;
 import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
 import io.ballerina.messaging.broker.core.rest.api.ExchangesApi;
 import io.ballerina.messaging.broker.core.rest.api.QueuesApi;
 import io.ballerina.messaging.broker.core.store.DbBackedStoreFactory;
+import io.ballerina.messaging.broker.core.store.FileBackedStoreFactory;
 import io.ballerina.messaging.broker.core.store.MemBackedStoreFactory;
 import io.ballerina.messaging.broker.core.store.MessageStore;
 import io.ballerina.messaging.broker.core.store.StoreFactory;
@@ -65,8 +67,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ThreadFactory;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 import javax.transaction.xa.Xid;
 
@@ -84,6 +85,11 @@ public final class BrokerImpl implements Broker {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(BrokerImpl.class);
 
+    /**
+     * Message storage type keeping the messages of durable queues in segment files.
+     */
+    private static final String FILE_MESSAGE_STORAGE = "file";
+
     /**
      * Internal queue used to put unprocessable messages.
      */
@@ -116,12 +122,14 @@ public final class BrokerImpl implements Broker {
 
     private final TaskExecutorService<MessageDeliveryTask> deliveryTaskService;
 
-    private final ExchangeRegistry exchangeRegistry;
+    private final MessageDeliveryTaskFactory deliveryTaskFactory;
 
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExchangeRegistry exchangeRegistry;
 
     private final MessageStore messageStore;
 
+    private final RecoveryExecutor recoveryExecutor;
+
     public BrokerImpl(StartupContext startupContext) throws Exception {
         MetricService metrics = startupContext.getService(MetricService.class);
         metricManager = getMetricManager(metrics);
@@ -136,15 +144,27 @@ public final class BrokerImpl implements Broker {
         exchangeRegistry = storeFactory.getExchangeRegistry();
         messageStore = storeFactory.getMessageStore();
         queueRegistry = storeFactory.getQueueRegistry();
-        exchangeRegistry.retrieveFromStore(queueRegistry);
+        recoveryExecutor = new RecoveryExecutor(
+                Integer.parseInt(configuration.getMessageStorage().getRecoveryThreadCount()));
+        long recoveryStartTime = System.nanoTime();
+        // Bindings refer to both exchanges and queues, hence they are recovered last
+        exchangeRegistry.retrieveFromStore();
+        queueRegistry.retrieveFromStore(recoveryExecutor);
+        exchangeRegistry.retrieveBindingsFromStore(queueRegistry, recoveryExecutor);
+        recordTimeToActive(recoveryStartTime);
 
         this.deliveryTaskService = createTaskExecutorService(configuration);
+        this.deliveryTaskFactory = new MessageDeliveryTaskFactory(configuration.getDeliveryTask());
 
         initDefaultDeadLetterQueue();
 
         this.brokerTransactionFactory = new BrokerTransactionFactory(this, messageStore);
         brokerTransactionFactory.syncWithMessageStore(messageStore);
 
+        MessageMemoryTracker memoryTracker = createMessageMemoryTracker(configuration);
+        metricManager.registerMessageMemoryBytesGauge(memoryTracker::getUsedBytes);
+        startupContext.registerService(MessageMemoryTracker.class, memoryTracker);
+
         startupContext.registerService(Broker.class, this);
         initRestApi(startupContext);
         initHaSupport(startupContext);
@@ -165,8 +185,11 @@ public final class BrokerImpl implements Broker {
 
         if (commonConfigs.getEnableInMemoryMode()) {
             return new MemBackedStoreFactory(metricManager, configuration, tracingManager);
+        } else if (FILE_MESSAGE_STORAGE.equals(configuration.getMessageStorage().getType())) {
+            return new FileBackedStoreFactory(dataSource, metricManager, configuration, tracingManager);
         } else {
-            return new DbBackedStoreFactory(dataSource, metricManager, configuration, tracingManager);
+            return new DbBackedStoreFactory(dataSource, metricManager, configuration, tracingManager,
+                                            Objects.nonNull(startupContext.getService(HaStrategy.class)));
         }
     }
 
@@ -226,12 +249,29 @@ public final class BrokerImpl implements Broker {
         }
     }
 
+    /**
+     * Report the time taken to recover exchanges, queues and bindings from the store.
+     */
+    private void recordTimeToActive(long recoveryStartTime) {
+        long timeToActive = System.nanoTime() - recoveryStartTime;
+        metricManager.recordTimeToActive(timeToActive);
+        LOGGER.info("Recovered {} queues and {} exchanges in {} ms", queueRegistry.getAllQueues().size(),
+                    exchangeRegistry.getAllExchanges().size(), TimeUnit.NANOSECONDS.toMillis(timeToActive));
+    }
+
     private TaskExecutorService<MessageDeliveryTask> createTaskExecutorService(BrokerCoreConfiguration configuration) {
         ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("MessageDeliveryTaskThreadPool-%d")
                 .build();
         int workerCount = Integer.parseInt(configuration.getDeliveryTask().getWorkerCount());
-        int idleTaskDelay = Integer.parseInt(configuration.getDeliveryTask().getIdleTaskDelay());
-        return new TaskExecutorService<>(workerCount, idleTaskDelay, threadFactory);
+        return new TaskExecutorService<>(workerCount, threadFactory, metricManager);
+    }
+
+    private MessageMemoryTracker createMessageMemoryTracker(BrokerCoreConfiguration configuration) {
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        BrokerCoreConfiguration.MemoryWatermark watermark = configuration.getMemoryWatermark();
+        long highWatermark = (long) (maxMemory * Double.parseDouble(watermark.getHigh()));
+        long lowWatermark = (long) (maxMemory * Double.parseDouble(watermark.getLow()));
+        return new MessageMemoryTracker(highWatermark, lowWatermark);
     }
 
     @Override
@@ -243,7 +283,6 @@ public final class BrokerImpl implements Broker {
                 build();
         String parentSpan = tracingManager.startSpan(tracer);
 
-        lock.readLock().lock();
         try {
             message.setParentSpan(parentSpan);
             tracingManager.addTag(parentSpan, MESSAGE_ID, String.valueOf(message.getInternalId()));
@@ -255,7 +294,7 @@ public final class BrokerImpl implements Broker {
             tracingManager.addTag(parentSpan, MESSAGE_EXCHANGE, metadata.getExchangeName());
             if (exchange != null) {
                 String routingKey = metadata.getRoutingKey();
-                BindingSet bindingSet = exchange.getBindingsForRoute(routingKey);
+                BindingSet bindingSet = exchange.getBindingsForRoute(metadata);
 
                 if (bindingSet.isEmpty()) {
                     LOGGER.info("Dropping message since no queues found for routing key {} in {}",
@@ -280,7 +319,6 @@ public final class BrokerImpl implements Broker {
                 throw new BrokerException("Message publish failed. Unknown exchange: " + metadata.getExchangeName());
             }
         } finally {
-            lock.readLock().unlock();
             // Release the original message. Shallow copies are distributed
             message.release();
             tracingManager.stopSpan(parentSpan);
@@ -294,11 +332,8 @@ public final class BrokerImpl implements Broker {
             uniqueQueues.add(binding.getQueue().getQueueHandler());
         }
 
-        for (Binding binding : bindingSet.getFilteredBindings()) {
-            if (binding.getFilterExpression().evaluate(metadata)) {
-                uniqueQueues.add(binding.getQueue().getQueueHandler());
-            }
-        }
+        bindingSet.forEachMatchingFilteredBinding(
+                metadata, binding -> uniqueQueues.add(binding.getQueue().getQueueHandler()));
         return uniqueQueues;
     }
 
@@ -321,14 +356,9 @@ public final class BrokerImpl implements Broker {
 
     @Override
     public void acknowledge(String queueName, Message message) throws BrokerException {
-        lock.readLock().lock();
-        try {
-            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
-            queueHandler.dequeue(message);
-            metricManager.markAcknowledge();
-        } finally {
-            lock.readLock().unlock();
-        }
+        QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+        queueHandler.dequeue(message);
+        metricManager.markAcknowledge();
     }
 
     @Override
@@ -339,13 +369,12 @@ public final class BrokerImpl implements Broker {
                 referenceType(ReferenceType.ROOT).
                 build();
         String parentSpan = tracingManager.startSpan(tracer);
-        lock.readLock().lock();
         try {
             Metadata metadata = message.getMetadata();
             message.setParentSpan(parentSpan);
             Exchange exchange = exchangeRegistry.getExchange(metadata.getExchangeName());
             if (Objects.nonNull(exchange)) {
-                BindingSet bindingsForRoute = exchange.getBindingsForRoute(metadata.getRoutingKey());
+                BindingSet bindingsForRoute = exchange.getBindingsForRoute(metadata);
                 Set<QueueHandler> uniqueQueueHandlers = getUniqueQueueHandlersForBinding(metadata, bindingsForRoute);
                 if (uniqueQueueHandlers.isEmpty()) {
                     MessageTracer.trace(message, xid, MessageTracer.NO_ROUTES);
@@ -365,7 +394,6 @@ public final class BrokerImpl implements Broker {
                 throw new BrokerException("Message published to unknown exchange " + metadata.getExchangeName());
             }
         } finally {
-            lock.readLock().unlock();
             tracingManager.stopSpan(parentSpan);
             message.release();
         }
@@ -373,14 +401,9 @@ public final class BrokerImpl implements Broker {
 
     @Override
     public QueueHandler dequeue(Xid xid, String queueName, Message message) throws BrokerException {
-        lock.readLock().lock();
-        try {
-            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
-            queueHandler.prepareForDetach(xid, message);
-            return queueHandler;
-        } finally {
-            lock.readLock().unlock();
-        }
+        QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+        queueHandler.prepareForDetach(xid, message);
+        return queueHandler;
     }
 
     @Override
@@ -389,46 +412,41 @@ public final class BrokerImpl implements Broker {
             LOGGER.debug("Consume request received for {}", consumer.getQueueName());
         }
 
-        lock.readLock().lock();
-        try {
-            QueueHandler queueHandler = queueRegistry.getQueueHandler(consumer.getQueueName());
-            if (queueHandler != null) {
-                synchronized (queueHandler) {
-                    if (queueHandler.addConsumer(consumer) && queueHandler.consumerCount() == 1) {
-                        deliveryTaskService.add(new MessageDeliveryTask(queueHandler));
-                    }
+        QueueHandler queueHandler = queueRegistry.getQueueHandler(consumer.getQueueName());
+        if (queueHandler != null) {
+            // Queue deletion releases the queue while holding the queue handler monitor
+            synchronized (queueHandler) {
+                if (queueHandler.isReleased()) {
+                    throw new BrokerException("Cannot add consumer. Queue [ " + consumer.getQueueName() + " ] "
+                                                      + "is deleted.");
+                }
+                if (queueHandler.addConsumer(consumer) && queueHandler.consumerCount() == 1) {
+                    deliveryTaskService.add(deliveryTaskFactory.createTask(queueHandler));
                 }
-            } else {
-                throw new BrokerException("Cannot add consumer. Queue [ " + consumer.getQueueName() + " ] "
-                        + "not found. Create the queue before attempting to consume.");
             }
-        } finally {
-            lock.readLock().unlock();
+        } else {
+            throw new BrokerException("Cannot add consumer. Queue [ " + consumer.getQueueName() + " ] "
+                    + "not found. Create the queue before attempting to consume.");
         }
     }
 
     @Override
     public void removeConsumer(Consumer consumer) {
-        lock.readLock().lock();
         boolean queueDeletable = false;
-        QueueHandler queueHandler;
-        try {
-            queueHandler = queueRegistry.getQueueHandler(consumer.getQueueName());
-            if (queueHandler != null) {
-                synchronized (queueHandler) {
-                    if (queueHandler.removeConsumer(consumer) && queueHandler.consumerCount() == 0) {
-                        deliveryTaskService.remove(queueHandler.getQueue().getName());
-                        if (queueHandler.getQueue().isAutoDelete()) {
-                            queueDeletable = true;
-                        }
+        QueueHandler queueHandler = queueRegistry.getQueueHandler(consumer.getQueueName());
+        if (queueHandler != null) {
+            synchronized (queueHandler) {
+                if (queueHandler.removeConsumer(consumer) && queueHandler.consumerCount() == 0) {
+                    deliveryTaskService.remove(queueHandler.getQueue().getName());
+                    if (queueHandler.getQueue().isAutoDelete()) {
+                        queueDeletable = true;
                     }
                 }
             }
-        } finally {
-            lock.readLock().unlock();
         }
 
-        // queue delete is done after releasing the read lock since we cannot upgrade to write lock from a read lock.
+        // queue delete is done after releasing the queue handler monitor since the queue registry lock should be
+        // acquired first.
         if (queueDeletable) {
             try {
                 deleteQueue(queueHandler.getQueue().getName(), true, false);
@@ -443,116 +461,76 @@ public final class BrokerImpl implements Broker {
     @Override
     public void declareExchange(String exchangeName, String type,
                                 boolean passive, boolean durable) throws BrokerException, ValidationException {
-        lock.writeLock().lock();
-        try {
-            exchangeRegistry.declareExchange(exchangeName, type, passive, durable);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        exchangeRegistry.declareExchange(exchangeName, type, passive, durable);
     }
 
     @Override
     public void createExchange(String exchangeName, String type, boolean durable) throws BrokerException,
             ValidationException {
-        lock.writeLock().lock();
-        try {
-            exchangeRegistry.createExchange(exchangeName, Exchange.Type.from(type), durable);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        exchangeRegistry.createExchange(exchangeName, type, durable);
     }
 
     @Override
     public boolean deleteExchange(String exchangeName, boolean ifUnused) throws BrokerException, ValidationException {
-        lock.writeLock().lock();
-        try {
-            return exchangeRegistry.deleteExchange(exchangeName, ifUnused);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        return exchangeRegistry.deleteExchange(exchangeName, ifUnused);
     }
 
     @Override
     public boolean createQueue(String queueName, boolean passive,
                                boolean durable, boolean autoDelete) throws BrokerException, ValidationException {
-        lock.writeLock().lock();
-        try {
-            boolean queueAdded = queueRegistry.addQueue(queueName, passive, durable, autoDelete);
-            if (queueAdded) {
-                QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
-                // We need to bind every queue to the default exchange
-                exchangeRegistry.getDefaultExchange().bind(queueHandler, queueName, FieldTable.EMPTY_TABLE);
-            }
-            return queueAdded;
-        } finally {
-            lock.writeLock().unlock();
+        boolean queueAdded = queueRegistry.addQueue(queueName, passive, durable, autoDelete);
+        if (queueAdded) {
+            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+            // We need to bind every queue to the default exchange
+            exchangeRegistry.getDefaultExchange().bind(queueHandler, queueName, FieldTable.EMPTY_TABLE);
         }
+        return queueAdded;
     }
 
     @Override
     public int deleteQueue(String queueName, boolean ifUnused, boolean ifEmpty) throws BrokerException,
             ValidationException, ResourceNotFoundException {
-        lock.writeLock().lock();
-        try {
-            return queueRegistry.removeQueue(queueName, ifUnused, ifEmpty);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        return queueRegistry.removeQueue(queueName, ifUnused, ifEmpty);
     }
 
     @Override
     public boolean queueExists(String queueName) {
-        lock.readLock().lock();
-        try {
-            return Objects.nonNull(queueRegistry.getQueueHandler(queueName));
-        } finally {
-            lock.readLock().unlock();
-        }
+        return Objects.nonNull(queueRegistry.getQueueHandler(queueName));
     }
 
     @Override
     public void bind(String queueName, String exchangeName,
                      String routingKey, FieldTable arguments) throws BrokerException, ValidationException {
-        lock.writeLock().lock();
-        try {
-            Exchange exchange = exchangeRegistry.getExchange(exchangeName);
-            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
-            if (exchange == null) {
-                throw new ValidationException("Unknown exchange name: " + exchangeName);
-            }
+        Exchange exchange = exchangeRegistry.getExchange(exchangeName);
+        QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+        if (exchange == null) {
+            throw new ValidationException("Unknown exchange name: " + exchangeName);
+        }
 
-            if (queueHandler == null) {
-                throw new ValidationException("Unknown queue name: " + queueName);
-            }
+        if (queueHandler == null) {
+            throw new ValidationException("Unknown queue name: " + queueName);
+        }
 
-            if (!routingKey.isEmpty()) {
-                exchange.bind(queueHandler, routingKey, arguments);
-            }
-        } finally {
-            lock.writeLock().unlock();
+        if (!routingKey.isEmpty()) {
+            exchange.bind(queueHandler, routingKey, arguments);
         }
     }
 
     @Override
     public void unbind(String queueName, String exchangeName, String routingKey)
             throws BrokerException, ValidationException {
-        lock.writeLock().lock();
-        try {
-            Exchange exchange = exchangeRegistry.getExchange(exchangeName);
-            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+        Exchange exchange = exchangeRegistry.getExchange(exchangeName);
+        QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
 
-            if (exchange == null) {
-                throw new ValidationException("Unknown exchange name: " + exchangeName);
-            }
-
-            if (queueHandler == null) {
-                throw new ValidationException("Unknown queue name: " + queueName);
-            }
+        if (exchange == null) {
+            throw new ValidationException("Unknown exchange name: " + exchangeName);
+        }
 
-            exchange.unbind(queueHandler.getQueue(), routingKey);
-        } finally {
-            lock.writeLock().unlock();
+        if (queueHandler == null) {
+            throw new ValidationException("Unknown queue name: " + queueName);
         }
+
+        exchange.unbind(queueHandler.getQueue(), routingKey);
     }
 
     @Override
@@ -562,17 +540,15 @@ public final class BrokerImpl implements Broker {
 
     @Override
     public int purgeQueue(String queueName) throws ResourceNotFoundException, ValidationException {
-        lock.writeLock().lock();
-        try {
-            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+        QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
 
-            if (queueHandler == null) {
-                throw new ResourceNotFoundException("Queue [ " + queueName + " ] Not found");
-            }
+        if (queueHandler == null) {
+            throw new ResourceNotFoundException("Queue [ " + queueName + " ] Not found");
+        }
 
+        // Consumers are added while holding the queue handler monitor
+        synchronized (queueHandler) {
             return queueHandler.purgeQueue();
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
@@ -585,41 +561,27 @@ public final class BrokerImpl implements Broker {
     @Override
     public void shutdown() {
         brokerHelper.shutdown();
+        messageStore.close();
     }
 
     @Override
     public void requeue(String queueName, Message message) throws BrokerException, ResourceNotFoundException {
-        lock.readLock().lock();
-        try {
-            QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+        QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
 
-            if (Objects.isNull(queueHandler)) {
-                throw new ResourceNotFoundException("Queue [ " + queueName + " ] Not found");
-            }
-            queueHandler.requeue(message);
-        } finally {
-            lock.readLock().unlock();
+        if (Objects.isNull(queueHandler)) {
+            throw new ResourceNotFoundException("Queue [ " + queueName + " ] Not found");
         }
+        queueHandler.requeue(message);
     }
 
     @Override
     public Collection<QueueHandler> getAllQueues() {
-        lock.readLock().lock();
-        try {
-            return queueRegistry.getAllQueues();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return queueRegistry.getAllQueues();
     }
 
     @Override
     public QueueHandler getQueue(String queueName) {
-        lock.readLock().lock();
-        try {
-            return queueRegistry.getQueueHandler(queueName);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return queueRegistry.getQueueHandler(queueName);
     }
 
     @Override
@@ -644,39 +606,22 @@ public final class BrokerImpl implements Broker {
 
     @Override
     public Collection<Exchange> getAllExchanges() {
-        lock.readLock().lock();
-        try {
-            return exchangeRegistry.getAllExchanges();
-        } finally {
-            lock.readLock().unlock();
-        }
+        return exchangeRegistry.getAllExchanges();
     }
 
     @Override
     public Map<String, BindingSet> getAllBindingsForExchange(String exchangeName) throws ValidationException {
-        lock.readLock().lock();
-
-        try {
-            Exchange exchange = exchangeRegistry.getExchange(exchangeName);
-            if (Objects.isNull(exchange)) {
-                throw new ValidationException("Non existing exchange name " + exchangeName);
-            }
-
-            return exchange.getBindingsRegistry().getAllBindings();
-        } finally {
-            lock.readLock().unlock();
+        Exchange exchange = exchangeRegistry.getExchange(exchangeName);
+        if (Objects.isNull(exchange)) {
+            throw new ValidationException("Non existing exchange name " + exchangeName);
         }
+
+        return exchange.getBindingsRegistry().getAllBindings();
     }
 
     @Override
     public Exchange getExchange(String exchangeName) {
-        lock.readLock().lock();
-        try {
-            return exchangeRegistry.getExchange(exchangeName);
-        } finally {
-            lock.readLock().unlock();
-        }
-
+        return exchangeRegistry.getExchange(exchangeName);
     }
 
     @Override
@@ -692,22 +637,17 @@ public final class BrokerImpl implements Broker {
     @Override
     public Set<QueueHandler> restoreDtxPreparedMessages(Xid xid, Collection<Message> messages) throws BrokerException {
         Set<QueueHandler> queueHandlers = new HashSet<>();
-        lock.readLock().lock();
-        try {
-            for (Message message : messages) {
-                try {
-                    messageStore.add(xid, message.shallowCopy());
-                    for (String queueName : message.getAttachedDurableQueues()) {
-                        QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
-                        queueHandler.prepareForEnqueue(xid, message.shallowCopy());
-                        queueHandlers.add(queueHandler);
-                    }
-                } finally {
-                    message.release();
+        for (Message message : messages) {
+            try {
+                messageStore.add(xid, message.shallowCopy());
+                for (String queueName : message.getAttachedDurableQueues()) {
+                    QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+                    queueHandler.prepareForEnqueue(xid, message.shallowCopy());
+                    queueHandlers.add(queueHandler);
                 }
+            } finally {
+                message.release();
             }
-        } finally {
-            lock.readLock().unlock();
         }
         return queueHandlers;
     }
@@ -754,8 +694,11 @@ public final class BrokerImpl implements Broker {
          */
         public void activate() {
             try {
-                queueRegistry.reloadQueuesOnBecomingActive();
-                exchangeRegistry.reloadExchangesOnBecomingActive(queueRegistry);
+                long recoveryStartTime = System.nanoTime();
+                exchangeRegistry.reloadExchangesOnBecomingActive();
+                queueRegistry.reloadQueuesOnBecomingActive(recoveryExecutor);
+                exchangeRegistry.retrieveBindingsFromStore(queueRegistry, recoveryExecutor);
+                recordTimeToActive(recoveryStartTime);
                 brokerTransactionFactory.syncWithMessageStore(messageStore);
             } catch (BrokerException e) {
                 LOGGER.error("Error on loading data from the database on becoming active ", e);
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.store.dao.BindingDao;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Exchange partitioning messages over the bound queues using a consistent-hash ring. Messages with the same routing
+ * key, or the same value of the header named by the {@code x-hash-header} binding argument, are always routed to
+ * the same queue.
+ * <p>
+ * The binding key is the weight of the binding. Each queue owns {@link #POINTS_PER_WEIGHT} points of the ring per
+ * unit of weight and a message goes to the owner of the first point at or after its hash. Points are derived from
+ * the queue name alone, hence binding or unbinding a queue only moves the keys falling on that queue's points and
+ * every node of a cluster builds the same ring.
+ */
+final class ConsistentHashExchange extends Exchange implements BindingsRegistryListener {
+
+    static final ShortString X_HASH_HEADER_ARGUMENT = ShortString.parseString("x-hash-header");
+
+    static final int MAX_WEIGHT = 100;
+
+    /**
+     * Number of ring points per unit of binding weight. More points give a more even spread of keys.
+     */
+    static final int POINTS_PER_WEIGHT = 64;
+
+    private final BindingSnapshot<HashRing> hashRing;
+
+    ConsistentHashExchange(String name, BindingDao bindingDao) {
+        super(name, Type.CONSISTENT_HASH, bindingDao);
+        hashRing = new BindingSnapshot<>(this::buildRing);
+        getBindingsRegistry().addBindingsRegistryListeners(this);
+    }
+
+    @Override
+    synchronized void bind(QueueHandler queueHandler, String routingKey, FieldTable arguments)
+            throws BrokerException, ValidationException {
+        parseWeight(routingKey);
+        ShortString hashHeader = getHashHeader(arguments);
+        for (BindingSet bindingSet : getBindingsRegistry().getAllBindings().values()) {
+            for (Binding binding : bindingSet.getUnfilteredBindings()) {
+                validateHashHeader(hashHeader, binding);
+            }
+            for (Binding binding : bindingSet.getFilteredBindings()) {
+                validateHashHeader(hashHeader, binding);
+            }
+        }
+        super.bind(queueHandler, routingKey, arguments);
+    }
+
+    @Override
+    BindingSet getBindingsForRoute(String routingKey) {
+        return hashRing.get().route(routingKey.hashCode());
+    }
+
+    @Override
+    BindingSet getBindingsForRoute(Metadata metadata) {
+        HashRing ring = hashRing.get();
+        if (Objects.nonNull(ring.hashHeader)) {
+            FieldValue headerValue = metadata.getHeader(ring.hashHeader);
+            if (Objects.nonNull(headerValue)) {
+                return ring.route(headerValue.getValue().hashCode());
+            }
+        }
+        return ring.route(metadata.getRoutingKey().hashCode());
+    }
+
+    private static int parseWeight(String routingKey) throws ValidationException {
+        int weight;
+        try {
+            weight = Integer.parseInt(routingKey);
+        } catch (NumberFormatException e) {
+            weight = 0;
+        }
+
+        if (weight < 1 || weight > MAX_WEIGHT) {
+            throw new ValidationException("Invalid binding key [ " + routingKey + " ]. The binding key of a "
+                                                  + Type.CONSISTENT_HASH + " exchange should be a weight between 1 "
+                                                  + "and " + MAX_WEIGHT);
+        }
+        return weight;
+    }
+
+    private static ShortString getHashHeader(FieldTable arguments) {
+        FieldValue headerValue = Objects.nonNull(arguments) ? arguments.getValue(X_HASH_HEADER_ARGUMENT) : null;
+        if (Objects.isNull(headerValue)) {
+            return null;
+        }
+        return ShortString.parseString(headerValue.getValue().toString());
+    }
+
+    private static void validateHashHeader(ShortString hashHeader, Binding binding) throws ValidationException {
+        ShortString existingHashHeader = getHashHeader(binding.getArguments());
+        if (!Objects.equals(hashHeader, existingHashHeader)) {
+            throw new ValidationException("Invalid " + X_HASH_HEADER_ARGUMENT + " argument [ " + hashHeader
+                                                  + " ]. All the bindings of the exchange should hash the same "
+                                                  + "header [ " + existingHashHeader + " ]");
+        }
+    }
+
+    private HashRing buildRing() {
+        // Sorted by queue name so that ties between points resolve the same way on every node
+        Map<String, QueueWeight> queueWeights = new TreeMap<>();
+        for (Map.Entry<String, BindingSet> entry : getBindingsRegistry().getAllBindings().entrySet()) {
+            int weight;
+            try {
+                weight = parseWeight(entry.getKey());
+            } catch (ValidationException e) {
+                // Binding keys are validated when binding. Fall back to the default for bindings stored earlier
+                weight = 1;
+            }
+            addWeight(queueWeights, entry.getValue().getUnfilteredBindings(), weight);
+            addWeight(queueWeights, entry.getValue().getFilteredBindings(), weight);
+        }
+        return new HashRing(queueWeights.values());
+    }
+
+    private static void addWeight(Map<String, QueueWeight> queueWeights, Iterable<Binding> bindings, int weight) {
+        for (Binding binding : bindings) {
+            QueueWeight queueWeight = queueWeights.computeIfAbsent(binding.getQueue().getName(),
+                                                                   name -> new QueueWeight(binding));
+            queueWeight.weight += weight;
+        }
+    }
+
+    /**
+     * 64-bit finalizer of MurmurHash3. Spreads the bits of the input over the whole ring.
+     */
+    static long mix(long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    @Override
+    public void onBind(String routingKey) {
+        hashRing.invalidate();
+    }
+
+    @Override
+    public void onUnbind(String routingKey, boolean isLastSubscriber) {
+        hashRing.invalidate();
+    }
+
+    @Override
+    public void onRetrieveAllBindingsForExchange(String routingKey) {
+        hashRing.invalidate();
+    }
+
+    /**
+     * Total weight of the bindings of a queue.
+     */
+    private static final class QueueWeight {
+
+        private final Binding binding;
+
+        private int weight;
+
+        private QueueWeight(Binding binding) {
+            this.binding = binding;
+        }
+    }
+
+    /**
+     * Immutable ring of the points owned by the bound queues.
+     */
+    private static final class HashRing {
+
+        /**
+         * Sorted ring points.
+         */
+        private final long[] points;
+
+        /**
+         * Binding set of the queue owning the point with the same index in {@link #points}.
+         */
+        private final BindingSet[] owners;
+
+        private final ShortString hashHeader;
+
+        private HashRing(Iterable<QueueWeight> queueWeights) {
+            List<RingPoint> ringPoints = new ArrayList<>();
+            ShortString header = null;
+            for (QueueWeight queueWeight : queueWeights) {
+                BindingSet bindingSet = new BindingSet();
+                bindingSet.addMatched(queueWeight.binding);
+                BindingSet owner = BindingSet.unmodifiableCopyOf(bindingSet);
+
+                // Points depend only on the queue name and the point number, so changing the weight of a queue
+                // only adds or removes its trailing points
+                long seed = queueWeight.binding.getQueue().getName().hashCode();
+                int pointCount = Math.min(queueWeight.weight, MAX_WEIGHT) * POINTS_PER_WEIGHT;
+                for (int i = 0; i < pointCount; i++) {
+                    ringPoints.add(new RingPoint(mix((seed << 32) | i), owner));
+                }
+                header = getHashHeader(queueWeight.binding.getArguments());
+            }
+            // Stable sort keeps the queue name order for equal points
+            ringPoints.sort(Comparator.comparingLong(point -> point.point));
+
+            points = new long[ringPoints.size()];
+            owners = new BindingSet[ringPoints.size()];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = ringPoints.get(i).point;
+                owners[i] = ringPoints.get(i).owner;
+            }
+            hashHeader = header;
+        }
+
+        /**
+         * Find the queue owning the given key.
+         *
+         * @param keyHash hash code of the routing key or the header value
+         * @return binding set of the owning queue
+         */
+        BindingSet route(int keyHash) {
+            if (points.length == 0) {
+                return BindingSet.emptySet();
+            }
+
+            long hash = mix(keyHash);
+            int low = 0;
+            int high = points.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (points[middle] < hash) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            // Wrap around to the first point past the end of the ring
+            return owners[low == points.length ? 0 : low];
+        }
+    }
+
+    /**
+     * Point of the ring owned by a queue.
+     */
+    private static final class RingPoint {
+
+        private final long point;
+
+        private final BindingSet owner;
+
+        private RingPoint(long point, BindingSet owner) {
+            this.point = point;
+            this.owner = owner;
+        }
+    }
+}
@@ -30,6 +30,11 @@ public abstract class Consumer {
 
     private final int id;
 
+    /**
+     * Invoked when the consumer becomes ready. Set when the consumer is added to a queue.
+     */
+    private volatile Runnable readinessListener = () -> { };
+
     public Consumer() {
         this.id = idGenerator.incrementAndGet();
     }
@@ -38,6 +43,19 @@ public abstract class Consumer {
         return id;
     }
 
+    /**
+     * Notify the broker that the consumer became ready to receive messages. Implementations should invoke this
+     * whenever {@link #isReady()} changes from false to true, since message delivery to consumers which are not ready
+     * is not retried until then.
+     */
+    public final void notifyReady() {
+        readinessListener.run();
+    }
+
+    final void setReadinessListener(Runnable readinessListener) {
+        this.readinessListener = readinessListener;
+    }
+
     /**
      * Send message to the consumer.
      *
@@ -46,6 +64,16 @@ public abstract class Consumer {
      */
     protected abstract void send(Message message) throws BrokerException;
 
+    /**
+     * Flush the messages sent to the consumer. Invoked at the end of each delivery round in which messages were sent
+     * to the consumer. Implementations may buffer the messages given to {@link #send(Message)} until then.
+     *
+     * @throws BrokerException throws {@link BrokerException} on message sending failure
+     */
+    protected void flush() throws BrokerException {
+        // Messages are not buffered by default
+    }
+
     /**
      * Queue name of the subscriber queue.
      *
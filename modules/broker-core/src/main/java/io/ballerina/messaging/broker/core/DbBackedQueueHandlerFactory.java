@@ -19,6 +19,7 @@
 
 package io.ballerina.messaging.broker.core;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import io.ballerina.messaging.broker.core.queue.DbBackedQueueImpl;
@@ -27,6 +28,9 @@ import io.ballerina.messaging.broker.core.queue.QueueBufferFactory;
 import io.ballerina.messaging.broker.core.store.DbMessageStore;
 import io.ballerina.messaging.broker.core.trace.BrokerTracingManager;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * DB backed factory for creating queue handler objects.
  */
@@ -36,6 +40,9 @@ public class DbBackedQueueHandlerFactory implements QueueHandlerFactory {
     private final int nonDurableQueueMaxDepth;
     private QueueBufferFactory queueBufferFactory;
     private final BrokerTracingManager tracingManager;
+    private final ExecutorService recoveryExecutor;
+    private final int recoveryPageSize;
+    private final boolean lazyQueueRecovery;
 
     public DbBackedQueueHandlerFactory(DbMessageStore dbMessageStore, BrokerMetricManager metricManager,
                                        BrokerCoreConfiguration configuration, BrokerTracingManager tracingManager) {
@@ -44,6 +51,12 @@ public class DbBackedQueueHandlerFactory implements QueueHandlerFactory {
         nonDurableQueueMaxDepth = Integer.parseInt(configuration.getNonDurableQueueMaxDepth());
         queueBufferFactory = new QueueBufferFactory(configuration);
         this.tracingManager = tracingManager;
+        recoveryPageSize = Integer.parseInt(configuration.getMessageStorage().getRecoveryPageSize());
+        lazyQueueRecovery = configuration.getMessageStorage().isLazyQueueRecovery();
+        recoveryExecutor = Executors.newFixedThreadPool(
+                Integer.parseInt(configuration.getMessageStorage().getRecoveryThreadCount()),
+                new ThreadFactoryBuilder().setNameFormat("QueueRecoveryThread-%d").setDaemon(true).build());
+        metricManager.registerTotalInMemoryBytesGauge(queueBufferFactory.getTotalMemoryBudget()::getResidentBytes);
     }
 
     /**
@@ -55,7 +68,11 @@ public class DbBackedQueueHandlerFactory implements QueueHandlerFactory {
      * @throws BrokerException if cannot create queue handler
      */
     public QueueHandler createDurableQueueHandler(String queueName, boolean autoDelete) throws BrokerException {
-        Queue queue = new DbBackedQueueImpl(queueName, autoDelete, dbMessageStore, queueBufferFactory);
+        DbBackedQueueImpl queue = new DbBackedQueueImpl(queueName, autoDelete, dbMessageStore, queueBufferFactory,
+                                                        recoveryExecutor, recoveryPageSize, lazyQueueRecovery);
+        metricManager.registerQueueInMemoryBytesGauge(queueName, queue::getInMemoryBytes);
+        metricManager.registerQueueRecoveryGauges(queueName, queue::getRecoveryProgress,
+                                                  queue::getEstimatedRecoveryMillis);
         return new QueueHandler(queue, metricManager, tracingManager);
     }
 
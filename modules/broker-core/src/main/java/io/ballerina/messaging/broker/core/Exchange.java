@@ -36,7 +36,10 @@ public abstract class Exchange {
      */
     public enum Type {
         DIRECT("direct"),
-        TOPIC("topic");
+        TOPIC("topic"),
+        FANOUT("fanout"),
+        HEADERS("headers"),
+        CONSISTENT_HASH("x-consistent-hash");
 
         String typeName;
 
@@ -51,13 +54,12 @@ public abstract class Exchange {
 
         public static Type from(String typeString) {
 
-            if (typeString.equals(DIRECT.typeName)) {
-                return DIRECT;
-            } else if (typeString.equals(TOPIC.typeName)) {
-                return TOPIC;
-            } else {
-                throw new IllegalArgumentException("unknown exchange type: " + typeString);
+            for (Type type : values()) {
+                if (type.typeName.equals(typeString)) {
+                    return type;
+                }
             }
+            throw new IllegalArgumentException("unknown exchange type: " + typeString);
         }
 
     }
@@ -101,6 +103,17 @@ public abstract class Exchange {
         return bindingsRegistry.getBindingsForRoute(routingKey);
     }
 
+    /**
+     * Get the bindings matching a message. Exchanges routing on message properties other than the routing key
+     * should override this method.
+     *
+     * @param metadata metadata of the routed message
+     * @return matching bindings
+     */
+    BindingSet getBindingsForRoute(Metadata metadata) {
+        return getBindingsForRoute(metadata.getRoutingKey());
+    }
+
     BindingsRegistry getBindingsRegistry() {
         return bindingsRegistry;
     }
@@ -20,10 +20,14 @@
 package io.ballerina.messaging.broker.core;
 
 import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
 import io.ballerina.messaging.broker.core.store.dao.BindingDao;
 import io.ballerina.messaging.broker.core.store.dao.ExchangeDao;
 import io.ballerina.messaging.broker.core.store.dao.impl.NoOpBindingDao;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
@@ -31,7 +35,8 @@ import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Registry object which contains all the registered exchanges of the broker.
+ * Registry object which contains all the registered exchanges of the broker. Exchanges are looked up without
+ * locking while exchange creation and deletion are serialized on the registry.
  */
 public final class ExchangeRegistry {
 
@@ -53,10 +58,26 @@ public final class ExchangeRegistry {
 
     private final Collection<Exchange> unmodifiableExchangesView;
 
+    private final BrokerMetricManager metricManager;
+
+    /**
+     * Maximum number of routing keys cached by each topic exchange.
+     */
+    private final int routingCacheSize;
+
     public ExchangeRegistry(ExchangeDao exchangeDao, BindingDao bindingDao) {
+        this(exchangeDao, bindingDao, new NullBrokerMetricManager(), new BrokerCoreConfiguration());
+    }
+
+    public ExchangeRegistry(ExchangeDao exchangeDao,
+                            BindingDao bindingDao,
+                            BrokerMetricManager metricManager,
+                            BrokerCoreConfiguration configuration) {
+        this.metricManager = metricManager;
+        this.routingCacheSize = Integer.parseInt(configuration.getRoutingCache().getSize());
         exchangeMap = new ConcurrentHashMap<>(3);
         exchangeMap.put(DIRECT, new DirectExchange(DIRECT, bindingDao));
-        exchangeMap.put(TOPIC, new TopicExchange(TOPIC, bindingDao));
+        exchangeMap.put(TOPIC, new TopicExchange(TOPIC, bindingDao, metricManager, routingCacheSize));
         exchangeMap.put(DEFAULT, new DirectExchange(DEFAULT, bindingDao));
         exchangeMap.put(DEFAULT_DEAD_LETTER_EXCHANGE, new DirectExchange(DEFAULT_DEAD_LETTER_EXCHANGE, bindingDao));
         this.exchangeDao = exchangeDao;
@@ -68,7 +89,8 @@ public final class ExchangeRegistry {
         return exchangeMap.get(exchangeName);
     }
 
-    boolean deleteExchange(String exchangeName, boolean ifUnused) throws BrokerException, ValidationException {
+    synchronized boolean deleteExchange(String exchangeName, boolean ifUnused)
+            throws BrokerException, ValidationException {
         Exchange exchange = exchangeMap.get(exchangeName);
         if (Objects.isNull(exchange)) {
             return false;
@@ -103,8 +125,9 @@ public final class ExchangeRegistry {
      * @param durable      is the exchange durable or not.
      * @throws BrokerException on exchange creation failure
      */
-    void declareExchange(String exchangeName, String type,
-                         boolean passive, boolean durable) throws ValidationException, BrokerException {
+    synchronized void declareExchange(String exchangeName, String type,
+                                      boolean passive, boolean durable)
+            throws ValidationException, BrokerException {
         if (exchangeName.isEmpty()) {
             throw new ValidationException("Exchange name cannot be empty.");
         }
@@ -116,8 +139,28 @@ public final class ExchangeRegistry {
                                                       + "is set, hence not creating the exchange.");
             }
         } else {
-            createExchange(exchangeName, Exchange.Type.from(type), durable);
+            createExchange(exchangeName, type, durable);
+        }
+    }
+
+    /**
+     * Creates a exchange with given parameters.
+     *
+     * @param exchangeName name of the exchange
+     * @param type         name of the exchange type
+     * @param durable      durability of the exchange
+     * @throws BrokerException     if there is an internal error when creating the exchange.
+     * @throws ValidationException if the exchange type is unknown or the exchange already exist
+     */
+    synchronized void createExchange(String exchangeName, String type, boolean durable)
+            throws BrokerException, ValidationException {
+        Exchange.Type exchangeType;
+        try {
+            exchangeType = Exchange.Type.from(type);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Unknown exchange type [ " + type + " ].", e);
         }
+        createExchange(exchangeName, exchangeType, durable);
     }
 
     /**
@@ -129,12 +172,12 @@ public final class ExchangeRegistry {
      * @throws BrokerException if there is an internal error when creating the exchange.
      * @throws ValidationException if exchange already exist
      */
-    public void createExchange(String exchangeName, Exchange.Type type, boolean durable) throws BrokerException,
-                                                                                                ValidationException {
+    public synchronized void createExchange(String exchangeName, Exchange.Type type, boolean durable)
+            throws BrokerException, ValidationException {
         Exchange exchange = exchangeMap.get(exchangeName);
         if (Objects.isNull(exchange)) {
             BindingDao dao = durable ? bindingDao : NO_OP_BINDING_DAO;
-            exchange = ExchangeFactory.newInstance(exchangeName, type, dao);
+            exchange = ExchangeFactory.newInstance(exchangeName, type, dao, metricManager, routingCacheSize);
             exchangeMap.put(exchange.getName(), exchange);
             if (durable) {
                 exchangeDao.persist(exchange);
@@ -147,8 +190,8 @@ public final class ExchangeRegistry {
     private void retrieveAllExchangesFromDao() throws BrokerException {
         exchangeDao.retrieveAll(
                 (name, typeString) -> {
-                    Exchange exchange = ExchangeFactory.newInstance(name,
-                                                                    Exchange.Type.from(typeString), bindingDao);
+                    Exchange exchange = ExchangeFactory.newInstance(name, Exchange.Type.from(typeString), bindingDao,
+                                                                    metricManager, routingCacheSize);
                     exchangeMap.putIfAbsent(name, exchange);
                 });
     }
@@ -157,11 +200,27 @@ public final class ExchangeRegistry {
         return exchangeMap.get(DEFAULT);
     }
 
-    public void retrieveFromStore(QueueRegistry queueRegistry) throws BrokerException {
+    /**
+     * Load the exchanges stored in the database.
+     *
+     * @throws BrokerException if an error occurs retrieving exchanges from the database
+     */
+    void retrieveFromStore() throws BrokerException {
         retrieveAllExchangesFromDao();
-        for (Exchange exchange : exchangeMap.values()) {
-            exchange.retrieveBindingsFromDb(queueRegistry);
-        }
+    }
+
+    /**
+     * Load the bindings of all the exchanges. Should be called once the exchanges and the queues are loaded. Bindings
+     * of different exchanges are loaded in parallel.
+     *
+     * @param queueRegistry    registry holding the queues of the bindings
+     * @param recoveryExecutor executor used to load the bindings
+     * @throws BrokerException if an error occurs retrieving bindings from the database
+     */
+    void retrieveBindingsFromStore(QueueRegistry queueRegistry, RecoveryExecutor recoveryExecutor)
+            throws BrokerException {
+        recoveryExecutor.recoverAll(new ArrayList<>(exchangeMap.values()),
+                                    exchange -> exchange.retrieveBindingsFromDb(queueRegistry));
     }
 
     public Collection<Exchange> getAllExchanges() {
@@ -169,14 +228,14 @@ public final class ExchangeRegistry {
     }
 
     /**
-     * Method to reload exchanges and bindings from the database on becoming the active node.
+     * Method to reload exchanges from the database on becoming the active node. Bindings are reloaded with
+     * {@link #retrieveBindingsFromStore(QueueRegistry, RecoveryExecutor)} once the queues are reloaded.
      *
-     * @param queueRegistry the queue registry object
-     * @throws BrokerException if an error occurs retrieving exchanges/bindings from the database
+     * @throws BrokerException if an error occurs retrieving exchanges from the database
      */
-    void reloadExchangesOnBecomingActive(QueueRegistry queueRegistry) throws BrokerException {
+    synchronized void reloadExchangesOnBecomingActive() throws BrokerException {
         exchangeMap.clear();
-        retrieveFromStore(queueRegistry);
+        retrieveFromStore();
     }
 
     /**
@@ -189,13 +248,29 @@ public final class ExchangeRegistry {
 
         public static Exchange newInstance(String exchangeName, Exchange.Type type,
                                            BindingDao bindingDao) throws BrokerException {
+            return newInstance(exchangeName, type, bindingDao, new NullBrokerMetricManager(),
+                               TopicExchange.DEFAULT_ROUTING_CACHE_SIZE);
+        }
+
+        public static Exchange newInstance(String exchangeName, Exchange.Type type, BindingDao bindingDao,
+                                           BrokerMetricManager metricManager,
+                                           int routingCacheSize) throws BrokerException {
             Exchange exchange;
             switch (type) {
                 case DIRECT:
                     exchange = new DirectExchange(exchangeName, bindingDao);
                     break;
                 case TOPIC:
-                    exchange = new TopicExchange(exchangeName, bindingDao);
+                    exchange = new TopicExchange(exchangeName, bindingDao, metricManager, routingCacheSize);
+                    break;
+                case FANOUT:
+                    exchange = new FanoutExchange(exchangeName, bindingDao);
+                    break;
+                case HEADERS:
+                    exchange = new HeadersExchange(exchangeName, bindingDao);
+                    break;
+                case CONSISTENT_HASH:
+                    exchange = new ConsistentHashExchange(exchangeName, bindingDao);
                     break;
                 default:
                     throw new BrokerException("Unknown exchange type [ " + type + " ].");
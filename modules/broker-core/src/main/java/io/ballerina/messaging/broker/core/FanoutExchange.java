@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.core.store.dao.BindingDao;
+
+/**
+ * AMQP fanout exchange implementation. Messages are routed to every bound queue regardless of the routing key.
+ * The union of all the bindings is computed once per binding change and shared by all the routed messages.
+ */
+final class FanoutExchange extends Exchange implements BindingsRegistryListener {
+
+    private final BindingSnapshot<BindingSet> allBindings;
+
+    FanoutExchange(String name, BindingDao bindingDao) {
+        super(name, Type.FANOUT, bindingDao);
+        allBindings = new BindingSnapshot<>(this::mergeBindings);
+        getBindingsRegistry().addBindingsRegistryListeners(this);
+    }
+
+    @Override
+    BindingSet getBindingsForRoute(String routingKey) {
+        return allBindings.get();
+    }
+
+    private BindingSet mergeBindings() {
+        BindingSet mergedBindingSet = new BindingSet();
+        for (BindingSet bindingSet : getBindingsRegistry().getAllBindings().values()) {
+            mergedBindingSet.add(bindingSet);
+        }
+
+        if (mergedBindingSet.isEmpty()) {
+            return BindingSet.emptySet();
+        }
+        return BindingSet.unmodifiableCopyOf(mergedBindingSet);
+    }
+
+    @Override
+    public void onBind(String routingKey) {
+        allBindings.invalidate();
+    }
+
+    @Override
+    public void onUnbind(String routingKey, boolean isLastSubscriber) {
+        allBindings.invalidate();
+    }
+
+    @Override
+    public void onRetrieveAllBindingsForExchange(String routingKey) {
+        allBindings.invalidate();
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.store.dao.BindingDao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * AMQP headers exchange implementation. Messages are routed using the message headers instead of the routing key.
+ * <p>
+ * Binding arguments not starting with {@code x-} are header conditions. The {@code x-match} argument decides
+ * whether {@code all} (default) or {@code any} of the conditions should match. A condition with a void value matches
+ * any value of the header. The conditions of all the bindings are indexed by header name when the bindings change,
+ * so that each message header is looked up only once irrespective of the number of bindings.
+ */
+final class HeadersExchange extends Exchange implements BindingsRegistryListener {
+
+    static final ShortString X_MATCH_ARGUMENT = ShortString.parseString("x-match");
+
+    static final String MATCH_ALL = "all";
+
+    static final String MATCH_ANY = "any";
+
+    private static final String RESERVED_ARGUMENT_PREFIX = "x-";
+
+    /**
+     * Per thread scratch space counting the matched conditions of each binding while routing a message.
+     */
+    private static final ThreadLocal<int[]> MATCHED_COUNTS = ThreadLocal.withInitial(() -> new int[0]);
+
+    private final BindingSnapshot<HeaderIndex> headerIndex;
+
+    HeadersExchange(String name, BindingDao bindingDao) {
+        super(name, Type.HEADERS, bindingDao);
+        headerIndex = new BindingSnapshot<>(this::buildIndex);
+        getBindingsRegistry().addBindingsRegistryListeners(this);
+    }
+
+    @Override
+    void bind(QueueHandler queueHandler, String routingKey, FieldTable arguments) throws BrokerException,
+                                                                                         ValidationException {
+        isMatchAny(arguments);
+        super.bind(queueHandler, routingKey, arguments);
+    }
+
+    @Override
+    BindingSet getBindingsForRoute(String routingKey) {
+        return headerIndex.get().match(FieldTable.EMPTY_TABLE);
+    }
+
+    @Override
+    BindingSet getBindingsForRoute(Metadata metadata) {
+        FieldTable headers = metadata.getHeaders();
+        return headerIndex.get().match(Objects.nonNull(headers) ? headers : FieldTable.EMPTY_TABLE);
+    }
+
+    private static boolean isMatchAny(FieldTable arguments) throws ValidationException {
+        FieldValue matchValue = Objects.nonNull(arguments) ? arguments.getValue(X_MATCH_ARGUMENT) : null;
+        if (Objects.isNull(matchValue)) {
+            return false;
+        }
+
+        String matchType = matchValue.getValue().toString();
+        if (MATCH_ALL.equals(matchType)) {
+            return false;
+        } else if (MATCH_ANY.equals(matchType)) {
+            return true;
+        } else {
+            throw new ValidationException("Invalid " + X_MATCH_ARGUMENT + " argument [ " + matchType
+                                                  + " ]. Allowed values are " + MATCH_ALL + " and " + MATCH_ANY);
+        }
+    }
+
+    private HeaderIndex buildIndex() {
+        List<Binding> bindings = new ArrayList<>();
+        for (BindingSet bindingSet : getBindingsRegistry().getAllBindings().values()) {
+            bindings.addAll(bindingSet.getUnfilteredBindings());
+            bindings.addAll(bindingSet.getFilteredBindings());
+        }
+        return new HeaderIndex(bindings);
+    }
+
+    @Override
+    public void onBind(String routingKey) {
+        headerIndex.invalidate();
+    }
+
+    @Override
+    public void onUnbind(String routingKey, boolean isLastSubscriber) {
+        headerIndex.invalidate();
+    }
+
+    @Override
+    public void onRetrieveAllBindingsForExchange(String routingKey) {
+        headerIndex.invalidate();
+    }
+
+    /**
+     * Immutable index of the header conditions of all the bindings of the exchange.
+     */
+    private static final class HeaderIndex {
+
+        private final Binding[] bindings;
+
+        private final boolean[] matchAny;
+
+        /**
+         * Number of conditions of each binding.
+         */
+        private final int[] conditionCounts;
+
+        private final ShortString[] headerNames;
+
+        /**
+         * Conditions on the header with the same index in {@link #headerNames}.
+         */
+        private final HeaderCondition[][] headerConditions;
+
+        /**
+         * Unmodifiable binding set of each binding alone, returned when only that binding matches a message.
+         */
+        private final BindingSet[] singleBindingSets;
+
+        private HeaderIndex(List<Binding> bindingList) {
+            int bindingCount = bindingList.size();
+            bindings = bindingList.toArray(new Binding[bindingCount]);
+            matchAny = new boolean[bindingCount];
+            conditionCounts = new int[bindingCount];
+            singleBindingSets = new BindingSet[bindingCount];
+
+            Map<ShortString, List<HeaderCondition>> conditionsByHeader = new HashMap<>();
+            for (int i = 0; i < bindingCount; i++) {
+                int bindingIndex = i;
+                FieldTable arguments = bindings[i].getArguments();
+                try {
+                    matchAny[i] = isMatchAny(arguments);
+                } catch (ValidationException e) {
+                    // Arguments are validated when binding. Fall back to the default for bindings stored earlier
+                    matchAny[i] = false;
+                }
+                arguments.forEach((name, value) -> {
+                    if (!name.toString().startsWith(RESERVED_ARGUMENT_PREFIX)) {
+                        conditionsByHeader.computeIfAbsent(name, k -> new ArrayList<>())
+                                          .add(new HeaderCondition(bindingIndex, value));
+                        conditionCounts[bindingIndex]++;
+                    }
+                });
+
+                BindingSet singleBindingSet = new BindingSet();
+                singleBindingSet.addMatched(bindings[i]);
+                singleBindingSets[i] = BindingSet.unmodifiableCopyOf(singleBindingSet);
+            }
+
+            headerNames = new ShortString[conditionsByHeader.size()];
+            headerConditions = new HeaderCondition[conditionsByHeader.size()][];
+            int headerIndex = 0;
+            for (Map.Entry<ShortString, List<HeaderCondition>> entry : conditionsByHeader.entrySet()) {
+                headerNames[headerIndex] = entry.getKey();
+                headerConditions[headerIndex] = entry.getValue().toArray(new HeaderCondition[0]);
+                headerIndex++;
+            }
+        }
+
+        /**
+         * Find the bindings matching the given message headers.
+         *
+         * @param headers message headers
+         * @return matching bindings
+         */
+        BindingSet match(FieldTable headers) {
+            if (bindings.length == 0) {
+                return BindingSet.emptySet();
+            }
+
+            int[] matchedCounts = MATCHED_COUNTS.get();
+            if (matchedCounts.length < bindings.length) {
+                matchedCounts = new int[bindings.length];
+                MATCHED_COUNTS.set(matchedCounts);
+            }
+
+            for (int i = 0; i < headerNames.length; i++) {
+                FieldValue headerValue = headers.getValue(headerNames[i]);
+                if (Objects.nonNull(headerValue)) {
+                    for (HeaderCondition condition : headerConditions[i]) {
+                        if (condition.matches(headerValue)) {
+                            matchedCounts[condition.bindingIndex]++;
+                        }
+                    }
+                }
+            }
+
+            int firstMatch = -1;
+            BindingSet matchedBindingSet = null;
+            for (int i = 0; i < bindings.length; i++) {
+                boolean matched = matchAny[i] ? matchedCounts[i] > 0 : matchedCounts[i] == conditionCounts[i];
+                // Leave the scratch space cleared for the next message
+                matchedCounts[i] = 0;
+                if (!matched) {
+                    continue;
+                }
+
+                if (firstMatch < 0) {
+                    firstMatch = i;
+                } else {
+                    if (Objects.isNull(matchedBindingSet)) {
+                        matchedBindingSet = BindingSet.forSingleRoute();
+                        matchedBindingSet.addMatched(bindings[firstMatch]);
+                    }
+                    matchedBindingSet.addMatched(bindings[i]);
+                }
+            }
+
+            if (Objects.nonNull(matchedBindingSet)) {
+                return matchedBindingSet;
+            }
+            return firstMatch >= 0 ? singleBindingSets[firstMatch] : BindingSet.emptySet();
+        }
+    }
+
+    /**
+     * Condition of a binding on the value of a header. A void expected value only requires the header to be present.
+     */
+    private static final class HeaderCondition {
+
+        private static final int MAX_SHORT_STRING_LENGTH = 255;
+
+        private final int bindingIndex;
+
+        private final FieldValue expectedValue;
+
+        /**
+         * Expected value encoded with the other AMQP string type since clients pick either of them. Null for
+         * non string values.
+         */
+        private final FieldValue alternateValue;
+
+        private HeaderCondition(int bindingIndex, FieldValue expectedValue) {
+            this.bindingIndex = bindingIndex;
+            this.expectedValue = expectedValue;
+            this.alternateValue = alternateStringValue(expectedValue);
+        }
+
+        private boolean matches(FieldValue headerValue) {
+            return expectedValue.getType() == FieldValue.Type.VOID
+                    || expectedValue.equals(headerValue)
+                    || (Objects.nonNull(alternateValue) && alternateValue.equals(headerValue));
+        }
+
+        private static FieldValue alternateStringValue(FieldValue value) {
+            switch (value.getType()) {
+                case LONG_STRING:
+                    String stringValue = value.getValue().toString();
+                    if (stringValue.getBytes(StandardCharsets.UTF_8).length <= MAX_SHORT_STRING_LENGTH) {
+                        return FieldValue.parseShortString(stringValue);
+                    }
+                    return null;
+                case SHORT_STRING:
+                    return FieldValue.parseLongString(value.getValue().toString());
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -19,7 +19,6 @@
 
 package io.ballerina.messaging.broker.core;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -30,12 +29,19 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * Represents message received from publishers and delivered to subscribers by the broker.
  * This contains the metadata and the content chunks of the message.
+ * <p>
+ * Shallow copies of a message share the metadata and a reference counted {@link MessageContent}. Hence routing a
+ * message to many queues only allocates a copy holding the per queue delivery state, such as the redelivery count
+ * and the parent span. Each copy should be released once.
  */
 public class Message {
 
     private Metadata metadata;
 
-    private final List<ContentChunk> contentChunks;
+    /**
+     * Null until a chunk is added and after the message is released.
+     */
+    private MessageContent content;
 
     private boolean redelivered = false;
 
@@ -57,34 +63,55 @@ public class Message {
     private Message(long internalId, Metadata metadata, Set<String> queueSet) {
         this.internalId = internalId;
         this.metadata = metadata;
-        this.contentChunks = new ArrayList<>();
         this.queueSet = queueSet;
     }
 
+    private Message(long internalId, Metadata metadata, Set<String> queueSet, MessageContent content) {
+        this(internalId, metadata, queueSet);
+        if (content != null) {
+            this.content = (MessageContent) content.retain();
+        }
+    }
+
     public Metadata getMetadata() {
         return metadata;
     }
 
     public List<ContentChunk> getContentChunks() {
-        return Collections.unmodifiableList(contentChunks);
+        if (content == null) {
+            return Collections.emptyList();
+        }
+        return content.getChunks();
     }
 
+    /**
+     * Add a content chunk. Should not be called once the message is copied since the copies share the content.
+     *
+     * @param contentChunk content chunk
+     */
     public void addChunk(ContentChunk contentChunk) {
-        contentChunks.add(contentChunk);
+        if (content == null) {
+            content = new MessageContent();
+        }
+        content.add(contentChunk);
     }
 
+    /**
+     * Release the reference of this copy to the content. The content chunks are released with the last copy.
+     */
     public void release() {
-        for (ContentChunk contentChunk : contentChunks) {
-            contentChunk.release();
+        MessageContent releasedContent = content;
+        if (releasedContent != null) {
+            content = null;
+            releasedContent.release();
         }
     }
 
     public Message shallowCopy() {
-        Message message = new Message(internalId, metadata.shallowCopy(), queueSet);
+        Message message = new Message(internalId, metadata, queueSet, content);
         message.redelivered = redelivered;
         message.redeliveryCount = redeliveryCount;
         message.parentSpan = parentSpan;
-        shallowCopyContent(message);
         return message;
     }
 
@@ -99,13 +126,8 @@ public class Message {
     }
 
     public Message shallowCopyWith(long newMessageId, String routingKey, String exchangeName) {
-        Message message = new Message(newMessageId, metadata.shallowCopyWith(routingKey, exchangeName));
-        shallowCopyContent(message);
-        return message;
-    }
-
-    private void shallowCopyContent(Message message) {
-        contentChunks.stream().map(ContentChunk::shallowCopy).forEach(message::addChunk);
+        return new Message(newMessageId, metadata.shallowCopyWith(routingKey, exchangeName),
+                           ConcurrentHashMap.newKeySet(), content);
     }
 
     public void addAttachedDurableQueue(String queueName) {
@@ -167,7 +189,6 @@ public class Message {
     public void clearData() {
         metadata = null;
         release();
-        contentChunks.clear();
     }
 
     public String getParentSpan() {
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core;
+
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCounted;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Content chunks of a message shared by the copies of the message. Copies of a message routed to different queues
+ * retain the same content instead of slicing each chunk. The chunks are released when the last copy is released.
+ * <p>
+ * Chunks are added while the message is being built, before the content is shared. Once shared the content is
+ * treated as immutable. Readers that advance the reader index of a chunk, such as transports writing the chunk to
+ * the network, should use a slice of the chunk.
+ */
+final class MessageContent extends AbstractReferenceCounted {
+
+    private final List<ContentChunk> chunks = new ArrayList<>();
+
+    private final List<ContentChunk> unmodifiableChunks = Collections.unmodifiableList(chunks);
+
+    void add(ContentChunk chunk) {
+        chunks.add(chunk);
+    }
+
+    List<ContentChunk> getChunks() {
+        return unmodifiableChunks;
+    }
+
+    @Override
+    protected void deallocate() {
+        for (ContentChunk chunk : chunks) {
+            chunk.release();
+        }
+    }
+
+    @Override
+    public ReferenceCounted touch(Object hint) {
+        return this;
+    }
+}
@@ -27,6 +27,9 @@ import io.ballerina.messaging.broker.observe.trace.ReferenceType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static io.ballerina.messaging.broker.core.trace.Constants.Log.MESSAGE;
 import static io.ballerina.messaging.broker.core.trace.Constants.Tag.CONSUMER;
 import static io.ballerina.messaging.broker.core.trace.Constants.Tag.CONSUMER_ID;
@@ -44,19 +47,33 @@ final class MessageDeliveryTask extends Task {
 
     private final BrokerTracingManager tracingManager;
 
-    MessageDeliveryTask(QueueHandler queueHandler) {
+    /**
+     * Maximum number of messages delivered in a single run of the task.
+     */
+    private final int quantum;
+
+    private final int weight;
+
+    /**
+     * Consumers which received messages in the current run of the task. These are flushed at the end of the run.
+     */
+    private final Set<Consumer> consumersToFlush = new HashSet<>();
+
+    MessageDeliveryTask(QueueHandler queueHandler, int quantum, int weight) {
         this.queueHandler = queueHandler;
         this.tracingManager = queueHandler.getTracingManager();
+        this.quantum = quantum;
+        this.weight = weight;
     }
 
     @Override
     public void onAdd() {
-
+        queueHandler.setDeliveryTask(this);
     }
 
     @Override
     public void onRemove() {
-
+        queueHandler.unsetDeliveryTask(this);
     }
 
     @Override
@@ -64,6 +81,11 @@ final class MessageDeliveryTask extends Task {
         return queueHandler.getQueue().getName();
     }
 
+    @Override
+    public int getWeight() {
+        return weight;
+    }
+
     @Override
     public TaskHint call() throws Exception {
         CyclicConsumerIterator consumerIterator = queueHandler.getCyclicConsumerIterator();
@@ -71,6 +93,14 @@ final class MessageDeliveryTask extends Task {
             return TaskHint.IDLE;
         }
 
+        try {
+            return deliverMessages(consumerIterator);
+        } finally {
+            flushConsumers();
+        }
+    }
+
+    private TaskHint deliverMessages(CyclicConsumerIterator consumerIterator) throws BrokerException {
         int deliveredCount = 0;
         Consumer previousConsumer = null;
         while (true) {
@@ -109,9 +139,9 @@ final class MessageDeliveryTask extends Task {
                     tracingManager.addTag(parentSpan, CONSUMER, consumer.toString());
                     message.setParentSpan(parentSpan);
                     consumer.send(message);
+                    consumersToFlush.add(consumer);
                     deliveredCount++;
-                    // TODO: make the value configurable
-                    if (deliveredCount == 1000) {
+                    if (deliveredCount == quantum) {
                         break;
                     }
                 } else {
@@ -127,4 +157,16 @@ final class MessageDeliveryTask extends Task {
             return TaskHint.IDLE;
         }
     }
+
+    private void flushConsumers() {
+        for (Consumer consumer : consumersToFlush) {
+            try {
+                consumer.flush();
+            } catch (BrokerException e) {
+                LOGGER.error("Error while flushing messages sent to consumer {} of {}", consumer,
+                             queueHandler.getQueue().getName(), e);
+            }
+        }
+        consumersToFlush.clear();
+    }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Creates {@link MessageDeliveryTask}s with the quantum and weight configured for the queue.
+ */
+final class MessageDeliveryTaskFactory {
+
+    private final int defaultQuantum;
+
+    private final int defaultWeight;
+
+    private final Map<String, BrokerCoreConfiguration.QueueDeliverySchedule> queueSchedules = new HashMap<>();
+
+    MessageDeliveryTaskFactory(BrokerCoreConfiguration.DeliveryTask configuration) {
+        defaultQuantum = parsePositiveInt("quantum", configuration.getQuantum());
+        defaultWeight = parsePositiveInt("weight", configuration.getWeight());
+        for (BrokerCoreConfiguration.QueueDeliverySchedule schedule : configuration.getQueues()) {
+            queueSchedules.put(schedule.getName(), schedule);
+        }
+    }
+
+    MessageDeliveryTask createTask(QueueHandler queueHandler) {
+        int quantum = defaultQuantum;
+        int weight = defaultWeight;
+        BrokerCoreConfiguration.QueueDeliverySchedule schedule = queueSchedules.get(queueHandler.getQueue().getName());
+        if (Objects.nonNull(schedule)) {
+            if (Objects.nonNull(schedule.getQuantum())) {
+                quantum = parsePositiveInt("quantum", schedule.getQuantum());
+            }
+            if (Objects.nonNull(schedule.getWeight())) {
+                weight = parsePositiveInt("weight", schedule.getWeight());
+            }
+        }
+        return new MessageDeliveryTask(queueHandler, quantum, weight);
+    }
+
+    private static int parsePositiveInt(String name, String value) {
+        int intValue = Integer.parseInt(value);
+        if (intValue <= 0) {
+            throw new IllegalArgumentException("Delivery task " + name + " should be a positive value. Found "
+                                                       + value);
+        }
+        return intValue;
+    }
+}
@@ -111,4 +111,18 @@ public abstract class Queue {
     public abstract void prepareDetach(Xid xid, Message message) throws BrokerException;
 
     public abstract int clear();
+
+    /**
+     * Called when a consumer subscribes to the queue.
+     */
+    public void onConsumerAdded() {
+        // Nothing to do by default
+    }
+
+    /**
+     * Release the resources held by the queue once the queue is deleted.
+     */
+    public void releaseResources() {
+        // Nothing to release by default
+    }
 }
@@ -25,6 +25,7 @@ import io.ballerina.messaging.broker.common.util.function.ThrowingConsumer;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
 import io.ballerina.messaging.broker.core.queue.UnmodifiableQueueWrapper;
+import io.ballerina.messaging.broker.core.task.Task;
 import io.ballerina.messaging.broker.core.trace.BrokerTracingManager;
 import io.ballerina.messaging.broker.core.trace.Tracer;
 import io.ballerina.messaging.broker.core.util.MessageTracer;
@@ -39,6 +40,10 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.transaction.xa.Xid;
 
 import static io.ballerina.messaging.broker.core.trace.Constants.Log.MESSAGE;
@@ -75,6 +80,22 @@ public final class QueueHandler {
 
     private final Map<Binding, ThrowingConsumer<Binding, BrokerException>> bindingChangeListenersMap;
 
+    /**
+     * Task delivering the messages of the queue while the queue has consumers.
+     */
+    private final AtomicReference<Task> deliveryTask = new AtomicReference<>();
+
+    /**
+     * Publishers hold the read lock while enqueuing, hence they do not block each other. {@link #releaseResources()}
+     * takes the write lock to set {@link #released}, which blocks until the enqueue calls in progress complete.
+     */
+    private final ReadWriteLock releaseLock = new ReentrantReadWriteLock();
+
+    /**
+     * Set once the queue is deleted. Messages, consumers and bindings are not added to a released queue.
+     */
+    private volatile boolean released = false;
+
     QueueHandler(Queue queue, BrokerMetricManager metricManager, BrokerTracingManager tracingManager) {
         this.queue = queue;
         queue.setQueueHandler(this);
@@ -116,7 +137,11 @@ public final class QueueHandler {
      * @return true if {@link Consumer} was successfully added.
      */
     boolean addConsumer(Consumer consumer) {
-        return consumers.add(consumer);
+        consumer.setReadinessListener(this::signalDeliveryTask);
+        boolean added = consumers.add(consumer);
+        queue.onConsumerAdded();
+        signalDeliveryTask();
+        return added;
     }
 
     /**
@@ -145,7 +170,15 @@ public final class QueueHandler {
                 build();
 
         String enqueueSpan = tracingManager.startSpan(tracer);
+        Lock enqueueLock = releaseLock.readLock();
+        enqueueLock.lock();
         try {
+            if (released) {
+                rejectMessage(message, enqueueSpan);
+                LOGGER.debug("Dropping message {} since the queue {} is deleted", message, queue.getName());
+                return;
+            }
+
             if (LOGGER.isDebugEnabled()) {
                 LOGGER.debug("Enqueuing message {} to queue {}", message, queue.getName());
             }
@@ -157,20 +190,33 @@ public final class QueueHandler {
             tracingManager.addTag(enqueueSpan, MESSAGE_IS_DELIVERED, message.isRedelivered());
             boolean success = queue.enqueue(message);
             if (success) {
+                signalDeliveryTask();
                 metricManager.addInMemoryMessage();
                 MessageTracer.trace(message, this, MessageTracer.PUBLISH_SUCCESSFUL);
                 tracingManager.addLog(enqueueSpan, MESSAGE, MessageTracer.PUBLISH_SUCCESSFUL);
             } else {
-                message.release();
-                MessageTracer.trace(message, this, MessageTracer.PUBLISH_FAILURE);
-                tracingManager.addLog(enqueueSpan, MESSAGE, MessageTracer.PUBLISH_FAILURE);
+                rejectMessage(message, enqueueSpan);
                 LOGGER.info("Failed to publish message {} to the queue {}", message, queue.getName());
             }
         } finally {
+            enqueueLock.unlock();
             tracingManager.stopSpan(enqueueSpan);
         }
     }
 
+    /**
+     * Drop a message which was not added to the queue. If the message was already attached to the queue it is
+     * detached, so that the queue mapping is not persisted with the message.
+     */
+    private void rejectMessage(Message message, String enqueueSpan) throws BrokerException {
+        if (message.getAttachedDurableQueues().contains(queue.getName())) {
+            queue.detach(message);
+        }
+        message.release();
+        MessageTracer.trace(message, this, MessageTracer.PUBLISH_FAILURE);
+        tracingManager.addLog(enqueueSpan, MESSAGE, MessageTracer.PUBLISH_FAILURE);
+    }
+
     void prepareForEnqueue(Xid xid, Message message) throws BrokerException {
         Tracer tracer = new Tracer.TracerBuilder().
                 serviceName("QueueHandler").
@@ -201,6 +247,7 @@ public final class QueueHandler {
 
     public void commit(Xid xid) {
         queue.commit(xid);
+        signalDeliveryTask();
         MessageTracer.trace(xid, this, MessageTracer.QUEUE_COMMIT);
     }
 
@@ -245,6 +292,10 @@ public final class QueueHandler {
                 build();
         String span = tracingManager.startSpan(tracer);
         queue.detach(message);
+        // Removing a message can make room to load more messages to memory
+        if (!isEmpty()) {
+            signalDeliveryTask();
+        }
         metricManager.removeInMemoryMessage();
         MessageTracer.trace(message, this, MessageTracer.ACKNOWLEDGE);
         tracingManager.addLog(span, MESSAGE, MessageTracer.ACKNOWLEDGE);
@@ -267,11 +318,42 @@ public final class QueueHandler {
                         message);
             enqueue(message);
         }
+        signalDeliveryTask();
         MessageTracer.trace(message, this, MessageTracer.REQUEUE);
         tracingManager.addLog(span, MESSAGE, MessageTracer.REQUEUE);
         tracingManager.stopSpan(span);
     }
 
+    /**
+     * Set the task delivering the messages of the queue.
+     *
+     * @param task delivery task
+     */
+    void setDeliveryTask(Task task) {
+        deliveryTask.set(task);
+    }
+
+    /**
+     * Unset the delivery task if it is the given task. A new delivery task could have been set if consumers were
+     * added after the given task was removed.
+     *
+     * @param task delivery task
+     */
+    void unsetDeliveryTask(Task task) {
+        deliveryTask.compareAndSet(task, null);
+    }
+
+    /**
+     * Wake up the delivery task of the queue. Invoked when messages become available for delivery or when a
+     * consumer becomes ready to receive messages.
+     */
+    public void signalDeliveryTask() {
+        Task task = deliveryTask.get();
+        if (task != null) {
+            task.signal();
+        }
+    }
+
     /**
      * Get the current consumer list iterator for the queue. This is a snapshot of the consumers at the time when the
      * when this method is invoked.
@@ -334,14 +416,41 @@ public final class QueueHandler {
         bindingChangeListenersMap.put(binding, bindingChangeListener);
     }
 
+    /**
+     * Release the resources held by the queue once it is deleted. Should be called while holding the monitor of the
+     * queue handler, which is also held when adding consumers.
+     *
+     * @throws BrokerException if an error occurred while removing the bindings of the queue
+     */
     public void releaseResources() throws BrokerException {
+        // Publishers check the flag while holding the read lock. Hence no more messages are added to the queue once
+        // the flag is set.
+        Lock lock = releaseLock.writeLock();
+        lock.lock();
+        try {
+            released = true;
+        } finally {
+            lock.unlock();
+        }
         closeAllConsumers();
+        queue.releaseResources();
+        metricManager.removeQueueInMemoryBytesGauge(queue.getName());
+        metricManager.removeQueueRecoveryGauges(queue.getName());
         for (Map.Entry<Binding, ThrowingConsumer<Binding, BrokerException>> entry
                 : bindingChangeListenersMap.entrySet()) {
             entry.getValue().accept(entry.getKey());
         }
     }
 
+    /**
+     * Whether the queue is deleted.
+     *
+     * @return true if the resources of the queue are released
+     */
+    boolean isReleased() {
+        return released;
+    }
+
     public void removeBinding(Binding binding) {
         bindingChangeListenersMap.remove(binding);
     }
@@ -23,27 +23,39 @@ import io.ballerina.messaging.broker.common.ResourceNotFoundException;
 import io.ballerina.messaging.broker.common.ValidationException;
 import io.ballerina.messaging.broker.core.store.dao.QueueDao;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Registry object which contains all the queues of the broker.
+ * <p>
+ * Queues are looked up without locking. Adding and removing a queue locks one of a fixed set of monitors selected by
+ * the queue name. Therefore only changes to the same queue, or to queues sharing a monitor, are serialized.
  */
 public final class QueueRegistry {
 
+    private static final int LOCK_STRIPES = 64;
+
     private final Map<String, QueueHandler> queueHandlerMap;
 
+    private final Object[] queueLocks;
+
     private final QueueDao queueDao;
 
     private final QueueHandlerFactory queueHandlerFactory;
 
     public QueueRegistry(QueueDao queueDao, QueueHandlerFactory queueHandlerFactory) throws BrokerException {
-        this.queueHandlerMap = new HashMap<>();
+        this.queueHandlerMap = new ConcurrentHashMap<>();
+        this.queueLocks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            queueLocks[i] = new Object();
+        }
         this.queueDao = queueDao;
         this.queueHandlerFactory = queueHandlerFactory;
-        retrieveQueuesFromDao();
     }
 
     QueueHandler getQueueHandler(String queueName) {
@@ -51,31 +63,33 @@ public final class QueueRegistry {
     }
 
     boolean addQueue(String queueName, boolean passive, boolean durable, boolean autoDelete) throws BrokerException {
-        QueueHandler queueHandler = queueHandlerMap.get(queueName);
+        synchronized (lockFor(queueName)) {
+            QueueHandler queueHandler = queueHandlerMap.get(queueName);
 
-        if (passive) {
-            if (Objects.isNull(queueHandler)) {
-                throw new BrokerException("Queue [ " + queueName + " ] doesn't exists. Passive parameter "
-                                                  + "is set, hence not creating the queue.");
-            } else {
-                return false;
-            }
-        } else {
-            if (Objects.isNull(queueHandler)) {
-                if (durable) {
-                    queueHandler = queueHandlerFactory.createDurableQueueHandler(queueName, autoDelete);
-                    queueDao.persist(queueHandler.getQueue());
+            if (passive) {
+                if (Objects.isNull(queueHandler)) {
+                    throw new BrokerException("Queue [ " + queueName + " ] doesn't exists. Passive parameter "
+                                                      + "is set, hence not creating the queue.");
                 } else {
-                    queueHandler = queueHandlerFactory.createNonDurableQueueHandler(queueName, autoDelete);
+                    return false;
                 }
-                queueHandlerMap.put(queueName, queueHandler);
-                return true;
-            } else if (queueHandler.getQueue().isDurable() != durable
-                       || queueHandler.getQueue().isAutoDelete() != autoDelete) {
-                throw new BrokerException(
-                        "Existing queue [ " + queueName + " ] does not match given parameters.");
             } else {
-                return false;
+                if (Objects.isNull(queueHandler)) {
+                    if (durable) {
+                        queueHandler = queueHandlerFactory.createDurableQueueHandler(queueName, autoDelete);
+                        queueDao.persist(queueHandler.getQueue());
+                    } else {
+                        queueHandler = queueHandlerFactory.createNonDurableQueueHandler(queueName, autoDelete);
+                    }
+                    queueHandlerMap.put(queueName, queueHandler);
+                    return true;
+                } else if (queueHandler.getQueue().isDurable() != durable
+                           || queueHandler.getQueue().isAutoDelete() != autoDelete) {
+                    throw new BrokerException(
+                            "Existing queue [ " + queueName + " ] does not match given parameters.");
+                } else {
+                    return false;
+                }
             }
         }
     }
@@ -83,30 +97,50 @@ public final class QueueRegistry {
     int removeQueue(String queueName, boolean ifUnused, boolean ifEmpty) throws BrokerException,
                                                                                 ValidationException,
                                                                                 ResourceNotFoundException {
-        QueueHandler queueHandler = queueHandlerMap.get(queueName);
-        if (queueHandler == null) {
-            throw new ResourceNotFoundException("Queue [ " + queueName + " ] Not found");
-        }
+        synchronized (lockFor(queueName)) {
+            QueueHandler queueHandler = queueHandlerMap.get(queueName);
+            if (queueHandler == null) {
+                throw new ResourceNotFoundException("Queue [ " + queueName + " ] Not found");
+            }
 
-        if (ifUnused && !queueHandler.isUnused()) {
-            throw new ValidationException("Cannot delete queue. Queue [ " + queueName
-                    + " ] has active consumers and the ifUnused parameter is set.");
-        } else if (ifEmpty && !queueHandler.isEmpty()) {
-            throw new ValidationException("Cannot delete queue. Queue [ " + queueName
-                    + " ] is not empty and the ifEmpty parameter is set.");
-        } else {
-            queueHandlerMap.remove(queueName);
-            queueHandler.releaseResources();
+            // Consumers are added while holding the queue handler monitor
+            synchronized (queueHandler) {
+                if (ifUnused && !queueHandler.isUnused()) {
+                    throw new ValidationException("Cannot delete queue. Queue [ " + queueName
+                            + " ] has active consumers and the ifUnused parameter is set.");
+                } else if (ifEmpty && !queueHandler.isEmpty()) {
+                    throw new ValidationException("Cannot delete queue. Queue [ " + queueName
+                            + " ] is not empty and the ifEmpty parameter is set.");
+                } else {
+                    queueHandlerMap.remove(queueName);
+                    queueHandler.releaseResources();
+                }
+            }
             queueDao.delete(queueHandler.getQueue());
             return queueHandler.size();
         }
     }
 
-    private void retrieveQueuesFromDao() throws BrokerException {
-            queueDao.retrieveAll((name) -> {
-                QueueHandler handler = queueHandlerFactory.createDurableQueueHandler(name, false);
+    private Object lockFor(String queueName) {
+        return queueLocks[(queueName.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    /**
+     * Create the handlers of the durable queues stored in the database. Queues are created in parallel since each
+     * of them recovers its messages.
+     *
+     * @param recoveryExecutor executor used to create the queues
+     * @throws BrokerException if an error occurs loading the queues from the database
+     */
+    void retrieveFromStore(RecoveryExecutor recoveryExecutor) throws BrokerException {
+        List<String> queueNames = new ArrayList<>();
+        queueDao.retrieveAll(queueNames::add);
+        recoveryExecutor.recoverAll(queueNames, name -> {
+            QueueHandler handler = queueHandlerFactory.createDurableQueueHandler(name, false);
+            synchronized (lockFor(name)) {
                 queueHandlerMap.putIfAbsent(name, handler);
-            });
+            }
+        });
     }
 
     public Collection<QueueHandler> getAllQueues() {
@@ -116,10 +150,25 @@ public final class QueueRegistry {
     /**
      * Method to reload queues on becoming the active node.
      *
+     * @param recoveryExecutor executor used to create the queues
      * @throws BrokerException if an error occurs loading messages from the database
      */
-    void reloadQueuesOnBecomingActive() throws BrokerException {
-        queueHandlerMap.clear();
-        retrieveQueuesFromDao();
+    void reloadQueuesOnBecomingActive(RecoveryExecutor recoveryExecutor) throws BrokerException {
+        clearQueueHandlers(0);
+        retrieveFromStore(recoveryExecutor);
+    }
+
+    /**
+     * Clear the queue handlers while holding every lock stripe starting from the given one, so that the clear does
+     * not interleave with adding or removing a queue. Stripes are always taken in the same order.
+     */
+    private void clearQueueHandlers(int stripe) {
+        if (stripe == LOCK_STRIPES) {
+            queueHandlerMap.clear();
+            return;
+        }
+        synchronized (queueLocks[stripe]) {
+            clearQueueHandlers(stripe + 1);
+        }
     }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.ballerina.messaging.broker.common.util.function.ThrowingConsumer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recovers broker resources from the store on a bounded pool of threads. Threads are only kept while recovering, so
+ * the pool does not hold threads between the startup and a failover.
+ */
+final class RecoveryExecutor {
+
+    private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Create a recovery executor.
+     *
+     * @param threadCount maximum number of resources recovered in parallel
+     */
+    RecoveryExecutor(int threadCount) {
+        executor = new ThreadPoolExecutor(threadCount, threadCount, THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                                          new LinkedBlockingQueue<>(),
+                                          new ThreadFactoryBuilder().setNameFormat("BrokerRecoveryThread-%d")
+                                                                    .setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Recover the given resources in parallel and wait until all of them are recovered.
+     *
+     * @param resources      resources to recover
+     * @param recoveryAction action recovering a single resource
+     * @param <T>            type of the resources
+     * @throws BrokerException if recovering any of the resources failed. Recoveries which have not started are
+     *                         cancelled
+     */
+    <T> void recoverAll(Collection<T> resources, ThrowingConsumer<T, BrokerException> recoveryAction)
+            throws BrokerException {
+        List<Future<?>> futures = new ArrayList<>(resources.size());
+        for (T resource : resources) {
+            futures.add(executor.submit(() -> {
+                recoveryAction.accept(resource);
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BrokerException("Interrupted while recovering from the store.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BrokerException) {
+                throw (BrokerException) cause;
+            }
+            throw new BrokerException("Error occurred while recovering from the store.", cause);
+        } finally {
+            for (Future<?> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+}
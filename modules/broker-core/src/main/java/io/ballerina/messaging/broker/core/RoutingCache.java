@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.TrieTopicMatcher;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of the bindings matched for the routing keys of a topic exchange. Cached binding sets are
+ * unmodifiable copies. When a binding pattern is bound or unbound only the routing keys matched by the pattern are
+ * invalidated.
+ * <p>
+ * Once the cache is full an entry is evicted with the CLOCK algorithm. Reading an entry sets its reference bit, which
+ * the clock hand clears as it passes. The hand evicts the first entry whose bit is clear, hence routing keys read
+ * since the last pass stay in the cache.
+ */
+final class RoutingCache {
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Position of the clock hand. Guarded by {@link #evictionLock}.
+     */
+    private Iterator<Map.Entry<String, Entry>> clockHand = Collections.emptyIterator();
+
+    private final Object evictionLock = new Object();
+
+    private final int maxSize;
+
+    private final BrokerMetricManager metricManager;
+
+    /**
+     * Computes the bindings matching a routing key on a cache miss.
+     */
+    private final Function<String, BindingSet> matcher;
+
+    /**
+     * Incremented on every invalidation. A binding set computed while an invalidation takes place is not kept in the
+     * cache since it might be stale.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Create a routing cache.
+     *
+     * @param maxSize       maximum number of routing keys to cache. A non positive value disables caching
+     * @param metricManager used to record cache hits and misses
+     * @param matcher       computes the bindings matching a routing key
+     */
+    RoutingCache(int maxSize, BrokerMetricManager metricManager, Function<String, BindingSet> matcher) {
+        this.maxSize = maxSize;
+        this.metricManager = metricManager;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Get the bindings for the routing key from the cache, computing and caching them if needed.
+     *
+     * @param routingKey routing key
+     * @return bindings for the routing key
+     */
+    BindingSet get(String routingKey) {
+        if (maxSize <= 0) {
+            return matcher.apply(routingKey);
+        }
+
+        Entry entry = entries.get(routingKey);
+        if (Objects.nonNull(entry)) {
+            metricManager.markRoutingCacheHit();
+            entry.markReferenced();
+            return entry.bindingSet;
+        }
+
+        metricManager.markRoutingCacheMiss();
+        long currentGeneration = generation.get();
+        entry = new Entry(BindingSet.unmodifiableCopyOf(matcher.apply(routingKey)));
+        if (entries.size() >= maxSize) {
+            evictEntry();
+        }
+        entries.put(routingKey, entry);
+
+        // The entry is put before checking the generation so that either this check or the invalidation removes it
+        if (generation.get() != currentGeneration) {
+            entries.remove(routingKey, entry);
+        }
+        return entry.bindingSet;
+    }
+
+    /**
+     * Invalidate the routing keys matched by a binding pattern. Should be called after the bindings of the pattern
+     * are updated.
+     *
+     * @param bindingPattern binding pattern which was bound or unbound
+     */
+    void invalidate(String bindingPattern) {
+        if (maxSize <= 0) {
+            return;
+        }
+        generation.incrementAndGet();
+        entries.keySet().removeIf(routingKey -> TrieTopicMatcher.isMatch(bindingPattern, routingKey));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Advance the clock hand until it reaches an entry which was not read since the hand last passed it, and evict
+     * that entry. The hand gives up after two rounds, which only happens when entries are read while it moves.
+     */
+    private void evictEntry() {
+        synchronized (evictionLock) {
+            int maxSteps = 2 * entries.size() + 1;
+            for (int step = 0; step < maxSteps; step++) {
+                if (!clockHand.hasNext()) {
+                    clockHand = entries.entrySet().iterator();
+                    if (!clockHand.hasNext()) {
+                        return;
+                    }
+                }
+                Map.Entry<String, Entry> candidate = clockHand.next();
+                Entry entry = candidate.getValue();
+                if (entry.referenced) {
+                    entry.referenced = false;
+                } else {
+                    entries.remove(candidate.getKey(), entry);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Cached bindings of a routing key along with its reference bit.
+     */
+    private static final class Entry {
+
+        private final BindingSet bindingSet;
+
+        private volatile boolean referenced;
+
+        private Entry(BindingSet bindingSet) {
+            this.bindingSet = bindingSet;
+        }
+
+        /**
+         * Set the reference bit. Skips the write when the bit is already set so that hits on a hot routing key do
+         * not keep invalidating the cache line of the entry.
+         */
+        private void markReferenced() {
+            if (!referenced) {
+                referenced = true;
+            }
+        }
+    }
+}
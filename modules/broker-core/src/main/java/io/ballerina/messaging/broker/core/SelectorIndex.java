@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.core.selector.BooleanExpression;
+import io.ballerina.messaging.broker.core.selector.IndexableExpression;
+import io.ballerina.messaging.broker.core.selector.JmsPropertyExpression;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Index of filtered bindings by the message property compared by their selectors. Bindings with selectors such as
+ * {@code region = 'eu-1'} are grouped by the property. Each property is read once per message and the matching
+ * bindings are looked up by its value. Bindings with other selectors are evaluated one by one.
+ */
+final class SelectorIndex {
+
+    private static final Binding[] NO_BINDINGS = new Binding[0];
+
+    private final PropertyIndex[] propertyIndexes;
+
+    private final Binding[] unindexedBindings;
+
+    private SelectorIndex(PropertyIndex[] propertyIndexes, Binding[] unindexedBindings) {
+        this.propertyIndexes = propertyIndexes;
+        this.unindexedBindings = unindexedBindings;
+    }
+
+    /**
+     * Build an index of the given bindings.
+     *
+     * @param filteredBindings bindings with selectors
+     * @return selector index
+     */
+    static SelectorIndex create(Collection<Binding> filteredBindings) {
+        Map<String, PropertyIndexBuilder> builders = new LinkedHashMap<>();
+        List<Binding> unindexedBindings = new ArrayList<>();
+        for (Binding binding : filteredBindings) {
+            BooleanExpression filterExpression = binding.getFilterExpression();
+            if (filterExpression instanceof IndexableExpression) {
+                IndexableExpression expression = (IndexableExpression) filterExpression;
+                builders.computeIfAbsent(expression.getProperty().getName(),
+                                         name -> new PropertyIndexBuilder(expression.getProperty()))
+                        .add(expression.getIndexKeys(), binding);
+            } else {
+                unindexedBindings.add(binding);
+            }
+        }
+
+        PropertyIndex[] propertyIndexes = new PropertyIndex[builders.size()];
+        int i = 0;
+        for (PropertyIndexBuilder builder : builders.values()) {
+            propertyIndexes[i++] = builder.build();
+        }
+        return new SelectorIndex(propertyIndexes, unindexedBindings.toArray(NO_BINDINGS));
+    }
+
+    /**
+     * Perform the action for each binding whose selector matches the message. A binding is matched at most once.
+     *
+     * @param metadata metadata of the message
+     * @param action   action to perform on the matching bindings
+     */
+    void forEachMatch(Metadata metadata, Consumer<Binding> action) {
+        for (PropertyIndex propertyIndex : propertyIndexes) {
+            Object key = propertyIndex.property.getIndexKey(metadata);
+            if (key != null) {
+                Binding[] bindings = propertyIndex.bindingsByKey.get(key);
+                if (bindings != null) {
+                    for (Binding binding : bindings) {
+                        action.accept(binding);
+                    }
+                }
+            }
+        }
+
+        for (Binding binding : unindexedBindings) {
+            if (binding.getFilterExpression().evaluate(metadata)) {
+                action.accept(binding);
+            }
+        }
+    }
+
+    /**
+     * Bindings comparing the same property, looked up by the compared value.
+     */
+    private static final class PropertyIndex {
+
+        private final JmsPropertyExpression property;
+
+        private final Map<Object, Binding[]> bindingsByKey;
+
+        private PropertyIndex(JmsPropertyExpression property, Map<Object, Binding[]> bindingsByKey) {
+            this.property = property;
+            this.bindingsByKey = bindingsByKey;
+        }
+    }
+
+    /**
+     * Collects the bindings of a property index.
+     */
+    private static final class PropertyIndexBuilder {
+
+        private final JmsPropertyExpression property;
+
+        private final Map<Object, List<Binding>> bindingsByKey = new HashMap<>();
+
+        private PropertyIndexBuilder(JmsPropertyExpression property) {
+            this.property = property;
+        }
+
+        private void add(Collection<Object> keys, Binding binding) {
+            for (Object key : keys) {
+                List<Binding> bindings = bindingsByKey.computeIfAbsent(key, k -> new ArrayList<>());
+                // An expression can list the same constant more than once. Keys of a binding are added together
+                if (bindings.isEmpty() || bindings.get(bindings.size() - 1) != binding) {
+                    bindings.add(binding);
+                }
+            }
+        }
+
+        private PropertyIndex build() {
+            Map<Object, Binding[]> index = new HashMap<>(bindingsByKey.size() * 2);
+            bindingsByKey.forEach((key, bindings) -> index.put(key, bindings.toArray(NO_BINDINGS)));
+            return new PropertyIndex(property, index);
+        }
+    }
+}
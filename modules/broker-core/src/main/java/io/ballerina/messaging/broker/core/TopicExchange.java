@@ -19,25 +19,34 @@
 
 package io.ballerina.messaging.broker.core;
 
-import io.ballerina.messaging.broker.common.FastTopicMatcher;
+import io.ballerina.messaging.broker.common.TrieTopicMatcher;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
 import io.ballerina.messaging.broker.core.store.dao.BindingDao;
 
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
 /**
  * AMQP topic exchange implementation.
  */
 final class TopicExchange extends Exchange implements BindingsRegistryListener {
 
-    private final FastTopicMatcher fastTopicMatcher;
+    static final int DEFAULT_ROUTING_CACHE_SIZE = 1024;
+
+    /**
+     * Matching is lock free, hence the matcher is accessed without locking.
+     */
+    private final TrieTopicMatcher topicMatcher;
 
-    private final ReadWriteLock lock;
+    private final RoutingCache routingCache;
 
     TopicExchange(String exchangeName, BindingDao bindingDao) {
+        this(exchangeName, bindingDao, new NullBrokerMetricManager(), DEFAULT_ROUTING_CACHE_SIZE);
+    }
+
+    TopicExchange(String exchangeName, BindingDao bindingDao, BrokerMetricManager metricManager,
+                  int routingCacheSize) {
         super(exchangeName, Type.TOPIC, bindingDao);
-        fastTopicMatcher = new FastTopicMatcher();
-        lock = new ReentrantReadWriteLock();
+        topicMatcher = new TrieTopicMatcher();
+        routingCache = new RoutingCache(routingCacheSize, metricManager, this::matchBindings);
         getBindingsRegistry().addBindingsRegistryListeners(this);
     }
 
@@ -47,33 +56,35 @@ final class TopicExchange extends Exchange implements BindingsRegistryListener {
             return BindingSet.emptySet();
         }
 
-        lock.readLock().lock();
-        try {
-            BindingSet matchedBindingSet = new BindingSet();
-            fastTopicMatcher.matchingBindings(routingKey, subscribedPattern -> {
-                BindingSet bindingSet = getBindingsRegistry().getBindingsForRoute(subscribedPattern);
-                matchedBindingSet.add(bindingSet);
-            });
-            return matchedBindingSet;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return routingCache.get(routingKey);
+    }
+
+    private BindingSet matchBindings(String routingKey) {
+        BindingSet matchedBindingSet = BindingSet.forSingleRoute();
+        topicMatcher.matchingBindings(routingKey, subscribedPattern -> {
+            BindingSet bindingSet = getBindingsRegistry().getBindingsForRoute(subscribedPattern);
+            matchedBindingSet.add(bindingSet);
+        });
+        return matchedBindingSet;
     }
 
     @Override
     public void onBind(String routingKey) {
-        fastTopicMatcher.add(routingKey);
+        topicMatcher.add(routingKey);
+        routingCache.invalidate(routingKey);
     }
 
     @Override
     public void onUnbind(String routingKey, boolean isLastSubscriber) {
         if (isLastSubscriber) {
-            fastTopicMatcher.remove(routingKey);
+            topicMatcher.remove(routingKey);
         }
+        routingCache.invalidate(routingKey);
     }
 
     @Override
     public void onRetrieveAllBindingsForExchange(String routingKey) {
-        fastTopicMatcher.add(routingKey);
+        topicMatcher.add(routingKey);
+        routingCache.invalidate(routingKey);
     }
 }
@@ -19,6 +19,9 @@
 
 package io.ballerina.messaging.broker.core.configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents configuration for broker.
  */
@@ -42,8 +45,20 @@ public class BrokerCoreConfiguration {
 
     private String durableQueueInMemoryCacheLimit = "10000";
 
+    private String durableQueueInMemoryCacheByteLimit = "67108864";
+
+    private String totalInMemoryCacheByteLimit = "268435456";
+
+    private String durableQueueBufferType = "synchronized";
+
     private DeliveryTask deliveryTask = new DeliveryTask();
 
+    private MemoryWatermark memoryWatermark = new MemoryWatermark();
+
+    private RoutingCache routingCache = new RoutingCache();
+
+    private MessageStorage messageStorage = new MessageStorage();
+
     /**
      * Getter for nonDurableQueueMaxDepth.
      */
@@ -66,6 +81,39 @@ public class BrokerCoreConfiguration {
         this.durableQueueInMemoryCacheLimit = durableQueueInMemoryCacheLimit;
     }
 
+    /**
+     * Getter for durableQueueInMemoryCacheByteLimit.
+     */
+    public String getDurableQueueInMemoryCacheByteLimit() {
+        return durableQueueInMemoryCacheByteLimit;
+    }
+
+    public void setDurableQueueInMemoryCacheByteLimit(String durableQueueInMemoryCacheByteLimit) {
+        this.durableQueueInMemoryCacheByteLimit = durableQueueInMemoryCacheByteLimit;
+    }
+
+    /**
+     * Getter for totalInMemoryCacheByteLimit.
+     */
+    public String getTotalInMemoryCacheByteLimit() {
+        return totalInMemoryCacheByteLimit;
+    }
+
+    public void setTotalInMemoryCacheByteLimit(String totalInMemoryCacheByteLimit) {
+        this.totalInMemoryCacheByteLimit = totalInMemoryCacheByteLimit;
+    }
+
+    /**
+     * Getter for durableQueueBufferType.
+     */
+    public String getDurableQueueBufferType() {
+        return durableQueueBufferType;
+    }
+
+    public void setDurableQueueBufferType(String durableQueueBufferType) {
+        this.durableQueueBufferType = durableQueueBufferType;
+    }
+
     /**
      * Getter for deliveryTask.
      */
@@ -77,13 +125,50 @@ public class BrokerCoreConfiguration {
         this.deliveryTask = deliveryTask;
     }
 
+    /**
+     * Getter for memoryWatermark.
+     */
+    public MemoryWatermark getMemoryWatermark() {
+        return memoryWatermark;
+    }
+
+    public void setMemoryWatermark(MemoryWatermark memoryWatermark) {
+        this.memoryWatermark = memoryWatermark;
+    }
+
+    /**
+     * Getter for routingCache.
+     */
+    public RoutingCache getRoutingCache() {
+        return routingCache;
+    }
+
+    public void setRoutingCache(RoutingCache routingCache) {
+        this.routingCache = routingCache;
+    }
+
+    /**
+     * Getter for messageStorage.
+     */
+    public MessageStorage getMessageStorage() {
+        return messageStorage;
+    }
+
+    public void setMessageStorage(MessageStorage messageStorage) {
+        this.messageStorage = messageStorage;
+    }
+
     /**
      * Represent delivery task related configurations.
      */
     public static class DeliveryTask {
         private String workerCount = "5";
 
-        private String idleTaskDelay = "50";
+        private String quantum = "1000";
+
+        private String weight = "1";
+
+        private List<QueueDeliverySchedule> queues = new ArrayList<>();
 
         /**
          * Getter for workerCount.
@@ -97,14 +182,392 @@ public class BrokerCoreConfiguration {
         }
 
         /**
-         * Getter for idleTaskDelay.
+         * Getter for quantum.
+         */
+        public String getQuantum() {
+            return quantum;
+        }
+
+        public void setQuantum(String quantum) {
+            this.quantum = quantum;
+        }
+
+        /**
+         * Getter for weight.
+         */
+        public String getWeight() {
+            return weight;
+        }
+
+        public void setWeight(String weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Getter for queues.
+         */
+        public List<QueueDeliverySchedule> getQueues() {
+            return queues;
+        }
+
+        public void setQueues(List<QueueDeliverySchedule> queues) {
+            this.queues = queues;
+        }
+    }
+
+    /**
+     * Represent delivery task configurations overridden for a single queue. Unset values fall back to the values
+     * of {@link DeliveryTask}.
+     */
+    public static class QueueDeliverySchedule {
+        private String name;
+
+        private String quantum;
+
+        private String weight;
+
+        /**
+         * Getter for name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Getter for quantum.
+         */
+        public String getQuantum() {
+            return quantum;
+        }
+
+        public void setQuantum(String quantum) {
+            this.quantum = quantum;
+        }
+
+        /**
+         * Getter for weight.
+         */
+        public String getWeight() {
+            return weight;
+        }
+
+        public void setWeight(String weight) {
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Represent publisher back-pressure related configurations. Watermarks are fractions of the maximum heap size.
+     */
+    public static class MemoryWatermark {
+        private String high = "0.4";
+
+        private String low = "0.3";
+
+        /**
+         * Getter for high.
+         */
+        public String getHigh() {
+            return high;
+        }
+
+        public void setHigh(String high) {
+            this.high = high;
+        }
+
+        /**
+         * Getter for low.
+         */
+        public String getLow() {
+            return low;
+        }
+
+        public void setLow(String low) {
+            this.low = low;
+        }
+    }
+
+    /**
+     * Represent routing result cache related configurations of topic exchanges.
+     */
+    public static class RoutingCache {
+        private String size = "1024";
+
+        /**
+         * Getter for size.
+         */
+        public String getSize() {
+            return size;
+        }
+
+        public void setSize(String size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * Represent configurations of the storage used for the messages of durable queues.
+     */
+    public static class MessageStorage {
+        private String type = "database";
+
+        private String writerCount = "1";
+
+        private String maxWriteBatchSize = "1024";
+
+        private String maxWriteBatchWait = "1000";
+
+        private String readerCount = "2";
+
+        private String readBufferSize = "8192";
+
+        private String recoveryCacheSize = "100000";
+
+        private String recoveryPageSize = "10000";
+
+        private String recoveryThreadCount = "8";
+
+        private boolean lazyQueueRecovery = false;
+
+        private FileStorage file = new FileStorage();
+
+        private Checkpoint checkpoint = new Checkpoint();
+
+        /**
+         * Getter for type.
+         */
+        public String getType() {
+            return type;
+        }
+
+        public void setType(String type) {
+            this.type = type;
+        }
+
+        /**
+         * Getter for writerCount.
+         */
+        public String getWriterCount() {
+            return writerCount;
+        }
+
+        public void setWriterCount(String writerCount) {
+            this.writerCount = writerCount;
+        }
+
+        /**
+         * Getter for maxWriteBatchSize.
+         */
+        public String getMaxWriteBatchSize() {
+            return maxWriteBatchSize;
+        }
+
+        public void setMaxWriteBatchSize(String maxWriteBatchSize) {
+            this.maxWriteBatchSize = maxWriteBatchSize;
+        }
+
+        /**
+         * Getter for maxWriteBatchWait.
+         */
+        public String getMaxWriteBatchWait() {
+            return maxWriteBatchWait;
+        }
+
+        public void setMaxWriteBatchWait(String maxWriteBatchWait) {
+            this.maxWriteBatchWait = maxWriteBatchWait;
+        }
+
+        /**
+         * Getter for readerCount.
+         */
+        public String getReaderCount() {
+            return readerCount;
+        }
+
+        public void setReaderCount(String readerCount) {
+            this.readerCount = readerCount;
+        }
+
+        /**
+         * Getter for readBufferSize.
+         */
+        public String getReadBufferSize() {
+            return readBufferSize;
+        }
+
+        public void setReadBufferSize(String readBufferSize) {
+            this.readBufferSize = readBufferSize;
+        }
+
+        /**
+         * Getter for recoveryCacheSize.
+         */
+        public String getRecoveryCacheSize() {
+            return recoveryCacheSize;
+        }
+
+        public void setRecoveryCacheSize(String recoveryCacheSize) {
+            this.recoveryCacheSize = recoveryCacheSize;
+        }
+
+        /**
+         * Getter for recoveryPageSize.
+         */
+        public String getRecoveryPageSize() {
+            return recoveryPageSize;
+        }
+
+        public void setRecoveryPageSize(String recoveryPageSize) {
+            this.recoveryPageSize = recoveryPageSize;
+        }
+
+        /**
+         * Getter for recoveryThreadCount.
+         */
+        public String getRecoveryThreadCount() {
+            return recoveryThreadCount;
+        }
+
+        public void setRecoveryThreadCount(String recoveryThreadCount) {
+            this.recoveryThreadCount = recoveryThreadCount;
+        }
+
+        /**
+         * Getter for lazyQueueRecovery.
+         */
+        public boolean isLazyQueueRecovery() {
+            return lazyQueueRecovery;
+        }
+
+        public void setLazyQueueRecovery(boolean lazyQueueRecovery) {
+            this.lazyQueueRecovery = lazyQueueRecovery;
+        }
+
+        /**
+         * Getter for file.
+         */
+        public FileStorage getFile() {
+            return file;
+        }
+
+        public void setFile(FileStorage file) {
+            this.file = file;
+        }
+
+        /**
+         * Getter for checkpoint.
+         */
+        public Checkpoint getCheckpoint() {
+            return checkpoint;
+        }
+
+        public void setCheckpoint(Checkpoint checkpoint) {
+            this.checkpoint = checkpoint;
+        }
+    }
+
+    /**
+     * Represent configurations of the queue index checkpoint of the database message storage.
+     */
+    public static class Checkpoint {
+        private boolean enabled = false;
+
+        private String directory = "./database/checkpoint";
+
+        private String interval = "300";
+
+        /**
+         * Getter for enabled.
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Getter for directory.
+         */
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Getter for interval.
+         */
+        public String getInterval() {
+            return interval;
+        }
+
+        public void setInterval(String interval) {
+            this.interval = interval;
+        }
+    }
+
+    /**
+     * Represent configurations of the segmented file message storage.
+     */
+    public static class FileStorage {
+        private String directory = "./database/messages";
+
+        private String segmentSize = "67108864";
+
+        private String compactionThreshold = "0.5";
+
+        private String compactionInterval = "60";
+
+        /**
+         * Getter for directory.
+         */
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Getter for segmentSize.
+         */
+        public String getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(String segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        /**
+         * Getter for compactionThreshold.
+         */
+        public String getCompactionThreshold() {
+            return compactionThreshold;
+        }
+
+        public void setCompactionThreshold(String compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+        }
+
+        /**
+         * Getter for compactionInterval.
          */
-        public String getIdleTaskDelay() {
-            return idleTaskDelay;
+        public String getCompactionInterval() {
+            return compactionInterval;
         }
 
-        public void setIdleTaskDelay(String idleTaskDelay) {
-            this.idleTaskDelay = idleTaskDelay;
+        public void setCompactionInterval(String compactionInterval) {
+            this.compactionInterval = compactionInterval;
         }
     }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.memory;
+
+/**
+ * Listener notified when the message content bytes tracked by {@link MessageMemoryTracker} cross the watermarks.
+ * Notifications can be invoked from any thread that allocates or releases message content. Hence implementations
+ * should not block.
+ */
+public interface MemoryWatermarkListener {
+
+    /**
+     * Invoked when the tracked bytes reach the high watermark. Publishers should be blocked.
+     */
+    void onHighWatermark();
+
+    /**
+     * Invoked when the tracked bytes fall to the low watermark after reaching the high watermark. Publishers can be
+     * resumed.
+     */
+    void onLowWatermark();
+}
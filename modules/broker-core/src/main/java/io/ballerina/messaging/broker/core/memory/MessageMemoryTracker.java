@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.memory;
+
+import io.netty.buffer.ByteBuf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broker wide accountant of the message content held in memory. Transports hand over the received content buffers
+ * through {@link #track(ByteBuf)}. The bytes of such a buffer are tracked until every copy of the content held by
+ * queues, consumers and transactions is released.
+ * <p>
+ * When the tracked bytes reach the high watermark the registered {@link MemoryWatermarkListener}s are asked to block
+ * publishers. They are notified again once the tracked bytes fall to the low watermark.
+ */
+public class MessageMemoryTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MessageMemoryTracker.class);
+
+    private final long highWatermark;
+
+    private final long lowWatermark;
+
+    private final AtomicLong usedBytes = new AtomicLong(0);
+
+    private final AtomicBoolean aboveHighWatermark = new AtomicBoolean(false);
+
+    /**
+     * Listeners are added and removed as channels open and close. A concurrent set keeps both constant time.
+     */
+    private final Set<MemoryWatermarkListener> listeners = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Create a tracker.
+     *
+     * @param highWatermark number of bytes at which publishers are blocked. A non positive value disables blocking
+     * @param lowWatermark  number of bytes at which blocked publishers are resumed
+     */
+    public MessageMemoryTracker(long highWatermark, long lowWatermark) {
+        if (highWatermark > 0 && (lowWatermark < 0 || lowWatermark > highWatermark)) {
+            throw new IllegalArgumentException("Low watermark " + lowWatermark + " should be between 0 and the high "
+                                                       + "watermark " + highWatermark);
+        }
+        this.highWatermark = highWatermark > 0 ? highWatermark : Long.MAX_VALUE;
+        this.lowWatermark = highWatermark > 0 ? lowWatermark : Long.MAX_VALUE;
+    }
+
+    /**
+     * Track the readable bytes of the given buffer without copying them. The reference held by the caller is taken
+     * over by the returned buffer, which releases the content buffer when it is deallocated.
+     *
+     * @param content buffer holding message content
+     * @return tracked buffer with a reference count of one
+     */
+    public ByteBuf track(ByteBuf content) {
+        TrackedByteBuf trackedContent = new TrackedByteBuf(this, content);
+        usedBytes.addAndGet(trackedContent.getTrackedBytes());
+        updateWatermarkState();
+        return trackedContent;
+    }
+
+    void release(long bytes) {
+        usedBytes.addAndGet(-bytes);
+        updateWatermarkState();
+    }
+
+    /**
+     * Re-evaluate the watermark state until it matches the tracked bytes. Allocations and releases racing with a
+     * state change are hence not missed.
+     */
+    private void updateWatermarkState() {
+        while (true) {
+            long used = usedBytes.get();
+            boolean blocked = aboveHighWatermark.get();
+            if (!blocked && used >= highWatermark) {
+                if (aboveHighWatermark.compareAndSet(false, true)) {
+                    LOGGER.warn("Message memory usage {} bytes reached the high watermark {} bytes. Blocking "
+                                        + "publishers.", used, highWatermark);
+                    listeners.forEach(MemoryWatermarkListener::onHighWatermark);
+                }
+            } else if (blocked && used <= lowWatermark) {
+                if (aboveHighWatermark.compareAndSet(true, false)) {
+                    LOGGER.info("Message memory usage {} bytes fell to the low watermark {} bytes. Resuming "
+                                        + "publishers.", used, lowWatermark);
+                    listeners.forEach(MemoryWatermarkListener::onLowWatermark);
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    public void addListener(MemoryWatermarkListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(MemoryWatermarkListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Check whether publishers should be blocked. Listeners should rely on this rather than the order in which
+     * notifications arrive, since notifications from different threads can interleave.
+     *
+     * @return true if the high watermark was reached and the tracked bytes did not yet fall to the low watermark
+     */
+    public boolean isAboveHighWatermark() {
+        return aboveHighWatermark.get();
+    }
+
+    /**
+     * Getter for usedBytes.
+     */
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    /**
+     * Getter for highWatermark.
+     */
+    public long getHighWatermark() {
+        return highWatermark;
+    }
+
+    /**
+     * Getter for lowWatermark.
+     */
+    public long getLowWatermark() {
+        return lowWatermark;
+    }
+}
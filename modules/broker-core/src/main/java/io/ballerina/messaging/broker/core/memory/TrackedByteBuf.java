@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.memory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+
+/**
+ * Buffer holding received message content which reports the content bytes back to the {@link MessageMemoryTracker}
+ * when it is deallocated. The content buffer is wrapped without copying and released along with this buffer. Slices
+ * and duplicates share the reference count of this buffer. Therefore the bytes are released exactly once, when the
+ * last holder of the content releases it.
+ */
+final class TrackedByteBuf extends CompositeByteBuf {
+
+    /**
+     * Smallest component limit allowed. Only the content buffer is added.
+     */
+    private static final int MAX_COMPONENTS = 2;
+
+    private final MessageMemoryTracker tracker;
+
+    private final int trackedBytes;
+
+    TrackedByteBuf(MessageMemoryTracker tracker, ByteBuf content) {
+        super(UnpooledByteBufAllocator.DEFAULT, content.isDirect(), MAX_COMPONENTS, content);
+        this.tracker = tracker;
+        this.trackedBytes = content.readableBytes();
+    }
+
+    int getTrackedBytes() {
+        return trackedBytes;
+    }
+
+    @Override
+    protected void deallocate() {
+        super.deallocate();
+        tracker.release(trackedBytes);
+    }
+}
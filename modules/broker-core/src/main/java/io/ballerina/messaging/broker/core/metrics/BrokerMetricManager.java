@@ -19,6 +19,7 @@
 
 package io.ballerina.messaging.broker.core.metrics;
 
+import org.wso2.carbon.metrics.core.Gauge;
 import org.wso2.carbon.metrics.core.Timer.Context;
 
 /**
@@ -38,4 +39,46 @@ public interface BrokerMetricManager {
     Context startMessageDeleteTimer();
 
     Context startMessageReadTimer();
+
+    void registerTotalInMemoryBytesGauge(Gauge<Long> gauge);
+
+    void registerQueueInMemoryBytesGauge(String queueName, Gauge<Long> gauge);
+
+    void removeQueueInMemoryBytesGauge(String queueName);
+
+    void registerMessageMemoryBytesGauge(Gauge<Long> gauge);
+
+    void markDeliveryTaskSteal();
+
+    void recordDeliveryTaskQueueLag(long lagNanos);
+
+    Context startDeliveryTaskRunTimer();
+
+    void markRoutingCacheHit();
+
+    void markRoutingCacheMiss();
+
+    void registerStoreWriteRingOccupancyGauge(Gauge<Long> gauge);
+
+    void registerStoreReadRingOccupancyGauge(Gauge<Long> gauge);
+
+    void recordStoreWriteWait(long waitNanos);
+
+    void recordStoreReadWait(long waitNanos);
+
+    void recordStoreWriteBatchSize(int batchSize);
+
+    void recordStoreCommitLatency(long latencyNanos);
+
+    void markStoredMessageCacheHit();
+
+    void markStoredMessageCacheMiss();
+
+    void registerStoredMessageCacheSizeGauge(Gauge<Long> gauge);
+
+    void registerQueueRecoveryGauges(String queueName, Gauge<Double> progressGauge, Gauge<Long> remainingTimeGauge);
+
+    void removeQueueRecoveryGauges(String queueName);
+
+    void recordTimeToActive(long timeToActiveNanos);
 }
@@ -21,24 +21,42 @@ package io.ballerina.messaging.broker.core.metrics;
 
 import io.ballerina.messaging.broker.core.Broker;
 import org.wso2.carbon.metrics.core.Counter;
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.Histogram;
 import org.wso2.carbon.metrics.core.Level;
 import org.wso2.carbon.metrics.core.Meter;
 import org.wso2.carbon.metrics.core.MetricService;
 import org.wso2.carbon.metrics.core.Timer;
 import org.wso2.carbon.metrics.core.Timer.Context;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * Default implementation of {@link BrokerMetricManager}.
  */
 public class DefaultBrokerMetricManager implements BrokerMetricManager {
+    private final MetricService metrics;
     private final Meter totalPublishedCounter;
     private final Counter totalEnqueueCounter;
     private final Meter totalAckCounter;
     private final Timer messageWriteTimer;
     private final Timer messageDeleteTimer;
     private final Timer messageReadTimer;
+    private final Meter deliveryTaskStealCounter;
+    private final Timer deliveryTaskQueueLagTimer;
+    private final Timer deliveryTaskRunTimer;
+    private final Meter routingCacheHitCounter;
+    private final Meter routingCacheMissCounter;
+    private final Timer storeWriteWaitTimer;
+    private final Timer storeReadWaitTimer;
+    private final Histogram storeWriteBatchSizeHistogram;
+    private final Timer storeCommitLatencyTimer;
+    private final Meter storedMessageCacheHitCounter;
+    private final Meter storedMessageCacheMissCounter;
+    private final Timer timeToActiveTimer;
 
     public DefaultBrokerMetricManager(MetricService metrics) {
+        this.metrics = metrics;
         totalPublishedCounter = metrics.meter(MetricService.name(Broker.class, "node", "totalPublished"), Level.INFO);
         totalAckCounter = metrics.meter(MetricService.name(Broker.class, "node", "totalAcknowledged"), Level.INFO);
         totalEnqueueCounter = metrics.counter(MetricService.name(Broker.class, "node", "totalInMemoryMessages"),
@@ -46,6 +64,27 @@ public class DefaultBrokerMetricManager implements BrokerMetricManager {
         messageWriteTimer = metrics.timer(MetricService.name(Broker.class, "node", "messageWrite"), Level.INFO);
         messageDeleteTimer = metrics.timer(MetricService.name(Broker.class, "node", "messageDelete"), Level.INFO);
         messageReadTimer = metrics.timer(MetricService.name(Broker.class, "node", "messageRead"), Level.INFO);
+        deliveryTaskStealCounter = metrics.meter(MetricService.name(Broker.class, "node", "deliveryTaskSteals"),
+                                                 Level.INFO);
+        deliveryTaskQueueLagTimer = metrics.timer(MetricService.name(Broker.class, "node", "deliveryTaskQueueLag"),
+                                                  Level.INFO);
+        deliveryTaskRunTimer = metrics.timer(MetricService.name(Broker.class, "node", "deliveryTaskRunTime"),
+                                             Level.INFO);
+        routingCacheHitCounter = metrics.meter(MetricService.name(Broker.class, "node", "routingCacheHits"),
+                                               Level.INFO);
+        routingCacheMissCounter = metrics.meter(MetricService.name(Broker.class, "node", "routingCacheMisses"),
+                                                Level.INFO);
+        storeWriteWaitTimer = metrics.timer(MetricService.name(Broker.class, "node", "storeWriteWait"), Level.INFO);
+        storeReadWaitTimer = metrics.timer(MetricService.name(Broker.class, "node", "storeReadWait"), Level.INFO);
+        storeWriteBatchSizeHistogram = metrics.histogram(MetricService.name(Broker.class, "node",
+                                                                            "storeWriteBatchSize"), Level.INFO);
+        storeCommitLatencyTimer = metrics.timer(MetricService.name(Broker.class, "node", "storeCommitLatency"),
+                                                Level.INFO);
+        storedMessageCacheHitCounter = metrics.meter(MetricService.name(Broker.class, "node",
+                                                                        "storedMessageCacheHits"), Level.INFO);
+        storedMessageCacheMissCounter = metrics.meter(MetricService.name(Broker.class, "node",
+                                                                         "storedMessageCacheMisses"), Level.INFO);
+        timeToActiveTimer = metrics.timer(MetricService.name(Broker.class, "node", "timeToActive"), Level.INFO);
     }
 
     @Override
@@ -82,4 +121,121 @@ public class DefaultBrokerMetricManager implements BrokerMetricManager {
     public Context startMessageReadTimer() {
         return messageReadTimer.start();
     }
+
+    @Override
+    public void registerTotalInMemoryBytesGauge(Gauge<Long> gauge) {
+        metrics.gauge(MetricService.name(Broker.class, "node", "totalInMemoryMessageBytes"), Level.INFO, gauge);
+    }
+
+    @Override
+    public void registerQueueInMemoryBytesGauge(String queueName, Gauge<Long> gauge) {
+        metrics.gauge(getQueueInMemoryBytesGaugeName(queueName), Level.INFO, gauge);
+    }
+
+    @Override
+    public void removeQueueInMemoryBytesGauge(String queueName) {
+        metrics.remove(getQueueInMemoryBytesGaugeName(queueName));
+    }
+
+    @Override
+    public void registerMessageMemoryBytesGauge(Gauge<Long> gauge) {
+        metrics.gauge(MetricService.name(Broker.class, "node", "messageMemoryBytes"), Level.INFO, gauge);
+    }
+
+    @Override
+    public void markDeliveryTaskSteal() {
+        deliveryTaskStealCounter.mark();
+    }
+
+    @Override
+    public void recordDeliveryTaskQueueLag(long lagNanos) {
+        deliveryTaskQueueLagTimer.update(lagNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Context startDeliveryTaskRunTimer() {
+        return deliveryTaskRunTimer.start();
+    }
+
+    @Override
+    public void markRoutingCacheHit() {
+        routingCacheHitCounter.mark();
+    }
+
+    @Override
+    public void markRoutingCacheMiss() {
+        routingCacheMissCounter.mark();
+    }
+
+    @Override
+    public void registerStoreWriteRingOccupancyGauge(Gauge<Long> gauge) {
+        metrics.gauge(MetricService.name(Broker.class, "node", "storeWriteRingOccupancy"), Level.INFO, gauge);
+    }
+
+    @Override
+    public void registerStoreReadRingOccupancyGauge(Gauge<Long> gauge) {
+        metrics.gauge(MetricService.name(Broker.class, "node", "storeReadRingOccupancy"), Level.INFO, gauge);
+    }
+
+    @Override
+    public void recordStoreWriteWait(long waitNanos) {
+        storeWriteWaitTimer.update(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordStoreReadWait(long waitNanos) {
+        storeReadWaitTimer.update(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordStoreWriteBatchSize(int batchSize) {
+        storeWriteBatchSizeHistogram.update(batchSize);
+    }
+
+    @Override
+    public void recordStoreCommitLatency(long latencyNanos) {
+        storeCommitLatencyTimer.update(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void markStoredMessageCacheHit() {
+        storedMessageCacheHitCounter.mark();
+    }
+
+    @Override
+    public void markStoredMessageCacheMiss() {
+        storedMessageCacheMissCounter.mark();
+    }
+
+    @Override
+    public void registerStoredMessageCacheSizeGauge(Gauge<Long> gauge) {
+        metrics.gauge(MetricService.name(Broker.class, "node", "storedMessageCacheSize"), Level.INFO, gauge);
+    }
+
+    @Override
+    public void registerQueueRecoveryGauges(String queueName, Gauge<Double> progressGauge,
+                                            Gauge<Long> remainingTimeGauge) {
+        metrics.gauge(getQueueRecoveryGaugeName(queueName, "recoveryProgress"), Level.INFO, progressGauge);
+        metrics.gauge(getQueueRecoveryGaugeName(queueName, "recoveryRemainingTime"), Level.INFO,
+                      remainingTimeGauge);
+    }
+
+    @Override
+    public void removeQueueRecoveryGauges(String queueName) {
+        metrics.remove(getQueueRecoveryGaugeName(queueName, "recoveryProgress"));
+        metrics.remove(getQueueRecoveryGaugeName(queueName, "recoveryRemainingTime"));
+    }
+
+    @Override
+    public void recordTimeToActive(long timeToActiveNanos) {
+        timeToActiveTimer.update(timeToActiveNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static String getQueueInMemoryBytesGaugeName(String queueName) {
+        return MetricService.name(Broker.class, "queue", queueName, "inMemoryMessageBytes");
+    }
+
+    private static String getQueueRecoveryGaugeName(String queueName, String gaugeName) {
+        return MetricService.name(Broker.class, "queue", queueName, gaugeName);
+    }
 }
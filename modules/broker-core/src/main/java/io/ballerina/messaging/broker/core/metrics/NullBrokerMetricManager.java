@@ -19,6 +19,7 @@
 
 package io.ballerina.messaging.broker.core.metrics;
 
+import org.wso2.carbon.metrics.core.Gauge;
 import org.wso2.carbon.metrics.core.Timer.Context;
 
 /**
@@ -62,6 +63,41 @@ public class NullBrokerMetricManager implements BrokerMetricManager {
         return nullContext;
     }
 
+    @Override
+    public void registerTotalInMemoryBytesGauge(Gauge<Long> gauge) {
+        // do nothing
+    }
+
+    @Override
+    public void registerQueueInMemoryBytesGauge(String queueName, Gauge<Long> gauge) {
+        // do nothing
+    }
+
+    @Override
+    public void removeQueueInMemoryBytesGauge(String queueName) {
+        // do nothing
+    }
+
+    @Override
+    public void registerMessageMemoryBytesGauge(Gauge<Long> gauge) {
+        // do nothing
+    }
+
+    @Override
+    public void markDeliveryTaskSteal() {
+        // do nothing
+    }
+
+    @Override
+    public void recordDeliveryTaskQueueLag(long lagNanos) {
+        // do nothing
+    }
+
+    @Override
+    public Context startDeliveryTaskRunTimer() {
+        return nullContext;
+    }
+
     /**
      * Null object representation for Timer context.
      */
@@ -77,4 +113,75 @@ public class NullBrokerMetricManager implements BrokerMetricManager {
             // do nothing
         }
     }
+
+    @Override
+    public void markRoutingCacheHit() {
+        // do nothing
+    }
+
+    @Override
+    public void markRoutingCacheMiss() {
+        // do nothing
+    }
+
+    @Override
+    public void registerStoreWriteRingOccupancyGauge(Gauge<Long> gauge) {
+        // do nothing
+    }
+
+    @Override
+    public void registerStoreReadRingOccupancyGauge(Gauge<Long> gauge) {
+        // do nothing
+    }
+
+    @Override
+    public void recordStoreWriteWait(long waitNanos) {
+        // do nothing
+    }
+
+    @Override
+    public void recordStoreReadWait(long waitNanos) {
+        // do nothing
+    }
+
+    @Override
+    public void recordStoreWriteBatchSize(int batchSize) {
+        // do nothing
+    }
+
+    @Override
+    public void recordStoreCommitLatency(long latencyNanos) {
+        // do nothing
+    }
+
+    @Override
+    public void markStoredMessageCacheHit() {
+        // do nothing
+    }
+
+    @Override
+    public void markStoredMessageCacheMiss() {
+        // do nothing
+    }
+
+    @Override
+    public void registerStoredMessageCacheSizeGauge(Gauge<Long> gauge) {
+        // do nothing
+    }
+
+    @Override
+    public void registerQueueRecoveryGauges(String queueName, Gauge<Double> progressGauge,
+                                            Gauge<Long> remainingTimeGauge) {
+        // do nothing
+    }
+
+    @Override
+    public void removeQueueRecoveryGauges(String queueName) {
+        // do nothing
+    }
+
+    @Override
+    public void recordTimeToActive(long timeToActiveNanos) {
+        // do nothing
+    }
 }
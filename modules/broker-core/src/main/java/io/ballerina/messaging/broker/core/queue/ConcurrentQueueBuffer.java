@@ -0,0 +1,448 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.common.util.ConcurrentLongHashMap;
+import io.ballerina.messaging.broker.core.Message;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * {@link QueueBuffer} implementation which allows publishers, the delivery task and acknowledgements to work on the
+ * buffer in parallel.
+ * <p>
+ * Undelivered messages are kept in a linked list with a sentinel head node. Publishers append to the tail holding
+ * the put lock while the delivery task moves the head holding the take lock. Delivered messages are unlinked from
+ * the list as soon as they are given out. Therefore removing an acknowledged message only needs to drop it from the
+ * message id index, which locks a single segment of the index. Message reads are submitted by the thread that
+ * manages to acquire the fill lock, other threads skip submitting reads instead of waiting.
+ */
+public class ConcurrentQueueBuffer extends QueueBuffer {
+
+    /**
+     * Maximum number of messages held in memory.
+     */
+    private final int inMemoryLimit;
+
+    /**
+     * Tracks the content bytes of the messages held in memory.
+     */
+    private final MessageMemoryBudget memoryBudget;
+
+    /**
+     * Used to submit read requests for a message.
+     */
+    private final MessageReader messageReader;
+
+    /**
+     * Size of the queue. i.e. in memory messages + DB messages.
+     */
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    /**
+     * Number of messages that are retrieved for delivery but not yet removed.
+     */
+    private final AtomicInteger messagesInFlight = new AtomicInteger(0);
+
+    /**
+     * Number of in memory messages.
+     */
+    private final AtomicInteger deliverableMessageCount = new AtomicInteger(0);
+
+    /**
+     * Total Number of undelivered messages in the buffer.
+     */
+    private final AtomicInteger undeliveredMessageCount = new AtomicInteger(0);
+
+    /**
+     * Number of messages submitted for reading which are not filled yet.
+     */
+    private final AtomicInteger pendingReadCount = new AtomicInteger(0);
+
+    /**
+     * Guards appending to the tail of the list.
+     */
+    private final ReentrantLock putLock = new ReentrantLock();
+
+    /**
+     * Guards moving the head of the list.
+     */
+    private final ReentrantLock takeLock = new ReentrantLock();
+
+    /**
+     * Guards submitting message reads.
+     */
+    private final ReentrantLock fillLock = new ReentrantLock();
+
+    /**
+     * Sentinel node. The node next to the head is the first undelivered message. Modified holding the take lock.
+     */
+    private volatile Node head;
+
+    /**
+     * Pointer to last node. Modified holding the put lock.
+     */
+    private Node last;
+
+    /**
+     * Node after which the next bare message is looked up for reading. Modified holding the fill lock.
+     */
+    private Node fillCursor;
+
+    /**
+     * Used to fast lookup the node for a message ID.
+     */
+    private final ConcurrentLongHashMap<Node> keyMap = new ConcurrentLongHashMap<>();
+
+    ConcurrentQueueBuffer(int inMemoryLimit, MessageReader messageReader) {
+        this(inMemoryLimit, new MessageMemoryBudget(0), messageReader);
+    }
+
+    ConcurrentQueueBuffer(int inMemoryLimit, MessageMemoryBudget memoryBudget, MessageReader messageReader) {
+        this.inMemoryLimit = inMemoryLimit;
+        this.memoryBudget = memoryBudget;
+        this.messageReader = messageReader;
+        head = new Node(null, Node.DELIVERED);
+        last = head;
+        fillCursor = head;
+    }
+
+    @Override
+    public void add(Message message) {
+        putLock.lock();
+        try {
+            linkLast(message, false);
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    @Override
+    public void addAllBareMessages(Collection<Message> messages) {
+        putLock.lock();
+        try {
+            for (Message message : messages) {
+                linkLast(message, true);
+            }
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    @Override
+    public void addBareMessage(Message message) {
+        putLock.lock();
+        try {
+            linkLast(message, true);
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    @Override
+    public void addAll(List<Message> messages) {
+        putLock.lock();
+        try {
+            for (Message message : messages) {
+                linkLast(message, false);
+            }
+        } finally {
+            putLock.unlock();
+        }
+    }
+
+    /**
+     * Links the message as the last element. Message data will be cleared if we have more messages than the
+     * in-memory limit or if the memory budget does not have room for the message content. Should be called holding
+     * the put lock.
+     */
+    private void linkLast(Message message, boolean bare) {
+        int currentSize = size.incrementAndGet();
+        undeliveredMessageCount.incrementAndGet();
+
+        int state = Node.BARE_MESSAGE;
+        long retainedBytes = 0;
+        if (!bare) {
+            long contentBytes = MessageMemoryBudget.contentBytesOf(message);
+            memoryBudget.recordMessageBytes(contentBytes);
+            if (currentSize > inMemoryLimit || !memoryBudget.tryReserve(contentBytes)) {
+                message.clearData();
+            } else {
+                state = Node.FULL_MESSAGE;
+                retainedBytes = contentBytes;
+                deliverableMessageCount.incrementAndGet();
+            }
+        }
+
+        Node newNode = new Node(message, state);
+        newNode.retainedBytes = retainedBytes;
+        keyMap.put(message.getInternalId(), newNode);
+        // Publishing the node through the volatile next pointer makes it visible to the delivery task
+        last.next = newNode;
+        last = newNode;
+    }
+
+    @Override
+    public void remove(Message message) {
+        if (unlink(message.getInternalId())) {
+            submitMessageReads();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Message> messages) {
+        boolean removed = false;
+        for (Message message : messages) {
+            removed |= unlink(message.getInternalId());
+        }
+
+        if (removed) {
+            submitMessageReads();
+        }
+    }
+
+    /**
+     * Removes the node of the message from the index and marks it as removed. Delivered nodes are already unlinked
+     * from the list. Undelivered removed nodes are skipped and unlinked by the delivery task.
+     *
+     * @param messageId message ID
+     * @return true if a node was removed
+     */
+    private boolean unlink(long messageId) {
+        Node node = keyMap.remove(messageId);
+        if (Objects.isNull(node)) {
+            return false;
+        }
+
+        int previousState = node.state.getAndSet(Node.REMOVED);
+        node.item = null;
+        memoryBudget.release(node.swapRetainedBytes(0));
+        size.decrementAndGet();
+
+        switch (previousState) {
+            case Node.DELIVERED:
+                messagesInFlight.decrementAndGet();
+                deliverableMessageCount.decrementAndGet();
+                break;
+            case Node.FULL_MESSAGE:
+                undeliveredMessageCount.decrementAndGet();
+                deliverableMessageCount.decrementAndGet();
+                break;
+            case Node.SUBMITTED_FOR_FILLING:
+                undeliveredMessageCount.decrementAndGet();
+                pendingReadCount.decrementAndGet();
+                break;
+            default:
+                undeliveredMessageCount.decrementAndGet();
+                break;
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public long getResidentBytes() {
+        return memoryBudget.getResidentBytes();
+    }
+
+    @Override
+    public int getNumberOfInflightMessages() {
+        return messagesInFlight.get();
+    }
+
+    @Override
+    public int getNumberOfUndeliveredMessages() {
+        return undeliveredMessageCount.get();
+    }
+
+    @Override
+    public Message getFirstDeliverable() {
+        submitMessageReads();
+
+        takeLock.lock();
+        try {
+            Node first = head.next;
+            while (Objects.nonNull(first)) {
+                int state = first.state.get();
+                if (state == Node.REMOVED) {
+                    advanceHead(first);
+                } else if (state == Node.FULL_MESSAGE) {
+                    // Read the item before changing the state since a concurrent remove can clear it afterwards.
+                    Message message = first.item;
+                    if (first.state.compareAndSet(Node.FULL_MESSAGE, Node.DELIVERED)) {
+                        advanceHead(first);
+                        messagesInFlight.incrementAndGet();
+                        undeliveredMessageCount.decrementAndGet();
+                        return message;
+                    }
+                    // Message was removed concurrently. Retry with the same node to skip it.
+                    continue;
+                } else {
+                    // First message is not yet read from the store
+                    return null;
+                }
+                first = head.next;
+            }
+            return null;
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    /**
+     * Make the given node the new sentinel. Should be called holding the take lock.
+     */
+    private void advanceHead(Node newHead) {
+        Node oldHead = head;
+        // Self link the old head to help GC and to let the fill cursor know that it fell off the list
+        oldHead.next = oldHead;
+        head = newHead;
+    }
+
+    /**
+     * Submit read requests for bare messages until the in-memory limit is reached or the memory budget does not have
+     * room for the estimated message size. Skipped if another thread is already submitting reads.
+     */
+    private void submitMessageReads() {
+        if (!fillLock.tryLock()) {
+            return;
+        }
+
+        try {
+            int fillableMessageCount = inMemoryLimit - deliverableMessageCount.get() - pendingReadCount.get();
+
+            Node node = fillCursor;
+            while (fillableMessageCount > 0) {
+                Node next = node.next;
+                if (next == node) {
+                    // Cursor was delivered and unlinked. Continue from the current head.
+                    node = head;
+                    continue;
+                }
+
+                if (Objects.isNull(next)) {
+                    break;
+                }
+
+                Message message = next.item;
+                if (Objects.nonNull(message) && next.state.get() == Node.BARE_MESSAGE) {
+                    long estimatedBytes = memoryBudget.estimateMessageBytes();
+                    if (!memoryBudget.tryReserve(estimatedBytes)) {
+                        break;
+                    }
+
+                    // Estimated size is held until the message data is read
+                    next.swapRetainedBytes(estimatedBytes);
+                    if (next.state.compareAndSet(Node.BARE_MESSAGE, Node.SUBMITTED_FOR_FILLING)) {
+                        pendingReadCount.incrementAndGet();
+                        fillableMessageCount--;
+                        messageReader.fill(this, message);
+                    } else {
+                        // Message was removed concurrently
+                        memoryBudget.release(next.swapRetainedBytes(0));
+                    }
+                }
+                node = next;
+            }
+            fillCursor = node;
+        } finally {
+            fillLock.unlock();
+        }
+    }
+
+    @Override
+    public void markMessageFilled(Message message) {
+        Node node = keyMap.get(message.getInternalId());
+        if (Objects.isNull(node)) {
+            return;
+        }
+
+        // Replace the estimated size reserved when submitting the read with the actual size
+        long contentBytes = MessageMemoryBudget.contentBytesOf(message);
+        memoryBudget.recordMessageBytes(contentBytes);
+        memoryBudget.reserve(contentBytes - node.swapRetainedBytes(contentBytes));
+        if (node.state.compareAndSet(Node.SUBMITTED_FOR_FILLING, Node.FULL_MESSAGE)) {
+            pendingReadCount.decrementAndGet();
+            deliverableMessageCount.incrementAndGet();
+            notifyMessageFilled();
+        } else if (node.state.get() == Node.REMOVED) {
+            memoryBudget.release(node.swapRetainedBytes(0));
+        }
+    }
+
+    @Override
+    public int clear(Consumer<Message> postDeleteAction) {
+        int removedCount = 0;
+        List<Node> values = keyMap.values();
+        for (Node node : values) {
+            Message message = node.item;
+            if (Objects.nonNull(message) && unlink(message.getInternalId())) {
+                message.clearData();
+                postDeleteAction.accept(message);
+                removedCount++;
+            }
+        }
+        return removedCount;
+    }
+
+    private static class Node {
+        private static final int BARE_MESSAGE = 0;
+        private static final int SUBMITTED_FOR_FILLING = 1;
+        private static final int FULL_MESSAGE = 2;
+        private static final int DELIVERED = 3;
+        private static final int REMOVED = 4;
+        private static final AtomicLongFieldUpdater<Node> RETAINED_BYTES_UPDATER =
+                AtomicLongFieldUpdater.newUpdater(Node.class, "retainedBytes");
+        private Message item;
+        private volatile Node next;
+        /**
+         * Content bytes of the message reserved in the memory budget. Holds the estimated size while the message
+         * data is being read.
+         */
+        private volatile long retainedBytes;
+        private final AtomicInteger state;
+
+        Node(Message element, int state) {
+            this.item = element;
+            this.state = new AtomicInteger(state);
+        }
+
+        /**
+         * Atomically replace the retained bytes. The caller adjusts the memory budget by the difference, which keeps
+         * the budget consistent even when a message is removed while its data is being read.
+         *
+         * @param bytes new retained bytes
+         * @return previously retained bytes
+         */
+        long swapRetainedBytes(long bytes) {
+            return RETAINED_BYTES_UPDATER.getAndSet(this, bytes);
+        }
+    }
+}
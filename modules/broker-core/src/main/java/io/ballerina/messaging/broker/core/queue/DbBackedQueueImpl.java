@@ -22,7 +22,9 @@ package io.ballerina.messaging.broker.core.queue;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Queue;
+import io.ballerina.messaging.broker.core.QueueHandler;
 import io.ballerina.messaging.broker.core.store.DbMessageStore;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,10 +34,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.transaction.xa.Xid;
 
 /**
  * Database backed queue implementation.
+ * <p>
+ * Stored messages are recovered page by page. The queue starts delivering once the first page is loaded and the rest
+ * of the messages are loaded in the background. Messages enqueued meanwhile are delivered ahead of the stored
+ * messages which are yet to be loaded.
+ * <p>
+ * With lazy recovery no message is loaded until a consumer subscribes, a message is published or the queue is purged.
+ * Until then the size of the queue is the number of messages stored for it when the queue was created.
  */
 public class DbBackedQueueImpl extends Queue {
 
@@ -52,23 +63,56 @@ public class DbBackedQueueImpl extends Queue {
 
     private final Map<Xid, List<Message>> pendingDequeueMessages;
 
-    public DbBackedQueueImpl(String queueName, boolean autoDelete,
-                             DbMessageStore dbMessageStore, QueueBufferFactory queueBufferFactory)
-            throws BrokerException {
-        super(queueName, true, autoDelete);
-        this.dbMessageStore = dbMessageStore;
-        buffer = queueBufferFactory.createBuffer(dbMessageStore::fillMessageData);
+    private final QueueRecoveryTask recoveryTask;
 
-        LOGGER.debug("Recovering messages for queue {}", queueName);
+    private final Executor recoveryExecutor;
 
-        Collection<Message> messages = dbMessageStore.readAllMessagesForQueue(queueName);
+    private final AtomicBoolean recoveryStarted;
 
+    /**
+     * Guards adding recovered messages against clearing and releasing the queue.
+     */
+    private final Object recoveryLock = new Object();
+
+    /**
+     * True if the queue was purged before all the stored messages were loaded. Such messages are detached as they are
+     * loaded.
+     */
+    private boolean purgedDuringRecovery;
+
+    private boolean released;
+
+    /**
+     * Create a durable queue recovering its stored messages.
+     *
+     * @param queueName          name of the queue
+     * @param autoDelete         true if auto deletable
+     * @param dbMessageStore     message store of the durable queues
+     * @param queueBufferFactory factory used to create the queue buffer
+     * @param recoveryExecutor   executor loading the stored messages in the background
+     * @param recoveryPageSize   number of stored messages loaded at a time
+     * @param lazyRecovery       true if the stored messages are loaded only once the queue is used
+     * @throws BrokerException if the stored messages cannot be read
+     */
+    public DbBackedQueueImpl(String queueName, boolean autoDelete, DbMessageStore dbMessageStore,
+                             QueueBufferFactory queueBufferFactory, Executor recoveryExecutor, int recoveryPageSize,
+                             boolean lazyRecovery) throws BrokerException {
+        super(queueName, true, autoDelete);
+        this.dbMessageStore = dbMessageStore;
+        buffer = queueBufferFactory.createBuffer(dbMessageStore::fillMessageData);
+        buffer.setMessageFilledListener(this::signalDeliveryTask);
         pendingEnqueueMessages = new ConcurrentHashMap<>();
         pendingDequeueMessages = new ConcurrentHashMap<>();
-        buffer.addAllBareMessages(messages);
 
-        if (LOGGER.isDebugEnabled()) {
-            LOGGER.debug("{} messages recovered for queue {}", messages.size(), queueName);
+        StoredMessageRange storedMessageRange = dbMessageStore.getStoredMessageRange(queueName);
+        LOGGER.debug("Recovering {} messages for queue {}", storedMessageRange.getMessageCount(), queueName);
+
+        recoveryTask = new QueueRecoveryTask(queueName, dbMessageStore, storedMessageRange, recoveryPageSize,
+                                             this::addRecoveredMessages);
+        this.recoveryExecutor = recoveryExecutor;
+        recoveryStarted = new AtomicBoolean(!lazyRecovery);
+        if (!lazyRecovery && recoveryTask.recoverPage()) {
+            recoveryExecutor.execute(recoveryTask);
         }
     }
 
@@ -79,11 +123,12 @@ public class DbBackedQueueImpl extends Queue {
 
     @Override
     public int size() {
-        return buffer.getNumberOfUndeliveredMessages();
+        return buffer.getNumberOfUndeliveredMessages() + (int) getPendingRecoveryCount();
     }
 
     @Override
     public boolean enqueue(Message message) throws BrokerException {
+        startRecovery();
         if (message.getMetadata().isPersistent()) {
             dbMessageStore.attach(getName(), message.getInternalId());
         }
@@ -93,6 +138,7 @@ public class DbBackedQueueImpl extends Queue {
 
     @Override
     public void prepareEnqueue(Xid xid, Message message) throws BrokerException {
+        startRecovery();
         if (message.getMetadata().isPersistent()) {
             dbMessageStore.attach(xid, getName(), message.getInternalId());
         }
@@ -141,6 +187,98 @@ public class DbBackedQueueImpl extends Queue {
     @Override
     public int clear() {
         String queueName = getName();
-        return buffer.clear(message -> dbMessageStore.detach(queueName, message));
+        synchronized (recoveryLock) {
+            purgedDuringRecovery = !recoveryTask.isCompleted();
+            // Stored messages which are not loaded yet are detached as they are loaded
+            startRecovery();
+            return buffer.clear(message -> dbMessageStore.detach(queueName, message));
+        }
+    }
+
+    @Override
+    public void onConsumerAdded() {
+        startRecovery();
+    }
+
+    @Override
+    public void releaseResources() {
+        recoveryTask.cancel();
+        synchronized (recoveryLock) {
+            released = true;
+            // Detach the buffered messages as well as giving back the memory budget held by the buffer. Messages
+            // which are not persisted yet are then stored without the mapping of the deleted queue, and stored
+            // messages left without a queue are deleted.
+            String queueName = getName();
+            buffer.clear(message -> dbMessageStore.detach(queueName, message));
+        }
+    }
+
+    /**
+     * Start loading the stored messages in the background unless they are already being loaded. A recovery which
+     * failed is restarted.
+     */
+    private void startRecovery() {
+        if (!recoveryStarted.get() && recoveryStarted.compareAndSet(false, true)) {
+            LOGGER.debug("Loading stored messages of queue {}", getName());
+            recoveryExecutor.execute(recoveryTask);
+        } else if (recoveryTask.clearFailure()) {
+            LOGGER.info("Retrying to load stored messages of queue {}", getName());
+            recoveryExecutor.execute(recoveryTask);
+        }
+    }
+
+    private void addRecoveredMessages(Collection<Message> messages) {
+        synchronized (recoveryLock) {
+            if (released) {
+                return;
+            }
+            if (purgedDuringRecovery) {
+                for (Message message : messages) {
+                    dbMessageStore.detach(getName(), message);
+                }
+            } else {
+                buffer.addAllBareMessages(messages);
+            }
+        }
+    }
+
+    private long getPendingRecoveryCount() {
+        synchronized (recoveryLock) {
+            return purgedDuringRecovery ? 0 : recoveryTask.getRemainingMessageCount();
+        }
+    }
+
+    private void signalDeliveryTask() {
+        QueueHandler queueHandler = getQueueHandler();
+        if (Objects.nonNull(queueHandler)) {
+            queueHandler.signalDeliveryTask();
+        }
+    }
+
+    /**
+     * Number of message content bytes of this queue held in memory.
+     *
+     * @return resident content bytes
+     */
+    public long getInMemoryBytes() {
+        return buffer.getResidentBytes();
+    }
+
+    /**
+     * Fraction of the stored messages of this queue loaded so far.
+     *
+     * @return recovery progress between 0 and 1
+     */
+    public double getRecoveryProgress() {
+        return recoveryTask.getProgress();
+    }
+
+    /**
+     * Estimated time until the rest of the stored messages of this queue are loaded.
+     *
+     * @return remaining time in milliseconds, or -1 if it cannot be estimated yet
+     */
+    public long getEstimatedRecoveryMillis() {
+        return recoveryTask.getEstimatedRemainingMillis();
     }
 }
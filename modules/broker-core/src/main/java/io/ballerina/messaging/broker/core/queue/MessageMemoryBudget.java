@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.Message;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the message content bytes held in memory against a limit. A budget created with
+ * {@link #createChild(long)} reserves bytes from its parent as well. Queue buffers use a child of the broker wide
+ * budget so that both the per queue and the broker wide limits are honoured.
+ * <p>
+ * Bytes of a message are reserved if the budget has room for the message or if the budget is empty. Hence a single
+ * message larger than the limit can still be kept in memory. The size of a message is not known until its data is
+ * read. Therefore reads are reserved using the average message size seen by the budget and corrected once the data
+ * is read.
+ */
+public class MessageMemoryBudget {
+
+    private final long limit;
+
+    private final MessageMemoryBudget parent;
+
+    private final AtomicLong residentBytes = new AtomicLong(0);
+
+    /**
+     * Moving average of the content size of messages held in memory. Negative until the first message is recorded.
+     */
+    private volatile long averageMessageBytes = -1;
+
+    /**
+     * Create a budget without a parent.
+     *
+     * @param limit maximum number of content bytes. A non positive value disables the limit
+     */
+    public MessageMemoryBudget(long limit) {
+        this(limit, null);
+    }
+
+    private MessageMemoryBudget(long limit, MessageMemoryBudget parent) {
+        this.limit = limit > 0 ? limit : Long.MAX_VALUE;
+        this.parent = parent;
+    }
+
+    /**
+     * Create a budget which reserves bytes from this budget as well.
+     *
+     * @param limit maximum number of content bytes of the child budget. A non positive value disables the limit
+     * @return child budget
+     */
+    public MessageMemoryBudget createChild(long limit) {
+        return new MessageMemoryBudget(limit, this);
+    }
+
+    /**
+     * Reserve bytes if the budget and its parents have room for them.
+     *
+     * @param bytes number of bytes to reserve
+     * @return true if the bytes were reserved
+     */
+    boolean tryReserve(long bytes) {
+        if (!tryReserveLocally(bytes)) {
+            return false;
+        }
+
+        if (Objects.nonNull(parent) && !parent.tryReserve(bytes)) {
+            residentBytes.addAndGet(-bytes);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean tryReserveLocally(long bytes) {
+        while (true) {
+            long current = residentBytes.get();
+            if (current > 0 && current + bytes > limit) {
+                return false;
+            }
+            if (residentBytes.compareAndSet(current, current + bytes)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reserve bytes ignoring the limit. Used to correct the estimated size of a message once its data is read since
+     * the data is already in memory. A negative value releases bytes.
+     *
+     * @param bytes number of bytes to reserve
+     */
+    void reserve(long bytes) {
+        residentBytes.addAndGet(bytes);
+        if (Objects.nonNull(parent)) {
+            parent.reserve(bytes);
+        }
+    }
+
+    /**
+     * Release bytes previously reserved.
+     *
+     * @param bytes number of bytes to release
+     */
+    void release(long bytes) {
+        residentBytes.addAndGet(-bytes);
+        if (Objects.nonNull(parent)) {
+            parent.release(bytes);
+        }
+    }
+
+    /**
+     * Record the content size of a message to estimate the size of messages which are not yet read.
+     *
+     * @param bytes content bytes of a message
+     */
+    void recordMessageBytes(long bytes) {
+        long average = averageMessageBytes;
+        // Lost updates due to concurrent calls only affect the accuracy of the estimate
+        averageMessageBytes = average < 0 ? bytes : average + (bytes - average) / 16;
+    }
+
+    /**
+     * Estimate the content size of a message which is not yet read. Until a message size is recorded, a sixteenth of
+     * the limit is assumed to avoid loading many messages of unknown size at once.
+     *
+     * @return estimated content bytes
+     */
+    long estimateMessageBytes() {
+        long average = averageMessageBytes;
+        if (average >= 0) {
+            return average;
+        }
+        return limit == Long.MAX_VALUE ? 0 : limit / 16;
+    }
+
+    /**
+     * Getter for residentBytes.
+     */
+    public long getResidentBytes() {
+        return residentBytes.get();
+    }
+
+    /**
+     * Getter for limit.
+     */
+    public long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Calculate the number of content bytes held by a message.
+     *
+     * @param message message
+     * @return total readable bytes of the content chunks
+     */
+    static long contentBytesOf(Message message) {
+        long bytes = 0;
+        for (ContentChunk chunk : message.getContentChunks()) {
+            bytes += chunk.getByteBuf().readableBytes();
+        }
+        return bytes;
+    }
+}
@@ -21,73 +21,48 @@ package io.ballerina.messaging.broker.core.queue;
 
 import io.ballerina.messaging.broker.core.Message;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.Map;
-import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
  * Used to track messages for the queue.
  */
-public class QueueBuffer {
+public abstract class QueueBuffer {
 
     /**
-     * Maximum number of messages held in memory.
+     * Invoked when a message read through the {@link MessageReader} becomes deliverable.
      */
-    private final int inMemoryLimit;
+    private volatile Runnable messageFilledListener = () -> { };
 
     /**
-     * Used to submit read requests for a message.
+     * Supported queue buffer types.
      */
-    private final MessageReader messageReader;
+    public enum Type {
+        SYNCHRONIZED("synchronized"),
+        CONCURRENT("concurrent");
 
-    /**
-     * Size of the queue. i.e. in memory messages + DB messages.
-     */
-    private AtomicInteger size = new AtomicInteger(0);
-
-    /**
-     * Number of messages that are retrieved for delivery but not yet removed.
-     */
-    private AtomicInteger messagesInFlight = new AtomicInteger(0);
-
-    /**
-     * Number of in memory messages.
-     */
-    private AtomicInteger deliverableMessageCount = new AtomicInteger(0);
-
-    /**
-     * Total Number of undelivered messages in the buffer.
-     */
-    private AtomicInteger undeliveredMessageCount = new AtomicInteger(0);
-
-    /**
-     * Pointer to first deliverable candidate node.
-     */
-    private Node firstDeliverableCandidate;
+        String typeName;
 
-    /**
-     * Pointer to last deliverable node.
-     */
-    private Node firstUndeliverable;
+        Type(String name) {
+            typeName = name;
+        }
 
-    /**
-     * Pointer to last node.
-     */
-    private Node last;
+        @Override
+        public String toString() {
+            return typeName;
+        }
 
-    /**
-     * Used to fast lookup the node for a message ID.
-     */
-    private Map<Long, Node> keyMap = new ConcurrentHashMap<>();
+        public static Type from(String typeString) {
 
-    QueueBuffer(int inMemoryLimit, MessageReader messageReader) {
-        this.inMemoryLimit = inMemoryLimit;
-        this.messageReader = messageReader;
+            if (typeString.equals(SYNCHRONIZED.typeName)) {
+                return SYNCHRONIZED;
+            } else if (typeString.equals(CONCURRENT.typeName)) {
+                return CONCURRENT;
+            } else {
+                throw new IllegalArgumentException("unknown queue buffer type: " + typeString);
+            }
+        }
     }
 
     /**
@@ -95,10 +70,7 @@ public class QueueBuffer {
      *
      * @param message message to be appended to this list
      */
-    public synchronized void add(Message message) {
-        linkLast(message);
-        postProcessDeliverableNode();
-    }
+    public abstract void add(Message message);
 
     /**
      * Add messages as bare messages to the queue buffer. This means that broker has to fetch message data for each
@@ -106,11 +78,7 @@ public class QueueBuffer {
      *
      * @param messages list of messages
      */
-    public synchronized void addAllBareMessages(Collection<Message> messages) {
-        for (Message message : messages) {
-            addBareMessage(message);
-        }
-    }
+    public abstract void addAllBareMessages(Collection<Message> messages);
 
     /**
      * Add message as a bare messages to the queue buffer. This means that broker has to fetch message data for this
@@ -118,249 +86,92 @@ public class QueueBuffer {
      *
      * @param message bare message
      */
-    public synchronized void addBareMessage(Message message) {
-        linkLast(message);
-        postProcessBareMessage();
-    }
-
-    /**
-     * Links newMessage as last element.
-     */
-    private void linkLast(Message newMessage) {
-        size.incrementAndGet();
-        undeliveredMessageCount.incrementAndGet();
-
-        final Node previousLast = last;
-        final Node newNode = new Node(previousLast, newMessage, null);
-
-        last = newNode;
-        keyMap.put(newMessage.getInternalId(), newNode);
-
-        if (Objects.nonNull(previousLast)) {
-            previousLast.next = newNode;
-        }
-    }
-
-    /**
-     * Post process the added deliverable message looking at the queue size and the in memory limit. Message data
-     * will be cleared if we have deliverable messages than in-memory limit.
-     */
-    private void postProcessDeliverableNode() {
-        Node newNode = last;
-        if (size.get() > inMemoryLimit) {
-
-            if (Objects.isNull(firstUndeliverable)) {
-                firstUndeliverable = newNode;
-            }
-
-            newNode.item.clearData();
-        } else {
-            newNode.state.set(Node.FULL_MESSAGE);
-            deliverableMessageCount.incrementAndGet();
-
-            if (Objects.isNull(firstDeliverableCandidate)) {
-                firstDeliverableCandidate = newNode;
-            }
-        }
-    }
+    public abstract void addBareMessage(Message message);
 
     /**
-     * Post process after adding a bare message.
+     * Appends all the messages to the end of this list preserving the order of the list.
+     *
+     * @param messages messages to be appended to this list
      */
-    private void postProcessBareMessage() {
-        Node newNode = last;
-        if (Objects.isNull(firstUndeliverable)) {
-            firstUndeliverable = newNode;
-        }
-        if (Objects.isNull(firstDeliverableCandidate)) {
-            firstDeliverableCandidate = newNode;
-        }
-    }
+    public abstract void addAll(List<Message> messages);
 
     /**
      * Remove a message from the buffer.
      *
      * @param message message to remove
      */
-    public synchronized void remove(Message message) {
-        long messageId = message.getInternalId();
-        Node node = keyMap.remove(messageId);
-        if (Objects.nonNull(node)) {
-            unlink(node);
-        }
-    }
-
-    public synchronized void removeAll(Collection<Message> messages) {
-        for (Message message : messages) {
-            remove(message);
-        }
-    }
+    public abstract void remove(Message message);
 
     /**
-     * Unlinks a non-null node.
+     * Remove all the given messages from the buffer.
+     *
+     * @param messages messages to remove
      */
-    private void unlink(Node node) {
-        final Node next = node.next;
-        final Node prev = node.prev;
-
-        // if prev is null we are removing the first element
-        if (Objects.nonNull(prev)) {
-            prev.next = next;
-            node.prev = null;
-        }
-
-        // if next is null we are removing the last element
-        if (next == null) {
-            last = prev;
-        } else {
-            next.prev = prev;
-            node.next = null;
-        }
-
-        node.item = null;
-        size.decrementAndGet();
-        deliverableMessageCount.decrementAndGet();
-        messagesInFlight.decrementAndGet();
-        submitMessageReads();
-    }
+    public abstract void removeAll(Collection<Message> messages);
 
     /**
      * Size of the queue.
      *
      * @return total number of messages tracked in queue buffer
      */
-    public int size() {
-        return size.get();
-    }
+    public abstract int size();
+
+    /**
+     * Number of message content bytes held in memory by the buffer.
+     *
+     * @return resident content bytes
+     */
+    public abstract long getResidentBytes();
 
     /**
      * Total number of messages given out for delivery but has not removed from the buffer yet.
      *
      * @return number of messages in flight
      */
-    public int getNumberOfInflightMessages() {
-        return messagesInFlight.get();
-    }
+    public abstract int getNumberOfInflightMessages();
 
     /**
      * Total number of messages that are yet to be retrieved for delivery.
      *
      * @return number of undelivered messages
      */
-    public int getNumberOfUndeliveredMessages() {
-        return undeliveredMessageCount.get();
-    }
+    public abstract int getNumberOfUndeliveredMessages();
 
     /**
      * Return the first deliverable message if one is available.
      *
      * @return the next deliverable message in queue
      */
-    public synchronized Message getFirstDeliverable() {
-
-        submitMessageReads();
-        Node deliverableCandidate = firstDeliverableCandidate;
-
-        if (deliverableCandidate != firstUndeliverable) {
-
-            if (deliverableCandidate.state.get() != Node.FULL_MESSAGE) {
-                return null;
-            }
-
-            firstDeliverableCandidate = deliverableCandidate.next;
-
-            recordRemovingMessageForDelivery();
-            return deliverableCandidate.item;
-        } else if (firstUndeliverable != null && firstUndeliverable.state.get() == Node.FULL_MESSAGE) {
-            Node newDeliverable = firstUndeliverable;
-            firstDeliverableCandidate = firstUndeliverable.next;
-            pushFirstUndeliverableCursor();
-
-            recordRemovingMessageForDelivery();
-            return newDeliverable.item;
-        } else {
-            return null;
-        }
-    }
+    public abstract Message getFirstDeliverable();
 
     /**
-     * Update corresponding counts when message is removed from the queue for delivery.
+     * Mark a message submitted to the {@link MessageReader} as filled with message data.
+     *
+     * @param message message filled with data
      */
-    private void recordRemovingMessageForDelivery() {
-        messagesInFlight.incrementAndGet();
-        undeliveredMessageCount.decrementAndGet();
-    }
-
-    private void pushFirstUndeliverableCursor() {
-        firstUndeliverable = firstUndeliverable.next;
-
-        while (firstUndeliverable != null && firstUndeliverable.state.get() == Node.FULL_MESSAGE) {
-            firstUndeliverable = firstUndeliverable.next;
-        }
-    }
+    public abstract void markMessageFilled(Message message);
 
-    private void submitMessageReads() {
-        int fillableMessageCount = inMemoryLimit - deliverableMessageCount.get();
-
-        Node undeliverableNode = this.firstUndeliverable;
-        while (fillableMessageCount-- > 0 && undeliverableNode != null) {
-            if (undeliverableNode.state.compareAndSet(Node.BARE_MESSAGE, Node.SUBMITTED_FOR_FILLING)) {
-                Message message = undeliverableNode.item;
-                messageReader.fill(this, message);
-            } else {
-                break;
-            }
-
-            undeliverableNode = undeliverableNode.next;
-        }
-    }
-
-    public void markMessageFilled(Message message) {
-        Node node = keyMap.get(message.getInternalId());
-        if (Objects.nonNull(node)) {
-            node.state.set(Node.FULL_MESSAGE);
-            deliverableMessageCount.incrementAndGet();
-        }
+    /**
+     * Set the callback invoked when a message submitted to the {@link MessageReader} is filled and becomes
+     * deliverable. Message data is read asynchronously, hence this is used to wake up the delivery of the queue.
+     *
+     * @param messageFilledListener callback
+     */
+    public void setMessageFilledListener(Runnable messageFilledListener) {
+        this.messageFilledListener = messageFilledListener;
     }
 
-    public synchronized void addAll(List<Message> messages) {
-        for (Message message: messages) {
-            add(message);
-        }
+    protected void notifyMessageFilled() {
+        messageFilledListener.run();
     }
 
     /**
      * Remove all messages in the buffer.
      *
+     * @param postDeleteAction action invoked for each removed message
      * @return number of messages removed
      */
-    public synchronized int clear(Consumer<Message> postDeleteAction) {
-        Collection<Node> values = new ArrayList<>(keyMap.values());
-        int bufferSize = values.size();
-        for (Node node : values) {
-            Message message = node.item;
-            message.clearData();
-            unlink(node);
-            postDeleteAction.accept(message);
-        }
-        return bufferSize;
-    }
-
-    private static class Node {
-        private static final int BARE_MESSAGE = 0;
-        private static final int SUBMITTED_FOR_FILLING = 1;
-        private static final int FULL_MESSAGE = 2;
-        private Message item;
-        private Node next;
-        private Node prev;
-        private AtomicInteger state = new AtomicInteger(BARE_MESSAGE);
-
-        Node(Node prev, Message element, Node next) {
-            this.item = element;
-            this.next = next;
-            this.prev = prev;
-        }
-    }
+    public abstract int clear(Consumer<Message> postDeleteAction);
 
     /**
      * Interface used to fill message date.
@@ -26,11 +26,35 @@ import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
 public class QueueBufferFactory {
     private int inMemoryCacheLimit;
 
+    private long inMemoryCacheByteLimit;
+
+    private QueueBuffer.Type bufferType;
+
+    /**
+     * Memory budget shared by all the buffers created from this factory.
+     */
+    private final MessageMemoryBudget totalMemoryBudget;
+
     public QueueBufferFactory(BrokerCoreConfiguration configuration) {
         inMemoryCacheLimit = Integer.parseInt(configuration.getDurableQueueInMemoryCacheLimit());
+        inMemoryCacheByteLimit = Long.parseLong(configuration.getDurableQueueInMemoryCacheByteLimit());
+        bufferType = QueueBuffer.Type.from(configuration.getDurableQueueBufferType());
+        totalMemoryBudget = new MessageMemoryBudget(Long.parseLong(configuration.getTotalInMemoryCacheByteLimit()));
     }
 
     public QueueBuffer createBuffer(QueueBuffer.MessageReader messageReader) {
-        return new QueueBuffer(inMemoryCacheLimit, messageReader);
+        MessageMemoryBudget memoryBudget = totalMemoryBudget.createChild(inMemoryCacheByteLimit);
+        if (bufferType == QueueBuffer.Type.CONCURRENT) {
+            return new ConcurrentQueueBuffer(inMemoryCacheLimit, memoryBudget, messageReader);
+        } else {
+            return new SynchronizedQueueBuffer(inMemoryCacheLimit, memoryBudget, messageReader);
+        }
+    }
+
+    /**
+     * Getter for totalMemoryBudget.
+     */
+    public MessageMemoryBudget getTotalMemoryBudget() {
+        return totalMemoryBudget;
     }
 }
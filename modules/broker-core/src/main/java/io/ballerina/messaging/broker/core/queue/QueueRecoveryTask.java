@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.BrokerException;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.store.MessageStore;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Loads the stored messages of a durable queue page by page in message id order. Pages are selected by the id of the
+ * last loaded message so that each page is a short query regardless of how many messages were loaded before it.
+ * <p>
+ * Only the messages stored when the recovery began are loaded. Messages enqueued once the queue is up are already in
+ * the queue buffer and are not loaded again.
+ * <p>
+ * A page which cannot be read is retried with an exponential backoff. Once the retries are exhausted the recovery
+ * fails, still counting the messages which are not loaded, until it is restarted with {@link #clearFailure()}.
+ */
+final class QueueRecoveryTask implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueueRecoveryTask.class);
+
+    private static final int MAX_RETRIES = 5;
+
+    private static final long INITIAL_RETRY_DELAY_MILLIS = 100;
+
+    private final String queueName;
+
+    private final MessageStore messageStore;
+
+    private final int pageSize;
+
+    private final long totalMessageCount;
+
+    private final long lastMessageId;
+
+    private final Consumer<Collection<Message>> pageConsumer;
+
+    private final long initialRetryDelayMillis;
+
+    /**
+     * Time the first page was loaded at. Recovery of a lazily recovered queue begins only once the queue is used.
+     */
+    private volatile long startTime;
+
+    private volatile long recoveredMessageCount;
+
+    private volatile long lastRecoveredMessageId;
+
+    private volatile boolean completed;
+
+    private volatile boolean cancelled;
+
+    /**
+     * Error which stopped the recovery after the retries were exhausted.
+     */
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    /**
+     * Create a recovery task.
+     *
+     * @param queueName          name of the queue
+     * @param messageStore       store to load the messages from
+     * @param storedMessageRange messages stored for the queue when the recovery began
+     * @param pageSize           number of messages loaded at a time
+     * @param pageConsumer       consumer of each loaded page
+     */
+    QueueRecoveryTask(String queueName, MessageStore messageStore, StoredMessageRange storedMessageRange,
+                      int pageSize, Consumer<Collection<Message>> pageConsumer) {
+        this(queueName, messageStore, storedMessageRange, pageSize, pageConsumer, INITIAL_RETRY_DELAY_MILLIS);
+    }
+
+    QueueRecoveryTask(String queueName, MessageStore messageStore, StoredMessageRange storedMessageRange,
+                      int pageSize, Consumer<Collection<Message>> pageConsumer, long initialRetryDelayMillis) {
+        this.queueName = queueName;
+        this.messageStore = messageStore;
+        this.pageSize = pageSize;
+        this.totalMessageCount = storedMessageRange.getMessageCount();
+        this.lastMessageId = storedMessageRange.getLastMessageId();
+        this.pageConsumer = pageConsumer;
+        this.initialRetryDelayMillis = initialRetryDelayMillis;
+        this.completed = totalMessageCount == 0;
+    }
+
+    /**
+     * Load the next page of messages.
+     *
+     * @return true if there are more messages to load
+     * @throws BrokerException if the messages cannot be read
+     */
+    boolean recoverPage() throws BrokerException {
+        if (completed) {
+            return false;
+        }
+        if (recoveredMessageCount == 0) {
+            startTime = System.nanoTime();
+        }
+
+        Collection<Message> messages = messageStore.readMessagesForQueue(queueName, lastRecoveredMessageId,
+                                                                         lastMessageId, pageSize);
+        long pageLastMessageId = lastRecoveredMessageId;
+        for (Message message : messages) {
+            pageLastMessageId = message.getInternalId();
+        }
+        pageConsumer.accept(messages);
+        lastRecoveredMessageId = pageLastMessageId;
+        recoveredMessageCount += messages.size();
+
+        if (messages.isEmpty() || pageLastMessageId >= lastMessageId) {
+            completed = true;
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("{} messages recovered for queue {} in {} ms", recoveredMessageCount, queueName,
+                             TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            }
+        }
+        return !completed;
+    }
+
+    @Override
+    public void run() {
+        int retryCount = 0;
+        while (!cancelled) {
+            try {
+                if (!recoverPage()) {
+                    return;
+                }
+                retryCount = 0;
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Recovered {} of {} messages for queue {}", recoveredMessageCount,
+                                 totalMessageCount, queueName);
+                }
+            } catch (BrokerException | RuntimeException e) {
+                if (retryCount >= MAX_RETRIES) {
+                    LOGGER.error("Error recovering messages for queue " + queueName + " after message id "
+                                         + lastRecoveredMessageId + ". Recovery is retried once the queue is used.",
+                                 e);
+                    failure.set(e);
+                    return;
+                }
+
+                long retryDelayMillis = initialRetryDelayMillis << retryCount;
+                retryCount++;
+                LOGGER.warn("Error recovering messages for queue " + queueName + " after message id "
+                                    + lastRecoveredMessageId + ". Retrying in " + retryDelayMillis + " ms", e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(retryDelayMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    failure.set(e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop loading messages once the current page is loaded.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    boolean isCompleted() {
+        return completed || cancelled;
+    }
+
+    /**
+     * Error which stopped loading the messages, or null if the recovery did not fail.
+     */
+    Exception getFailure() {
+        return failure.get();
+    }
+
+    /**
+     * Clear the failure so that the recovery can be run again.
+     *
+     * @return true if the recovery had failed and the caller should run it again
+     */
+    boolean clearFailure() {
+        return Objects.nonNull(failure.get()) && Objects.nonNull(failure.getAndSet(null));
+    }
+
+    /**
+     * Number of messages stored when the recovery began which are yet to be loaded.
+     */
+    long getRemainingMessageCount() {
+        if (isCompleted()) {
+            return 0;
+        }
+        return Math.max(0, totalMessageCount - recoveredMessageCount);
+    }
+
+    /**
+     * Fraction of the stored messages loaded so far.
+     */
+    double getProgress() {
+        if (isCompleted() || totalMessageCount == 0) {
+            return 1;
+        }
+        return Math.min(1, (double) recoveredMessageCount / totalMessageCount);
+    }
+
+    /**
+     * Estimated time until the rest of the messages are loaded, based on the rate messages were loaded so far.
+     *
+     * @return remaining time in milliseconds, or -1 if no message is loaded yet or the recovery failed
+     */
+    long getEstimatedRemainingMillis() {
+        long remainingMessageCount = getRemainingMessageCount();
+        if (remainingMessageCount == 0) {
+            return 0;
+        }
+        long recovered = recoveredMessageCount;
+        if (recovered == 0 || Objects.nonNull(failure.get())) {
+            return -1;
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        return elapsedMillis * remainingMessageCount / recovered;
+    }
+}
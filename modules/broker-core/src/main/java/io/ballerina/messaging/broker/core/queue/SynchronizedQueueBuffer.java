@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.common.util.ConcurrentLongHashMap;
+import io.ballerina.messaging.broker.core.Message;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * {@link QueueBuffer} implementation which serializes all the operations on the buffer using the object monitor.
+ */
+public class SynchronizedQueueBuffer extends QueueBuffer {
+
+    /**
+     * Maximum number of messages held in memory.
+     */
+    private final int inMemoryLimit;
+
+    /**
+     * Tracks the content bytes of the messages held in memory.
+     */
+    private final MessageMemoryBudget memoryBudget;
+
+    /**
+     * Used to submit read requests for a message.
+     */
+    private final MessageReader messageReader;
+
+    /**
+     * Size of the queue. i.e. in memory messages + DB messages.
+     */
+    private AtomicInteger size = new AtomicInteger(0);
+
+    /**
+     * Number of messages that are retrieved for delivery but not yet removed.
+     */
+    private AtomicInteger messagesInFlight = new AtomicInteger(0);
+
+    /**
+     * Number of in memory messages.
+     */
+    private AtomicInteger deliverableMessageCount = new AtomicInteger(0);
+
+    /**
+     * Total Number of undelivered messages in the buffer.
+     */
+    private AtomicInteger undeliveredMessageCount = new AtomicInteger(0);
+
+    /**
+     * Pointer to first deliverable candidate node.
+     */
+    private Node firstDeliverableCandidate;
+
+    /**
+     * Pointer to last deliverable node.
+     */
+    private Node firstUndeliverable;
+
+    /**
+     * Pointer to last node.
+     */
+    private Node last;
+
+    /**
+     * Used to fast lookup the node for a message ID.
+     */
+    private ConcurrentLongHashMap<Node> keyMap = new ConcurrentLongHashMap<>();
+
+    SynchronizedQueueBuffer(int inMemoryLimit, MessageReader messageReader) {
+        this(inMemoryLimit, new MessageMemoryBudget(0), messageReader);
+    }
+
+    SynchronizedQueueBuffer(int inMemoryLimit, MessageMemoryBudget memoryBudget, MessageReader messageReader) {
+        this.inMemoryLimit = inMemoryLimit;
+        this.memoryBudget = memoryBudget;
+        this.messageReader = messageReader;
+    }
+
+    @Override
+    public synchronized void add(Message message) {
+        linkLast(message);
+        postProcessDeliverableNode();
+    }
+
+    @Override
+    public synchronized void addAllBareMessages(Collection<Message> messages) {
+        for (Message message : messages) {
+            addBareMessage(message);
+        }
+    }
+
+    @Override
+    public synchronized void addBareMessage(Message message) {
+        linkLast(message);
+        postProcessBareMessage();
+    }
+
+    /**
+     * Links newMessage as last element.
+     */
+    private void linkLast(Message newMessage) {
+        size.incrementAndGet();
+        undeliveredMessageCount.incrementAndGet();
+
+        final Node previousLast = last;
+        final Node newNode = new Node(previousLast, newMessage, null);
+
+        last = newNode;
+        keyMap.put(newMessage.getInternalId(), newNode);
+
+        if (Objects.nonNull(previousLast)) {
+            previousLast.next = newNode;
+        }
+    }
+
+    /**
+     * Post process the added deliverable message looking at the queue size and the in memory limits. Message data
+     * will be cleared if we have deliverable messages than in-memory limit or if the memory budget does not have room
+     * for the message content.
+     */
+    private void postProcessDeliverableNode() {
+        Node newNode = last;
+        long contentBytes = MessageMemoryBudget.contentBytesOf(newNode.item);
+        memoryBudget.recordMessageBytes(contentBytes);
+        if (size.get() > inMemoryLimit || !memoryBudget.tryReserve(contentBytes)) {
+
+            if (Objects.isNull(firstUndeliverable)) {
+                firstUndeliverable = newNode;
+            }
+            if (Objects.isNull(firstDeliverableCandidate)) {
+                firstDeliverableCandidate = newNode;
+            }
+
+            newNode.item.clearData();
+        } else {
+            newNode.retainedBytes = contentBytes;
+            newNode.state.set(Node.FULL_MESSAGE);
+            deliverableMessageCount.incrementAndGet();
+
+            if (Objects.isNull(firstDeliverableCandidate)) {
+                firstDeliverableCandidate = newNode;
+            }
+        }
+    }
+
+    /**
+     * Post process after adding a bare message.
+     */
+    private void postProcessBareMessage() {
+        Node newNode = last;
+        if (Objects.isNull(firstUndeliverable)) {
+            firstUndeliverable = newNode;
+        }
+        if (Objects.isNull(firstDeliverableCandidate)) {
+            firstDeliverableCandidate = newNode;
+        }
+    }
+
+    @Override
+    public synchronized void remove(Message message) {
+        long messageId = message.getInternalId();
+        Node node = keyMap.remove(messageId);
+        if (Objects.nonNull(node)) {
+            unlink(node);
+        }
+    }
+
+    @Override
+    public synchronized void removeAll(Collection<Message> messages) {
+        for (Message message : messages) {
+            remove(message);
+        }
+    }
+
+    /**
+     * Unlinks a non-null node.
+     */
+    private void unlink(Node node) {
+        final Node next = node.next;
+        final Node prev = node.prev;
+
+        // if prev is null we are removing the first element
+        if (Objects.nonNull(prev)) {
+            prev.next = next;
+            node.prev = null;
+        }
+
+        // if next is null we are removing the last element
+        if (next == null) {
+            last = prev;
+        } else {
+            next.prev = prev;
+            node.next = null;
+        }
+
+        node.item = null;
+        memoryBudget.release(node.swapRetainedBytes(0));
+        size.decrementAndGet();
+        deliverableMessageCount.decrementAndGet();
+        messagesInFlight.decrementAndGet();
+        submitMessageReads();
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public long getResidentBytes() {
+        return memoryBudget.getResidentBytes();
+    }
+
+    @Override
+    public int getNumberOfInflightMessages() {
+        return messagesInFlight.get();
+    }
+
+    @Override
+    public int getNumberOfUndeliveredMessages() {
+        return undeliveredMessageCount.get();
+    }
+
+    @Override
+    public synchronized Message getFirstDeliverable() {
+
+        submitMessageReads();
+        Node deliverableCandidate = firstDeliverableCandidate;
+
+        if (deliverableCandidate != firstUndeliverable) {
+
+            if (deliverableCandidate.state.get() != Node.FULL_MESSAGE) {
+                return null;
+            }
+
+            firstDeliverableCandidate = deliverableCandidate.next;
+
+            recordRemovingMessageForDelivery();
+            return deliverableCandidate.item;
+        } else if (firstUndeliverable != null && firstUndeliverable.state.get() == Node.FULL_MESSAGE) {
+            Node newDeliverable = firstUndeliverable;
+            firstDeliverableCandidate = firstUndeliverable.next;
+            pushFirstUndeliverableCursor();
+
+            recordRemovingMessageForDelivery();
+            return newDeliverable.item;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Update corresponding counts when message is removed from the queue for delivery.
+     */
+    private void recordRemovingMessageForDelivery() {
+        messagesInFlight.incrementAndGet();
+        undeliveredMessageCount.decrementAndGet();
+    }
+
+    private void pushFirstUndeliverableCursor() {
+        firstUndeliverable = firstUndeliverable.next;
+
+        while (firstUndeliverable != null && firstUndeliverable.state.get() == Node.FULL_MESSAGE) {
+            firstUndeliverable = firstUndeliverable.next;
+        }
+    }
+
+    private void submitMessageReads() {
+        int fillableMessageCount = inMemoryLimit - deliverableMessageCount.get();
+
+        Node undeliverableNode = this.firstUndeliverable;
+        while (fillableMessageCount-- > 0 && undeliverableNode != null) {
+            long estimatedBytes = memoryBudget.estimateMessageBytes();
+            if (undeliverableNode.state.get() != Node.BARE_MESSAGE || !memoryBudget.tryReserve(estimatedBytes)) {
+                break;
+            }
+
+            // Estimated size is held until the message data is read
+            undeliverableNode.swapRetainedBytes(estimatedBytes);
+            undeliverableNode.state.set(Node.SUBMITTED_FOR_FILLING);
+            Message message = undeliverableNode.item;
+            messageReader.fill(this, message);
+
+            undeliverableNode = undeliverableNode.next;
+        }
+    }
+
+    @Override
+    public void markMessageFilled(Message message) {
+        Node node = keyMap.get(message.getInternalId());
+        if (Objects.nonNull(node)) {
+            long contentBytes = MessageMemoryBudget.contentBytesOf(message);
+            memoryBudget.recordMessageBytes(contentBytes);
+            memoryBudget.reserve(contentBytes - node.swapRetainedBytes(contentBytes));
+            if (keyMap.get(message.getInternalId()) != node) {
+                // Message was removed while the bytes were updated
+                memoryBudget.release(node.swapRetainedBytes(0));
+            }
+            node.state.set(Node.FULL_MESSAGE);
+            deliverableMessageCount.incrementAndGet();
+            notifyMessageFilled();
+        }
+    }
+
+    @Override
+    public synchronized void addAll(List<Message> messages) {
+        for (Message message: messages) {
+            add(message);
+        }
+    }
+
+    @Override
+    public synchronized int clear(Consumer<Message> postDeleteAction) {
+        List<Node> values = keyMap.values();
+        int bufferSize = values.size();
+        for (Node node : values) {
+            Message message = node.item;
+            message.clearData();
+            unlink(node);
+            postDeleteAction.accept(message);
+        }
+        return bufferSize;
+    }
+
+    private static class Node {
+        private static final int BARE_MESSAGE = 0;
+        private static final int SUBMITTED_FOR_FILLING = 1;
+        private static final int FULL_MESSAGE = 2;
+        private static final AtomicLongFieldUpdater<Node> RETAINED_BYTES_UPDATER =
+                AtomicLongFieldUpdater.newUpdater(Node.class, "retainedBytes");
+        private Message item;
+        private Node next;
+        private Node prev;
+        /**
+         * Content bytes of the message reserved in the memory budget. Holds the estimated size while the message
+         * data is being read.
+         */
+        private volatile long retainedBytes;
+        private AtomicInteger state = new AtomicInteger(BARE_MESSAGE);
+
+        Node(Node prev, Message element, Node next) {
+            this.item = element;
+            this.next = next;
+            this.prev = prev;
+        }
+
+        /**
+         * Atomically replace the retained bytes. The caller adjusts the memory budget by the difference, which keeps
+         * the budget consistent even when a message is removed while its data is being read.
+         *
+         * @param bytes new retained bytes
+         * @return previously retained bytes
+         */
+        long swapRetainedBytes(long bytes) {
+            return RETAINED_BYTES_UPDATER.getAndSet(this, bytes);
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.google.common.base.Strings;
 import io.ballerina.messaging.broker.common.ValidationException;
 import io.ballerina.messaging.broker.common.data.types.FieldTable;
 import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
 import io.ballerina.messaging.broker.core.Binding;
 import io.ballerina.messaging.broker.core.BindingSet;
 import io.ballerina.messaging.broker.core.BrokerException;
@@ -59,6 +60,11 @@ public class BindingsApiDelegate {
 
     public Response createBinding(String queueName, BindingCreateRequest requestBody, Subject subject) {
         FieldTable fieldTable = new FieldTable();
+        Map<String, String> arguments = requestBody.getArguments();
+        if (Objects.nonNull(arguments)) {
+            arguments.forEach((name, value) -> fieldTable.add(ShortString.parseString(name),
+                                                              FieldValue.parseLongString(value)));
+        }
         String filter = requestBody.getFilterExpression();
         if (Objects.nonNull(filter)) {
             fieldTable.add(Binding.JMS_SELECTOR_ARGUMENT, FieldValue.parseLongString(filter));
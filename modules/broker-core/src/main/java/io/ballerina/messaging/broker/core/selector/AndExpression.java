@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.core.Metadata;
+
+/**
+ * Logical conjunction of two boolean expressions. The right hand side is not evaluated if the left hand side decides
+ * the result.
+ */
+public class AndExpression implements BooleanExpression {
+
+    private final BooleanExpression left;
+
+    private final BooleanExpression right;
+
+    public AndExpression(BooleanExpression left, BooleanExpression right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public boolean evaluate(Metadata metadata) {
+        return left.evaluate(metadata) && right.evaluate(metadata);
+    }
+
+    @Override
+    public boolean isFalse(Metadata metadata) {
+        return left.isFalse(metadata) || right.isFalse(metadata);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.core.Metadata;
+
+/**
+ * Arithmetic operation on two numeric values. Integers are computed as long values and other numbers as double
+ * values. The result is null, hence UNKNOWN in comparisons, if an operand is not a number or an integer is divided
+ * by zero.
+ */
+public class ArithmeticExpression implements Expression<Metadata> {
+
+    /**
+     * Arithmetic operators.
+     */
+    public enum Operator {
+        ADD,
+        SUBTRACT,
+        MULTIPLY,
+        DIVIDE
+    }
+
+    private final Operator operator;
+
+    private final Expression<Metadata> left;
+
+    private final Expression<Metadata> right;
+
+    public ArithmeticExpression(Operator operator, Expression<Metadata> left, Expression<Metadata> right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    @Override
+    public Object evaluate(Metadata metadata) {
+        Object leftValue = left.evaluate(metadata);
+        if (!(leftValue instanceof Number)) {
+            return null;
+        }
+        Object rightValue = right.evaluate(metadata);
+        if (!(rightValue instanceof Number)) {
+            return null;
+        }
+
+        Number leftNumber = (Number) leftValue;
+        Number rightNumber = (Number) rightValue;
+        if (ComparisonExpression.isInteger(leftNumber) && ComparisonExpression.isInteger(rightNumber)) {
+            return evaluate(leftNumber.longValue(), rightNumber.longValue());
+        }
+        return evaluate(leftNumber.doubleValue(), rightNumber.doubleValue());
+    }
+
+    private Long evaluate(long leftValue, long rightValue) {
+        switch (operator) {
+            case ADD:
+                return leftValue + rightValue;
+            case SUBTRACT:
+                return leftValue - rightValue;
+            case MULTIPLY:
+                return leftValue * rightValue;
+            default:
+                return rightValue == 0 ? null : leftValue / rightValue;
+        }
+    }
+
+    private Double evaluate(double leftValue, double rightValue) {
+        switch (operator) {
+            case ADD:
+                return leftValue + rightValue;
+            case SUBTRACT:
+                return leftValue - rightValue;
+            case MULTIPLY:
+                return leftValue * rightValue;
+            default:
+                return leftValue / rightValue;
+        }
+    }
+}
@@ -23,8 +23,26 @@ import io.ballerina.messaging.broker.core.Metadata;
 
 /**
  * Expression that always returns a boolean value.
+ * <p>
+ * Selectors use three valued logic. An expression involving a missing property is neither TRUE nor FALSE but
+ * UNKNOWN. Hence an expression is evaluated through two predicates which are both false when the result is UNKNOWN.
+ * This lets logical operators short circuit without boxing the intermediate results.
  */
 public interface BooleanExpression {
 
+    /**
+     * Check whether the expression is TRUE for the message.
+     *
+     * @param metadata metadata of the message
+     * @return true if the expression is TRUE
+     */
     boolean evaluate(Metadata metadata);
+
+    /**
+     * Check whether the expression is FALSE for the message.
+     *
+     * @param metadata metadata of the message
+     * @return true if the expression is FALSE
+     */
+    boolean isFalse(Metadata metadata);
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.core.Metadata;
+
+import java.math.BigDecimal;
+
+/**
+ * Boolean expression ordering two numeric values. Comparing values which are not numbers is FALSE.
+ * <p>
+ * Use {@link #create(Operator, Expression, Expression)} to get an evaluator specialized for the compared types.
+ */
+public class ComparisonExpression implements BooleanExpression {
+
+    /**
+     * Comparison operators.
+     */
+    public enum Operator {
+        LESS_THAN,
+        LESS_THAN_OR_EQUAL,
+        GREATER_THAN,
+        GREATER_THAN_OR_EQUAL;
+
+        /**
+         * Check the result of {@link Comparable#compareTo(Object)} against the operator.
+         */
+        boolean test(int comparison) {
+            switch (this) {
+                case LESS_THAN:
+                    return comparison < 0;
+                case LESS_THAN_OR_EQUAL:
+                    return comparison <= 0;
+                case GREATER_THAN:
+                    return comparison > 0;
+                default:
+                    return comparison >= 0;
+            }
+        }
+
+        /**
+         * Get the operator giving the same result when the operands are swapped.
+         */
+        Operator mirror() {
+            switch (this) {
+                case LESS_THAN:
+                    return GREATER_THAN;
+                case LESS_THAN_OR_EQUAL:
+                    return GREATER_THAN_OR_EQUAL;
+                case GREATER_THAN:
+                    return LESS_THAN;
+                default:
+                    return LESS_THAN_OR_EQUAL;
+            }
+        }
+    }
+
+    private final Operator operator;
+
+    private final Expression<Metadata> left;
+
+    private final Expression<Metadata> right;
+
+    public ComparisonExpression(Operator operator, Expression<Metadata> left, Expression<Metadata> right) {
+        this.operator = operator;
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Compile a comparison. Comparisons of a message property with an integer constant are compiled to evaluators
+     * which compare the raw property value without boxing. Other comparisons are evaluated generically.
+     *
+     * @param operator comparison operator
+     * @param left     left hand side of the comparison
+     * @param right    right hand side of the comparison
+     * @return evaluator of the comparison
+     */
+    public static BooleanExpression create(Operator operator, Expression<Metadata> left, Expression<Metadata> right) {
+        // Constant expressions do not depend on the evaluated object, hence are not typed for metadata
+        Object leftExpression = left;
+        Object rightExpression = right;
+        if (leftExpression instanceof JmsPropertyExpression && isIntegerConstant(rightExpression)) {
+            return new IntegerComparisonExpression((JmsPropertyExpression) leftExpression, operator,
+                                                   ((Number) ((ConstantExpression) rightExpression).getValue())
+                                                           .longValue());
+        } else if (isIntegerConstant(leftExpression) && rightExpression instanceof JmsPropertyExpression) {
+            return new IntegerComparisonExpression((JmsPropertyExpression) rightExpression, operator.mirror(),
+                                                   ((Number) ((ConstantExpression) leftExpression).getValue())
+                                                           .longValue());
+        }
+        return new ComparisonExpression(operator, left, right);
+    }
+
+    private static boolean isIntegerConstant(Object expression) {
+        if (expression instanceof ConstantExpression) {
+            Object value = ((ConstantExpression) expression).getValue();
+            return value instanceof Integer || value instanceof Long;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean evaluate(Metadata metadata) {
+        Object leftValue = left.evaluate(metadata);
+        if (leftValue == null) {
+            return false;
+        }
+        Object rightValue = right.evaluate(metadata);
+        return rightValue instanceof Number && leftValue instanceof Number
+                && operator.test(compareNumbers((Number) leftValue, (Number) rightValue));
+    }
+
+    @Override
+    public boolean isFalse(Metadata metadata) {
+        Object leftValue = left.evaluate(metadata);
+        if (leftValue == null) {
+            return false;
+        }
+        Object rightValue = right.evaluate(metadata);
+        if (rightValue == null) {
+            return false;
+        }
+        return !(leftValue instanceof Number && rightValue instanceof Number)
+                || !operator.test(compareNumbers((Number) leftValue, (Number) rightValue));
+    }
+
+    /**
+     * Compare two numbers. Integers are compared exactly, other numbers as double values.
+     *
+     * @param left  left hand side number
+     * @param right right hand side number
+     * @return negative, zero or positive if the left number is less than, equal to or greater than the right number
+     */
+    static int compareNumbers(Number left, Number right) {
+        if (isInteger(left) && isInteger(right)) {
+            return Long.compare(left.longValue(), right.longValue());
+        } else if (left instanceof BigDecimal && right instanceof BigDecimal) {
+            return ((BigDecimal) left).compareTo((BigDecimal) right);
+        }
+        return Double.compare(left.doubleValue(), right.doubleValue());
+    }
+
+    static boolean isInteger(Number number) {
+        return number instanceof Long || number instanceof Integer || number instanceof Short
+                || number instanceof Byte;
+    }
+}
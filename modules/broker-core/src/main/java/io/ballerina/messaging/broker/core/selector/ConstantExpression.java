@@ -37,6 +37,10 @@ public class ConstantExpression implements Expression<Object> {
         return value;
     }
 
+    public Object getValue() {
+        return value;
+    }
+
     public static ConstantExpression createFromNumericInteger(String text) {
 
         if (text.endsWith("l") || text.endsWith("L")) {
@@ -50,10 +54,44 @@ public class ConstantExpression implements Expression<Object> {
             value = new BigDecimal(text);
         }
 
-        if (value.intValue() < Integer.MAX_VALUE && value.intValue() > Integer.MIN_VALUE) {
-            value = value.intValue();
+        return new ConstantExpression(narrow(value));
+    }
+
+    public static ConstantExpression createFromNumericDecimal(String text) {
+        return new ConstantExpression(Double.valueOf(text));
+    }
+
+    /**
+     * Create a constant with the negated value of a numeric constant.
+     *
+     * @return negated constant
+     */
+    public ConstantExpression negate() {
+        if (value instanceof Integer) {
+            return new ConstantExpression(narrow(-((Integer) value).longValue()));
+        } else if (value instanceof Long) {
+            return new ConstantExpression(narrow(-(Long) value));
+        } else if (value instanceof Double) {
+            return new ConstantExpression(-(Double) value);
+        } else if (value instanceof BigDecimal) {
+            BigDecimal negated = ((BigDecimal) value).negate();
+            try {
+                return new ConstantExpression(narrow(negated.longValueExact()));
+            } catch (ArithmeticException e) {
+                return new ConstantExpression(negated);
+            }
         }
+        throw new IllegalStateException("Cannot negate non numeric value " + value);
+    }
 
-        return new ConstantExpression(value);
+    /**
+     * Use an integer for values within the integer range.
+     */
+    private static Number narrow(Number value) {
+        if (value instanceof Long && value.longValue() <= Integer.MAX_VALUE
+                && value.longValue() >= Integer.MIN_VALUE) {
+            return value.intValue();
+        }
+        return value;
     }
 }
@@ -24,6 +24,8 @@ import io.ballerina.messaging.broker.core.Metadata;
 
 /**
  * Implementation of a boolean expression. Here we compare two expressions and evaluate to a boolean value.
+ * <p>
+ * Use {@link #create(Expression, Expression)} to get an evaluator specialized for the compared types.
  */
 public class EqualityExpression implements BooleanExpression {
 
@@ -36,18 +38,61 @@ public class EqualityExpression implements BooleanExpression {
         this.right = right;
     }
 
+    /**
+     * Compile an equality comparison. Comparisons of a message property with a string or integer constant are
+     * compiled to evaluators which compare the raw property value with the pre-encoded constant without allocating.
+     * Other comparisons are evaluated generically.
+     *
+     * @param left  left hand side of the comparison
+     * @param right right hand side of the comparison
+     * @return evaluator of the comparison
+     */
+    public static BooleanExpression create(Expression<Metadata> left, Expression<Metadata> right) {
+        // Constant expressions do not depend on the evaluated object, hence are not typed for metadata
+        Object leftExpression = left;
+        Object rightExpression = right;
+        if (leftExpression instanceof JmsPropertyExpression && rightExpression instanceof ConstantExpression) {
+            return create((JmsPropertyExpression) leftExpression, ((ConstantExpression) rightExpression).getValue(),
+                          left, right);
+        } else if (leftExpression instanceof ConstantExpression && rightExpression instanceof JmsPropertyExpression) {
+            return create((JmsPropertyExpression) rightExpression, ((ConstantExpression) leftExpression).getValue(),
+                          left, right);
+        }
+        return new EqualityExpression(left, right);
+    }
+
+    private static BooleanExpression create(JmsPropertyExpression property, Object constant,
+                                            Expression<Metadata> left, Expression<Metadata> right) {
+        if (constant instanceof String) {
+            return new StringEqualityExpression(property, (String) constant);
+        } else if (constant instanceof Integer || constant instanceof Long) {
+            return new IntegerEqualityExpression(property, ((Number) constant).longValue());
+        }
+        return new EqualityExpression(left, right);
+    }
+
     @Override
     public boolean evaluate(Metadata metadata) {
         Object leftValue = left.evaluate(metadata);
         Object rightValue = right.evaluate(metadata);
-        if (leftValue == null || rightValue == null) {
-            return false;
-        }
+        return leftValue != null && rightValue != null && valuesEqual(leftValue, rightValue);
+    }
 
-        if (rightValue == leftValue || leftValue.equals(rightValue)) {
-            return true;
-        }
+    @Override
+    public boolean isFalse(Metadata metadata) {
+        Object leftValue = left.evaluate(metadata);
+        Object rightValue = right.evaluate(metadata);
+        return leftValue != null && rightValue != null && !valuesEqual(leftValue, rightValue);
+    }
 
-        return false;
+    /**
+     * Numbers are equal if they have the same numeric value regardless of their type. Values of different types are
+     * never equal.
+     */
+    private static boolean valuesEqual(Object leftValue, Object rightValue) {
+        if (leftValue instanceof Number && rightValue instanceof Number) {
+            return ComparisonExpression.compareNumbers((Number) leftValue, (Number) rightValue) == 0;
+        }
+        return leftValue.equals(rightValue);
     }
 }
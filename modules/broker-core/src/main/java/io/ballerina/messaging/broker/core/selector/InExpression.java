@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.Metadata;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Boolean expression checking whether a message property equals one of a list of string or integer constants. The
+ * property is looked up in a hash set, hence the cost does not depend on the length of the list.
+ */
+public class InExpression implements IndexableExpression {
+
+    private final JmsPropertyExpression property;
+
+    private final Set<Object> keys;
+
+    /**
+     * Create the expression.
+     *
+     * @param property property to look up
+     * @param values   list of {@link String}, {@link Integer} or {@link Long} constants
+     */
+    public InExpression(JmsPropertyExpression property, List<Object> values) {
+        this.property = property;
+        Set<Object> keySet = new HashSet<>();
+        for (Object value : values) {
+            if (value instanceof String) {
+                keySet.add(value);
+            } else if (value instanceof Integer || value instanceof Long) {
+                keySet.add(((Number) value).longValue());
+            } else {
+                throw new IllegalArgumentException("Unsupported value in IN list " + value);
+            }
+        }
+        this.keys = Collections.unmodifiableSet(keySet);
+    }
+
+    @Override
+    public JmsPropertyExpression getProperty() {
+        return property;
+    }
+
+    @Override
+    public Collection<Object> getIndexKeys() {
+        return keys;
+    }
+
+    @Override
+    public boolean evaluate(Metadata metadata) {
+        Object key = property.getIndexKey(metadata);
+        return key != null && keys.contains(key);
+    }
+
+    @Override
+    public boolean isFalse(Metadata metadata) {
+        FieldValue value = property.getFieldValue(metadata);
+        if (value == null) {
+            return false;
+        }
+        Object key = JmsPropertyExpression.getIndexKey(value);
+        return key == null || !keys.contains(key);
+    }
+}
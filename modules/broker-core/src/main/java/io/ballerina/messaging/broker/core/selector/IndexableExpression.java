@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.selector;
+
+import java.util.Collection;
+
+/**
+ * Boolean expression which is true only when a message property equals one of a set of constants. Bindings with
+ * such selectors can be looked up by the property value instead of evaluating each selector.
+ */
+public interface IndexableExpression extends BooleanExpression {
+
+    /**
+     * Get the property compared by the expression.
+     *
+     * @return property expression
+     */
+    JmsPropertyExpression getProperty();
+
+    /**
+     * Get the constants the property is compared with, in the form returned by
+     * {@link JmsPropertyExpression#getIndexKey(io.ballerina.messaging.broker.core.Metadata)}.
+     *
+     * @return index keys matching the expression
+     */
+    Collection<Object> getIndexKeys();
+}
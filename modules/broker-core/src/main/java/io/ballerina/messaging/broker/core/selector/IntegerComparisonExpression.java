@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.Metadata;
+
+/**
+ * Compiled ordering of a message property against an integer constant. Integer properties of any width are compared
+ * as primitive values without boxing.
+ */
+final class IntegerComparisonExpression implements BooleanExpression {
+
+    private final JmsPropertyExpression property;
+
+    private final ComparisonExpression.Operator operator;
+
+    private final long value;
+
+    IntegerComparisonExpression(JmsPropertyExpression property, ComparisonExpression.Operator operator, long value) {
+        this.property = property;
+        this.operator = operator;
+        this.value = value;
+    }
+
+    @Override
+    public boolean evaluate(Metadata metadata) {
+        FieldValue fieldValue = property.getFieldValue(metadata);
+        return fieldValue != null && JmsPropertyExpression.isInteger(fieldValue)
+                && operator.test(Long.compare(JmsPropertyExpression.getLong(fieldValue), value));
+    }
+
+    @Override
+    public boolean isFalse(Metadata metadata) {
+        FieldValue fieldValue = property.getFieldValue(metadata);
+        return fieldValue != null && (!JmsPropertyExpression.isInteger(fieldValue)
+                || !operator.test(Long.compare(JmsPropertyExpression.getLong(fieldValue), value)));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.Metadata;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Compiled comparison of a message property with an integer constant. Integer properties of any width are compared
+ * as primitive values without boxing.
+ */
+final class IntegerEqualityExpression implements IndexableExpression {
+
+    private final JmsPropertyExpression property;
+
+    private final long value;
+
+    IntegerEqualityExpression(JmsPropertyExpression property, long value) {
+        this.property = property;
+        this.value = value;
+    }
+
+    @Override
+    public JmsPropertyExpression getProperty() {
+        return property;
+    }
+
+    @Override
+    public Collection<Object> getIndexKeys() {
+        return Collections.singletonList(value);
+    }
+
+    @Override
+    public boolean evaluate(Metadata metadata) {
+        FieldValue fieldValue = property.getFieldValue(metadata);
+        return fieldValue != null && JmsPropertyExpression.isInteger(fieldValue)
+                && JmsPropertyExpression.getLong(fieldValue) == value;
+    }
+
+    @Override
+    public boolean isFalse(Metadata metadata) {
+        FieldValue fieldValue = property.getFieldValue(metadata);
+        return fieldValue != null && (!JmsPropertyExpression.isInteger(fieldValue)
+                || JmsPropertyExpression.getLong(fieldValue) != value);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.core.Metadata;
+
+/**
+ * Boolean expression checking whether a message property is missing. The result is never UNKNOWN.
+ */
+public class IsNullExpression implements BooleanExpression {
+
+    private final JmsPropertyExpression property;
+
+    public IsNullExpression(JmsPropertyExpression property) {
+        this.property = property;
+    }
+
+    @Override
+    public boolean evaluate(Metadata metadata) {
+        return property.getFieldValue(metadata) == null;
+    }
+
+    @Override
+    public boolean isFalse(Metadata metadata) {
+        return property.getFieldValue(metadata) != null;
+    }
+}
@@ -22,38 +22,59 @@ package io.ballerina.messaging.broker.core.selector;
 import io.ballerina.messaging.broker.common.data.types.FieldValue;
 import io.ballerina.messaging.broker.common.data.types.LongInt;
 import io.ballerina.messaging.broker.common.data.types.LongLongInt;
+import io.ballerina.messaging.broker.common.data.types.ShortInt;
 import io.ballerina.messaging.broker.common.data.types.ShortShortInt;
 import io.ballerina.messaging.broker.common.data.types.ShortString;
 import io.ballerina.messaging.broker.core.Metadata;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 /**
- * JMS message properties and headers related expression.
+ * JMS message properties and headers related expression. The name is resolved to the key of the message property or
+ * header once when the expression is created, hence evaluating the expression does not allocate a key.
  */
 public class JmsPropertyExpression implements Expression<Metadata> {
 
-    private static final Logger LOGGER = LoggerFactory.getLogger(JmsPropertyExpression.class);
-
-    private static final Map<String, Expression<Metadata>> JMS_PROPERTY_EXPRESSIONS = new HashMap<>();
+    /**
+     * JMS properties mapped to the AMQP message property holding the value. A null key means the property is not
+     * available to selectors.
+     */
+    private static final Map<String, ShortString> JMS_PROPERTY_KEYS = new HashMap<>();
 
     private final String name;
 
-    private final Expression<Metadata> jmsPropertyExpression;
+    /**
+     * Key of the message property holding the value if the name refers to a JMS property.
+     */
+    private final ShortString propertyKey;
+
+    /**
+     * Key of the message header holding the value if the name does not refer to a JMS property.
+     */
+    private final ShortString headerKey;
 
     public JmsPropertyExpression(String name) {
         this.name = name;
-        this.jmsPropertyExpression = JMS_PROPERTY_EXPRESSIONS.get(name);
+        if (JMS_PROPERTY_KEYS.containsKey(name)) {
+            this.propertyKey = JMS_PROPERTY_KEYS.get(name);
+            this.headerKey = null;
+        } else {
+            this.propertyKey = null;
+            this.headerKey = ShortString.parseString(name);
+        }
     }
 
     static Object getValue(FieldValue value) {
         if (value != null) {
             switch (value.getType()) {
+                case BOOLEAN:
+                    return ((io.ballerina.messaging.broker.common.data.types.Boolean) value.getValue()).getBoolean();
                 case SHORT_SHORT_INT:
                     return ((ShortShortInt) value.getValue()).getByte();
+                case SHORT_INT:
+                    return ((ShortInt) value.getValue()).getShort();
                 case SHORT_STRING:
                 case LONG_STRING:
                     return value.getValue().toString();
@@ -69,31 +90,107 @@ public class JmsPropertyExpression implements Expression<Metadata> {
     }
 
     static {
-        JMS_PROPERTY_EXPRESSIONS.put("JMSDestination", metadata -> null);
-        JMS_PROPERTY_EXPRESSIONS.put("JMSCorrelationID",
-                metadata -> getValue(metadata.getProperty(Metadata.CORRELATION_ID)));
-        JMS_PROPERTY_EXPRESSIONS.put("JMSMessageID", metadata -> getValue(metadata.getProperty(Metadata.MESSAGE_ID)));
+        JMS_PROPERTY_KEYS.put("JMSDestination", null);
+        JMS_PROPERTY_KEYS.put("JMSCorrelationID", Metadata.CORRELATION_ID);
+        JMS_PROPERTY_KEYS.put("JMSMessageID", Metadata.MESSAGE_ID);
+        JMS_PROPERTY_KEYS.put("JMSPriority", Metadata.PRIORITY);
+        JMS_PROPERTY_KEYS.put("JMSTimestamp", ShortString.parseString("timestamp"));
+        JMS_PROPERTY_KEYS.put("JMSType", ShortString.parseString("type"));
     }
 
-    @Override
-    public Object evaluate(Metadata metadata) {
-        if (jmsPropertyExpression != null) {
-            return jmsPropertyExpression.evaluate(metadata);
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the raw value of the property or header without converting it to a Java type.
+     *
+     * @param metadata metadata of the message
+     * @return field value or null if the message does not have a value of a type usable in selectors
+     */
+    FieldValue getFieldValue(Metadata metadata) {
+        FieldValue value;
+        if (Objects.nonNull(headerKey)) {
+            value = metadata.getHeader(headerKey);
+        } else if (Objects.nonNull(propertyKey)) {
+            value = metadata.getProperty(propertyKey);
         } else {
-            FieldValue header = metadata.getHeader(ShortString.parseString(name));
-            if (header == null) {
+            return null;
+        }
+
+        // Nested field tables cannot be referred to in selectors
+        if (value == null || value.getType() == FieldValue.Type.FIELD_TABLE) {
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Get the value of the property as a key of a selector index. Strings of any encoding are returned as
+     * {@link String} and integers of any width as {@link Long}, matching how equality expressions compare them.
+     *
+     * @param metadata metadata of the message
+     * @return index key or null if the message does not have a value of an indexable type
+     */
+    public Object getIndexKey(Metadata metadata) {
+        return getIndexKey(getFieldValue(metadata));
+    }
+
+    static Object getIndexKey(FieldValue value) {
+        if (value == null) {
+            return null;
+        }
+
+        switch (value.getType()) {
+            case LONG_STRING:
+            case SHORT_STRING:
+                return value.getValue().toString();
+            case LONG_INT:
+            case LONG_LONG_INT:
+            case SHORT_SHORT_INT:
+            case SHORT_INT:
+                return getLong(value);
+            default:
                 return null;
-            }
-            switch (header.getType()) {
-                case LONG_STRING:
-                case SHORT_STRING:
-                    return header.getValue().toString();
-                case LONG_INT:
-                    return ((LongInt) header.getValue()).getInt();
-                default:
-                    return null;
-                // TODO handle other data types
-            }
         }
     }
+
+    /**
+     * Check whether a value is an integer of any width. Integers are compared as primitive values by compiled
+     * expressions.
+     *
+     * @param value field value
+     * @return true if {@link #getLong(FieldValue)} can read the value
+     */
+    static boolean isInteger(FieldValue value) {
+        switch (value.getType()) {
+            case LONG_INT:
+            case LONG_LONG_INT:
+            case SHORT_SHORT_INT:
+            case SHORT_INT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    static long getLong(FieldValue value) {
+        switch (value.getType()) {
+            case LONG_INT:
+                return ((LongInt) value.getValue()).getInt();
+            case LONG_LONG_INT:
+                return ((LongLongInt) value.getValue()).getLong();
+            case SHORT_SHORT_INT:
+                return ((ShortShortInt) value.getValue()).getByte();
+            case SHORT_INT:
+                return ((ShortInt) value.getValue()).getShort();
+            default:
+                throw new IllegalArgumentException("Not an integer value " + value);
+        }
+    }
+
+    @Override
+    public Object evaluate(Metadata metadata) {
+        return getValue(getFieldValue(metadata));
+    }
 }
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.Metadata;
+
+import java.util.regex.Pattern;
+
+/**
+ * Boolean expression matching a string property against a pattern. In the pattern {@code _} matches any single
+ * character and {@code %} matches any sequence of characters. The pattern is compiled once when the expression is
+ * created. Patterns which only have {@code %} at the start or the end, such as {@code 'eu-%'}, are matched with
+ * plain string operations. Other patterns are compiled to a regular expression.
+ */
+public class LikeExpression implements BooleanExpression {
+
+    private static final char ANY_CHARACTER = '_';
+
+    private static final char ANY_SEQUENCE = '%';
+
+    /**
+     * Ways of matching a compiled pattern.
+     */
+    private enum MatchType {
+        EQUALS,
+        STARTS_WITH,
+        ENDS_WITH,
+        CONTAINS,
+        REGEX
+    }
+
+    private final JmsPropertyExpression property;
+
+    private final MatchType matchType;
+
+    /**
+     * Pattern without the leading and trailing wildcards. Used unless the match type is {@link MatchType#REGEX}.
+     */
+    private final String literal;
+
+    private final Pattern regex;
+
+    /**
+     * Create the expression.
+     *
+     * @param property property to match
+     * @param pattern  like pattern
+     * @param escape   character escaping the wildcards in the pattern, or null if there is no escape character
+     */
+    public LikeExpression(JmsPropertyExpression property, String pattern, Character escape) {
+        this.property = property;
+
+        StringBuilder regexBuilder = new StringBuilder();
+        StringBuilder literalBuilder = new StringBuilder();
+        StringBuilder literalRun = new StringBuilder();
+        boolean leadingWildcard = false;
+        boolean trailingWildcard = false;
+        boolean simple = true;
+        for (int i = 0; i < pattern.length(); i++) {
+            char character = pattern.charAt(i);
+            if (escape != null && character == escape) {
+                i++;
+                if (i == pattern.length()) {
+                    throw new IllegalArgumentException("Escape character at the end of the pattern " + pattern);
+                }
+                character = pattern.charAt(i);
+            } else if (character == ANY_SEQUENCE || character == ANY_CHARACTER) {
+                if (literalRun.length() > 0) {
+                    regexBuilder.append(Pattern.quote(literalRun.toString()));
+                    literalRun.setLength(0);
+                }
+
+                if (character == ANY_CHARACTER) {
+                    regexBuilder.append('.');
+                    simple = false;
+                } else {
+                    regexBuilder.append(".*");
+                    if (literalBuilder.length() == 0) {
+                        leadingWildcard = true;
+                    } else {
+                        trailingWildcard = true;
+                    }
+                }
+                continue;
+            }
+
+            // A literal character after a wildcard which follows the literal prefix
+            if (trailingWildcard) {
+                simple = false;
+            }
+            literalRun.append(character);
+            literalBuilder.append(character);
+        }
+        if (literalRun.length() > 0) {
+            regexBuilder.append(Pattern.quote(literalRun.toString()));
+        }
+
+        if (!simple) {
+            matchType = MatchType.REGEX;
+            literal = null;
+            regex = Pattern.compile(regexBuilder.toString(), Pattern.DOTALL);
+        } else {
+            literal = literalBuilder.toString();
+            regex = null;
+            if (leadingWildcard && trailingWildcard) {
+                matchType = MatchType.CONTAINS;
+            } else if (leadingWildcard) {
+                matchType = MatchType.ENDS_WITH;
+            } else if (trailingWildcard) {
+                matchType = MatchType.STARTS_WITH;
+            } else {
+                matchType = MatchType.EQUALS;
+            }
+        }
+    }
+
+    @Override
+    public boolean evaluate(Metadata metadata) {
+        FieldValue value = property.getFieldValue(metadata);
+        return isString(value) && matches(value);
+    }
+
+    /**
+     * A missing or non string value makes the expression UNKNOWN, hence neither TRUE nor FALSE.
+     */
+    @Override
+    public boolean isFalse(Metadata metadata) {
+        FieldValue value = property.getFieldValue(metadata);
+        return isString(value) && !matches(value);
+    }
+
+    private static boolean isString(FieldValue value) {
+        return value != null
+                && (value.getType() == FieldValue.Type.LONG_STRING || value.getType() == FieldValue.Type.SHORT_STRING);
+    }
+
+    private boolean matches(FieldValue value) {
+        String string = value.getValue().toString();
+        switch (matchType) {
+            case EQUALS:
+                return string.equals(literal);
+            case STARTS_WITH:
+                return string.startsWith(literal);
+            case ENDS_WITH:
+                return string.endsWith(literal);
+            case CONTAINS:
+                return string.contains(literal);
+            default:
+                return regex.matcher(string).matches();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.LongString;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.Metadata;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Compiled comparison of a message property with a string constant. The constant is encoded as AMQP short and long
+ * strings up front and compared with the raw property value, hence no string is decoded per message.
+ */
+final class StringEqualityExpression implements IndexableExpression {
+
+    private static final int MAX_SHORT_STRING_LENGTH = 255;
+
+    private final JmsPropertyExpression property;
+
+    private final String value;
+
+    private final LongString longStringValue;
+
+    /**
+     * Null if the constant is too long to be encoded as a short string.
+     */
+    private final ShortString shortStringValue;
+
+    StringEqualityExpression(JmsPropertyExpression property, String value) {
+        this.property = property;
+        this.value = value;
+        this.longStringValue = LongString.parseString(value);
+        if (value.getBytes(StandardCharsets.UTF_8).length <= MAX_SHORT_STRING_LENGTH) {
+            this.shortStringValue = ShortString.parseString(value);
+        } else {
+            this.shortStringValue = null;
+        }
+    }
+
+    @Override
+    public JmsPropertyExpression getProperty() {
+        return property;
+    }
+
+    @Override
+    public Collection<Object> getIndexKeys() {
+        return Collections.singletonList(value);
+    }
+
+    @Override
+    public boolean evaluate(Metadata metadata) {
+        FieldValue value = property.getFieldValue(metadata);
+        return value != null && matches(value);
+    }
+
+    @Override
+    public boolean isFalse(Metadata metadata) {
+        FieldValue value = property.getFieldValue(metadata);
+        return value != null && !matches(value);
+    }
+
+    private boolean matches(FieldValue value) {
+        switch (value.getType()) {
+            case LONG_STRING:
+                return longStringValue.equals(value.getValue());
+            case SHORT_STRING:
+                return shortStringValue != null && shortStringValue.equals(value.getValue());
+            default:
+                return false;
+        }
+    }
+}
@@ -20,21 +20,32 @@
 package io.ballerina.messaging.broker.core.store;
 
 import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.TimeoutHandler;
 import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import io.ballerina.messaging.broker.core.store.disruptor.SleepingBlockingWaitStrategy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 /**
- * This class initiates database operations through disruptor.
+ * This class initiates database write operations through disruptor. Message data reads are handled separately by
+ * {@link DbReadHandler} so that they do not wait behind writes.
+ * <p>
+ * Several handlers can share the ring, each owning the operations of the message ids in its partition. All operations
+ * of a message are therefore written in order by the same handler while different handlers write in parallel.
+ * <p>
+ * Operations are group committed. A batch is committed once it reaches the target batch size, or once its oldest
+ * operation has waited for the maximum batch wait. The target doubles whenever it is reached while more operations
+ * are already waiting in the ring, and halves whenever a batch is committed because it waited too long. Therefore
+ * batches grow under load and operations are committed without waiting when traffic is light. Without a maximum
+ * batch wait, a batch is committed at the end of each disruptor batch. The wait of the writer thread for new
+ * operations times out only while a batch is waiting to be committed.
+ * <p>
+ * Inserted messages are removed from the {@link PendingMessageWrites} once committed so that data reads held back
+ * for them are submitted.
  */
-public class DbAccessHandler implements EventHandler<DbOperation> {
+public class DbAccessHandler implements EventHandler<DbOperation>, TimeoutHandler {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DbAccessHandler.class);
 
@@ -42,20 +53,84 @@ public class DbAccessHandler implements EventHandler<DbOperation> {
 
     private final int maxBatchSize;
 
-    private final Map<Long, List<Message>> readList;
+    private final long maxBatchWaitNanos;
+
+    private final long ordinal;
+
+    private final long writerCount;
+
+    private final PendingMessageWrites pendingWrites;
+
+    private final SleepingBlockingWaitStrategy waitStrategy;
+
+    private final BrokerMetricManager metricManager;
 
     private final TransactionData transactionData;
 
-    public DbAccessHandler(MessageDao messageDao, int maxBatchSize) {
+    private int targetBatchSize = 1;
+
+    /**
+     * Publish time of the oldest operation in the current batch.
+     */
+    private long batchStartTime;
+
+    /**
+     * Whether a wait deadline is set for the current batch.
+     */
+    private boolean waitDeadlineSet;
+
+    public DbAccessHandler(MessageDao messageDao, int maxBatchSize, long maxBatchWaitNanos, int ordinal,
+                           int writerCount, PendingMessageWrites pendingWrites,
+                           SleepingBlockingWaitStrategy waitStrategy, BrokerMetricManager metricManager) {
         this.messageDao = messageDao;
         this.maxBatchSize = maxBatchSize;
-        readList = new HashMap<>(maxBatchSize);
+        this.maxBatchWaitNanos = maxBatchWaitNanos;
+        this.ordinal = ordinal;
+        this.writerCount = writerCount;
+        this.pendingWrites = pendingWrites;
+        this.waitStrategy = waitStrategy;
+        this.metricManager = metricManager;
         transactionData = new TransactionData();
     }
 
     @Override
     public void onEvent(DbOperation event, long sequence, boolean endOfBatch) throws Exception {
+        if (Math.floorMod(event.getPartitionKey(), writerCount) == ordinal) {
+            addToBatch(event, sequence);
+        }
+
+        if (transactionData.isEmpty()) {
+            return;
+        }
+
+        int batchSize = transactionData.size();
+        if (maxBatchWaitNanos == 0) {
+            if (endOfBatch || batchSize >= maxBatchSize) {
+                commit();
+            }
+        } else if (batchSize >= targetBatchSize) {
+            if (!endOfBatch) {
+                targetBatchSize = Math.min(targetBatchSize * 2, maxBatchSize);
+            }
+            commit();
+        } else if (isWaitExpired()) {
+            targetBatchSize = Math.max(targetBatchSize / 2, 1);
+            commit();
+        } else if (!waitDeadlineSet) {
+            waitStrategy.setWaitDeadline(batchStartTime + maxBatchWaitNanos);
+            waitDeadlineSet = true;
+        }
+    }
 
+    @Override
+    public void onTimeout(long sequence) throws Exception {
+        if (!transactionData.isEmpty() && isWaitExpired()) {
+            targetBatchSize = Math.max(targetBatchSize / 2, 1);
+            commit();
+        }
+    }
+
+    private void addToBatch(DbOperation event, long sequence) {
         // Wait until the event is available for DB writer
         while (!event.acquireForPersisting()) {
             LOGGER.debug("Waiting to acquire event to persist. Sequence {}", sequence);
@@ -65,21 +140,25 @@ public class DbAccessHandler implements EventHandler<DbOperation> {
             LOGGER.debug("{} event added for id {} for sequence {}", event.getType(), event.getMessageId(), sequence);
         }
 
+        if (event.getType() != DbOperation.DbOpType.NO_OP && transactionData.isEmpty()) {
+            batchStartTime = event.getPublishTime();
+        }
+
         switch (event.getType()) {
             case INSERT_MESSAGE:
-                transactionData.addEnqueueMessage(event.getMessage());
+                metricManager.recordStoreWriteWait(System.nanoTime() - event.getPublishTime());
+                // The batch may outlive the event when it is held for group commit
+                transactionData.addEnqueueMessage(event.takeMessage());
                 break;
             case DELETE_MESSAGE:
+                metricManager.recordStoreWriteWait(System.nanoTime() - event.getPublishTime());
                 transactionData.addDeletableMessage(event.getMessageId());
                 break;
             case DETACH_MSG_FROM_QUEUE:
+                metricManager.recordStoreWriteWait(System.nanoTime() - event.getPublishTime());
                 transactionData.detach(event.getQueueName(), event.getMessageId());
                 break;
             case READ_MSG_DATA:
-                List<Message> messages = readList.computeIfAbsent(event.getBareMessage().getInternalId(),
-                        messageId -> new ArrayList<>());
-                messages.add(event.getBareMessage());
-                break;
             case NO_OP:
                 break;
             default:
@@ -87,23 +166,32 @@ public class DbAccessHandler implements EventHandler<DbOperation> {
                     LOGGER.error("Unknown event type " + event.getType());
                 }
         }
+    }
 
-        if (isBatchReady(endOfBatch, transactionData)) {
-            messageDao.persist(transactionData);
-            transactionData.clear();
-        }
-
-        if (isBatchReady(endOfBatch, readList.values())) {
-            messageDao.read(readList);
-            readList.clear();
-        }
+    private boolean isWaitExpired() {
+        return System.nanoTime() - batchStartTime >= maxBatchWaitNanos;
     }
 
-    private boolean isBatchReady(boolean endOfBatch, Collection collection) {
-        return !collection.isEmpty() && (collection.size() >= maxBatchSize || endOfBatch);
+    private void commit() throws Exception {
+        metricManager.recordStoreWriteBatchSize(transactionData.size());
+        messageDao.persist(transactionData);
+        metricManager.recordStoreCommitLatency(System.nanoTime() - batchStartTime);
+        // Reads held back for the inserted messages can find them now
+        for (Message message : transactionData.getEnqueueMessages()) {
+            pendingWrites.complete(message.getInternalId());
+        }
+        transactionData.releaseEnqueueMessages();
+        transactionData.clear();
+        if (waitDeadlineSet) {
+            waitStrategy.clearWaitDeadline();
+            waitDeadlineSet = false;
+        }
     }
 
-    private boolean isBatchReady(boolean endOfBatch, TransactionData transactionData) {
-        return !transactionData.isEmpty() && (transactionData.size() >= maxBatchSize || endOfBatch);
+    /**
+     * Getter for targetBatchSize.
+     */
+    int getTargetBatchSize() {
+        return targetBatchSize;
     }
 }
@@ -19,15 +19,21 @@
 
 package io.ballerina.messaging.broker.core.store;
 
+import io.ballerina.messaging.broker.core.Broker;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.DbBackedQueueHandlerFactory;
 import io.ballerina.messaging.broker.core.ExchangeRegistry;
 import io.ballerina.messaging.broker.core.QueueRegistry;
 import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
 import io.ballerina.messaging.broker.core.store.dao.impl.DaoFactory;
 import io.ballerina.messaging.broker.core.trace.BrokerTracingManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 
 /**
@@ -35,6 +41,8 @@ import javax.sql.DataSource;
  */
 public class DbBackedStoreFactory implements StoreFactory {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DbBackedStoreFactory.class);
+
     private final DaoFactory daoFactory;
     private final BrokerMetricManager metricManager;
     private final BrokerCoreConfiguration configuration;
@@ -46,16 +54,55 @@ public class DbBackedStoreFactory implements StoreFactory {
                                 BrokerMetricManager metricManager,
                                 BrokerCoreConfiguration configuration,
                                 BrokerTracingManager tracingManager) {
+        this(dataSource, metricManager, configuration, tracingManager, false);
+    }
+
+    /**
+     * Create a factory of database backed objects.
+     *
+     * @param haEnabled true if another node might take over the database, in which case the queue index checkpoint
+     *                  is not used since the other node does not update it
+     */
+    public DbBackedStoreFactory(DataSource dataSource,
+                                BrokerMetricManager metricManager,
+                                BrokerCoreConfiguration configuration,
+                                BrokerTracingManager tracingManager,
+                                boolean haEnabled) {
         daoFactory = new DaoFactory(dataSource, metricManager);
         this.metricManager = metricManager;
         this.configuration = configuration;
-        dbMessageStore = new DbMessageStore(daoFactory.createMessageDao(), 32768, 1024);
+        BrokerCoreConfiguration.MessageStorage storageConfiguration = configuration.getMessageStorage();
+        BrokerCoreConfiguration.Checkpoint checkpointConfiguration = storageConfiguration.getCheckpoint();
+        int recoveryCacheSize = Integer.parseInt(storageConfiguration.getRecoveryCacheSize());
+        MessageDao messageDao;
+        if (checkpointConfiguration.isEnabled() && !haEnabled) {
+            messageDao = daoFactory.createCheckpointedMessageDao(
+                    recoveryCacheSize,
+                    Paths.get(checkpointConfiguration.getDirectory()),
+                    Long.parseLong(checkpointConfiguration.getInterval()),
+                    Integer.parseInt(storageConfiguration.getRecoveryPageSize()),
+                    Broker.MESSAGE_ID_GENERATOR::getNextId);
+        } else {
+            if (checkpointConfiguration.isEnabled()) {
+                LOGGER.warn("Queue index checkpoint is not used since HA is enabled");
+            }
+            messageDao = daoFactory.createMessageDao(recoveryCacheSize);
+        }
+        dbMessageStore = new DbMessageStore(messageDao, 32768,
+                                            Integer.parseInt(storageConfiguration.getMaxWriteBatchSize()),
+                                            TimeUnit.MICROSECONDS.toNanos(
+                                                    Long.parseLong(storageConfiguration.getMaxWriteBatchWait())),
+                                            Integer.parseInt(storageConfiguration.getWriterCount()),
+                                            Integer.parseInt(storageConfiguration.getReadBufferSize()),
+                                            Integer.parseInt(storageConfiguration.getReaderCount()),
+                                            metricManager);
         this.tracingManager = tracingManager;
     }
 
     @Override
     public ExchangeRegistry getExchangeRegistry() {
-        return new ExchangeRegistry(daoFactory.createExchangeDao(), daoFactory.createBindingDao());
+        return new ExchangeRegistry(daoFactory.createExchangeDao(), daoFactory.createBindingDao(), metricManager,
+                                    configuration);
     }
 
     @Override
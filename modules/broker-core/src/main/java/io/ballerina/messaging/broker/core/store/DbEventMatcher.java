@@ -45,11 +45,14 @@ public class DbEventMatcher implements EventHandler<DbOperation> {
 
     private final Queue<Long> eventQueue;
 
-    public DbEventMatcher(int ringBufferSize) {
+    private final PendingMessageWrites pendingWrites;
+
+    public DbEventMatcher(int ringBufferSize, PendingMessageWrites pendingWrites) {
         insertMap = new HashMap<>();
         detachMap = new HashMap<>();
         this.maxBatchSize = ringBufferSize;
         eventQueue = new ArrayDeque<>(ringBufferSize);
+        this.pendingWrites = pendingWrites;
     }
 
     @Override
@@ -119,6 +122,8 @@ public class DbEventMatcher implements EventHandler<DbOperation> {
 
                 event.clear();
                 insertRequest.completeProcessing();
+                // The insert is never committed
+                pendingWrites.complete(internalId);
                 LOGGER.debug("Matching insert event found and cleared "
                         + "for message id {} for sequence {}", internalId, sequence);
             }
@@ -22,17 +22,22 @@ package io.ballerina.messaging.broker.core.store;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.lmax.disruptor.EventTranslatorOneArg;
 import com.lmax.disruptor.EventTranslatorTwoArg;
+import com.lmax.disruptor.TimeoutException;
 import com.lmax.disruptor.dsl.Disruptor;
 import com.lmax.disruptor.dsl.ProducerType;
 import io.ballerina.messaging.broker.common.DaoException;
 import io.ballerina.messaging.broker.core.BrokerException;
 import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import io.ballerina.messaging.broker.core.queue.QueueBuffer;
 import io.ballerina.messaging.broker.core.store.dao.MessageDao;
 import io.ballerina.messaging.broker.core.store.disruptor.SleepingBlockingWaitStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.transaction.xa.Xid;
@@ -40,13 +45,25 @@ import javax.transaction.xa.Xid;
 /**
  * Message store class that is used by all the durable queues to persist messages.
  * <p>
+ * Writes and message data reads go through separate disruptors so that filling messages for consumers does not wait
+ * behind a backlog of writes.
+ * <p>
  * Note: This class is thread safe
  */
 @ThreadSafe
 public class DbMessageStore extends MessageStore {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DbMessageStore.class);
+
+    /**
+     * Time given to the writers to store the pending operations when the store is closed.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
     private final Disruptor<DbOperation> disruptor;
 
+    private final Disruptor<DbOperation> readDisruptor;
+
     private static final EventTranslatorOneArg<DbOperation, Message> INSERT_MESSAGE =
             (event, sequence, message) -> event.insertMessage(message);
 
@@ -61,24 +78,83 @@ public class DbMessageStore extends MessageStore {
 
     private final MessageDao messageDao;
 
+    private final PendingMessageWrites pendingWrites;
+
+    /**
+     * Create a message store.
+     *
+     * @param messageDao     dao used to access the stored messages
+     * @param bufferSize     ring buffer size of the write disruptor
+     * @param maxDbBatchSize maximum number of operations in a single database call
+     * @param maxBatchWait   maximum time in nanoseconds a write may wait for its batch to fill up. 0 commits writes at
+     *                       the end of each disruptor batch
+     * @param writerCount    number of threads writing to the database in parallel
+     * @param readBufferSize ring buffer size of the read disruptor
+     * @param readerCount    number of threads reading message data, which bounds the database connections used
+     *                       for reads
+     * @param metricManager  metric manager used to report pending operations and wait times
+     */
     @SuppressWarnings("unchecked")
-    DbMessageStore(MessageDao messageDao, int bufferSize, int maxDbBatchSize) {
+    DbMessageStore(MessageDao messageDao, int bufferSize, int maxDbBatchSize, long maxBatchWait, int writerCount,
+                   int readBufferSize, int readerCount, BrokerMetricManager metricManager) {
+        pendingWrites = new PendingMessageWrites(this::publishRead);
         ThreadFactory namedThreadFactory = new ThreadFactoryBuilder()
                 .setNameFormat("DisruptorMessageStoreThread-%d").build();
 
+        // Writers wake up without new writes only to commit a batch which waited long enough
+        SleepingBlockingWaitStrategy waitStrategy = new SleepingBlockingWaitStrategy();
         disruptor = new Disruptor<>(DbOperation.getFactory(),
-                                    bufferSize, namedThreadFactory, ProducerType.MULTI, new
-                                            SleepingBlockingWaitStrategy());
+                                    bufferSize, namedThreadFactory, ProducerType.MULTI, waitStrategy);
 
         disruptor.setDefaultExceptionHandler(new LogExceptionHandler());
 
-        disruptor.handleEventsWith(new DbEventMatcher(bufferSize))
-                 .then(new DbAccessHandler(messageDao, maxDbBatchSize))
+        DbAccessHandler[] accessHandlers = new DbAccessHandler[writerCount];
+        for (int i = 0; i < writerCount; i++) {
+            accessHandlers[i] = new DbAccessHandler(messageDao, maxDbBatchSize, maxBatchWait, i, writerCount,
+                                                    pendingWrites, waitStrategy, metricManager);
+        }
+        // Matching runs ahead of all writers so that cancellation works across partitions
+        disruptor.handleEventsWith(new DbEventMatcher(bufferSize, pendingWrites))
+                 .then(accessHandlers)
                  .then(new FinalEventHandler());
         disruptor.start();
+
+        ThreadFactory readThreadFactory = new ThreadFactoryBuilder()
+                .setNameFormat("DisruptorMessageStoreReadThread-%d").build();
+
+        readDisruptor = new Disruptor<>(DbOperation.getFactory(),
+                                        readBufferSize, readThreadFactory, ProducerType.MULTI, new
+                                                SleepingBlockingWaitStrategy());
+
+        readDisruptor.setDefaultExceptionHandler(new LogExceptionHandler());
+
+        DbReadHandler[] readHandlers = new DbReadHandler[readerCount];
+        for (int i = 0; i < readerCount; i++) {
+            readHandlers[i] = new DbReadHandler(messageDao, maxDbBatchSize, i, readerCount, pendingWrites,
+                                               metricManager);
+        }
+        readDisruptor.handleEventsWith(readHandlers);
+        readDisruptor.start();
+
+        metricManager.registerStoreWriteRingOccupancyGauge(
+                () -> bufferSize - disruptor.getRingBuffer().remainingCapacity());
+        metricManager.registerStoreReadRingOccupancyGauge(
+                () -> readBufferSize - readDisruptor.getRingBuffer().remainingCapacity());
         this.messageDao = messageDao;
     }
 
+    @Override
+    public void add(Message message) {
+        pendingWrites.add(message.getInternalId());
+        super.add(message);
+    }
+
+    @Override
+    void discardMessage(Message message) {
+        pendingWrites.complete(message.getInternalId());
+        super.discardMessage(message);
+    }
+
     @Override
     void publishMessageToStore(Message message) {
         disruptor.publishEvent(INSERT_MESSAGE, message);
@@ -121,9 +197,32 @@ public class DbMessageStore extends MessageStore {
         }
     }
 
+    @Override
+    public void close() {
+        try {
+            disruptor.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Pending message store operations were not written within {} seconds",
+                        SHUTDOWN_TIMEOUT_SECONDS);
+            disruptor.halt();
+        }
+        readDisruptor.halt();
+        try {
+            messageDao.close();
+        } catch (DaoException e) {
+            LOGGER.error("Error closing the message store", e);
+        }
+    }
+
     @Override
     public void fillMessageData(QueueBuffer queueBuffer, Message message) {
-        disruptor.publishEvent(READ_MESSAGE_DATA, queueBuffer, message);
+        if (!pendingWrites.deferRead(queueBuffer, message)) {
+            publishRead(queueBuffer, message);
+        }
+    }
+
+    private void publishRead(QueueBuffer queueBuffer, Message message) {
+        readDisruptor.publishEvent(READ_MESSAGE_DATA, queueBuffer, message);
     }
 
     @Override
@@ -135,6 +234,25 @@ public class DbMessageStore extends MessageStore {
         }
     }
 
+    @Override
+    public StoredMessageRange getStoredMessageRange(String queueName) throws BrokerException {
+        try {
+            return messageDao.getStoredMessageRange(queueName);
+        } catch (DaoException e) {
+            throw new BrokerException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Collection<Message> readMessagesForQueue(String queueName, long afterMessageId, long lastMessageId,
+                                                    int pageSize) throws BrokerException {
+        try {
+            return messageDao.readPage(queueName, afterMessageId, lastMessageId, pageSize);
+        } catch (DaoException e) {
+            throw new BrokerException(e.getMessage(), e);
+        }
+    }
+
     @Override
     public void prepare(Xid xid, TransactionData transactionData) throws BrokerException {
         try {
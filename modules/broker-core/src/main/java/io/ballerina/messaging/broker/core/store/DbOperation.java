@@ -77,6 +77,17 @@ public class DbOperation {
 
     private Message bareMessage;
 
+    /**
+     * {@link System#nanoTime()} at which the operation was published to the ring.
+     */
+    private long publishTime;
+
+    /**
+     * Message id the operation was published for. Unlike the message id this is kept when the operation is canceled
+     * by the {@link DbEventMatcher} so that the operation is still owned by the same {@link DbAccessHandler}.
+     */
+    private long partitionKey;
+
     private DbOperation() {
         type = DbOpType.NO_OP;
         this.state = new AtomicInteger(AVAILABLE);
@@ -86,6 +97,8 @@ public class DbOperation {
         type = DbOpType.INSERT_MESSAGE;
         this.message = message;
         this.messageId = message.getInternalId();
+        partitionKey = messageId;
+        publishTime = System.nanoTime();
     }
 
     public boolean acquireToProcess() {
@@ -103,18 +116,23 @@ public class DbOperation {
     public void deleteMessage(long messageId) {
         type = DbOpType.DELETE_MESSAGE;
         this.messageId = messageId;
+        partitionKey = messageId;
+        publishTime = System.nanoTime();
     }
 
     public void detachFromQueue(String queueName, Long messageId) {
         type = DbOpType.DETACH_MSG_FROM_QUEUE;
         this.messageId = messageId;
         this.queueName = queueName;
+        partitionKey = messageId;
+        publishTime = System.nanoTime();
     }
 
     public void readMessageData(QueueBuffer queueBuffer, Message message) {
         type = DbOpType.READ_MSG_DATA;
         this.bareMessage = message;
         this.queueBuffer = queueBuffer;
+        publishTime = System.nanoTime();
     }
 
     /**
@@ -131,6 +149,20 @@ public class DbOperation {
         return queueBuffer;
     }
 
+    /**
+     * Getter for publishTime.
+     */
+    public long getPublishTime() {
+        return publishTime;
+    }
+
+    /**
+     * Getter for partitionKey.
+     */
+    public long getPartitionKey() {
+        return partitionKey;
+    }
+
     public DbOpType getType() {
         return type;
     }
@@ -147,6 +179,16 @@ public class DbOperation {
         return message;
     }
 
+    /**
+     * Take over the message of the operation. The message is no longer released when the operation is cleared and
+     * has to be released by the caller.
+     */
+    public Message takeMessage() {
+        Message takenMessage = message;
+        message = null;
+        return takenMessage;
+    }
+
     public void clear() {
         if (message != null) {
             message.release();
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import com.lmax.disruptor.EventHandler;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.QueueBuffer;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Reads message data for the read disruptor of {@link DbMessageStore}. Several handlers share the read ring, each
+ * taking the sequences matching its ordinal, so that each reader batches its own reads and holds at most one database
+ * connection at a time.
+ */
+public class DbReadHandler implements EventHandler<DbOperation> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DbReadHandler.class);
+
+    private final MessageDao messageDao;
+
+    private final int maxBatchSize;
+
+    private final long ordinal;
+
+    private final long handlerCount;
+
+    private final BrokerMetricManager metricManager;
+
+    private final Map<Long, List<Message>> readList;
+
+    private final List<QueueBuffer> fillBuffers;
+
+    private final List<Message> fillMessages;
+
+    private final PendingMessageWrites pendingWrites;
+
+    /**
+     * Messages which were not found by a read, to be read again before they are removed from their queues.
+     */
+    private final Map<Long, List<Message>> missingList;
+
+    private final List<QueueBuffer> missingBuffers;
+
+    private final List<Message> missingMessages;
+
+    public DbReadHandler(MessageDao messageDao, int maxBatchSize, int ordinal, int handlerCount,
+                         PendingMessageWrites pendingWrites, BrokerMetricManager metricManager) {
+        this.messageDao = messageDao;
+        this.pendingWrites = pendingWrites;
+        this.maxBatchSize = maxBatchSize;
+        this.ordinal = ordinal;
+        this.handlerCount = handlerCount;
+        this.metricManager = metricManager;
+        readList = new HashMap<>(maxBatchSize);
+        fillBuffers = new ArrayList<>(maxBatchSize);
+        fillMessages = new ArrayList<>(maxBatchSize);
+        missingList = new HashMap<>();
+        missingBuffers = new ArrayList<>();
+        missingMessages = new ArrayList<>();
+    }
+
+    @Override
+    public void onEvent(DbOperation event, long sequence, boolean endOfBatch) throws Exception {
+        if (sequence % handlerCount == ordinal && event.getType() == DbOperation.DbOpType.READ_MSG_DATA) {
+            metricManager.recordStoreReadWait(System.nanoTime() - event.getPublishTime());
+            Message message = event.getBareMessage();
+            readList.computeIfAbsent(message.getInternalId(), messageId -> new ArrayList<>()).add(message);
+            fillBuffers.add(event.getQueueBuffer());
+            fillMessages.add(message);
+            event.clear();
+
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Read event added for id {} for sequence {}", message.getInternalId(), sequence);
+            }
+        }
+
+        if (!fillMessages.isEmpty() && (fillMessages.size() >= maxBatchSize || endOfBatch)) {
+            try {
+                messageDao.read(readList);
+                for (int i = 0; i < fillMessages.size(); i++) {
+                    fill(fillBuffers.get(i), fillMessages.get(i));
+                }
+                if (!missingMessages.isEmpty()) {
+                    readMissingMessages();
+                }
+            } finally {
+                readList.clear();
+                fillBuffers.clear();
+                fillMessages.clear();
+                missingList.clear();
+                missingBuffers.clear();
+                missingMessages.clear();
+            }
+        }
+    }
+
+    private void fill(QueueBuffer queueBuffer, Message message) {
+        if (Objects.nonNull(message.getMetadata())) {
+            queueBuffer.markMessageFilled(message);
+        } else if (!pendingWrites.deferRead(queueBuffer, message)) {
+            // The insert may have been committed after the read. Otherwise the message is no longer stored
+            missingList.computeIfAbsent(message.getInternalId(), messageId -> new ArrayList<>()).add(message);
+            missingBuffers.add(queueBuffer);
+            missingMessages.add(message);
+        }
+    }
+
+    /**
+     * Read the messages which were not found once more. Only the messages which are still not found are removed from
+     * their queues, which happens when a queue is recovered from a checkpoint which missed a deletion.
+     */
+    private void readMissingMessages() throws Exception {
+        messageDao.read(missingList);
+        for (int i = 0; i < missingMessages.size(); i++) {
+            Message message = missingMessages.get(i);
+            if (Objects.nonNull(message.getMetadata())) {
+                missingBuffers.get(i).markMessageFilled(message);
+            } else {
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Removing message {} from its queue since it is no longer stored",
+                                 message.getInternalId());
+                }
+                missingBuffers.get(i).remove(message);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.common.DaoException;
+import io.ballerina.messaging.broker.core.BrokerException;
+import io.ballerina.messaging.broker.core.DbBackedQueueHandlerFactory;
+import io.ballerina.messaging.broker.core.ExchangeRegistry;
+import io.ballerina.messaging.broker.core.QueueRegistry;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.dao.impl.DaoFactory;
+import io.ballerina.messaging.broker.core.store.file.SegmentedMessageLog;
+import io.ballerina.messaging.broker.core.trace.BrokerTracingManager;
+
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+
+/**
+ * Factory class for store backed objects keeping messages in segment files. Queues, exchanges and bindings are
+ * stored in the database.
+ */
+public class FileBackedStoreFactory implements StoreFactory {
+
+    private final DaoFactory daoFactory;
+    private final BrokerMetricManager metricManager;
+    private final BrokerCoreConfiguration configuration;
+    private final BrokerTracingManager tracingManager;
+
+    private DbMessageStore messageStore;
+
+    public FileBackedStoreFactory(DataSource dataSource,
+                                  BrokerMetricManager metricManager,
+                                  BrokerCoreConfiguration configuration,
+                                  BrokerTracingManager tracingManager) throws BrokerException {
+        daoFactory = new DaoFactory(dataSource, metricManager);
+        this.metricManager = metricManager;
+        this.configuration = configuration;
+        this.tracingManager = tracingManager;
+
+        BrokerCoreConfiguration.MessageStorage storageConfiguration = configuration.getMessageStorage();
+        BrokerCoreConfiguration.FileStorage fileConfiguration = storageConfiguration.getFile();
+        try {
+            SegmentedMessageLog messageLog = new SegmentedMessageLog(
+                    Paths.get(fileConfiguration.getDirectory()),
+                    Long.parseLong(fileConfiguration.getSegmentSize()),
+                    Double.parseDouble(fileConfiguration.getCompactionThreshold()),
+                    Long.parseLong(fileConfiguration.getCompactionInterval()),
+                    metricManager);
+            // Batches handed over by the store are synced to the segment files with a single force
+            messageStore = new DbMessageStore(messageLog, 32768,
+                                              Integer.parseInt(storageConfiguration.getMaxWriteBatchSize()),
+                                              TimeUnit.MICROSECONDS.toNanos(
+                                                      Long.parseLong(storageConfiguration.getMaxWriteBatchWait())),
+                                              Integer.parseInt(storageConfiguration.getWriterCount()),
+                                              Integer.parseInt(storageConfiguration.getReadBufferSize()),
+                                              Integer.parseInt(storageConfiguration.getReaderCount()),
+                                              metricManager);
+        } catch (DaoException e) {
+            throw new BrokerException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ExchangeRegistry getExchangeRegistry() {
+        return new ExchangeRegistry(daoFactory.createExchangeDao(), daoFactory.createBindingDao(), metricManager,
+                                    configuration);
+    }
+
+    @Override
+    public MessageStore getMessageStore() {
+        return messageStore;
+    }
+
+    @Override
+    public QueueRegistry getQueueRegistry() throws BrokerException {
+        return new QueueRegistry(daoFactory.createQueueDao(),
+                                 new DbBackedQueueHandlerFactory(messageStore, metricManager,
+                                         configuration, tracingManager));
+    }
+}
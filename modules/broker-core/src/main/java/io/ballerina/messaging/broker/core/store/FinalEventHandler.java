@@ -35,8 +35,6 @@ public class FinalEventHandler implements EventHandler<DbOperation> {
         try {
             switch (event.getType()) {
                 case READ_MSG_DATA:
-                    event.getQueueBuffer().markMessageFilled(event.getBareMessage());
-                    break;
                 case INSERT_MESSAGE:
                 case DELETE_MESSAGE:
                 case DETACH_MSG_FROM_QUEUE:
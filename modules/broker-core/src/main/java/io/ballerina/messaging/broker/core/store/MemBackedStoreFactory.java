@@ -53,7 +53,7 @@ public class MemBackedStoreFactory implements StoreFactory {
 
     @Override
     public ExchangeRegistry getExchangeRegistry() {
-        return new ExchangeRegistry(new NullExchangeDao(), new NullBindingDao());
+        return new ExchangeRegistry(new NullExchangeDao(), new NullBindingDao(), metricManager, configuration);
     }
 
     @Override
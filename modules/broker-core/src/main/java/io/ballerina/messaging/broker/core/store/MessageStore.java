@@ -99,7 +99,7 @@ public abstract class MessageStore {
             if (message.hasAttachedDurableQueues()) {
                 publishMessageToStore(message);
             } else {
-                message.release();
+                discardMessage(message);
             }
         }
     }
@@ -149,8 +149,22 @@ public abstract class MessageStore {
         }
     }
 
+    /**
+     * Release the resources held by the store once the broker shuts down.
+     */
+    public void close() {
+        // Nothing to release for a store keeping messages in memory
+    }
+
     abstract void publishMessageToStore(Message message);
 
+    /**
+     * Release a message added to the store which is not persisted since it is not attached to a durable queue.
+     */
+    void discardMessage(Message message) {
+        message.release();
+    }
+
     abstract void detachFromQueue(String queueName, Message message);
 
     abstract void deleteMessage(long messageId);
@@ -165,6 +179,12 @@ public abstract class MessageStore {
 
     public abstract Collection<Message> readAllMessagesForQueue(String queueName) throws BrokerException;
 
+    public abstract StoredMessageRange getStoredMessageRange(String queueName) throws BrokerException;
+
+    public abstract Collection<Message> readMessagesForQueue(String queueName, long afterMessageId,
+                                                             long lastMessageId, int pageSize)
+            throws BrokerException;
+
     public abstract void prepare(Xid xid, TransactionData transactionData) throws BrokerException;
 
     public abstract void retrieveStoredXids(Consumer<Xid> consumer) throws BrokerException;
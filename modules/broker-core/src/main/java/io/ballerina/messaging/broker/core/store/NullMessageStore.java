@@ -73,6 +73,17 @@ public class NullMessageStore extends MessageStore {
         return Collections.emptyList();
     }
 
+    @Override
+    public StoredMessageRange getStoredMessageRange(String queueName) {
+        return new StoredMessageRange(0, 0);
+    }
+
+    @Override
+    public Collection<Message> readMessagesForQueue(String queueName, long afterMessageId, long lastMessageId,
+                                                    int pageSize) {
+        return Collections.emptyList();
+    }
+
     @Override
     public void prepare(Xid xid, TransactionData transactionData) {
         // Do nothing
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.queue.QueueBuffer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the messages added to the {@link DbMessageStore} whose insert is not yet committed to the database.
+ * <p>
+ * Message data reads go through a separate ring from the writes. A read of a message whose insert is still waiting
+ * in the write ring or in a group commit batch would not find the message. Such reads are held back and submitted
+ * again once the insert is committed or canceled.
+ */
+final class PendingMessageWrites {
+
+    private final Map<Long, List<DeferredRead>> pendingWrites = new ConcurrentHashMap<>();
+
+    private final QueueBuffer.MessageReader messageReader;
+
+    /**
+     * Create pending write tracker.
+     *
+     * @param messageReader reader used to submit the held back reads
+     */
+    PendingMessageWrites(QueueBuffer.MessageReader messageReader) {
+        this.messageReader = messageReader;
+    }
+
+    /**
+     * Mark the message as written to the store. Must be called before the message can be read.
+     */
+    void add(long messageId) {
+        pendingWrites.put(messageId, Collections.emptyList());
+    }
+
+    /**
+     * Hold back a read until the message write completes.
+     *
+     * @return true if the read is held back, false if the message is not being written and can be read
+     */
+    boolean deferRead(QueueBuffer queueBuffer, Message message) {
+        // Adding the read and completing the write are atomic for the same message id
+        List<DeferredRead> deferredReads = pendingWrites.computeIfPresent(message.getInternalId(), (id, reads) -> {
+            List<DeferredRead> updatedReads = reads.isEmpty() ? new ArrayList<>(1) : reads;
+            updatedReads.add(new DeferredRead(queueBuffer, message));
+            return updatedReads;
+        });
+        return Objects.nonNull(deferredReads);
+    }
+
+    boolean isPending(long messageId) {
+        return pendingWrites.containsKey(messageId);
+    }
+
+    /**
+     * Mark the message write as committed, or as canceled, and submit the reads held back for the message.
+     */
+    void complete(long messageId) {
+        List<DeferredRead> deferredReads = pendingWrites.remove(messageId);
+        if (Objects.nonNull(deferredReads)) {
+            for (DeferredRead deferredRead : deferredReads) {
+                messageReader.fill(deferredRead.queueBuffer, deferredRead.message);
+            }
+        }
+    }
+
+    int size() {
+        return pendingWrites.size();
+    }
+
+    /**
+     * Read of a message held back until the message is written.
+     */
+    private static final class DeferredRead {
+
+        private final QueueBuffer queueBuffer;
+
+        private final Message message;
+
+        private DeferredRead(QueueBuffer queueBuffer, Message message) {
+            this.queueBuffer = queueBuffer;
+            this.message = message;
+        }
+    }
+}
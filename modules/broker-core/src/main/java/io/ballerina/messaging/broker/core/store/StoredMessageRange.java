@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+/**
+ * Messages stored for a queue at a point in time. Used to page through the messages of a queue during recovery
+ * without picking up messages stored after recovery began.
+ */
+public final class StoredMessageRange {
+
+    private final long messageCount;
+
+    private final long lastMessageId;
+
+    /**
+     * Create a stored message range.
+     *
+     * @param messageCount  number of messages stored for the queue
+     * @param lastMessageId largest id of the messages stored for the queue
+     */
+    public StoredMessageRange(long messageCount, long lastMessageId) {
+        this.messageCount = messageCount;
+        this.lastMessageId = lastMessageId;
+    }
+
+    public long getMessageCount() {
+        return messageCount;
+    }
+
+    public long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    @Override
+    public String toString() {
+        return "StoredMessageRange{messageCount=" + messageCount + ", lastMessageId=" + lastMessageId + '}';
+    }
+}
@@ -21,6 +21,7 @@ package io.ballerina.messaging.broker.core.store.dao;
 
 import io.ballerina.messaging.broker.common.DaoException;
 import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
 import io.ballerina.messaging.broker.core.store.TransactionData;
 
 import java.util.Collection;
@@ -49,6 +50,24 @@ public interface MessageDao {
      */
     Collection<Message> readAll(String queueName) throws DaoException;
 
+    /**
+     * Retrieve the number of messages stored for a given queue and the largest id among them.
+     *
+     * @param queueName name of the queue.
+     */
+    StoredMessageRange getStoredMessageRange(String queueName) throws DaoException;
+
+    /**
+     * Retrieve a page of messages of a given queue in message id order.
+     *
+     * @param queueName      name of the queue.
+     * @param afterMessageId only messages with a larger id are retrieved
+     * @param lastMessageId  only messages with an id up to this id are retrieved
+     * @param pageSize       maximum number of messages to retrieve
+     */
+    Collection<Message> readPage(String queueName, long afterMessageId, long lastMessageId, int pageSize)
+            throws DaoException;
+
     /**
      * Read message data for given messages.
      *
@@ -96,4 +115,11 @@ public interface MessageDao {
      * @throws DaoException throws when the message retrieval fails due to an error.
      */
     Collection<Message> retrieveAllEnqueuedMessages(Xid xid) throws DaoException;
+
+    /**
+     * Release the resources held by the dao. Called once the message store stops writing.
+     *
+     * @throws DaoException throws when the resources cannot be released.
+     */
+    void close() throws DaoException;
 }
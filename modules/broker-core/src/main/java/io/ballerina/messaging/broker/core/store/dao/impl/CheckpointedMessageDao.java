@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.dao.impl;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.ballerina.messaging.broker.common.DaoException;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.store.QueueDetachEventList;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
+import io.ballerina.messaging.broker.core.store.TransactionData;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import javax.transaction.xa.Xid;
+
+/**
+ * Message DAO which keeps a {@link QueueIndexCheckpoint} of the stored messages on local disk. When the broker starts
+ * the queues recover their messages from an index built out of the checkpoint and the messages stored after it,
+ * instead of reading the queue mappings of all the messages from the database. A new checkpoint is written
+ * periodically in the background.
+ * <p>
+ * Resolving a prepared transaction branch recovered from the database changes queue mappings which were not
+ * journaled. The checkpoint is discarded in that case and the next checkpoint reads all the mappings from the
+ * database.
+ */
+final class CheckpointedMessageDao implements MessageDao {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointedMessageDao.class);
+
+    /**
+     * Maximum time to wait for a checkpoint being written when closing.
+     */
+    private static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    private final MessageDao messageDao;
+
+    private final MessageCrudOperationsDao crudOperationsDao;
+
+    private final QueueIndexCheckpoint checkpoint;
+
+    private final LongSupplier boundarySupplier;
+
+    private final int pageSize;
+
+    private final ScheduledExecutorService checkpointExecutor;
+
+    private final Map<Xid, PreparedBranch> preparedBranches = new ConcurrentHashMap<>();
+
+    private final Set<Xid> recoveredXids = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Index serving the recovery of the queues created when the broker starts. Null if the index could not be built.
+     */
+    private final QueueIndex recoveryIndex;
+
+    /**
+     * Create a message DAO and build the index of the stored messages.
+     *
+     * @param messageDao                DAO accessing the messages in the database
+     * @param crudOperationsDao         used to read the queue mappings from the database
+     * @param checkpoint                checkpoint of the stored messages
+     * @param boundarySupplier          supplies the boundary of each checkpoint, which should be smaller than the ids
+     *                                  of the messages created afterwards
+     * @param pageSize                  number of messages read from the database at a time
+     * @param checkpointIntervalSeconds interval between checkpoints
+     */
+    CheckpointedMessageDao(MessageDao messageDao, MessageCrudOperationsDao crudOperationsDao,
+                           QueueIndexCheckpoint checkpoint, LongSupplier boundarySupplier, int pageSize,
+                           long checkpointIntervalSeconds) {
+        this.messageDao = messageDao;
+        this.crudOperationsDao = crudOperationsDao;
+        this.checkpoint = checkpoint;
+        this.boundarySupplier = boundarySupplier;
+        this.pageSize = pageSize;
+        checkpointExecutor = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("QueueIndexCheckpointThread-%d").setDaemon(true).build());
+
+        QueueIndexCheckpoint.Snapshot snapshot = composeQuietly();
+        if (Objects.nonNull(snapshot)) {
+            recoveryIndex = new QueueIndex(snapshot.getQueueMessageIds());
+            checkpointExecutor.execute(() -> writeQuietly(snapshot));
+        } else {
+            recoveryIndex = null;
+        }
+        checkpointExecutor.scheduleWithFixedDelay(this::checkpointQuietly, checkpointIntervalSeconds,
+                                                  checkpointIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private QueueIndexCheckpoint.Snapshot composeQuietly() {
+        long startTime = System.nanoTime();
+        try {
+            QueueIndexCheckpoint.Snapshot snapshot = checkpoint.compose(this::readMappingPage,
+                                                                        boundarySupplier.getAsLong());
+            LOGGER.info("Built index of {} stored messages from {} checkpointed and {} database queue mappings "
+                                + "in {} ms", snapshot.getCheckpointMessageCount() + snapshot.getStoredMessageCount(),
+                        snapshot.getCheckpointMessageCount(), snapshot.getStoredMessageCount(),
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            return snapshot;
+        } catch (IOException | DaoException | RuntimeException e) {
+            LOGGER.error("Error building the index of stored messages. Messages are recovered from the database", e);
+            checkpoint.invalidate();
+            return null;
+        }
+    }
+
+    private long readMappingPage(long afterMessageId, MessageCrudOperationsDao.QueueMappingConsumer consumer)
+            throws DaoException {
+        return crudOperationsDao.selectAndGetOperation(connection ->
+                crudOperationsDao.readQueueMappings(connection, afterMessageId, pageSize, consumer));
+    }
+
+    private void checkpointQuietly() {
+        QueueIndexCheckpoint.Snapshot snapshot = composeQuietly();
+        if (Objects.nonNull(snapshot)) {
+            writeQuietly(snapshot);
+        }
+    }
+
+    private void writeQuietly(QueueIndexCheckpoint.Snapshot snapshot) {
+        try {
+            if (checkpoint.write(snapshot)) {
+                LOGGER.debug("Wrote queue index checkpoint {}", snapshot.getGeneration());
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Error writing queue index checkpoint " + snapshot.getGeneration(), e);
+        }
+    }
+
+    @Override
+    public void persist(TransactionData transactionData) throws DaoException {
+        Lock lock = checkpoint.getWriteLock();
+        lock.lock();
+        try {
+            Map<String, List<Long>> attachedMessages = new HashMap<>();
+            for (Message message : transactionData.getEnqueueMessages()) {
+                if (checkpoint.isJournaled(message.getInternalId())) {
+                    for (String queueName : message.getAttachedDurableQueues()) {
+                        attachedMessages.computeIfAbsent(queueName, name -> new ArrayList<>())
+                                        .add(message.getInternalId());
+                    }
+                }
+            }
+            journalAttached(attachedMessages);
+            messageDao.persist(transactionData);
+            journalRemoved(journaledIds(transactionData.getDetachMessageMap()),
+                           transactionData.getDeletableMessage());
+            updateRecoveryIndex(detachedIds(transactionData.getDetachMessageMap()),
+                                transactionData.getDeletableMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Collection<Message> readAll(String queueName) throws DaoException {
+        return messageDao.readAll(queueName);
+    }
+
+    @Override
+    public StoredMessageRange getStoredMessageRange(String queueName) throws DaoException {
+        if (Objects.isNull(recoveryIndex)) {
+            return messageDao.getStoredMessageRange(queueName);
+        }
+        return recoveryIndex.getStoredMessageRange(queueName);
+    }
+
+    @Override
+    public Collection<Message> readPage(String queueName, long afterMessageId, long lastMessageId, int pageSize)
+            throws DaoException {
+        if (Objects.isNull(recoveryIndex)) {
+            return messageDao.readPage(queueName, afterMessageId, lastMessageId, pageSize);
+        }
+
+        long[] messageIds = recoveryIndex.getPage(queueName, afterMessageId, lastMessageId, pageSize);
+        MessageCrudOperationsDao.MessageCollector collector = crudOperationsDao.newMessageCollector();
+        for (long messageId : messageIds) {
+            for (String queue : recoveryIndex.getQueues(messageId, queueName)) {
+                collector.add(messageId, queue);
+            }
+        }
+        return collector.collect();
+    }
+
+    @Override
+    public void read(Map<Long, List<Message>> readList) throws DaoException {
+        messageDao.read(readList);
+    }
+
+    @Override
+    public void prepare(Xid xid, TransactionData transactionData) throws DaoException {
+        Map<String, List<Long>> enqueuedMessages = new HashMap<>();
+        for (Message message : transactionData.getEnqueueMessages()) {
+            for (String queueName : message.getAttachedDurableQueues()) {
+                enqueuedMessages.computeIfAbsent(queueName, name -> new ArrayList<>()).add(message.getInternalId());
+            }
+        }
+        Map<String, List<Long>> detachedMessages = detachedIds(transactionData.getDetachMessageMap());
+
+        Lock lock = checkpoint.getWriteLock();
+        lock.lock();
+        try {
+            messageDao.prepare(xid, transactionData);
+            preparedBranches.put(xid, new PreparedBranch(enqueuedMessages, detachedMessages));
+            journalRemoved(journaledIds(transactionData.getDetachMessageMap()), Collections.emptyList());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void commitPreparedData(Xid xid, TransactionData transactionData) throws DaoException {
+        Lock lock = checkpoint.getWriteLock();
+        lock.lock();
+        try {
+            PreparedBranch preparedBranch = preparedBranches.remove(xid);
+            Map<String, List<Long>> detachedMessages = Collections.emptyMap();
+            if (Objects.nonNull(preparedBranch)) {
+                journalAttached(preparedBranch.enqueuedMessages);
+                detachedMessages = preparedBranch.detachedMessages;
+            }
+            messageDao.commitPreparedData(xid, transactionData);
+            if (recoveredXids.remove(xid)) {
+                checkpoint.invalidate();
+            }
+            journalRemoved(Collections.emptyMap(), transactionData.getDeletableMessage());
+            updateRecoveryIndex(detachedMessages, transactionData.getDeletableMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void rollbackPreparedData(Xid xid) throws DaoException {
+        Lock lock = checkpoint.getWriteLock();
+        lock.lock();
+        try {
+            PreparedBranch preparedBranch = preparedBranches.remove(xid);
+            if (Objects.nonNull(preparedBranch)) {
+                journalAttached(preparedBranch.detachedMessages);
+            }
+            messageDao.rollbackPreparedData(xid);
+            if (recoveredXids.remove(xid)) {
+                checkpoint.invalidate();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void retrieveAllStoredXids(Consumer<Xid> xidConsumer) throws DaoException {
+        messageDao.retrieveAllStoredXids(xid -> {
+            recoveredXids.add(xid);
+            xidConsumer.accept(xid);
+        });
+    }
+
+    @Override
+    public Collection<Message> retrieveAllEnqueuedMessages(Xid xid) throws DaoException {
+        return messageDao.retrieveAllEnqueuedMessages(xid);
+    }
+
+    @Override
+    public void close() throws DaoException {
+        // A checkpoint being written is completed while the scheduled ones are cancelled
+        checkpointExecutor.shutdown();
+        try {
+            if (!checkpointExecutor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warn("Queue index checkpoint was not written within {} seconds of closing",
+                            CLOSE_TIMEOUT_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("Interrupted while waiting for the queue index checkpoint to be written");
+        }
+
+        try {
+            checkpoint.close();
+        } catch (IOException e) {
+            LOGGER.error("Error closing the queue index checkpoint journal", e);
+        }
+        messageDao.close();
+    }
+
+    /**
+     * Journal the deletion of a queue once it is removed from the database.
+     *
+     * @param queueName name of the deleted queue
+     */
+    void onQueueDeleted(String queueName) {
+        if (Objects.nonNull(recoveryIndex)) {
+            recoveryIndex.removeQueue(queueName);
+        }
+        try {
+            checkpoint.journalDroppedQueue(queueName);
+        } catch (IOException e) {
+            LOGGER.error("Error journaling deleted queue " + queueName + ". Discarding the queue index checkpoint",
+                         e);
+            checkpoint.invalidate();
+        }
+    }
+
+    private static Map<String, List<Long>> detachedIds(Map<String, QueueDetachEventList> detachMessageMap) {
+        Map<String, List<Long>> detachedIds = new HashMap<>();
+        for (Map.Entry<String, QueueDetachEventList> entry : detachMessageMap.entrySet()) {
+            detachedIds.put(entry.getKey(), new ArrayList<>(entry.getValue().getMessageIds()));
+        }
+        return detachedIds;
+    }
+
+    /**
+     * Keep the queues of the messages yet to be recovered up to date. A message shared by several queues might be
+     * recovered by a queue after it was removed from another one.
+     */
+    private void updateRecoveryIndex(Map<String, List<Long>> detachedMessages, Collection<Long> deletedMessages) {
+        if (Objects.isNull(recoveryIndex)) {
+            return;
+        }
+        for (Map.Entry<String, List<Long>> entry : detachedMessages.entrySet()) {
+            for (long messageId : entry.getValue()) {
+                recoveryIndex.detach(messageId, entry.getKey());
+            }
+        }
+        for (long messageId : deletedMessages) {
+            recoveryIndex.delete(messageId);
+        }
+    }
+
+    private Map<String, List<Long>> journaledIds(Map<String, QueueDetachEventList> detachMessageMap) {
+        Map<String, List<Long>> journaledIds = new HashMap<>();
+        for (Map.Entry<String, QueueDetachEventList> entry : detachMessageMap.entrySet()) {
+            for (Long messageId : entry.getValue().getMessageIds()) {
+                if (checkpoint.isJournaled(messageId)) {
+                    journaledIds.computeIfAbsent(entry.getKey(), name -> new ArrayList<>()).add(messageId);
+                }
+            }
+        }
+        return journaledIds;
+    }
+
+    private void journalAttached(Map<String, List<Long>> attachedMessages) throws DaoException {
+        if (attachedMessages.isEmpty()) {
+            return;
+        }
+        try {
+            checkpoint.journalAttached(attachedMessages);
+        } catch (IOException e) {
+            // The messages are not stored without a trace in the journal, unlike the messages removed below
+            throw new DaoException("Error journaling attached messages", e);
+        }
+    }
+
+    private void journalRemoved(Map<String, List<Long>> detachedMessages, Collection<Long> deletedMessages) {
+        List<Long> journaledDeletes = new ArrayList<>();
+        for (Long messageId : deletedMessages) {
+            if (checkpoint.isJournaled(messageId)) {
+                journaledDeletes.add(messageId);
+            }
+        }
+        if (detachedMessages.isEmpty() && journaledDeletes.isEmpty()) {
+            return;
+        }
+        try {
+            checkpoint.journalRemoved(detachedMessages, journaledDeletes);
+        } catch (IOException e) {
+            LOGGER.error("Error journaling removed messages. Discarding the queue index checkpoint", e);
+            checkpoint.invalidate();
+        }
+    }
+
+    /**
+     * Queue mappings changed by a branch prepared by this broker, journaled when the branch is resolved.
+     */
+    private static final class PreparedBranch {
+
+        private final Map<String, List<Long>> enqueuedMessages;
+
+        private final Map<String, List<Long>> detachedMessages;
+
+        private PreparedBranch(Map<String, List<Long>> enqueuedMessages, Map<String, List<Long>> detachedMessages) {
+            this.enqueuedMessages = enqueuedMessages;
+            this.detachedMessages = detachedMessages;
+        }
+    }
+}
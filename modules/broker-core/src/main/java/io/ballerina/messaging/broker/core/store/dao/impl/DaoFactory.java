@@ -24,7 +24,13 @@ import io.ballerina.messaging.broker.core.store.dao.BindingDao;
 import io.ballerina.messaging.broker.core.store.dao.ExchangeDao;
 import io.ballerina.messaging.broker.core.store.dao.MessageDao;
 import io.ballerina.messaging.broker.core.store.dao.QueueDao;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.function.LongSupplier;
 import javax.sql.DataSource;
 
 /**
@@ -32,23 +38,70 @@ import javax.sql.DataSource;
  */
 public class DaoFactory {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DaoFactory.class);
+
     private final DataSource dataSource;
     private final BrokerMetricManager metricManager;
 
+    /**
+     * Message DAO journaling deleted queues to its checkpoint. Null unless checkpoints are used.
+     */
+    private CheckpointedMessageDao checkpointedMessageDao;
+
     public DaoFactory(DataSource dataSource, BrokerMetricManager metricManager) {
         this.dataSource = dataSource;
         this.metricManager = metricManager;
     }
 
     public QueueDao createQueueDao() {
+        if (Objects.nonNull(checkpointedMessageDao)) {
+            return new QueueDaoImpl(dataSource, checkpointedMessageDao::onQueueDeleted);
+        }
         return new QueueDaoImpl(dataSource);
     }
 
-    public MessageDao createMessageDao() {
-        return new MessageDaoImpl(new MessageCrudOperationsDao(dataSource, metricManager),
+    /**
+     * Create a message DAO.
+     *
+     * @param storedMessageCacheSize maximum number of recovered messages kept until all their queues load them
+     * @return message DAO
+     */
+    public MessageDao createMessageDao(int storedMessageCacheSize) {
+        return new MessageDaoImpl(new MessageCrudOperationsDao(dataSource, metricManager, storedMessageCacheSize),
                                   new DtxCrudOperationsDao(dataSource));
     }
 
+    /**
+     * Create a message DAO which recovers the queues from a checkpoint of the stored messages written to local disk,
+     * reading only the messages stored after the checkpoint from the database. Falls back to a message DAO reading
+     * all the messages from the database if the checkpoint directory cannot be used.
+     *
+     * @param storedMessageCacheSize    maximum number of recovered messages kept until all their queues load them
+     * @param checkpointDirectory       directory the checkpoint is written to
+     * @param checkpointIntervalSeconds interval between checkpoints
+     * @param pageSize                  number of messages read from the database at a time
+     * @param boundarySupplier          supplies a message id smaller than the ids of the messages created afterwards
+     * @return message DAO
+     */
+    public MessageDao createCheckpointedMessageDao(int storedMessageCacheSize, Path checkpointDirectory,
+                                                   long checkpointIntervalSeconds, int pageSize,
+                                                   LongSupplier boundarySupplier) {
+        MessageCrudOperationsDao crudOperationsDao =
+                new MessageCrudOperationsDao(dataSource, metricManager, storedMessageCacheSize);
+        MessageDao messageDao = new MessageDaoImpl(crudOperationsDao, new DtxCrudOperationsDao(dataSource));
+        QueueIndexCheckpoint checkpoint;
+        try {
+            checkpoint = new QueueIndexCheckpoint(checkpointDirectory);
+        } catch (IOException e) {
+            LOGGER.error("Error creating queue index checkpoint directory " + checkpointDirectory
+                                 + ". Messages are recovered from the database", e);
+            return messageDao;
+        }
+        checkpointedMessageDao = new CheckpointedMessageDao(messageDao, crudOperationsDao, checkpoint,
+                                                            boundarySupplier, pageSize, checkpointIntervalSeconds);
+        return checkpointedMessageDao;
+    }
+
     public ExchangeDao createExchangeDao() {
         return new ExchangeDaoImpl(dataSource);
     }
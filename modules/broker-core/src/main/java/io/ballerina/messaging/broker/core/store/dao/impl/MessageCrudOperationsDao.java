@@ -27,6 +27,7 @@ import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Metadata;
 import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import io.ballerina.messaging.broker.core.store.QueueDetachEventList;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
 import io.netty.buffer.Unpooled;
 import org.wso2.carbon.metrics.core.Timer.Context;
 
@@ -34,12 +35,13 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 import javax.sql.DataSource;
 
 /**
@@ -50,13 +52,15 @@ class MessageCrudOperationsDao extends BaseDao {
     private final BrokerMetricManager metricManager;
 
     /**
-     * temp storage for messages loaded from DB when restarting the message broker.
+     * Messages loaded from DB when restarting the message broker which are yet to be loaded by some of their queues.
      */
-    private Map<Long, Message> storedMessageCache = new ConcurrentHashMap<>();
+    private final StoredMessageCache storedMessageCache;
 
-    MessageCrudOperationsDao(DataSource dataSource, BrokerMetricManager metricManager) {
+    MessageCrudOperationsDao(DataSource dataSource, BrokerMetricManager metricManager, int storedMessageCacheSize) {
         super(dataSource);
         this.metricManager = metricManager;
+        this.storedMessageCache = new StoredMessageCache(storedMessageCacheSize, metricManager);
+        metricManager.registerStoredMessageCacheSizeGauge(() -> (long) storedMessageCache.size());
     }
 
     @SuppressFBWarnings(
@@ -123,6 +127,7 @@ class MessageCrudOperationsDao extends BaseDao {
     public void detachFromQueue(Connection connection,
                                 Map<String, QueueDetachEventList> detachableMessageMap) throws BrokerException {
         PreparedStatement statement = null;
+        List<Long> evictedMessageIds = new ArrayList<>();
         try {
             statement = connection.prepareStatement(RDBMSConstants.PS_DELETE_FROM_QUEUE);
             for (Map.Entry<String, QueueDetachEventList> entry : detachableMessageMap.entrySet()) {
@@ -132,10 +137,16 @@ class MessageCrudOperationsDao extends BaseDao {
                     statement.setLong(1, internalMessageId);
                     statement.setString(2, queueName);
                     statement.addBatch();
+                    if (storedMessageCache.isUnattachedCheckRequired(internalMessageId)) {
+                        evictedMessageIds.add(internalMessageId);
+                    }
                 }
             }
 
             statement.executeBatch();
+            if (!evictedMessageIds.isEmpty()) {
+                deleteUnattachedMessages(connection, evictedMessageIds);
+            }
         } catch (SQLException e) {
             throw new BrokerException("Error detaching messages from queues.", e);
         } finally {
@@ -143,6 +154,34 @@ class MessageCrudOperationsDao extends BaseDao {
         }
     }
 
+    /**
+     * Delete messages which are no longer attached to any queue. Used for messages whose queues might not share the
+     * set of attached queues since the message was evicted from the stored message cache during recovery.
+     */
+    private void deleteUnattachedMessages(Connection connection, List<Long> messageIds) throws SQLException {
+        PreparedStatement statement = null;
+        try {
+            statement = connection.prepareStatement(RDBMSConstants.PS_DELETE_UNATTACHED_MESSAGE);
+            for (Long messageId : messageIds) {
+                statement.setLong(1, messageId);
+                statement.setLong(2, messageId);
+                statement.setLong(3, messageId);
+                statement.addBatch();
+            }
+            int[] updateCounts = statement.executeBatch();
+
+            List<Long> deletedMessageIds = new ArrayList<>();
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] > 0) {
+                    deletedMessageIds.add(messageIds.get(i));
+                }
+            }
+            storedMessageCache.removeAll(deletedMessageIds);
+        } finally {
+            close(statement);
+        }
+    }
+
     @SuppressFBWarnings(
             value = "RV_RETURN_VALUE_IGNORED_NO_SIDE_EFFECT",
             justification = "Return value of context.stop() is not required.")
@@ -159,9 +198,7 @@ class MessageCrudOperationsDao extends BaseDao {
             statement.executeBatch();
 
             // Remove deleted messages from the stored cache
-            for (Long internalId : internalIdList) {
-                storedMessageCache.remove(internalId);
-            }
+            storedMessageCache.removeAll(internalIdList);
         } catch (SQLException e) {
             throw new BrokerException("Error occurred while deleting messages", e);
         } finally {
@@ -171,7 +208,6 @@ class MessageCrudOperationsDao extends BaseDao {
     }
 
     public Collection<Message> readAll(Connection connection, String queueName) throws BrokerException {
-        Map<Long, Message> messageList = new LinkedHashMap<>();
         PreparedStatement statement = null;
         ResultSet resultSet = null;
 
@@ -179,22 +215,37 @@ class MessageCrudOperationsDao extends BaseDao {
             statement = connection.prepareStatement(RDBMSConstants.PS_SELECT_MESSAGES_FOR_QUEUE);
             statement.setString(1, queueName);
             resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                long messageId = resultSet.getLong(1);
-                Message cachedMessage = storedMessageCache.get(messageId);
+            return readMessages(resultSet);
+        } catch (SQLException e) {
+            throw new BrokerException("Error occurred while reading messages", e);
+        } finally {
+            close(resultSet);
+            close(statement);
+        }
+    }
 
-                if (Objects.nonNull(cachedMessage)) {
-                    if (!messageList.containsKey(messageId)) {
-                        messageList.put(messageId, cachedMessage.bareShallowCopy());
-                    }
-                } else {
-                    Message message = messageList.computeIfAbsent(messageId, k -> new Message(k, null));
-                    message.addAttachedDurableQueue(resultSet.getString(2));
-                }
+    /**
+     * Read the next page of messages of a queue. The ids of the page are selected first so that the page size
+     * limits the number of messages rather than the number of queue mappings read.
+     */
+    public Collection<Message> readPage(Connection connection, String queueName, long afterMessageId,
+                                        long lastMessageId, int pageSize) throws BrokerException {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            long pageLastMessageId = selectPageLastMessageId(connection, queueName, afterMessageId, lastMessageId,
+                                                             pageSize);
+            if (pageLastMessageId == afterMessageId) {
+                return Collections.emptyList();
             }
 
-            storedMessageCache.putAll(messageList);
-            return messageList.values();
+            statement = connection.prepareStatement(RDBMSConstants.PS_SELECT_MESSAGES_FOR_QUEUE_PAGE);
+            statement.setString(1, queueName);
+            statement.setLong(2, afterMessageId);
+            statement.setLong(3, pageLastMessageId);
+            resultSet = statement.executeQuery();
+            return readMessages(resultSet);
         } catch (SQLException e) {
             throw new BrokerException("Error occurred while reading messages", e);
         } finally {
@@ -203,6 +254,172 @@ class MessageCrudOperationsDao extends BaseDao {
         }
     }
 
+    private long selectPageLastMessageId(Connection connection, String queueName, long afterMessageId,
+                                         long lastMessageId, int pageSize) throws SQLException {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            statement = connection.prepareStatement(RDBMSConstants.PS_SELECT_MESSAGE_IDS_FOR_QUEUE_PAGE);
+            statement.setMaxRows(pageSize);
+            statement.setString(1, queueName);
+            statement.setLong(2, afterMessageId);
+            statement.setLong(3, lastMessageId);
+            resultSet = statement.executeQuery();
+            long pageLastMessageId = afterMessageId;
+            while (resultSet.next()) {
+                pageLastMessageId = resultSet.getLong(1);
+            }
+            return pageLastMessageId;
+        } finally {
+            close(resultSet);
+            close(statement);
+        }
+    }
+
+    public StoredMessageRange getStoredMessageRange(Connection connection, String queueName)
+            throws BrokerException {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            statement = connection.prepareStatement(RDBMSConstants.PS_SELECT_QUEUE_MESSAGE_RANGE);
+            statement.setString(1, queueName);
+            resultSet = statement.executeQuery();
+            if (resultSet.next()) {
+                return new StoredMessageRange(resultSet.getLong(1), resultSet.getLong(2));
+            }
+            return new StoredMessageRange(0, 0);
+        } catch (SQLException e) {
+            throw new BrokerException("Error occurred while reading the stored message range of queue "
+                                              + queueName, e);
+        } finally {
+            close(resultSet);
+            close(statement);
+        }
+    }
+
+    /**
+     * Create bare messages from a result set of message ids and queue names ordered by message id.
+     */
+    private Collection<Message> readMessages(ResultSet resultSet) throws SQLException {
+        MessageCollector collector = new MessageCollector();
+        while (resultSet.next()) {
+            collector.add(resultSet.getLong(1), resultSet.getString(2));
+        }
+        return collector.collect();
+    }
+
+    /**
+     * Create a collector of bare messages recovered from queue mappings read elsewhere than the database.
+     */
+    MessageCollector newMessageCollector() {
+        return new MessageCollector();
+    }
+
+    /**
+     * Read the queue mappings of the next page of stored messages of all the queues in message id order.
+     *
+     * @param afterMessageId only mappings of messages with a larger id are read
+     * @param pageSize       maximum number of mappings to select the page by
+     * @param consumer       consumer of each mapping read
+     * @return id of the last message of the page, or afterMessageId if there are no more messages
+     */
+    public long readQueueMappings(Connection connection, long afterMessageId, int pageSize,
+                                  QueueMappingConsumer consumer) throws BrokerException {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            long pageLastMessageId = selectMappedPageLastMessageId(connection, afterMessageId, pageSize);
+            if (pageLastMessageId == afterMessageId) {
+                return afterMessageId;
+            }
+
+            statement = connection.prepareStatement(RDBMSConstants.PS_SELECT_QUEUE_MAPPINGS_PAGE);
+            statement.setLong(1, afterMessageId);
+            statement.setLong(2, pageLastMessageId);
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                consumer.accept(resultSet.getLong(1), resultSet.getString(2));
+            }
+            return pageLastMessageId;
+        } catch (SQLException e) {
+            throw new BrokerException("Error occurred while reading queue mappings after message id "
+                                              + afterMessageId, e);
+        } finally {
+            close(resultSet);
+            close(statement);
+        }
+    }
+
+    private long selectMappedPageLastMessageId(Connection connection, long afterMessageId, int pageSize)
+            throws SQLException {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            statement = connection.prepareStatement(RDBMSConstants.PS_SELECT_MAPPED_MESSAGE_IDS_PAGE);
+            statement.setMaxRows(pageSize);
+            statement.setLong(1, afterMessageId);
+            resultSet = statement.executeQuery();
+            long pageLastMessageId = afterMessageId;
+            while (resultSet.next()) {
+                pageLastMessageId = resultSet.getLong(1);
+            }
+            return pageLastMessageId;
+        } finally {
+            close(resultSet);
+            close(statement);
+        }
+    }
+
+    /**
+     * Consumer of the queue mappings of stored messages.
+     */
+    @FunctionalInterface
+    interface QueueMappingConsumer {
+
+        void accept(long messageId, String queueName);
+    }
+
+    /**
+     * Collects bare messages from queue mappings ordered by message id. Messages attached to several queues are
+     * shared through the {@link StoredMessageCache} with the queues recovering them later.
+     */
+    final class MessageCollector {
+
+        private final Map<Long, Message> messageList = new LinkedHashMap<>();
+
+        private final Map<Long, Message> loadedMessages = new LinkedHashMap<>();
+
+        void add(long messageId, String queueName) {
+            Message message = messageList.get(messageId);
+            if (Objects.isNull(message)) {
+                message = storedMessageCache.recover(messageId);
+                if (Objects.isNull(message)) {
+                    message = new Message(messageId, null);
+                    loadedMessages.put(messageId, message);
+                }
+                messageList.put(messageId, message);
+            }
+
+            // Attached queues of a recovered copy are shared with the queues which recovered it earlier
+            if (loadedMessages.containsKey(messageId)) {
+                message.addAttachedDurableQueue(queueName);
+            }
+        }
+
+        Collection<Message> collect() {
+            for (Message message : loadedMessages.values()) {
+                if (!storedMessageCache.isEvicted(message.getInternalId())) {
+                    storedMessageCache.add(message);
+                }
+            }
+            return messageList.values();
+        }
+    }
+
     public void read(Connection connection, Map<Long, List<Message>> messageMap) throws BrokerException {
 
         try (Context ignored = metricManager.startMessageReadTimer()) {
@@ -22,6 +22,7 @@ package io.ballerina.messaging.broker.core.store.dao.impl;
 import io.ballerina.messaging.broker.common.DaoException;
 import io.ballerina.messaging.broker.common.util.function.ThrowingConsumer;
 import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
 import io.ballerina.messaging.broker.core.store.TransactionData;
 import io.ballerina.messaging.broker.core.store.dao.MessageDao;
 
@@ -68,6 +69,19 @@ class MessageDaoImpl implements MessageDao {
                 crudOperationsDao.readAll(connection, queueName));
     }
 
+    @Override
+    public StoredMessageRange getStoredMessageRange(String queueName) throws DaoException {
+        return crudOperationsDao.selectAndGetOperation(connection ->
+                crudOperationsDao.getStoredMessageRange(connection, queueName));
+    }
+
+    @Override
+    public Collection<Message> readPage(String queueName, long afterMessageId, long lastMessageId, int pageSize)
+            throws DaoException {
+        return crudOperationsDao.selectAndGetOperation(connection ->
+                crudOperationsDao.readPage(connection, queueName, afterMessageId, lastMessageId, pageSize));
+    }
+
     @Override
     public void read(Map<Long, List<Message>> readList) throws DaoException {
         crudOperationsDao.selectOperation(connection -> crudOperationsDao.read(connection, readList));
@@ -126,6 +140,11 @@ class MessageDaoImpl implements MessageDao {
 
     }
 
+    @Override
+    public void close() {
+        // Connections are taken from the data source of the broker for each operation
+    }
+
     private long getInternalXid(Xid xid) {
         Long id = xidToInternalIdMap.get(xid);
         if (Objects.isNull(id)) {
@@ -29,6 +29,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.function.Consumer;
 import javax.sql.DataSource;
 
 /**
@@ -36,8 +37,21 @@ import javax.sql.DataSource;
  */
 class QueueDaoImpl extends BaseDao implements QueueDao {
 
+    private final Consumer<String> deletedQueueListener;
+
     QueueDaoImpl(DataSource dataSource) {
+        this(dataSource, queueName -> { });
+    }
+
+    /**
+     * Create a queue DAO.
+     *
+     * @param dataSource           data source of the database
+     * @param deletedQueueListener notified with the name of each queue once it is deleted from the database
+     */
+    QueueDaoImpl(DataSource dataSource, Consumer<String> deletedQueueListener) {
         super(dataSource);
+        this.deletedQueueListener = deletedQueueListener;
     }
 
     @Override
@@ -72,6 +86,7 @@ class QueueDaoImpl extends BaseDao implements QueueDao {
             statement.executeUpdate();
 
             connection.commit();
+            deletedQueueListener.accept(queue.getName());
         } catch (SQLException e) {
             String message = "Error occurred while deleting queue " + queue;
             rollback(connection, message);
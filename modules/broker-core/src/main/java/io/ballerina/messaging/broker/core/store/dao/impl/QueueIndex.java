@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.dao.impl;
+
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ids of the messages stored for each durable queue, sorted in message id order. The index is built from a
+ * {@link QueueIndexCheckpoint} when the broker starts and serves the recovery of the queues instead of the database.
+ * <p>
+ * The queues of a message attached to more than one queue are kept aside so that a recovered message knows all its
+ * queues, as it does when recovered from the database. They are updated as the message is detached from its queues,
+ * since a queue recovering the message later must not attach it to a queue which already removed it.
+ */
+final class QueueIndex {
+
+    private static final long[] NO_MESSAGES = new long[0];
+
+    private final Map<String, long[]> queueMessageIds;
+
+    private final Map<Long, List<String>> sharedMessageQueues;
+
+    /**
+     * Create an index.
+     *
+     * @param queueMessageIds sorted ids of the messages of each queue
+     */
+    QueueIndex(Map<String, long[]> queueMessageIds) {
+        this.queueMessageIds = new HashMap<>(queueMessageIds);
+        this.sharedMessageQueues = new ConcurrentHashMap<>(findSharedMessages(queueMessageIds));
+    }
+
+    /**
+     * Find the messages attached to more than one queue by merging the sorted ids of all the queues.
+     */
+    private static Map<Long, List<String>> findSharedMessages(Map<String, long[]> queueMessageIds) {
+        Map<Long, List<String>> sharedMessages = new HashMap<>();
+        if (queueMessageIds.size() < 2) {
+            return sharedMessages;
+        }
+
+        PriorityQueue<Cursor> cursors = new PriorityQueue<>(queueMessageIds.size(),
+                                                          Comparator.comparingLong(Cursor::current));
+        for (Map.Entry<String, long[]> entry : queueMessageIds.entrySet()) {
+            if (entry.getValue().length > 0) {
+                cursors.add(new Cursor(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        List<Cursor> matching = new ArrayList<>();
+        while (!cursors.isEmpty()) {
+            Cursor cursor = cursors.poll();
+            long messageId = cursor.current();
+            matching.add(cursor);
+            while (!cursors.isEmpty() && cursors.peek().current() == messageId) {
+                matching.add(cursors.poll());
+            }
+
+            if (matching.size() > 1) {
+                List<String> queues = new ArrayList<>(matching.size());
+                for (Cursor match : matching) {
+                    queues.add(match.queueName);
+                }
+                sharedMessages.put(messageId, queues);
+            }
+            for (Cursor match : matching) {
+                if (match.advance()) {
+                    cursors.add(match);
+                }
+            }
+            matching.clear();
+        }
+        return sharedMessages;
+    }
+
+    synchronized StoredMessageRange getStoredMessageRange(String queueName) {
+        long[] messageIds = queueMessageIds.getOrDefault(queueName, NO_MESSAGES);
+        if (messageIds.length == 0) {
+            return new StoredMessageRange(0, 0);
+        }
+        return new StoredMessageRange(messageIds.length, messageIds[messageIds.length - 1]);
+    }
+
+    /**
+     * Get the next page of message ids of a queue. The ids of a queue are released once its last page is read.
+     *
+     * @param queueName      name of the queue
+     * @param afterMessageId only ids larger than this id are returned
+     * @param lastMessageId  only ids up to this id are returned
+     * @param pageSize       maximum number of ids to return
+     * @return ids of the page in ascending order
+     */
+    synchronized long[] getPage(String queueName, long afterMessageId, long lastMessageId, int pageSize) {
+        long[] messageIds = queueMessageIds.getOrDefault(queueName, NO_MESSAGES);
+        int from = Arrays.binarySearch(messageIds, afterMessageId);
+        from = from < 0 ? -from - 1 : from + 1;
+        int to = from;
+        while (to < messageIds.length && to - from < pageSize && messageIds[to] <= lastMessageId) {
+            to++;
+        }
+
+        if (to == messageIds.length) {
+            queueMessageIds.remove(queueName);
+        }
+        return Arrays.copyOfRange(messageIds, from, to);
+    }
+
+    /**
+     * Get all the queues of a message.
+     *
+     * @param messageId id of the message
+     * @param queueName a queue the message belongs to
+     */
+    List<String> getQueues(long messageId, String queueName) {
+        List<String> queues = sharedMessageQueues.get(messageId);
+        if (Objects.isNull(queues)) {
+            return Collections.singletonList(queueName);
+        }
+        return queues;
+    }
+
+    /**
+     * Remove a queue from the queues of a message once the message is detached from the queue.
+     */
+    void detach(long messageId, String queueName) {
+        sharedMessageQueues.computeIfPresent(messageId, (id, queues) -> {
+            List<String> remainingQueues = new ArrayList<>(queues);
+            remainingQueues.remove(queueName);
+            return remainingQueues.isEmpty() ? null : remainingQueues;
+        });
+    }
+
+    /**
+     * Forget the queues of a message deleted from all its queues.
+     */
+    void delete(long messageId) {
+        sharedMessageQueues.remove(messageId);
+    }
+
+    synchronized void removeQueue(String queueName) {
+        queueMessageIds.remove(queueName);
+    }
+
+    /**
+     * Get the sorted ids of the messages of each queue which are yet to be read.
+     */
+    synchronized Map<String, long[]> getQueueMessageIds() {
+        return new HashMap<>(queueMessageIds);
+    }
+
+    synchronized long getMessageCount() {
+        long count = 0;
+        for (long[] messageIds : queueMessageIds.values()) {
+            count += messageIds.length;
+        }
+        return count;
+    }
+
+    /**
+     * Position in the sorted message ids of a queue.
+     */
+    private static final class Cursor {
+
+        private final String queueName;
+
+        private final long[] messageIds;
+
+        private int position;
+
+        private Cursor(String queueName, long[] messageIds) {
+            this.queueName = queueName;
+            this.messageIds = messageIds;
+        }
+
+        private long current() {
+            return messageIds[position];
+        }
+
+        private boolean advance() {
+            position++;
+            return position < messageIds.length;
+        }
+    }
+}
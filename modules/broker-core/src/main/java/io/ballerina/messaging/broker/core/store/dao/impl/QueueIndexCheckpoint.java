@@ -0,0 +1,845 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.dao.impl;
+
+import io.ballerina.messaging.broker.common.DaoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Checkpoint of the message ids of each durable queue kept on local disk so that a restarting broker reads only the
+ * messages stored after the checkpoint from the database.
+ * <p>
+ * A checkpoint is written for a generation which has a boundary message id. The checkpoint holds the messages with a
+ * smaller id, while messages with a larger id are read from the database when the checkpoint is loaded. Changes made
+ * to messages below the boundary after the checkpoint began are appended to the journal of the generation. Attaching
+ * a message to a queue is journaled ahead of the database write and synced, since the database has no other trace of
+ * it. Detaching and deleting messages is journaled after the database write without syncing. Such records lost in a
+ * crash make the broker deliver the messages again, as it would if the crash happened before the database write.
+ * <p>
+ * Message ids grow only within a broker run, so the boundary of a generation might be smaller than the one of an
+ * earlier generation. Messages from the smallest boundary of the loaded generations onwards are therefore read from
+ * the database.
+ * <p>
+ * The checkpoint is written with sequential buffered I/O to a temporary file which then replaces the previous
+ * checkpoint, so that a crash while writing leaves the previous checkpoint in place. It is read by mapping the file.
+ * Message ids of a queue are delta encoded as variable length integers, taking one to three bytes per message.
+ */
+final class QueueIndexCheckpoint {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueueIndexCheckpoint.class);
+
+    static final String CHECKPOINT_FILE_NAME = "queue-index.checkpoint";
+
+    private static final String TEMPORARY_FILE_NAME = CHECKPOINT_FILE_NAME + ".tmp";
+
+    private static final String JOURNAL_FILE_SUFFIX = ".journal";
+
+    private static final String JOURNAL_FILE_FORMAT = "%020d" + JOURNAL_FILE_SUFFIX;
+
+    private static final int CHECKPOINT_MAGIC = 0x51494458;
+
+    private static final int JOURNAL_MAGIC = 0x51494a4c;
+
+    private static final int VERSION = 1;
+
+    private static final int JOURNAL_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private static final byte ATTACH = 1;
+
+    private static final byte DETACH = 2;
+
+    private static final byte DELETE = 3;
+
+    private static final byte DROP_QUEUE = 4;
+
+    private static final int BUFFER_SIZE = 65536;
+
+    private static final int MAX_RECORD_SIZE = 1 << 30;
+
+    private final Path directory;
+
+    private final Object journalLock = new Object();
+
+    /**
+     * Shared by database writes and held exclusively while a new generation starts. See {@link #getWriteLock()}.
+     */
+    private final ReadWriteLock generationLock = new ReentrantReadWriteLock();
+
+    /**
+     * Journal of the current generation. Guarded by the journal lock.
+     */
+    private FileChannel journal;
+
+    /**
+     * Messages with a smaller id are journaled. Nothing is journaled before the first generation starts.
+     */
+    private volatile long boundary = Long.MIN_VALUE;
+
+    private long generation;
+
+    private volatile int invalidationCount;
+
+    QueueIndexCheckpoint(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Lock to be held by a database write from checking which of its messages are journaled until the write is
+     * committed and journaled. A new generation does not start in between, so that the stored messages the write
+     * did not journal are read from the database by the new generation.
+     */
+    Lock getWriteLock() {
+        return generationLock.readLock();
+    }
+
+    /**
+     * Check whether changes to a message should be journaled.
+     */
+    boolean isJournaled(long messageId) {
+        return messageId < boundary;
+    }
+
+    /**
+     * Start a new generation and build the index of the stored messages from the last checkpoint, the journals
+     * written after it and the messages stored after its boundary in the database. Changes made while the index is
+     * built are journaled to the new generation.
+     *
+     * @param mappingReader reads the queue mappings stored in the database
+     * @param newBoundary   boundary of the new generation
+     * @return index to be written as the checkpoint of the new generation
+     * @throws IOException  if the new journal cannot be created
+     * @throws DaoException if the database cannot be read
+     */
+    Snapshot compose(MappingReader mappingReader, long newBoundary) throws IOException, DaoException {
+        int startInvalidationCount = invalidationCount;
+        Checkpoint checkpoint = readCheckpoint();
+        List<Path> journalPaths = listJournals();
+        long newGeneration = startGeneration(checkpoint, journalPaths, newBoundary);
+
+        Map<String, MessageIds> queueMessageIds = new HashMap<>();
+        long lowestBoundary = Long.MIN_VALUE;
+        long checkpointMessageCount = 0;
+        if (Objects.nonNull(checkpoint)) {
+            List<Journal> journals = new ArrayList<>();
+            lowestBoundary = checkpoint.boundary;
+            for (Path path : journalPaths) {
+                long journalGeneration = generationOf(path);
+                if (journalGeneration >= checkpoint.generation && journalGeneration < newGeneration) {
+                    Journal journal = readJournal(path);
+                    if (Objects.nonNull(journal)) {
+                        journals.add(journal);
+                        lowestBoundary = Math.min(lowestBoundary, journal.boundary);
+                    }
+                }
+            }
+            queueMessageIds = checkpoint.queueMessageIds;
+            checkpointMessageCount = applyJournals(queueMessageIds, journals, lowestBoundary);
+        }
+
+        long storedMessageCount = readStoredMappings(mappingReader, queueMessageIds, lowestBoundary);
+
+        Map<String, long[]> index = new HashMap<>();
+        for (Map.Entry<String, MessageIds> entry : queueMessageIds.entrySet()) {
+            if (entry.getValue().size() > 0) {
+                index.put(entry.getKey(), entry.getValue().toArray());
+            }
+        }
+        return new Snapshot(newGeneration, newBoundary, startInvalidationCount, index, checkpointMessageCount,
+                            storedMessageCount);
+    }
+
+    /**
+     * Close the journal of the current generation and start journaling to a new generation once the database writes
+     * in progress are committed.
+     */
+    private long startGeneration(Checkpoint checkpoint, List<Path> journalPaths, long newBoundary)
+            throws IOException {
+        Lock lock = generationLock.writeLock();
+        lock.lock();
+        try {
+            return switchGeneration(checkpoint, journalPaths, newBoundary);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long switchGeneration(Checkpoint checkpoint, List<Path> journalPaths, long newBoundary)
+            throws IOException {
+        synchronized (journalLock) {
+            long lastGeneration = generation;
+            if (Objects.nonNull(checkpoint)) {
+                lastGeneration = Math.max(lastGeneration, checkpoint.generation);
+            }
+            if (!journalPaths.isEmpty()) {
+                lastGeneration = Math.max(lastGeneration, generationOf(journalPaths.get(journalPaths.size() - 1)));
+            }
+            long newGeneration = lastGeneration + 1;
+
+            FileChannel newJournal = FileChannel.open(journalPath(newGeneration), StandardOpenOption.CREATE_NEW,
+                                                      StandardOpenOption.WRITE);
+            try {
+                ByteBuffer header = ByteBuffer.allocate(JOURNAL_HEADER_SIZE);
+                header.putInt(JOURNAL_MAGIC).putLong(newBoundary).flip();
+                write(newJournal, header);
+                newJournal.force(true);
+            } catch (IOException e) {
+                newJournal.close();
+                throw e;
+            }
+
+            if (Objects.nonNull(journal)) {
+                journal.force(false);
+                journal.close();
+            }
+            journal = newJournal;
+            generation = newGeneration;
+            boundary = newBoundary;
+            return newGeneration;
+        }
+    }
+
+    /**
+     * Apply the journaled changes of the messages below the lowest boundary to the checkpoint and drop the messages
+     * from the lowest boundary onwards, which are read from the database.
+     *
+     * @return number of messages kept from the checkpoint and the journals
+     */
+    private static long applyJournals(Map<String, MessageIds> queueMessageIds, List<Journal> journals,
+                                      long lowestBoundary) {
+        Map<String, Map<Long, Boolean>> attachedState = new HashMap<>();
+        Set<Long> deletedMessageIds = new HashSet<>();
+        for (Journal journal : journals) {
+            for (Record record : journal.records) {
+                switch (record.type) {
+                    case ATTACH:
+                    case DETACH:
+                        Map<Long, Boolean> queueState =
+                                attachedState.computeIfAbsent(record.queueName, name -> new HashMap<>());
+                        for (long messageId : record.messageIds) {
+                            if (messageId < lowestBoundary) {
+                                queueState.put(messageId, record.type == ATTACH);
+                            }
+                        }
+                        break;
+                    case DELETE:
+                        for (long messageId : record.messageIds) {
+                            if (messageId < lowestBoundary) {
+                                deletedMessageIds.add(messageId);
+                            }
+                        }
+                        break;
+                    case DROP_QUEUE:
+                        queueMessageIds.remove(record.queueName);
+                        attachedState.remove(record.queueName);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown journal record type " + record.type);
+                }
+            }
+        }
+
+        long messageCount = 0;
+        for (String queueName : attachedState.keySet()) {
+            queueMessageIds.computeIfAbsent(queueName, name -> new MessageIds());
+        }
+        for (Map.Entry<String, MessageIds> entry : queueMessageIds.entrySet()) {
+            Map<Long, Boolean> queueState = attachedState.getOrDefault(entry.getKey(), Collections.emptyMap());
+            MessageIds messageIds = entry.getValue();
+            messageIds.retain(messageId -> messageId < lowestBoundary
+                    && !deletedMessageIds.contains(messageId)
+                    && !Boolean.FALSE.equals(queueState.get(messageId)));
+            for (Map.Entry<Long, Boolean> state : queueState.entrySet()) {
+                if (state.getValue() && !deletedMessageIds.contains(state.getKey())) {
+                    messageIds.add(state.getKey());
+                }
+            }
+            messageIds.sort();
+            messageCount += messageIds.size();
+        }
+        return messageCount;
+    }
+
+    /**
+     * Add the queue mappings stored in the database from the given boundary onwards.
+     *
+     * @return number of mappings read
+     */
+    private static long readStoredMappings(MappingReader mappingReader, Map<String, MessageIds> queueMessageIds,
+                                           long lowestBoundary) throws DaoException {
+        long[] mappingCount = new long[1];
+        long afterMessageId = lowestBoundary == Long.MIN_VALUE ? Long.MIN_VALUE : lowestBoundary - 1;
+        while (true) {
+            long pageLastMessageId = mappingReader.readPage(afterMessageId, (messageId, queueName) -> {
+                queueMessageIds.computeIfAbsent(queueName, name -> new MessageIds()).add(messageId);
+                mappingCount[0]++;
+            });
+            if (pageLastMessageId == afterMessageId) {
+                return mappingCount[0];
+            }
+            afterMessageId = pageLastMessageId;
+        }
+    }
+
+    /**
+     * Write the checkpoint of a generation and remove the journals of earlier generations. The checkpoint is not
+     * written if the stored checkpoints were invalidated since the generation started.
+     *
+     * @return true if the checkpoint is written
+     */
+    boolean write(Snapshot snapshot) throws IOException {
+        Path temporaryPath = directory.resolve(TEMPORARY_FILE_NAME);
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), BUFFER_SIZE));
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshot.generation);
+            out.writeLong(snapshot.boundary);
+
+            Map<String, long[]> queueMessageIds = new HashMap<>();
+            for (Map.Entry<String, long[]> entry : snapshot.queueMessageIds.entrySet()) {
+                long[] messageIds = entry.getValue();
+                int count = countBelow(messageIds, snapshot.boundary);
+                if (count > 0) {
+                    queueMessageIds.put(entry.getKey(), Arrays.copyOf(messageIds, count));
+                }
+            }
+            out.writeInt(queueMessageIds.size());
+            for (Map.Entry<String, long[]> entry : queueMessageIds.entrySet()) {
+                long[] messageIds = entry.getValue();
+                byte[] name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(name.length);
+                out.write(name);
+                out.writeInt(messageIds.length);
+                out.writeLong(messageIds[0]);
+                for (int i = 1; i < messageIds.length; i++) {
+                    writeVarLong(out, messageIds[i] - messageIds[i - 1]);
+                }
+            }
+            out.flush();
+            out.writeLong(crc.getValue());
+            out.flush();
+            channel.force(true);
+        }
+
+        synchronized (journalLock) {
+            if (invalidationCount != snapshot.invalidationCount) {
+                Files.deleteIfExists(temporaryPath);
+                return false;
+            }
+            Files.move(temporaryPath, directory.resolve(CHECKPOINT_FILE_NAME), StandardCopyOption.ATOMIC_MOVE,
+                       StandardCopyOption.REPLACE_EXISTING);
+        }
+        for (Path path : listJournals()) {
+            if (generationOf(path) < snapshot.generation) {
+                Files.deleteIfExists(path);
+            }
+        }
+        return true;
+    }
+
+    private static int countBelow(long[] messageIds, long boundary) {
+        int position = Arrays.binarySearch(messageIds, boundary);
+        return position < 0 ? -position - 1 : position;
+    }
+
+    /**
+     * Journal messages attached to queues. The journal is synced before returning.
+     *
+     * @param attachedMessages ids of the attached messages by queue name
+     */
+    void journalAttached(Map<String, List<Long>> attachedMessages) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Map.Entry<String, List<Long>> entry : attachedMessages.entrySet()) {
+            writeRecord(bytes, ATTACH, entry.getKey(), entry.getValue());
+        }
+        append(bytes, true);
+    }
+
+    /**
+     * Journal messages detached from queues and deleted messages.
+     *
+     * @param detachedMessages ids of the detached messages by queue name
+     * @param deletedMessages  ids of the deleted messages
+     */
+    void journalRemoved(Map<String, List<Long>> detachedMessages, Collection<Long> deletedMessages)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (Map.Entry<String, List<Long>> entry : detachedMessages.entrySet()) {
+            writeRecord(bytes, DETACH, entry.getKey(), entry.getValue());
+        }
+        if (!deletedMessages.isEmpty()) {
+            writeRecord(bytes, DELETE, null, deletedMessages);
+        }
+        append(bytes, false);
+    }
+
+    /**
+     * Journal a deleted queue. The journal is synced before returning since a queue created later with the same
+     * name should not get the messages of the deleted queue.
+     */
+    void journalDroppedQueue(String queueName) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writeRecord(bytes, DROP_QUEUE, queueName, Collections.emptyList());
+        append(bytes, true);
+    }
+
+    private void append(ByteArrayOutputStream records, boolean sync) throws IOException {
+        if (records.size() == 0) {
+            return;
+        }
+        synchronized (journalLock) {
+            if (Objects.isNull(journal)) {
+                return;
+            }
+            write(journal, ByteBuffer.wrap(records.toByteArray()));
+            if (sync) {
+                journal.force(false);
+            }
+        }
+    }
+
+    /**
+     * Discard the stored checkpoint after the stored messages were changed without journaling. The next generation
+     * reads all the queue mappings from the database.
+     */
+    void invalidate() {
+        synchronized (journalLock) {
+            invalidationCount++;
+            try {
+                Files.deleteIfExists(directory.resolve(CHECKPOINT_FILE_NAME));
+            } catch (IOException e) {
+                LOGGER.error("Error deleting queue index checkpoint in " + directory, e);
+            }
+        }
+    }
+
+    void close() throws IOException {
+        synchronized (journalLock) {
+            if (Objects.nonNull(journal)) {
+                journal.force(false);
+                journal.close();
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * Read the stored checkpoint.
+     *
+     * @return the checkpoint, or null if there is no valid checkpoint
+     */
+    private Checkpoint readCheckpoint() throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE_NAME);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                LOGGER.warn("Ignoring queue index checkpoint {} of {} bytes which is too large to map", path, size);
+                return null;
+            }
+            if (size < Long.BYTES) {
+                LOGGER.warn("Ignoring incomplete queue index checkpoint {}", path);
+                return null;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodySize = (int) size - Long.BYTES;
+            ByteBuffer body = buffer.duplicate();
+            body.limit(bodySize);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if (buffer.getLong(bodySize) != crc.getValue()) {
+                LOGGER.warn("Ignoring corrupted queue index checkpoint {}", path);
+                return null;
+            }
+
+            buffer.limit(bodySize);
+            if (buffer.getInt() != CHECKPOINT_MAGIC || buffer.getInt() != VERSION) {
+                LOGGER.warn("Ignoring queue index checkpoint {} of an unknown format", path);
+                return null;
+            }
+            long checkpointGeneration = buffer.getLong();
+            long checkpointBoundary = buffer.getLong();
+            int queueCount = buffer.getInt();
+            Map<String, MessageIds> queueMessageIds = new HashMap<>(queueCount * 2);
+            for (int i = 0; i < queueCount; i++) {
+                byte[] name = new byte[buffer.getInt()];
+                buffer.get(name);
+                int count = buffer.getInt();
+                MessageIds messageIds = new MessageIds(count);
+                long messageId = 0;
+                for (int j = 0; j < count; j++) {
+                    messageId = j == 0 ? buffer.getLong() : messageId + readVarLong(buffer);
+                    messageIds.add(messageId);
+                }
+                queueMessageIds.put(new String(name, StandardCharsets.UTF_8), messageIds);
+            }
+            return new Checkpoint(checkpointGeneration, checkpointBoundary, queueMessageIds);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (BufferUnderflowException e) {
+            LOGGER.warn("Ignoring malformed queue index checkpoint {}", path);
+            return null;
+        }
+    }
+
+    /**
+     * Read the records of a journal up to the first incomplete or corrupted record, which is the end of the records
+     * written before a crash.
+     *
+     * @return the journal, or null if the journal header was not written
+     */
+    private static Journal readJournal(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path),
+                                                                              BUFFER_SIZE))) {
+            Journal journal;
+            try {
+                if (in.readInt() != JOURNAL_MAGIC) {
+                    return null;
+                }
+                journal = new Journal(in.readLong());
+            } catch (EOFException e) {
+                return null;
+            }
+
+            try {
+                while (true) {
+                    int length = in.readInt();
+                    int checksum = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_SIZE) {
+                        LOGGER.warn("Discarding corrupted records at the end of {}", path);
+                        return journal;
+                    }
+                    byte[] body = new byte[length];
+                    in.readFully(body);
+                    CRC32 crc = new CRC32();
+                    crc.update(body);
+                    if ((int) crc.getValue() != checksum) {
+                        LOGGER.warn("Discarding corrupted records at the end of {}", path);
+                        return journal;
+                    }
+                    journal.records.add(readRecord(new DataInputStream(new ByteArrayInputStream(body))));
+                }
+            } catch (EOFException e) {
+                return journal;
+            }
+        }
+    }
+
+    private static void writeRecord(ByteArrayOutputStream records, byte type, String queueName,
+                                    Collection<Long> messageIds) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bytes);
+        body.writeByte(type);
+        if (Objects.nonNull(queueName)) {
+            body.writeUTF(queueName);
+        }
+        body.writeInt(messageIds.size());
+        for (long messageId : messageIds) {
+            body.writeLong(messageId);
+        }
+        body.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        DataOutputStream out = new DataOutputStream(records);
+        out.writeInt(bytes.size());
+        out.writeInt((int) crc.getValue());
+        bytes.writeTo(out);
+        out.flush();
+    }
+
+    private static Record readRecord(DataInputStream body) throws IOException {
+        byte type = body.readByte();
+        String queueName = type == DELETE ? null : body.readUTF();
+        long[] messageIds = new long[body.readInt()];
+        for (int i = 0; i < messageIds.length; i++) {
+            messageIds[i] = body.readLong();
+        }
+        return new Record(type, queueName, messageIds);
+    }
+
+    private List<Path> listJournals() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().endsWith(JOURNAL_FILE_SUFFIX))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    private Path journalPath(long journalGeneration) {
+        return directory.resolve(String.format(JOURNAL_FILE_FORMAT, journalGeneration));
+    }
+
+    private static long generationOf(Path journalPath) {
+        String fileName = journalPath.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - JOURNAL_FILE_SUFFIX.length()));
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new BufferUnderflowException();
+    }
+
+    /**
+     * Reads the queue mappings stored in the database page by page.
+     */
+    @FunctionalInterface
+    interface MappingReader {
+
+        /**
+         * Read the queue mappings of the next page of messages.
+         *
+         * @return id of the last message of the page, or afterMessageId if there are no more messages
+         */
+        long readPage(long afterMessageId, MessageCrudOperationsDao.QueueMappingConsumer consumer)
+                throws DaoException;
+    }
+
+    /**
+     * Index built for a generation, to be written as its checkpoint.
+     */
+    static final class Snapshot {
+
+        private final long generation;
+
+        private final long boundary;
+
+        private final int invalidationCount;
+
+        private final Map<String, long[]> queueMessageIds;
+
+        private final long checkpointMessageCount;
+
+        private final long storedMessageCount;
+
+        private Snapshot(long generation, long boundary, int invalidationCount, Map<String, long[]> queueMessageIds,
+                         long checkpointMessageCount, long storedMessageCount) {
+            this.generation = generation;
+            this.boundary = boundary;
+            this.invalidationCount = invalidationCount;
+            this.queueMessageIds = queueMessageIds;
+            this.checkpointMessageCount = checkpointMessageCount;
+            this.storedMessageCount = storedMessageCount;
+        }
+
+        long getGeneration() {
+            return generation;
+        }
+
+        /**
+         * Sorted ids of the messages of each queue.
+         */
+        Map<String, long[]> getQueueMessageIds() {
+            return queueMessageIds;
+        }
+
+        /**
+         * Number of queue mappings taken from the previous checkpoint and its journals.
+         */
+        long getCheckpointMessageCount() {
+            return checkpointMessageCount;
+        }
+
+        /**
+         * Number of queue mappings read from the database.
+         */
+        long getStoredMessageCount() {
+            return storedMessageCount;
+        }
+    }
+
+    /**
+     * Checkpoint read from disk.
+     */
+    private static final class Checkpoint {
+
+        private final long generation;
+
+        private final long boundary;
+
+        private final Map<String, MessageIds> queueMessageIds;
+
+        private Checkpoint(long generation, long boundary, Map<String, MessageIds> queueMessageIds) {
+            this.generation = generation;
+            this.boundary = boundary;
+            this.queueMessageIds = queueMessageIds;
+        }
+    }
+
+    /**
+     * Journal read from disk.
+     */
+    private static final class Journal {
+
+        private final long boundary;
+
+        private final List<Record> records = new ArrayList<>();
+
+        private Journal(long boundary) {
+            this.boundary = boundary;
+        }
+    }
+
+    /**
+     * Journal record.
+     */
+    private static final class Record {
+
+        private final byte type;
+
+        private final String queueName;
+
+        private final long[] messageIds;
+
+        private Record(byte type, String queueName, long[] messageIds) {
+            this.type = type;
+            this.queueName = queueName;
+            this.messageIds = messageIds;
+        }
+    }
+
+    /**
+     * Growable list of message ids.
+     */
+    private static final class MessageIds {
+
+        private long[] messageIds;
+
+        private int size;
+
+        private boolean sorted = true;
+
+        private MessageIds() {
+            this(16);
+        }
+
+        private MessageIds(int capacity) {
+            messageIds = new long[Math.max(capacity, 1)];
+        }
+
+        private void add(long messageId) {
+            if (size == messageIds.length) {
+                messageIds = Arrays.copyOf(messageIds, size * 2);
+            }
+            sorted = sorted && (size == 0 || messageId > messageIds[size - 1]);
+            messageIds[size++] = messageId;
+        }
+
+        private void retain(LongPredicate filter) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (filter.test(messageIds[i])) {
+                    messageIds[kept++] = messageIds[i];
+                }
+            }
+            size = kept;
+        }
+
+        /**
+         * Sort the ids and remove duplicates.
+         */
+        private void sort() {
+            if (sorted) {
+                return;
+            }
+            sorted = true;
+            Arrays.sort(messageIds, 0, size);
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (kept == 0 || messageIds[i] != messageIds[kept - 1]) {
+                    messageIds[kept++] = messageIds[i];
+                }
+            }
+            size = kept;
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(messageIds, size);
+        }
+    }
+}
@@ -69,6 +69,11 @@ final class RDBMSConstants {
 
     public static final String PS_DELETE_MESSAGE = "DELETE FROM MB_METADATA WHERE MESSAGE_ID=?";
 
+    public static final String PS_DELETE_UNATTACHED_MESSAGE =
+            "DELETE FROM MB_METADATA WHERE MESSAGE_ID=? "
+                    + "AND NOT EXISTS (SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING WHERE MESSAGE_ID=?) "
+                    + "AND NOT EXISTS (SELECT MESSAGE_ID FROM MB_DTX_DEQUEUE_MAPPING WHERE MESSAGE_ID=?)";
+
     public static final String PS_SELECT_MESSAGES_FOR_QUEUE =
             "SELECT MB_QUEUE_MAPPING.MESSAGE_ID, QUEUE_NAME "
                     + "FROM (SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING WHERE QUEUE_NAME=?) AS QUEUE_MESSAGES "
@@ -76,6 +81,28 @@ final class RDBMSConstants {
                     + "ON QUEUE_MESSAGES.MESSAGE_ID=MB_QUEUE_MAPPING.MESSAGE_ID "
                     + "ORDER BY QUEUE_MESSAGES.MESSAGE_ID";
 
+    public static final String PS_SELECT_QUEUE_MESSAGE_RANGE =
+            "SELECT COUNT(MESSAGE_ID), MAX(MESSAGE_ID) FROM MB_QUEUE_MAPPING WHERE QUEUE_NAME=?";
+
+    public static final String PS_SELECT_MESSAGE_IDS_FOR_QUEUE_PAGE =
+            "SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING WHERE QUEUE_NAME=? AND MESSAGE_ID>? AND MESSAGE_ID<=? "
+                    + "ORDER BY MESSAGE_ID";
+
+    public static final String PS_SELECT_MESSAGES_FOR_QUEUE_PAGE =
+            "SELECT MB_QUEUE_MAPPING.MESSAGE_ID, QUEUE_NAME "
+                    + "FROM (SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING "
+                    + "WHERE QUEUE_NAME=? AND MESSAGE_ID>? AND MESSAGE_ID<=?) AS QUEUE_MESSAGES "
+                    + "INNER JOIN MB_QUEUE_MAPPING "
+                    + "ON QUEUE_MESSAGES.MESSAGE_ID=MB_QUEUE_MAPPING.MESSAGE_ID "
+                    + "ORDER BY QUEUE_MESSAGES.MESSAGE_ID";
+
+    public static final String PS_SELECT_MAPPED_MESSAGE_IDS_PAGE =
+            "SELECT MESSAGE_ID FROM MB_QUEUE_MAPPING WHERE MESSAGE_ID>? ORDER BY MESSAGE_ID";
+
+    public static final String PS_SELECT_QUEUE_MAPPINGS_PAGE =
+            "SELECT MESSAGE_ID, QUEUE_NAME FROM MB_QUEUE_MAPPING WHERE MESSAGE_ID>? AND MESSAGE_ID<=? "
+                    + "ORDER BY MESSAGE_ID";
+
     public static final String PS_DTX_INSERT_XID =
             "INSERT INTO MB_DTX_XID (INTERNAL_XID, FORMAT_CODE, GLOBAL_ID, BRANCH_ID) VALUES (?,?,?,?)";
 
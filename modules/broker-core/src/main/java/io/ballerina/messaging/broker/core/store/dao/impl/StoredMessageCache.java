@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.dao.impl;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of the messages recovered from the database which are attached to more than one queue. The queues
+ * of such a message share a single set of attached queues, so a queue recovering the message after another queue
+ * takes a copy of the cached message.
+ * <p>
+ * An entry is removed once every attached queue has recovered the message. When the cache is full the oldest entry is
+ * evicted. Queues recovering an evicted message get a message with its own set of attached queues, so the message
+ * might not be deleted when the last queue detaches it. Evicted message ids are therefore remembered until the
+ * message is deleted, so that detaching them deletes the message once no queue holds it.
+ * <p>
+ * At most as many evicted ids as cached messages are remembered. Beyond that every detached message is checked
+ * for remaining queues instead, which is also the case when the cache is disabled.
+ */
+final class StoredMessageCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StoredMessageCache.class);
+
+    private final Map<Long, CachedMessage> messages = new LinkedHashMap<>();
+
+    private final Set<Long> evictedMessageIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Set once evicted message ids are no longer remembered. Cleared only on restart since a forgotten message
+     * might still be held by the queues which recovered it.
+     */
+    private volatile boolean evictionOverflowed;
+
+    private final int maxSize;
+
+    private final BrokerMetricManager metricManager;
+
+    /**
+     * Create a stored message cache.
+     *
+     * @param maxSize       maximum number of messages to cache
+     * @param metricManager used to record cache hits and misses
+     */
+    StoredMessageCache(int maxSize, BrokerMetricManager metricManager) {
+        this.maxSize = maxSize;
+        this.metricManager = metricManager;
+        this.evictionOverflowed = maxSize <= 0;
+    }
+
+    /**
+     * Get a copy of the message recovered earlier by another queue.
+     *
+     * @param messageId message id
+     * @return copy sharing the attached queues with the cached message, or null if the message is not cached
+     */
+    synchronized Message recover(long messageId) {
+        CachedMessage cachedMessage = messages.get(messageId);
+        if (Objects.isNull(cachedMessage)) {
+            metricManager.markStoredMessageCacheMiss();
+            return null;
+        }
+
+        metricManager.markStoredMessageCacheHit();
+        cachedMessage.pendingQueueCount--;
+        if (cachedMessage.pendingQueueCount <= 0) {
+            messages.remove(messageId);
+        }
+        return cachedMessage.message.bareShallowCopy();
+    }
+
+    /**
+     * Cache a message recovered by the first of its queues.
+     *
+     * @param message message with all its attached queues
+     */
+    synchronized void add(Message message) {
+        int pendingQueueCount = message.getAttachedDurableQueues().size() - 1;
+        if (pendingQueueCount <= 0) {
+            return;
+        }
+
+        if (maxSize <= 0) {
+            return;
+        }
+
+        if (messages.size() >= maxSize) {
+            Iterator<Map.Entry<Long, CachedMessage>> iterator = messages.entrySet().iterator();
+            markEvicted(iterator.next().getKey());
+            iterator.remove();
+        }
+        messages.put(message.getInternalId(), new CachedMessage(message, pendingQueueCount));
+    }
+
+    private void markEvicted(long messageId) {
+        if (evictionOverflowed) {
+            return;
+        }
+
+        if (evictedMessageIds.size() >= maxSize) {
+            evictionOverflowed = true;
+            evictedMessageIds.clear();
+            LOGGER.warn("More than {} stored messages were evicted before all their queues recovered them. Every "
+                                + "detached message is checked for remaining queues from now on.", maxSize);
+            return;
+        }
+        evictedMessageIds.add(messageId);
+    }
+
+    /**
+     * Check whether the message is known to have been evicted before all its queues recovered it. Such a message is
+     * not cached again.
+     */
+    boolean isEvicted(long messageId) {
+        return evictedMessageIds.contains(messageId);
+    }
+
+    /**
+     * Check whether detaching the message from a queue should delete it if no other queue holds it. This is the
+     * case for evicted messages and for every message once evicted ids are no longer remembered.
+     */
+    boolean isUnattachedCheckRequired(long messageId) {
+        return evictionOverflowed || evictedMessageIds.contains(messageId);
+    }
+
+    /**
+     * Remove deleted messages.
+     */
+    synchronized void removeAll(Collection<Long> messageIds) {
+        for (Long messageId : messageIds) {
+            messages.remove(messageId);
+            evictedMessageIds.remove(messageId);
+        }
+    }
+
+    synchronized int size() {
+        return messages.size();
+    }
+
+    /**
+     * Message cached until the rest of its queues recover it.
+     */
+    private static final class CachedMessage {
+
+        private final Message message;
+
+        private int pendingQueueCount;
+
+        private CachedMessage(Message message, int pendingQueueCount) {
+            this.message = message;
+            this.pendingQueueCount = pendingQueueCount;
+        }
+    }
+}
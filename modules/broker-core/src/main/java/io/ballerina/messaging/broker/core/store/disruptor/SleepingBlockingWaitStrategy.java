@@ -22,6 +22,7 @@ package io.ballerina.messaging.broker.core.store.disruptor;
 import com.lmax.disruptor.AlertException;
 import com.lmax.disruptor.Sequence;
 import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.TimeoutException;
 import com.lmax.disruptor.WaitStrategy;
 
 import java.util.concurrent.locks.Condition;
@@ -32,24 +33,56 @@ import java.util.concurrent.locks.ReentrantLock;
 /**
  * Disruptor wait strategy with blocking and sleeping behaviour. This will block depending on the cursor sequence and
  * sleep on dependent sequences which is useful when the preceding handler is a slow processor.
+ * <p>
+ * A handler thread can set a deadline for its waits with {@link #setWaitDeadline(long)}. Handlers implementing
+ * {@link com.lmax.disruptor.TimeoutHandler} are notified once no new event is published by the deadline, until
+ * the deadline is cleared. Threads without a deadline wait until an event is published.
  */
 public class SleepingBlockingWaitStrategy implements WaitStrategy {
     private final Lock lock = new ReentrantLock();
     private final Condition processorNotifyCondition;
+    private final ThreadLocal<WaitDeadline> waitDeadline = ThreadLocal.withInitial(WaitDeadline::new);
 
     public SleepingBlockingWaitStrategy() {
         this.processorNotifyCondition = this.lock.newCondition();
     }
 
+    /**
+     * Time out the waits of the calling thread at the given deadline.
+     *
+     * @param deadlineNanos deadline as a {@link System#nanoTime()} value
+     */
+    public void setWaitDeadline(long deadlineNanos) {
+        WaitDeadline deadline = waitDeadline.get();
+        deadline.nanos = deadlineNanos;
+        deadline.armed = true;
+    }
+
+    /**
+     * Let the calling thread wait without a timeout.
+     */
+    public void clearWaitDeadline() {
+        waitDeadline.get().armed = false;
+    }
+
     public long waitFor(long sequence, Sequence cursorSequence, Sequence dependentSequence, SequenceBarrier barrier)
-            throws AlertException, InterruptedException {
+            throws AlertException, InterruptedException, TimeoutException {
         if (cursorSequence.get() < sequence) {
+            WaitDeadline deadline = waitDeadline.get();
             this.lock.lock();
 
             try {
                 while (cursorSequence.get() < sequence) {
                     barrier.checkAlert();
-                    this.processorNotifyCondition.await();
+                    if (!deadline.armed) {
+                        this.processorNotifyCondition.await();
+                    } else {
+                        long remainingNanos = deadline.nanos - System.nanoTime();
+                        if (remainingNanos <= 0) {
+                            throw TimeoutException.INSTANCE;
+                        }
+                        this.processorNotifyCondition.awaitNanos(remainingNanos);
+                    }
                 }
             } finally {
                 this.lock.unlock();
@@ -75,4 +108,14 @@ public class SleepingBlockingWaitStrategy implements WaitStrategy {
         }
 
     }
+
+    /**
+     * Wait deadline of a handler thread.
+     */
+    private static final class WaitDeadline {
+
+        private boolean armed;
+
+        private long nanos;
+    }
 }
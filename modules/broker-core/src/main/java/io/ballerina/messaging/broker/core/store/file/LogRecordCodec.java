@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.file;
+
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.transaction.XidImpl;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import javax.transaction.xa.Xid;
+
+/**
+ * Encoding of the records written to the {@link SegmentedMessageLog}.
+ * <p>
+ * Each record is framed as {@code [int body length][int CRC32 of body][body]} where the body starts with the record
+ * type. Message bodies start with the message id followed by the attached queues so that recovery can rebuild the
+ * index without decoding the metadata and the content.
+ */
+final class LogRecordCodec {
+
+    static final int HEADER_SIZE = 8;
+
+    static final byte MESSAGE = 1;
+
+    static final byte DETACH = 2;
+
+    static final byte DELETE = 3;
+
+    static final byte PREPARE = 4;
+
+    static final byte COMMIT = 5;
+
+    static final byte ROLLBACK = 6;
+
+    private LogRecordCodec() {
+    }
+
+    /**
+     * Reserve space for the record header and write the record type.
+     *
+     * @return start index of the record, to be passed to {@link #endRecord(ByteBuf, int)}
+     */
+    static int beginRecord(ByteBuf out, byte type) {
+        int start = out.writerIndex();
+        out.writerIndex(start + HEADER_SIZE);
+        out.writeByte(type);
+        return start;
+    }
+
+    static void endRecord(ByteBuf out, int start) {
+        int bodyLength = out.writerIndex() - start - HEADER_SIZE;
+        out.setInt(start, bodyLength);
+        out.setInt(start + 4, checksum(out, start + HEADER_SIZE, bodyLength));
+    }
+
+    static int checksum(ByteBuf buffer, int index, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.nioBuffer(index, length));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Write the body of a message.
+     *
+     * @return length of the written message body
+     */
+    static int writeMessage(ByteBuf out, Message message, Collection<String> queues) {
+        int start = out.writerIndex();
+        out.writeLong(message.getInternalId());
+        writeStrings(out, queues);
+        Metadata metadata = message.getMetadata();
+        writeString(out, metadata.getExchangeName());
+        writeString(out, metadata.getRoutingKey());
+        out.writeLong(metadata.getContentLength());
+        writeBytes(out, metadata.getPropertiesAsBytes());
+        List<ContentChunk> chunks = message.getContentChunks();
+        out.writeInt(chunks.size());
+        for (ContentChunk chunk : chunks) {
+            ByteBuf content = chunk.getByteBuf();
+            out.writeLong(chunk.getOffset());
+            out.writeInt(content.readableBytes());
+            out.writeBytes(content, content.readerIndex(), content.readableBytes());
+        }
+        return out.writerIndex() - start;
+    }
+
+    /**
+     * Write a message body read from the log with a different set of attached queues.
+     */
+    static void rewriteMessage(ByteBuf out, ByteBuf body, Collection<String> queues) {
+        out.writeLong(body.readLong());
+        readStrings(body);
+        writeStrings(out, queues);
+        out.writeBytes(body);
+    }
+
+    static long readMessageId(ByteBuf body) {
+        return body.readLong();
+    }
+
+    static List<String> readMessageQueues(ByteBuf body) {
+        return readStrings(body);
+    }
+
+    /**
+     * Decode the metadata and content of a message body.
+     *
+     * @param body     message body
+     * @param messages messages to be filled with the decoded data
+     */
+    static void readMessageData(ByteBuf body, Collection<Message> messages) throws Exception {
+        body.skipBytes(Long.BYTES);
+        readStrings(body);
+        String exchangeName = readString(body);
+        String routingKey = readString(body);
+        long contentLength = body.readLong();
+        byte[] properties = readBytes(body);
+        Metadata metadata = new Metadata(routingKey, exchangeName, contentLength, properties);
+        for (Message message : messages) {
+            message.setMetadata(metadata);
+        }
+
+        int chunkCount = body.readInt();
+        for (int i = 0; i < chunkCount; i++) {
+            long offset = body.readLong();
+            byte[] bytes = new byte[body.readInt()];
+            body.readBytes(bytes);
+            for (Message message : messages) {
+                message.addChunk(new ContentChunk(offset, Unpooled.wrappedBuffer(bytes)));
+            }
+        }
+    }
+
+    static void writeIds(ByteBuf out, Collection<Long> ids) {
+        out.writeInt(ids.size());
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    static long[] readIds(ByteBuf body) {
+        long[] ids = new long[body.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = body.readLong();
+        }
+        return ids;
+    }
+
+    static void writeXid(ByteBuf out, Xid xid) {
+        out.writeInt(xid.getFormatId());
+        writeBytes(out, xid.getBranchQualifier());
+        writeBytes(out, xid.getGlobalTransactionId());
+    }
+
+    static XidImpl readXid(ByteBuf body) {
+        int formatId = body.readInt();
+        byte[] branchQualifier = readBytes(body);
+        byte[] globalTransactionId = readBytes(body);
+        return new XidImpl(formatId, branchQualifier, globalTransactionId);
+    }
+
+    static void writeString(ByteBuf out, String value) {
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String readString(ByteBuf body) {
+        return new String(readBytes(body), StandardCharsets.UTF_8);
+    }
+
+    private static void writeStrings(ByteBuf out, Collection<String> values) {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuf body) {
+        int count = body.readInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(body));
+        }
+        return values;
+    }
+
+    private static void writeBytes(ByteBuf out, byte[] bytes) {
+        out.writeInt(bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static byte[] readBytes(ByteBuf body) {
+        byte[] bytes = new byte[body.readInt()];
+        body.readBytes(bytes);
+        return bytes;
+    }
+}
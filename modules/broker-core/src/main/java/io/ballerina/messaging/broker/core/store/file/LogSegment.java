@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A single append-only file of the {@link SegmentedMessageLog}. Segments are named by a sequence number so that
+ * listing them in name order gives the order in which they were written.
+ */
+final class LogSegment {
+
+    private static final String FILE_NAME_FORMAT = "%020d" + SegmentedMessageLog.SEGMENT_FILE_SUFFIX;
+
+    private final long sequence;
+
+    private final Path path;
+
+    private final FileChannel channel;
+
+    /**
+     * Position the next record is appended at.
+     */
+    private long size;
+
+    /**
+     * Bytes of the records still needed to recover the stored messages.
+     */
+    private long liveBytes;
+
+    private LogSegment(long sequence, Path path, FileChannel channel, long size) {
+        this.sequence = sequence;
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    static LogSegment create(Path directory, long sequence) throws IOException {
+        Path path = directory.resolve(String.format(FILE_NAME_FORMAT, sequence));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                                               StandardOpenOption.WRITE);
+        try {
+            // The records synced to the segment are lost in a crash unless the new file entry is synced as well
+            forceDirectory(directory);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new LogSegment(sequence, path, channel, 0);
+    }
+
+    /**
+     * Sync the entries of a directory to disk. Skipped on platforms where a directory cannot be opened.
+     */
+    private static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Directories cannot be opened on Windows
+        }
+    }
+
+    static LogSegment open(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        long sequence = Long.parseLong(
+                fileName.substring(0, fileName.length() - SegmentedMessageLog.SEGMENT_FILE_SUFFIX.length()));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new LogSegment(sequence, path, channel, channel.size());
+    }
+
+    /**
+     * Append a record to the end of the segment. The record is durable only after {@link #force()}.
+     *
+     * @param record record bytes
+     * @return position of the record in the segment
+     */
+    long append(ByteBuffer record) throws IOException {
+        long position = size;
+        while (record.hasRemaining()) {
+            size += channel.write(record, size);
+        }
+        return position;
+    }
+
+    /**
+     * Read bytes at the given position. Safe to call concurrently with appends.
+     */
+    ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of segment " + path + " at " + position);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Discard a partially written record at the end of the segment.
+     */
+    void truncate(long newSize) throws IOException {
+        channel.truncate(newSize);
+        size = newSize;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long getLiveBytes() {
+        return liveBytes;
+    }
+
+    void addLiveBytes(long bytes) {
+        liveBytes += bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "LogSegment{path=" + path + ", size=" + size + ", liveBytes=" + liveBytes + '}';
+    }
+}
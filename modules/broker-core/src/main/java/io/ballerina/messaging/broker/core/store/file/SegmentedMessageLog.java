@@ -0,0 +1,983 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.file;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.ballerina.messaging.broker.common.DaoException;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.QueueDetachEventList;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
+import io.ballerina.messaging.broker.core.store.TransactionData;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Timer.Context;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.transaction.xa.Xid;
+
+/**
+ * {@link MessageDao} storing messages in append-only segment files instead of the database.
+ * <p>
+ * Each batch of operations handed over by the message store is appended to the active segment and synced to disk
+ * with a single {@code force}. Detaches and deletes are appended as compact records listing message ids. The
+ * location and attached queues of every stored message are kept in memory and rebuilt by replaying the segments
+ * when the broker starts.
+ * <p>
+ * Space is reclaimed by compacting the oldest segment once the live part of it falls below the compaction
+ * threshold. The messages and prepared transactions still in it are copied to the active segment and the file is
+ * deleted. Compacting strictly oldest first ensures that a detach or delete record is never replayed before an
+ * older copy of the message it refers to.
+ */
+public final class SegmentedMessageLog implements MessageDao {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedMessageLog.class);
+
+    static final String SEGMENT_FILE_SUFFIX = ".log";
+
+    private static final int READ_BUFFER_SIZE = 65536;
+
+    private final Path directory;
+
+    private final long maxSegmentSize;
+
+    private final double compactionThreshold;
+
+    private final BrokerMetricManager metricManager;
+
+    /**
+     * Guards the segments and the in-memory index. Appends and index updates take the write lock while reads take
+     * the read lock so that a segment is not deleted while it is being read.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Serializes compactions. Records are read from the compacted segment and synced to the active segment without
+     * holding {@link #lock}, which is safe since only compaction moves records and deletes segments.
+     */
+    private final Object compactionLock = new Object();
+
+    /**
+     * Segments in the order they were written. The last segment is the one being appended to.
+     */
+    private final Deque<LogSegment> segments = new ArrayDeque<>();
+
+    private final NavigableMap<Long, StoredMessage> storedMessages = new TreeMap<>();
+
+    /**
+     * Stored messages of each queue. Kept in step with the attached queues of the stored messages so that reading
+     * the messages of a queue does not go through the messages of the other queues.
+     */
+    private final Map<String, NavigableMap<Long, StoredMessage>> queueMessages = new HashMap<>();
+
+    private final Map<Xid, PreparedBranch> preparedBranches = new HashMap<>();
+
+    private final ScheduledExecutorService compactionExecutor;
+
+    /**
+     * Open the log in the given directory recovering the messages stored in it.
+     *
+     * @param directory                 directory holding the segment files
+     * @param maxSegmentSize            size in bytes after which a new segment is started
+     * @param compactionThreshold       fraction of live bytes at or below which the oldest segment is compacted
+     * @param compactionIntervalSeconds delay between background compactions. Zero disables background compaction
+     * @param metricManager             metric manager used to time reads and writes
+     * @throws DaoException if the segments cannot be read
+     */
+    public SegmentedMessageLog(Path directory, long maxSegmentSize, double compactionThreshold,
+                               long compactionIntervalSeconds, BrokerMetricManager metricManager)
+            throws DaoException {
+        this.directory = directory;
+        this.maxSegmentSize = maxSegmentSize;
+        this.compactionThreshold = compactionThreshold;
+        this.metricManager = metricManager;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new DaoException("Error recovering messages from " + directory, e);
+        }
+
+        if (compactionIntervalSeconds > 0) {
+            compactionExecutor = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("SegmentedMessageLogCompactor-%d")
+                                              .setDaemon(true).build());
+            compactionExecutor.scheduleWithFixedDelay(this::compactQuietly, compactionIntervalSeconds,
+                                                      compactionIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            compactionExecutor = null;
+        }
+    }
+
+    @Override
+    public void persist(TransactionData transactionData) throws DaoException {
+        ByteBuf batch = Unpooled.buffer();
+        List<StoredMessage> messages = new ArrayList<>(transactionData.getEnqueueMessages().size());
+        for (Message message : transactionData.getEnqueueMessages()) {
+            messages.add(writeMessageRecord(batch, message));
+        }
+        for (Map.Entry<String, QueueDetachEventList> entry : transactionData.getDetachMessageMap().entrySet()) {
+            int start = LogRecordCodec.beginRecord(batch, LogRecordCodec.DETACH);
+            LogRecordCodec.writeString(batch, entry.getKey());
+            LogRecordCodec.writeIds(batch, entry.getValue().getMessageIds());
+            LogRecordCodec.endRecord(batch, start);
+        }
+        Collection<Long> deletedIds = transactionData.getDeletableMessage();
+        writeDeleteRecord(batch, deletedIds);
+
+        lock.writeLock().lock();
+        try (Context ignored = metricManager.startMessageWriteTimer()) {
+            LogSegment segment = appendAndForce(batch);
+            long position = segment.getSize() - batch.writerIndex();
+            for (StoredMessage message : messages) {
+                message.relocate(segment, position + message.position, message.liveBytes);
+                addStoredMessage(message);
+            }
+            for (Map.Entry<String, QueueDetachEventList> entry : transactionData.getDetachMessageMap().entrySet()) {
+                for (long messageId : entry.getValue().getMessageIds()) {
+                    detach(entry.getKey(), messageId);
+                }
+            }
+            for (long messageId : deletedIds) {
+                removeStoredMessage(messageId);
+            }
+        } catch (IOException e) {
+            throw new DaoException("Error persisting messages.", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<Message> readAll(String queueName) throws DaoException {
+        lock.readLock().lock();
+        try {
+            Collection<StoredMessage> queueStoredMessages = getQueueMessages(queueName).values();
+            List<Message> messages = new ArrayList<>(queueStoredMessages.size());
+            for (StoredMessage storedMessage : queueStoredMessages) {
+                messages.add(storedMessage.recoveredCopy());
+            }
+            return messages;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public StoredMessageRange getStoredMessageRange(String queueName) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<Long, StoredMessage> queueStoredMessages = getQueueMessages(queueName);
+            if (queueStoredMessages.isEmpty()) {
+                return new StoredMessageRange(0, 0);
+            }
+            return new StoredMessageRange(queueStoredMessages.size(), queueStoredMessages.lastKey());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<Message> readPage(String queueName, long afterMessageId, long lastMessageId, int pageSize) {
+        lock.readLock().lock();
+        try {
+            List<Message> messages = new ArrayList<>();
+            for (StoredMessage storedMessage : getQueueMessages(queueName)
+                    .subMap(afterMessageId, false, lastMessageId, true).values()) {
+                if (messages.size() >= pageSize) {
+                    break;
+                }
+                messages.add(storedMessage.recoveredCopy());
+            }
+            return messages;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void read(Map<Long, List<Message>> readList) throws DaoException {
+        lock.readLock().lock();
+        try (Context ignored = metricManager.startMessageReadTimer()) {
+            for (Map.Entry<Long, List<Message>> entry : readList.entrySet()) {
+                StoredMessage storedMessage = storedMessages.get(entry.getKey());
+                if (Objects.nonNull(storedMessage)) {
+                    LogRecordCodec.readMessageData(readBody(storedMessage), entry.getValue());
+                }
+            }
+        } catch (Exception e) {
+            throw new DaoException("Error occurred while reading messages", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void prepare(Xid xid, TransactionData transactionData) throws DaoException {
+        ByteBuf batch = Unpooled.buffer();
+        int start = LogRecordCodec.beginRecord(batch, LogRecordCodec.PREPARE);
+        LogRecordCodec.writeXid(batch, xid);
+        batch.writeInt(transactionData.getEnqueueMessages().size());
+        List<StoredMessage> messages = new ArrayList<>(transactionData.getEnqueueMessages().size());
+        for (Message message : transactionData.getEnqueueMessages()) {
+            messages.add(writeEmbeddedMessage(batch, message));
+        }
+        Map<String, long[]> detaches = new HashMap<>();
+        batch.writeInt(transactionData.getDetachMessageMap().size());
+        for (Map.Entry<String, QueueDetachEventList> entry : transactionData.getDetachMessageMap().entrySet()) {
+            LogRecordCodec.writeString(batch, entry.getKey());
+            LogRecordCodec.writeIds(batch, entry.getValue().getMessageIds());
+            detaches.put(entry.getKey(), toArray(entry.getValue().getMessageIds()));
+        }
+        LogRecordCodec.endRecord(batch, start);
+        PreparedBranch branch = new PreparedBranch(xid, messages, detaches, batch.writerIndex());
+
+        lock.writeLock().lock();
+        try (Context ignored = metricManager.startMessageWriteTimer()) {
+            LogSegment segment = appendAndForce(batch);
+            branch.relocate(segment, segment.getSize() - batch.writerIndex());
+            addPreparedBranch(branch);
+        } catch (IOException e) {
+            throw new DaoException("Error persisting prepared transaction " + xid, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void commitPreparedData(Xid xid, TransactionData transactionData) throws DaoException {
+        ByteBuf batch = Unpooled.buffer();
+        int start = LogRecordCodec.beginRecord(batch, LogRecordCodec.COMMIT);
+        LogRecordCodec.writeXid(batch, xid);
+        LogRecordCodec.endRecord(batch, start);
+        Collection<Long> deletedIds = transactionData.getDeletableMessage();
+        writeDeleteRecord(batch, deletedIds);
+
+        lock.writeLock().lock();
+        try (Context ignored = metricManager.startMessageWriteTimer()) {
+            appendAndForce(batch);
+            commitPreparedBranch(xid);
+            for (long messageId : deletedIds) {
+                removeStoredMessage(messageId);
+            }
+        } catch (IOException e) {
+            throw new DaoException("Error committing prepared transaction " + xid, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rollbackPreparedData(Xid xid) throws DaoException {
+        ByteBuf batch = Unpooled.buffer();
+        int start = LogRecordCodec.beginRecord(batch, LogRecordCodec.ROLLBACK);
+        LogRecordCodec.writeXid(batch, xid);
+        LogRecordCodec.endRecord(batch, start);
+
+        lock.writeLock().lock();
+        try {
+            if (preparedBranches.containsKey(xid)) {
+                appendAndForce(batch);
+                rollbackPreparedBranch(xid);
+            }
+        } catch (IOException e) {
+            throw new DaoException("Error rolling back prepared transaction " + xid, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void retrieveAllStoredXids(Consumer<Xid> xidConsumer) throws DaoException {
+        List<Xid> xids;
+        lock.readLock().lock();
+        try {
+            xids = new ArrayList<>(preparedBranches.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+        xids.forEach(xidConsumer);
+    }
+
+    @Override
+    public Collection<Message> retrieveAllEnqueuedMessages(Xid xid) throws DaoException {
+        lock.readLock().lock();
+        try {
+            PreparedBranch branch = preparedBranches.get(xid);
+            if (Objects.isNull(branch)) {
+                return Collections.emptyList();
+            }
+
+            List<Message> messages = new ArrayList<>(branch.messages.size());
+            for (StoredMessage storedMessage : branch.messages) {
+                Message message = new Message(storedMessage.id, null);
+                storedMessage.queues.forEach(message::addAttachedDurableQueue);
+                LogRecordCodec.readMessageData(readBody(storedMessage), Collections.singletonList(message));
+                messages.add(message);
+            }
+            return messages;
+        } catch (Exception e) {
+            throw new DaoException("Error occurred while retrieving enqueued dtx messages", e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compact the oldest segments while their live part is at or below the compaction threshold. The active
+     * segment is never compacted.
+     *
+     * @throws DaoException if copying the live records fails
+     */
+    public void compact() throws DaoException {
+        synchronized (compactionLock) {
+            try {
+                LogSegment segment = getCompactableSegment();
+                while (Objects.nonNull(segment)) {
+                    compact(segment);
+                    segment = getCompactableSegment();
+                }
+            } catch (IOException e) {
+                throw new DaoException("Error compacting message segments", e);
+            }
+        }
+    }
+
+    /**
+     * Stop the background compaction and close the segment files.
+     */
+    @Override
+    public void close() {
+        if (Objects.nonNull(compactionExecutor)) {
+            compactionExecutor.shutdown();
+        }
+        // Wait for a compaction in progress
+        synchronized (compactionLock) {
+            lock.writeLock().lock();
+            try {
+                for (LogSegment segment : segments) {
+                    segment.close();
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Error closing message segments", e);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (DaoException e) {
+            LOGGER.error("Error compacting message segments in " + directory, e);
+        }
+    }
+
+    /**
+     * Get the oldest segment if its live part is at or below the compaction threshold.
+     *
+     * @return the segment to compact or null if there is no such segment
+     */
+    private LogSegment getCompactableSegment() {
+        lock.readLock().lock();
+        try {
+            if (segments.size() <= 1) {
+                return null;
+            }
+            LogSegment oldest = segments.peekFirst();
+            return oldest.getLiveBytes() <= oldest.getSize() * compactionThreshold ? oldest : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void compact(LogSegment segment) throws IOException {
+        List<StoredMessage> liveMessages = new ArrayList<>();
+        List<PreparedBranch> liveBranches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (StoredMessage storedMessage : storedMessages.values()) {
+                if (storedMessage.segment == segment) {
+                    liveMessages.add(storedMessage);
+                }
+            }
+            for (PreparedBranch branch : preparedBranches.values()) {
+                if (branch.segment == segment) {
+                    liveBranches.add(branch);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<ByteBuffer> messageBodies = new ArrayList<>(liveMessages.size());
+        for (StoredMessage storedMessage : liveMessages) {
+            messageBodies.add(segment.read(storedMessage.position, storedMessage.length));
+        }
+        List<ByteBuffer> branchRecords = new ArrayList<>(liveBranches.size());
+        for (PreparedBranch branch : liveBranches) {
+            branchRecords.add(segment.read(branch.position, branch.recordLength));
+        }
+
+        LogSegment target = null;
+        int movedMessageCount;
+        int movedBranchCount;
+        lock.writeLock().lock();
+        try {
+            // Records are rewritten with the current queues of the messages. Messages deleted or stored again
+            // while the segment was read are dropped.
+            ByteBuf batch = Unpooled.buffer();
+            List<StoredMessage> movedMessages = new ArrayList<>();
+            List<int[]> messageLocations = new ArrayList<>();
+            for (int i = 0; i < liveMessages.size(); i++) {
+                StoredMessage storedMessage = liveMessages.get(i);
+                if (storedMessages.get(storedMessage.id) == storedMessage) {
+                    messageLocations.add(rewriteMessage(batch, messageBodies.get(i), storedMessage));
+                    movedMessages.add(storedMessage);
+                }
+            }
+
+            List<PreparedBranch> movedBranches = new ArrayList<>();
+            List<Long> branchPositions = new ArrayList<>();
+            for (int i = 0; i < liveBranches.size(); i++) {
+                PreparedBranch branch = liveBranches.get(i);
+                ByteBuffer record = branchRecords.get(i);
+                if (preparedBranches.get(branch.xid) == branch) {
+                    branchPositions.add((long) batch.writerIndex());
+                    batch.writeBytes(record);
+                    movedBranches.add(branch);
+                    continue;
+                }
+                // The messages of a branch committed while the segment was read are now stored messages
+                for (StoredMessage storedMessage : branch.messages) {
+                    if (storedMessages.get(storedMessage.id) == storedMessage) {
+                        ByteBuffer body = record.duplicate();
+                        body.position((int) (storedMessage.position - branch.position));
+                        body.limit(body.position() + storedMessage.length);
+                        messageLocations.add(rewriteMessage(batch, body, storedMessage));
+                        movedMessages.add(storedMessage);
+                    }
+                }
+            }
+
+            if (batch.isReadable()) {
+                target = append(batch);
+                long base = target.getSize() - batch.writerIndex();
+                for (int i = 0; i < movedMessages.size(); i++) {
+                    StoredMessage storedMessage = movedMessages.get(i);
+                    int[] location = messageLocations.get(i);
+                    storedMessage.segment.addLiveBytes(-storedMessage.liveBytes);
+                    storedMessage.relocate(target, base + location[0], location[1], messageRecordSize(location[1]));
+                    target.addLiveBytes(storedMessage.liveBytes);
+                }
+                for (int i = 0; i < movedBranches.size(); i++) {
+                    PreparedBranch branch = movedBranches.get(i);
+                    branch.segment.addLiveBytes(-branch.recordLength);
+                    branch.relocate(target, base + branchPositions.get(i));
+                    target.addLiveBytes(branch.recordLength);
+                }
+            }
+            segments.removeFirst();
+            movedMessageCount = movedMessages.size();
+            movedBranchCount = movedBranches.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // No reader refers to the segment once it is removed from the index. It is deleted only after the copies
+        // of its records are synced.
+        if (Objects.nonNull(target)) {
+            target.force();
+        }
+        segment.delete();
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Compacted {} moving {} messages and {} prepared transactions", segment,
+                         movedMessageCount, movedBranchCount);
+        }
+    }
+
+    /**
+     * Write a message record with the current queues of the message.
+     *
+     * @return position of the message body in the batch and its length
+     */
+    private static int[] rewriteMessage(ByteBuf batch, ByteBuffer body, StoredMessage storedMessage) {
+        int start = LogRecordCodec.beginRecord(batch, LogRecordCodec.MESSAGE);
+        int bodyPosition = batch.writerIndex();
+        LogRecordCodec.rewriteMessage(batch, Unpooled.wrappedBuffer(body), storedMessage.queues);
+        int[] location = new int[]{bodyPosition, batch.writerIndex() - bodyPosition};
+        LogRecordCodec.endRecord(batch, start);
+        return location;
+    }
+
+    private StoredMessage writeMessageRecord(ByteBuf batch, Message message) {
+        List<String> queues = new ArrayList<>(message.getAttachedDurableQueues());
+        int start = LogRecordCodec.beginRecord(batch, LogRecordCodec.MESSAGE);
+        int bodyPosition = batch.writerIndex();
+        int length = LogRecordCodec.writeMessage(batch, message, queues);
+        LogRecordCodec.endRecord(batch, start);
+        StoredMessage storedMessage = new StoredMessage(message.getInternalId(), queues);
+        storedMessage.relocate(null, bodyPosition, length, messageRecordSize(length));
+        return storedMessage;
+    }
+
+    /**
+     * Write a message of a prepare record. Each message is prefixed with its length.
+     */
+    private static StoredMessage writeEmbeddedMessage(ByteBuf batch, Message message) {
+        List<String> queues = new ArrayList<>(message.getAttachedDurableQueues());
+        int lengthIndex = batch.writerIndex();
+        batch.writeInt(0);
+        int bodyPosition = batch.writerIndex();
+        int length = LogRecordCodec.writeMessage(batch, message, queues);
+        batch.setInt(lengthIndex, length);
+        StoredMessage storedMessage = new StoredMessage(message.getInternalId(), queues);
+        storedMessage.relocate(null, bodyPosition, length, Integer.BYTES + length);
+        return storedMessage;
+    }
+
+    private static void writeDeleteRecord(ByteBuf batch, Collection<Long> messageIds) {
+        if (!messageIds.isEmpty()) {
+            int start = LogRecordCodec.beginRecord(batch, LogRecordCodec.DELETE);
+            LogRecordCodec.writeIds(batch, messageIds);
+            LogRecordCodec.endRecord(batch, start);
+        }
+    }
+
+    private static int messageRecordSize(int bodyLength) {
+        return LogRecordCodec.HEADER_SIZE + 1 + bodyLength;
+    }
+
+    /**
+     * Append a batch of records to the active segment, starting a new segment if the active one is full, and sync
+     * the segment to disk.
+     *
+     * @return segment the batch was appended to
+     */
+    private LogSegment appendAndForce(ByteBuf batch) throws IOException {
+        LogSegment active = append(batch);
+        active.force();
+        return active;
+    }
+
+    /**
+     * Append a batch of records to the active segment without syncing it, starting a new segment if the active one
+     * is full.
+     *
+     * @return segment the batch was appended to
+     */
+    private LogSegment append(ByteBuf batch) throws IOException {
+        LogSegment active = segments.peekLast();
+        if (active.getSize() > 0 && active.getSize() + batch.readableBytes() > maxSegmentSize) {
+            active = LogSegment.create(directory, active.getSequence() + 1);
+            segments.addLast(active);
+        }
+        active.append(batch.nioBuffer());
+        return active;
+    }
+
+    private ByteBuf readBody(StoredMessage storedMessage) throws IOException {
+        return Unpooled.wrappedBuffer(storedMessage.segment.read(storedMessage.position, storedMessage.length));
+    }
+
+    private void addStoredMessage(StoredMessage storedMessage) {
+        StoredMessage replaced = storedMessages.put(storedMessage.id, storedMessage);
+        if (Objects.nonNull(replaced)) {
+            replaced.segment.addLiveBytes(-replaced.liveBytes);
+            for (String queueName : replaced.queues) {
+                removeFromQueue(queueName, replaced.id);
+            }
+        }
+        storedMessage.segment.addLiveBytes(storedMessage.liveBytes);
+        for (String queueName : storedMessage.queues) {
+            addToQueue(queueName, storedMessage);
+        }
+    }
+
+    private void removeStoredMessage(long messageId) {
+        StoredMessage removed = storedMessages.remove(messageId);
+        if (Objects.nonNull(removed)) {
+            removed.segment.addLiveBytes(-removed.liveBytes);
+            for (String queueName : removed.queues) {
+                removeFromQueue(queueName, messageId);
+            }
+        }
+    }
+
+    private void detach(String queueName, long messageId) {
+        StoredMessage storedMessage = storedMessages.get(messageId);
+        if (Objects.nonNull(storedMessage) && storedMessage.queues.remove(queueName)) {
+            removeFromQueue(queueName, messageId);
+        }
+    }
+
+    private NavigableMap<Long, StoredMessage> getQueueMessages(String queueName) {
+        return queueMessages.getOrDefault(queueName, Collections.emptyNavigableMap());
+    }
+
+    private void addToQueue(String queueName, StoredMessage storedMessage) {
+        queueMessages.computeIfAbsent(queueName, name -> new TreeMap<>()).put(storedMessage.id, storedMessage);
+    }
+
+    private void removeFromQueue(String queueName, long messageId) {
+        NavigableMap<Long, StoredMessage> messages = queueMessages.get(queueName);
+        if (Objects.nonNull(messages)) {
+            messages.remove(messageId);
+            if (messages.isEmpty()) {
+                queueMessages.remove(queueName);
+            }
+        }
+    }
+
+    private void addPreparedBranch(PreparedBranch branch) {
+        PreparedBranch replaced = preparedBranches.put(branch.xid, branch);
+        if (Objects.nonNull(replaced)) {
+            replaced.segment.addLiveBytes(-replaced.recordLength);
+        }
+        branch.segment.addLiveBytes(branch.recordLength);
+        for (Map.Entry<String, long[]> entry : branch.detaches.entrySet()) {
+            for (long messageId : entry.getValue()) {
+                detach(entry.getKey(), messageId);
+            }
+        }
+    }
+
+    private void commitPreparedBranch(Xid xid) {
+        PreparedBranch branch = preparedBranches.remove(xid);
+        if (Objects.nonNull(branch)) {
+            branch.segment.addLiveBytes(-branch.recordLength);
+            for (StoredMessage storedMessage : branch.messages) {
+                addStoredMessage(storedMessage);
+            }
+        }
+    }
+
+    private void rollbackPreparedBranch(Xid xid) {
+        PreparedBranch branch = preparedBranches.remove(xid);
+        if (Objects.nonNull(branch)) {
+            branch.segment.addLiveBytes(-branch.recordLength);
+            for (Map.Entry<String, long[]> entry : branch.detaches.entrySet()) {
+                for (long messageId : entry.getValue()) {
+                    StoredMessage storedMessage = storedMessages.get(messageId);
+                    if (Objects.nonNull(storedMessage) && storedMessage.queues.add(entry.getKey())) {
+                        addToQueue(entry.getKey(), storedMessage);
+                    }
+                }
+            }
+        }
+    }
+
+    private void recover() throws IOException, DaoException {
+        List<Path> segmentPaths;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentPaths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_FILE_SUFFIX))
+                                .sorted()
+                                .collect(Collectors.toList());
+        }
+
+        for (int i = 0; i < segmentPaths.size(); i++) {
+            LogSegment segment = LogSegment.open(segmentPaths.get(i));
+            segments.addLast(segment);
+            replay(segment, i == segmentPaths.size() - 1);
+        }
+        if (segments.isEmpty()) {
+            segments.addLast(LogSegment.create(directory, 0));
+        }
+
+        // Messages detached from all the queues are deleted by the broker. Drop the ones whose delete record was
+        // not written, unless a prepared transaction may restore them
+        Set<Long> restorableIds = new HashSet<>();
+        for (PreparedBranch branch : preparedBranches.values()) {
+            for (long[] messageIds : branch.detaches.values()) {
+                for (long messageId : messageIds) {
+                    restorableIds.add(messageId);
+                }
+            }
+        }
+        Iterator<StoredMessage> iterator = storedMessages.values().iterator();
+        while (iterator.hasNext()) {
+            StoredMessage storedMessage = iterator.next();
+            if (storedMessage.queues.isEmpty() && !restorableIds.contains(storedMessage.id)) {
+                storedMessage.segment.addLiveBytes(-storedMessage.liveBytes);
+                iterator.remove();
+            }
+        }
+
+        LOGGER.info("Recovered {} messages and {} prepared transactions from {} segments in {}",
+                    storedMessages.size(), preparedBranches.size(), segments.size(), directory);
+    }
+
+    private void replay(LogSegment segment, boolean isLastSegment) throws IOException, DaoException {
+        long size = segment.getSize();
+        long position = 0;
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(segment.getPath()), READ_BUFFER_SIZE))) {
+            while (position < size) {
+                if (size - position < LogRecordCodec.HEADER_SIZE) {
+                    break;
+                }
+                int length = input.readInt();
+                int checksum = input.readInt();
+                if (length <= 0 || length > size - position - LogRecordCodec.HEADER_SIZE) {
+                    break;
+                }
+                byte[] body = new byte[length];
+                input.readFully(body);
+                ByteBuf bodyBuffer = Unpooled.wrappedBuffer(body);
+                if (LogRecordCodec.checksum(bodyBuffer, 0, length) != checksum) {
+                    break;
+                }
+                apply(segment, position, bodyBuffer);
+                position += LogRecordCodec.HEADER_SIZE + length;
+            }
+        }
+
+        if (position < size) {
+            if (!isLastSegment) {
+                throw new DaoException("Corrupted record at position " + position + " of " + segment.getPath());
+            }
+            // A crash while appending leaves a partial record at the end of the last segment. The record was
+            // never acknowledged since the segment was not synced.
+            LOGGER.warn("Discarding {} bytes of incomplete records at the end of {}", size - position,
+                        segment.getPath());
+            segment.truncate(position);
+        }
+    }
+
+    private void apply(LogSegment segment, long recordPosition, ByteBuf body) throws DaoException {
+        byte type = body.readByte();
+        switch (type) {
+            case LogRecordCodec.MESSAGE:
+                int length = body.readableBytes();
+                StoredMessage storedMessage = new StoredMessage(LogRecordCodec.readMessageId(body),
+                                                                LogRecordCodec.readMessageQueues(body));
+                storedMessage.relocate(segment, recordPosition + LogRecordCodec.HEADER_SIZE + 1, length,
+                                       messageRecordSize(length));
+                addStoredMessage(storedMessage);
+                break;
+            case LogRecordCodec.DETACH:
+                String queueName = LogRecordCodec.readString(body);
+                for (long messageId : LogRecordCodec.readIds(body)) {
+                    detach(queueName, messageId);
+                }
+                break;
+            case LogRecordCodec.DELETE:
+                for (long messageId : LogRecordCodec.readIds(body)) {
+                    removeStoredMessage(messageId);
+                }
+                break;
+            case LogRecordCodec.PREPARE:
+                addPreparedBranch(readPreparedBranch(segment, recordPosition, body));
+                break;
+            case LogRecordCodec.COMMIT:
+                commitPreparedBranch(LogRecordCodec.readXid(body));
+                break;
+            case LogRecordCodec.ROLLBACK:
+                rollbackPreparedBranch(LogRecordCodec.readXid(body));
+                break;
+            default:
+                throw new DaoException("Unknown record type " + type + " at position " + recordPosition + " of "
+                                               + segment.getPath());
+        }
+    }
+
+    private static PreparedBranch readPreparedBranch(LogSegment segment, long recordPosition, ByteBuf body) {
+        long bodyPosition = recordPosition + LogRecordCodec.HEADER_SIZE;
+        Xid xid = LogRecordCodec.readXid(body);
+        int messageCount = body.readInt();
+        List<StoredMessage> messages = new ArrayList<>(messageCount);
+        for (int i = 0; i < messageCount; i++) {
+            int length = body.readInt();
+            int messageStart = body.readerIndex();
+            StoredMessage storedMessage = new StoredMessage(LogRecordCodec.readMessageId(body),
+                                                            LogRecordCodec.readMessageQueues(body));
+            storedMessage.relocate(segment, bodyPosition + messageStart, length, Integer.BYTES + length);
+            messages.add(storedMessage);
+            body.readerIndex(messageStart + length);
+        }
+
+        int detachCount = body.readInt();
+        Map<String, long[]> detaches = new HashMap<>(detachCount);
+        for (int i = 0; i < detachCount; i++) {
+            detaches.put(LogRecordCodec.readString(body), LogRecordCodec.readIds(body));
+        }
+
+        PreparedBranch branch = new PreparedBranch(xid, messages, detaches,
+                                                   LogRecordCodec.HEADER_SIZE + body.capacity());
+        branch.segment = segment;
+        branch.position = recordPosition;
+        return branch;
+    }
+
+    private static long[] toArray(Collection<Long> values) {
+        long[] array = new long[values.size()];
+        int index = 0;
+        for (long value : values) {
+            array[index++] = value;
+        }
+        return array;
+    }
+
+    /**
+     * Location and attached queues of a stored message.
+     */
+    private static final class StoredMessage {
+
+        private final long id;
+
+        private final Set<String> queues;
+
+        private LogSegment segment;
+
+        /**
+         * Position of the message body in the segment.
+         */
+        private long position;
+
+        private int length;
+
+        /**
+         * Bytes of the segment kept live by the message.
+         */
+        private int liveBytes;
+
+        /**
+         * Message handed over to the first queue recovering this message. The other queues get copies sharing
+         * the attached queue set so that the message is deleted only after all of them detach it. Kept only until
+         * the rest of the queues recover the message.
+         */
+        private Message recoveredMessage;
+
+        private int pendingQueueCount;
+
+        private StoredMessage(long id, Collection<String> queues) {
+            this.id = id;
+            this.queues = new HashSet<>(queues);
+        }
+
+        private void relocate(LogSegment segment, long position, int length, int liveBytes) {
+            this.segment = segment;
+            this.position = position;
+            this.length = length;
+            this.liveBytes = liveBytes;
+        }
+
+        private void relocate(LogSegment segment, long position, int liveBytes) {
+            relocate(segment, position, length, liveBytes);
+        }
+
+        /**
+         * Create the message handed over to a recovering queue. Synchronized since queues recover their messages
+         * in parallel. The first message is kept only while more queues are to recover it, so a message read
+         * again after that gets its own attached queue set.
+         */
+        private synchronized Message recoveredCopy() {
+            if (Objects.nonNull(recoveredMessage)) {
+                Message copy = recoveredMessage.bareShallowCopy();
+                pendingQueueCount--;
+                if (pendingQueueCount <= 0) {
+                    recoveredMessage = null;
+                }
+                return copy;
+            }
+
+            Message message = new Message(id, null);
+            queues.forEach(message::addAttachedDurableQueue);
+            if (queues.size() > 1) {
+                recoveredMessage = message;
+                pendingQueueCount = queues.size() - 1;
+            }
+            return message;
+        }
+    }
+
+    /**
+     * Enqueued messages and detaches of a prepared distributed transaction branch.
+     */
+    private static final class PreparedBranch {
+
+        private final Xid xid;
+
+        private final List<StoredMessage> messages;
+
+        private final Map<String, long[]> detaches;
+
+        private final int recordLength;
+
+        private LogSegment segment;
+
+        /**
+         * Position of the prepare record in the segment.
+         */
+        private long position;
+
+        private PreparedBranch(Xid xid, List<StoredMessage> messages, Map<String, long[]> detaches,
+                               int recordLength) {
+            this.xid = xid;
+            this.messages = messages;
+            this.detaches = detaches;
+            this.recordLength = recordLength;
+        }
+
+        /**
+         * Move the branch to a new position, keeping the messages at the same offsets within the record. Message
+         * positions of a branch which is not yet appended are offsets from the start of the batch.
+         */
+        private void relocate(LogSegment newSegment, long newPosition) {
+            long shift = newPosition - (Objects.nonNull(segment) ? position : 0);
+            for (StoredMessage storedMessage : messages) {
+                storedMessage.relocate(newSegment, storedMessage.position + shift, storedMessage.liveBytes);
+            }
+            segment = newSegment;
+            position = newPosition;
+        }
+    }
+}
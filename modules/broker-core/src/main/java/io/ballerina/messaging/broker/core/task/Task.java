@@ -23,9 +23,15 @@ import java.util.concurrent.Callable;
 
 /**
  * This task will be processed by {@link TaskExecutorService} using {@link TaskProcessor} in a round robin manner.
+ * A task which returns {@link TaskHint#IDLE} is parked until it is woken up through {@link #signal()}.
  */
 public abstract class Task implements Callable<Task.TaskHint> {
 
+    /**
+     * Holder of the task within the {@link TaskExecutorService}. Set when the task is added.
+     */
+    private volatile TaskHolder<?> taskHolder;
+
     /**
      * Hint for the {@link TaskProcessor} about the task execution.
      */
@@ -36,11 +42,37 @@ public abstract class Task implements Callable<Task.TaskHint> {
         ACTIVE,
 
         /**
-         * Task didn't do any productive work, hence can be delayed for the next iteration.
+         * Task didn't do any productive work, hence it is parked until it is signalled.
          */
         IDLE
     }
 
+    /**
+     * Notify that the task has work to do. A parked task is queued to be processed. If the task is running at the
+     * moment, it is processed once more even if it returns {@link TaskHint#IDLE}. Signals to a task which is already
+     * queued are ignored.
+     */
+    public final void signal() {
+        TaskHolder<?> holder = taskHolder;
+        if (holder != null) {
+            holder.signal();
+        }
+    }
+
+    void setTaskHolder(TaskHolder<?> taskHolder) {
+        this.taskHolder = taskHolder;
+    }
+
+    /**
+     * Relative share of processing time the task gets while it is active. An active task is run up to this many
+     * times in a row before the other queued tasks of the same {@link TaskProcessor} are run.
+     *
+     * @return weight of the task. Should be at least 1
+     */
+    public int getWeight() {
+        return 1;
+    }
+
     /**
      * Callback invoked when the {@link Task} implementation is added to the internal task queue. If the task is
      * a duplicate entry this method won't get invoked.
@@ -20,22 +20,33 @@
 package io.ballerina.messaging.broker.core.task;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Manage processing of {@link Task}. Holds the {@link TaskHolder} ring and the {@link TaskProcessor} list that
- * process the {@link Task}.
+ * Manage processing of {@link Task}. Holds the {@link TaskHolder} queues and the {@link TaskProcessor} list that
+ * process the {@link Task}. Only the tasks which have work to do are queued. Idle tasks are parked until they are
+ * signalled through {@link Task#signal()}.
+ * <p>
+ * Each {@link TaskProcessor} has a local task queue. Tasks signalled from other threads are distributed among the
+ * local queues in a round robin manner, and a processor with an empty local queue steals tasks from the others.
+ * Hence processors do not contend on a single queue.
  *
  * @param <T> Implementation of the {@link Task} interface.
  */
@@ -47,9 +58,20 @@ public final class TaskExecutorService<T extends Task> {
     private static Logger log = LoggerFactory.getLogger(TaskExecutorService.class);
 
     /**
-     * {@link DelayQueue} used by processors to schedule tasks. Idle task will be processed after a delay.
+     * Local task queues of the processors. Queues outlive the processors so that queued tasks are retained while
+     * the service is stopped. Parked tasks are not in any queue.
      */
-    private final DelayQueue<TaskHolder> taskHolderDelayQueue;
+    private final List<Deque<TaskHolder>> taskHolderQueues;
+
+    /**
+     * Processors parked waiting for tasks.
+     */
+    private final Queue<TaskProcessor> idleProcessors;
+
+    /**
+     * Used to select the queue for tasks signalled from threads other than the processor threads.
+     */
+    private final AtomicInteger nextQueueIndex = new AtomicInteger();
 
     /**
      * Mapping of registered tasks with its task id.
@@ -82,28 +104,31 @@ public final class TaskExecutorService<T extends Task> {
     private TaskExceptionHandler taskExceptionHandler;
 
     /**
-     * Delay for processing IDLE tasks in the next iteration.
+     * Used to record the task scheduling metrics.
      */
-    private long idleTaskDelayMillis;
+    private final BrokerMetricManager metricManager;
 
     /**
      * Create a Task manager with a given number of threads to process the tasks.
      *
-     * @param workerCount         maximum number of threads spawned to process the tasks.
-     * @param idleTaskDelayMillis delay set for processing a task with IDLE
-     *                            {@link io.ballerina.messaging.broker.core.task.Task.TaskHint}.
-     * @param threadFactory       thread factory to be used for processing the tasks.
+     * @param workerCount   maximum number of threads spawned to process the tasks.
+     * @param threadFactory thread factory to be used for processing the tasks.
+     * @param metricManager used to record the task scheduling metrics.
      */
-    public TaskExecutorService(int workerCount, long idleTaskDelayMillis, ThreadFactory threadFactory) {
+    public TaskExecutorService(int workerCount, ThreadFactory threadFactory, BrokerMetricManager metricManager) {
 
         taskExecutorPool = Executors.newFixedThreadPool(workerCount, threadFactory);
         this.workerCount = workerCount;
         taskProcessorQueue = new ArrayDeque<>(workerCount);
         taskUpdateExecutorService = Executors.newSingleThreadExecutor(threadFactory);
         taskExceptionHandler = new DefaultExceptionHandler();
-        taskHolderDelayQueue = new DelayQueue<>();
+        taskHolderQueues = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            taskHolderQueues.add(new ConcurrentLinkedDeque<>());
+        }
+        idleProcessors = new ConcurrentLinkedQueue<>();
         taskHolderRegistry = new ConcurrentHashMap<>();
-        this.idleTaskDelayMillis = idleTaskDelayMillis;
+        this.metricManager = metricManager;
     }
 
     /**
@@ -156,7 +181,7 @@ public final class TaskExecutorService<T extends Task> {
      * Stop processing the tasks.
      */
     public synchronized void stop() {
-        log.info("Stopping task manager. Task count " + taskHolderDelayQueue.size());
+        log.info("Stopping task manager. Task count " + taskHolderRegistry.size());
         for (TaskProcessor taskProcessor : taskProcessorQueue) {
             taskProcessor.deactivate();
         }
@@ -195,16 +220,79 @@ public final class TaskExecutorService<T extends Task> {
             value = "RV_RETURN_VALUE_IGNORED_BAD_PRACTICE",
             justification = "Return future ignored since the execution needs be done asynchronously.")
     public synchronized void start() {
-        log.info("Starting task manager. Task count " + taskHolderDelayQueue.size());
+        log.info("Starting task manager. Task count " + taskHolderRegistry.size());
 
         for (int i = 0; i < workerCount; i++) {
-            TaskProcessor taskProcessor =
-                    new TaskProcessor(taskHolderDelayQueue, taskExceptionHandler, idleTaskDelayMillis);
+            TaskProcessor taskProcessor = new TaskProcessor(i, taskHolderQueues.get(i), this,
+                                                            taskExceptionHandler, metricManager);
             taskProcessorQueue.add(taskProcessor);
             taskExecutorPool.submit(taskProcessor);
         }
     }
 
+    /**
+     * Queue a task to be processed. A task signalled by a processor thread is added to the local queue of that
+     * processor. Otherwise queues are selected in a round robin manner.
+     *
+     * @param taskHolder task to be queued
+     */
+    void schedule(TaskHolder taskHolder) {
+        taskHolder.setQueuedTime(System.nanoTime());
+        TaskProcessor currentProcessor = TaskProcessor.current();
+        Deque<TaskHolder> queue;
+        if (currentProcessor != null && currentProcessor.getTaskExecutorService() == this) {
+            queue = currentProcessor.getLocalQueue();
+        } else {
+            queue = taskHolderQueues.get(Math.floorMod(nextQueueIndex.getAndIncrement(), workerCount));
+        }
+        queue.addLast(taskHolder);
+        wakeUpIdleProcessor();
+    }
+
+    /**
+     * Take a task from the tail of the queue of another processor.
+     *
+     * @param thiefIndex index of the local queue of the processor looking for tasks
+     * @return stolen task or null if all the other queues are empty
+     */
+    TaskHolder steal(int thiefIndex) {
+        for (int i = 1; i < workerCount; i++) {
+            TaskHolder taskHolder = taskHolderQueues.get((thiefIndex + i) % workerCount).pollLast();
+            if (taskHolder != null) {
+                metricManager.markDeliveryTaskSteal();
+                return taskHolder;
+            }
+        }
+        return null;
+    }
+
+    boolean hasQueuedTasks() {
+        for (Deque<TaskHolder> queue : taskHolderQueues) {
+            if (!queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void addIdleProcessor(TaskProcessor taskProcessor) {
+        idleProcessors.add(taskProcessor);
+    }
+
+    void removeIdleProcessor(TaskProcessor taskProcessor) {
+        idleProcessors.remove(taskProcessor);
+    }
+
+    /**
+     * Wake up a parked processor, if there is any, to process newly queued tasks.
+     */
+    void wakeUpIdleProcessor() {
+        TaskProcessor idleProcessor = idleProcessors.poll();
+        if (idleProcessor != null) {
+            idleProcessor.wakeUp();
+        }
+    }
+
     /**
      * Set the exception handler for the task processors.
      *
@@ -231,13 +319,13 @@ public final class TaskExecutorService<T extends Task> {
                 if (taskHolderRegistry.containsKey(task.getId())) {
                     return;
                 }
-                TaskHolder<T> taskHolder = new TaskHolder<>(task);
-                task.onAdd(); // Invoke task callback before adding the task to the taskHolderDelayQueue
+                TaskHolder<T> taskHolder = new TaskHolder<>(task, TaskExecutorService.this);
+                task.onAdd(); // Invoke task callback before adding the task to the task queues
                 // to be processed
                 taskHolderRegistry.put(task.getId(), taskHolder);
-                taskHolderDelayQueue.add(taskHolder);
+                schedule(taskHolder);
                 if (log.isDebugEnabled()) {
-                    log.debug("Task added. ID " + task.getId() + " Total Tasks " + taskHolderDelayQueue.size());
+                    log.debug("Task added. ID " + task.getId() + " Total Tasks " + taskHolderRegistry.size());
                 }
             } catch (Throwable e) {
                 log.error("Error occurred while adding Task " + task, e);
@@ -262,7 +350,7 @@ public final class TaskExecutorService<T extends Task> {
                 TaskHolder taskHolder = taskHolderRegistry.remove(id);
                 taskHolder.disableProcessing(); // disable processors from processing the task
                 if (log.isDebugEnabled()) {
-                    log.debug("Task removed. ID " + taskHolder.getId() + " Total tasks " + taskHolderDelayQueue.size());
+                    log.debug("Task removed. ID " + taskHolder.getId() + " Total tasks " + taskHolderRegistry.size());
                 }
             } catch (Throwable e) {
                 log.error("Error occurred while removing task. Task id " + id, e);
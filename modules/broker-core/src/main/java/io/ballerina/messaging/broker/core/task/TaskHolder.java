@@ -19,21 +19,45 @@
 
 package io.ballerina.messaging.broker.core.task;
 
-import java.util.concurrent.Delayed;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Holds a single {@link Task}. Has references to the next and previous {@link TaskHolder} of the {@link TaskHolder}
- * ring.
+ * Holds a single {@link Task}. Tracks whether the {@link Task} is queued for processing, running or parked.
+ * A {@link TaskHolder} is in the task queue at most once at any given time.
  */
-final class TaskHolder<T extends Task> implements Delayed {
+final class TaskHolder<T extends Task> {
+
+    /**
+     * Task is not in the task queue and waits for a signal.
+     */
+    private static final int PARKED = 0;
+
+    /**
+     * Task is in the task queue waiting for a {@link TaskProcessor}.
+     */
+    private static final int QUEUED = 1;
+
+    /**
+     * Task is taken by a {@link TaskProcessor}.
+     */
+    private static final int RUNNING = 2;
+
+    /**
+     * Task was signalled while it was running. Hence it has to be queued again regardless of the outcome of the run.
+     */
+    private static final int SIGNALLED = 3;
 
     /**
      * {@link Task} implementation related to this {@link TaskHolder}.
      */
     private final T task;
 
+    /**
+     * Executor service the {@link TaskHolder} is scheduled with when it is signalled while parked.
+     */
+    private final TaskExecutorService<?> taskExecutorService;
+
     /**
      * Whether the task execution is disabled or not. True if disabled.
      */
@@ -45,21 +69,34 @@ final class TaskHolder<T extends Task> implements Delayed {
     private AtomicBoolean isProcessing;
 
     /**
-     * Task expiry time in milliseconds. Expired messages will be picked from the
-     * {@link java.util.concurrent.DelayQueue} by the {@link TaskProcessor}s.
+     * Scheduling state of the task. A new task is expected to be queued by the creator.
+     */
+    private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+    /**
+     * Number of consecutive runs left before the task has to give way to other tasks. Only accessed by the
+     * {@link TaskProcessor} running the task.
      */
-    private long expiryTime;
+    private int remainingRuns;
+
+    /**
+     * {@link System#nanoTime()} at which the task was last queued. Used to measure the queue lag.
+     */
+    private long queuedTime;
 
     /**
      * Create a {@link TaskHolder} instance with a {@link Task} implementation.
      *
-     * @param task {@link Task} implementation.
+     * @param task                {@link Task} implementation.
+     * @param taskExecutorService executor service processing the task.
      */
-    TaskHolder(T task) {
+    TaskHolder(T task, TaskExecutorService<?> taskExecutorService) {
         this.task = task;
+        this.taskExecutorService = taskExecutorService;
+        this.remainingRuns = task.getWeight();
         this.isDisabled = new AtomicBoolean(false);
         this.isProcessing = new AtomicBoolean(false);
-        expiryTime = System.currentTimeMillis();
+        task.setTaskHolder(this);
     }
 
     /**
@@ -71,6 +108,7 @@ final class TaskHolder<T extends Task> implements Delayed {
      */
     final T.TaskHint executeTask() throws Exception {
         T.TaskHint hint = Task.TaskHint.IDLE;
+        state.set(RUNNING);
         if (isProcessing.compareAndSet(false, true)) {
             try {
                 if (!isDisabled.get()) {
@@ -84,6 +122,66 @@ final class TaskHolder<T extends Task> implements Delayed {
         return hint;
     }
 
+    /**
+     * Decide whether the task should be queued again after it was run. An IDLE task is parked unless it was
+     * signalled while running.
+     *
+     * @param hint hint returned by the last run of the task
+     * @return true if the task has to be added back to the task queue
+     */
+    boolean requeueAfterRun(Task.TaskHint hint) {
+        if (hint == Task.TaskHint.IDLE) {
+            remainingRuns = task.getWeight();
+            if (state.compareAndSet(RUNNING, PARKED)) {
+                return false;
+            }
+        }
+        state.set(QUEUED);
+        return true;
+    }
+
+    /**
+     * Use up a run of the task. A task is run up to its weight number of times in a row while it is active.
+     *
+     * @return true if the task can be run again before the other queued tasks
+     */
+    boolean useRunCredit() {
+        if (--remainingRuns > 0) {
+            return true;
+        }
+        remainingRuns = task.getWeight();
+        return false;
+    }
+
+    long getQueuedTime() {
+        return queuedTime;
+    }
+
+    void setQueuedTime(long queuedTime) {
+        this.queuedTime = queuedTime;
+    }
+
+    /**
+     * Queue a parked task or make sure a running task is queued again once it completes the current run.
+     */
+    void signal() {
+        while (true) {
+            int current = state.get();
+            if (current == PARKED) {
+                if (state.compareAndSet(PARKED, QUEUED)) {
+                    taskExecutorService.schedule(this);
+                    return;
+                }
+            } else if (current == RUNNING) {
+                if (state.compareAndSet(RUNNING, SIGNALLED)) {
+                    return;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
     /**
      * Underlying {@link Task} implementation.
      *
@@ -113,13 +211,14 @@ final class TaskHolder<T extends Task> implements Delayed {
     }
 
     /**
-     * Disable processing {@link Task}.
+     * Disable processing {@link Task}. A parked task is queued so that a {@link TaskProcessor} removes it.
      */
     void disableProcessing() {
         isDisabled.set(true);
         while (isProcessing.get()) { // Wait till the task is processed
             Thread.yield(); // Hint to the scheduler that the thread is willing to yield. (minimise thread spin)
         }
+        signal();
     }
 
     /**
@@ -131,56 +230,6 @@ final class TaskHolder<T extends Task> implements Delayed {
         return task.getId();
     }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public long getDelay(TimeUnit unit) {
-        return unit.convert(expiryTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
-    }
-
-    /**
-     * Set the expiry time for the {@link Delayed}.
-     *
-     * @param delay    delay
-     * @param timeUnit {@link TimeUnit}
-     */
-    void setDelay(long delay, TimeUnit timeUnit) {
-        this.expiryTime = System.currentTimeMillis() + TimeUnit.MILLISECONDS.convert(delay, timeUnit);
-    }
-
-    /**
-     * <p>
-     * Note: this class has a natural ordering that is inconsistent with equals.
-     * </p>
-     * <p>
-     * For the Delayed queue we need the ordering according to the delay. But to remove {@link TaskHolder} from the
-     * queue we need to have the equals method according to the id of the {@link Task}
-     * </p>
-     * <p>
-     * {@inheritDoc}
-     */
-    @Override
-    public int compareTo(Delayed delayedObject) {
-
-        int order = Long.compare(expiryTime, ((TaskHolder) delayedObject).expiryTime); // order by expiryTime
-        if (order == 0) {
-            order = getId().compareTo(((TaskHolder) delayedObject).getId()); // order by string id
-        }
-        return order;
-    }
-
-    /**
-     * <p>
-     * Note: this class has a natural ordering that is inconsistent with equals.
-     * </p>
-     * <p>
-     * For the Delayed queue we need the ordering according to the delay. But to remove {@link TaskHolder} from the
-     * queue we need to have the equals method according to the id of the {@link Task}
-     * </p>
-     * <p>
-     * {@inheritDoc}
-     */
     @Override
     public boolean equals(Object obj) {
 
@@ -19,16 +19,20 @@
 
 package io.ballerina.messaging.broker.core.task;
 
+import io.ballerina.messaging.broker.core.metrics.BrokerMetricManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.carbon.metrics.core.Timer.Context;
 
+import java.util.Deque;
 import java.util.concurrent.Callable;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 /**
- * Process {@link Task} by going through each {@link TaskHolder} in the {@link TaskHolder} ring.
+ * Process {@link Task}s taken from the local task queue of the processor. When the local queue is empty, tasks are
+ * stolen from the queues of the other processors. Active tasks are added back to the local queue while idle tasks are
+ * parked until they are signalled. The processor thread parks when there are no tasks to process.
  */
 final class TaskProcessor implements Callable<Boolean> {
 
@@ -38,9 +42,24 @@ final class TaskProcessor implements Callable<Boolean> {
     private static Logger log = LoggerFactory.getLogger(TaskProcessor.class);
 
     /**
-     * Reference to {@link TaskHolder} queue.
+     * Processor run by the current thread, if any.
      */
-    private DelayQueue<TaskHolder> taskHolderQueue;
+    private static final ThreadLocal<TaskProcessor> CURRENT_PROCESSOR = new ThreadLocal<>();
+
+    /**
+     * Index of the local queue of the processor.
+     */
+    private final int index;
+
+    /**
+     * Local {@link TaskHolder} queue of the processor. Other processors steal from the tail of this queue.
+     */
+    private final Deque<TaskHolder> localQueue;
+
+    /**
+     * Executor service the processor belongs to.
+     */
+    private final TaskExecutorService<?> taskExecutorService;
 
     /**
      * Whether the processor is active or not.
@@ -53,15 +72,32 @@ final class TaskProcessor implements Callable<Boolean> {
     private TaskExceptionHandler taskExceptionHandler;
 
     /**
-     * Delay to be set for the IDLE tasks.
+     * Used to record the task scheduling metrics.
+     */
+    private final BrokerMetricManager metricManager;
+
+    /**
+     * Thread running the processor. Used to wake up the processor when it is parked.
      */
-    private final long idleWaitTimeMillis;
+    private volatile Thread thread;
 
-    TaskProcessor(DelayQueue<TaskHolder> taskQueue, TaskExceptionHandler exceptionHandler, long idleWaitTimeMillis) {
+    TaskProcessor(int index, Deque<TaskHolder> localQueue, TaskExecutorService<?> taskExecutorService,
+                  TaskExceptionHandler exceptionHandler, BrokerMetricManager metricManager) {
         isActive = new AtomicBoolean(false);
+        this.index = index;
+        this.localQueue = localQueue;
+        this.taskExecutorService = taskExecutorService;
         this.taskExceptionHandler = exceptionHandler;
-        this.taskHolderQueue = taskQueue;
-        this.idleWaitTimeMillis = idleWaitTimeMillis;
+        this.metricManager = metricManager;
+    }
+
+    /**
+     * Get the processor run by the current thread.
+     *
+     * @return the processor or null if the current thread is not a processor thread
+     */
+    static TaskProcessor current() {
+        return CURRENT_PROCESSOR.get();
     }
 
     /**
@@ -69,6 +105,29 @@ final class TaskProcessor implements Callable<Boolean> {
      */
     void deactivate() {
         isActive.set(false);
+        wakeUp();
+    }
+
+    /**
+     * Unpark the processor thread if it is waiting for tasks.
+     */
+    void wakeUp() {
+        Thread processorThread = thread;
+        if (processorThread != null) {
+            LockSupport.unpark(processorThread);
+        }
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    TaskExecutorService<?> getTaskExecutorService() {
+        return taskExecutorService;
+    }
+
+    Deque<TaskHolder> getLocalQueue() {
+        return localQueue;
     }
 
     @Override
@@ -78,48 +137,80 @@ final class TaskProcessor implements Callable<Boolean> {
             if (log.isDebugEnabled()) {
                 log.debug("Task processor started");
             }
-            while (isActive.get()) {
-                TaskHolder taskHolder = null;
-                long delay = 0; // No delay
-                try {
-                    taskHolder = taskHolderQueue.take(); // Wait if queue is empty
-                    Task.TaskHint hint = taskHolder.executeTask();
-                    if (hint == Task.TaskHint.IDLE) {
-                        delay = idleWaitTimeMillis;
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    if (isActive.get()) {
-                        taskExceptionHandler.handleException(e, "null");
+            thread = Thread.currentThread();
+            CURRENT_PROCESSOR.set(this);
+            try {
+                while (isActive.get()) {
+                    TaskHolder taskHolder = localQueue.pollFirst();
+                    if (taskHolder == null) {
+                        taskHolder = taskExecutorService.steal(index);
                     }
-                } catch (Throwable throwable) {
-                    String id;
-                    if (null != taskHolder) {
-                        id = taskHolder.getId();
+
+                    if (taskHolder == null) {
+                        awaitTasks();
                     } else {
-                        id = "null";
-                    }
-                    taskExceptionHandler.handleException(throwable, id);
-                } finally {
-                    // Disabled Tasks will get removed from the queue
-                    // Put to map if not disabled
-                    if (null != taskHolder) {
-                        if (taskHolder.isDisabled()) {
-                            taskHolder.onRemoveTask();
-                        } else {
-                            // Add a delay when adding back to the queue. This ensures the TaskHolder is added to the
-                            // end of the queue. If not TaskHolder will be added to front of the queue
-                            taskHolder.setDelay(delay, TimeUnit.MILLISECONDS);
-                            taskHolderQueue.put(taskHolder);
-                        }
+                        process(taskHolder);
                     }
                 }
+            } finally {
+                CURRENT_PROCESSOR.remove();
+                thread = null;
             }
-            log.info("Task processor stopped. Task queue size {}", taskHolderQueue.size());
+            log.info("Task processor stopped. Local task queue size {}", localQueue.size());
         } else {
             log.error("Task processor is already running ");
             throw new IllegalStateException("Task processor is already running");
         }
         return true;
     }
+
+    private void process(TaskHolder taskHolder) {
+        metricManager.recordDeliveryTaskQueueLag(System.nanoTime() - taskHolder.getQueuedTime());
+        // Tasks failed with an exception are processed again
+        Task.TaskHint hint = Task.TaskHint.ACTIVE;
+        Context runTimer = metricManager.startDeliveryTaskRunTimer();
+        try {
+            hint = taskHolder.executeTask();
+        } catch (Throwable throwable) {
+            taskExceptionHandler.handleException(throwable, taskHolder.getId());
+        } finally {
+            runTimer.stop();
+        }
+
+        // Disabled Tasks will get removed from the queue
+        if (taskHolder.isDisabled()) {
+            taskHolder.onRemoveTask();
+        } else if (taskHolder.requeueAfterRun(hint)) {
+            taskHolder.setQueuedTime(System.nanoTime());
+            if (taskHolder.useRunCredit()) {
+                localQueue.addFirst(taskHolder);
+            } else {
+                boolean otherTasksWaiting = !localQueue.isEmpty();
+                localQueue.addLast(taskHolder);
+                if (otherTasksWaiting) {
+                    // Let an idle processor steal the waiting tasks
+                    taskExecutorService.wakeUpIdleProcessor();
+                }
+            }
+        }
+    }
+
+    /**
+     * Park the processor until a task is scheduled. The processor is registered as idle before checking the queues
+     * one last time so that a task scheduled concurrently is not missed.
+     */
+    private void awaitTasks() {
+        taskExecutorService.addIdleProcessor(this);
+        try {
+            if (isActive.get() && !taskExecutorService.hasQueuedTasks()) {
+                LockSupport.park(this);
+                if (Thread.currentThread().isInterrupted()) {
+                    // Executor is shutting down
+                    isActive.set(false);
+                }
+            }
+        } finally {
+            taskExecutorService.removeIdleProcessor(this);
+        }
+    }
 }
@@ -22,8 +22,10 @@ package io.ballerina.messaging.broker.core;
 import io.ballerina.messaging.broker.common.ValidationException;
 import io.ballerina.messaging.broker.common.data.types.FieldTable;
 import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
 import io.ballerina.messaging.broker.core.queue.MemQueueImpl;
 import io.ballerina.messaging.broker.core.store.dao.impl.NoOpBindingDao;
+import org.mockito.Mockito;
 import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -84,6 +86,25 @@ public class BindingsRegistryTest {
         Assert.assertTrue(bindings.contains(binding));
     }
 
+    @Test(expectedExceptions = ValidationException.class,
+          description = "Test binding a queue which was deleted after it was looked up")
+    public void testBindReleasedQueue() throws Exception {
+        QueueHandler queueHandler = new QueueHandler(new MemQueueImpl("TestQueue", 2, false),
+                                                     new NullBrokerMetricManager(), null);
+        queueHandler.releaseResources();
+        BindingsRegistryListener listener = Mockito.mock(BindingsRegistryListener.class);
+        registry.addBindingsRegistryListeners(listener);
+
+        try {
+            registry.bind(queueHandler, "TestQueue", FieldTable.EMPTY_TABLE);
+        } finally {
+            Assert.assertTrue(registry.isEmpty(), "Binding should not be added for a released queue");
+            // Listeners drop routing data which might include the removed binding
+            Mockito.verify(listener).onUnbind("TestQueue", true);
+            Mockito.verify(listener, Mockito.never()).onBind(Mockito.anyString());
+        }
+    }
+
     private FieldTable getFieldTable(String selector) {
         FieldTable fieldTable;
         if (Objects.isNull(selector)) {
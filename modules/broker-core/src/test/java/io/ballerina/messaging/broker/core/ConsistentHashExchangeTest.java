@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.dao.impl.NoOpBindingDao;
+import io.ballerina.messaging.broker.core.trace.NoOpBrokerTracingManager;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Unit tests verifying consistent-hash exchange related functionality.
+ */
+public class ConsistentHashExchangeTest {
+
+    private static final int KEY_COUNT = 10000;
+
+    private ConsistentHashExchange consistentHashExchange;
+
+    private DbBackedQueueHandlerFactory queueHandlerFactory;
+
+    @BeforeMethod
+    public void beforeTestSetup() {
+        consistentHashExchange = new ConsistentHashExchange("amq.consistent-hash", new NoOpBindingDao());
+        queueHandlerFactory = new DbBackedQueueHandlerFactory(null,
+                                                              new NullBrokerMetricManager(),
+                                                              new BrokerCoreConfiguration(),
+                                                              new NoOpBrokerTracingManager());
+    }
+
+    @Test
+    public void testGetType() {
+        Assert.assertEquals(consistentHashExchange.getType(), Exchange.Type.CONSISTENT_HASH,
+                            "Invalid exchange type");
+        Assert.assertEquals(Exchange.Type.from("x-consistent-hash"), Exchange.Type.CONSISTENT_HASH);
+    }
+
+    @Test(description = "Test each key is routed to exactly one queue and the same queue every time")
+    public void testStableRouting() throws BrokerException, ValidationException {
+        bindQueues(4, "1", FieldTable.EMPTY_TABLE);
+        Map<String, String> assignments = assignKeys();
+
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String key = "order-" + i;
+            Assert.assertEquals(queueNameOf(consistentHashExchange.getBindingsForRoute(key)), assignments.get(key),
+                                "Key should be routed to the same queue");
+        }
+    }
+
+    @Test(description = "Test keys are spread over the queues according to the binding weights")
+    public void testWeightedDistribution() throws BrokerException, ValidationException {
+        bind("light", "1", FieldTable.EMPTY_TABLE);
+        bind("heavy", "3", FieldTable.EMPTY_TABLE);
+
+        Map<String, Integer> counts = new HashMap<>();
+        assignKeys().values().forEach(queueName -> counts.merge(queueName, 1, Integer::sum));
+
+        double heavyShare = (double) counts.get("heavy") / KEY_COUNT;
+        Assert.assertTrue(heavyShare > 0.65 && heavyShare < 0.85,
+                          "Heavy queue should own about three quarters of the keys, got " + heavyShare);
+    }
+
+    @Test(description = "Test binding a queue only moves keys to the new queue")
+    public void testMinimalRebalanceOnBind() throws BrokerException, ValidationException {
+        bindQueues(4, "1", FieldTable.EMPTY_TABLE);
+        Map<String, String> before = assignKeys();
+
+        bind("queue-4", "1", FieldTable.EMPTY_TABLE);
+        Map<String, String> after = assignKeys();
+
+        int moved = 0;
+        for (Map.Entry<String, String> entry : after.entrySet()) {
+            if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                Assert.assertEquals(entry.getValue(), "queue-4", "Keys should only move to the new queue");
+                moved++;
+            }
+        }
+        Assert.assertTrue(moved > KEY_COUNT / 10 && moved < KEY_COUNT * 3 / 10,
+                          "About a fifth of the keys should move, moved " + moved);
+    }
+
+    @Test(description = "Test unbinding a queue only moves the keys of that queue")
+    public void testMinimalRebalanceOnUnbind() throws BrokerException, ValidationException {
+        QueueHandler[] handlers = bindQueues(5, "1", FieldTable.EMPTY_TABLE);
+        Map<String, String> before = assignKeys();
+
+        consistentHashExchange.unbind(handlers[2].getQueue(), "1");
+        Map<String, String> after = assignKeys();
+
+        for (Map.Entry<String, String> entry : before.entrySet()) {
+            if (!entry.getValue().equals("queue-2")) {
+                Assert.assertEquals(after.get(entry.getKey()), entry.getValue(),
+                                    "Keys of the remaining queues should not move");
+            }
+        }
+        Assert.assertFalse(after.containsValue("queue-2"), "Unbound queue should not receive keys");
+    }
+
+    @Test(description = "Test routing on the configured header instead of the routing key")
+    public void testHashHeader() throws BrokerException, ValidationException {
+        FieldTable arguments = new FieldTable();
+        arguments.add(ConsistentHashExchange.X_HASH_HEADER_ARGUMENT, FieldValue.parseLongString("customer"));
+        bindQueues(4, "1", arguments);
+
+        Metadata first = new Metadata("first-key", "amq.consistent-hash", 0);
+        first.addHeader("customer", "c-42");
+        Metadata second = new Metadata("second-key", "amq.consistent-hash", 0);
+        second.addHeader("customer", "c-42");
+        Assert.assertSame(consistentHashExchange.getBindingsForRoute(first),
+                          consistentHashExchange.getBindingsForRoute(second),
+                          "Messages with the same header value should be routed to the same queue");
+
+        Metadata withoutHeader = new Metadata("first-key", "amq.consistent-hash", 0);
+        Assert.assertEquals(queueNameOf(consistentHashExchange.getBindingsForRoute(withoutHeader)),
+                            queueNameOf(consistentHashExchange.getBindingsForRoute("first-key")),
+                            "Routing key should be hashed when the header is missing");
+    }
+
+    @Test(expectedExceptions = ValidationException.class,
+          description = "Test bindings hashing different headers are rejected")
+    public void testConflictingHashHeader() throws BrokerException, ValidationException {
+        FieldTable arguments = new FieldTable();
+        arguments.add(ConsistentHashExchange.X_HASH_HEADER_ARGUMENT, FieldValue.parseLongString("customer"));
+        bind("first", "1", arguments);
+        bind("second", "1", FieldTable.EMPTY_TABLE);
+    }
+
+    @Test(dataProvider = "invalidWeights", expectedExceptions = ValidationException.class,
+          description = "Test binding with a binding key which is not a valid weight")
+    public void testInvalidWeight(String weight) throws BrokerException, ValidationException {
+        bind("queue", weight, FieldTable.EMPTY_TABLE);
+    }
+
+    @Test(description = "Test routing without bindings")
+    public void testRouteWithoutBindings() {
+        Assert.assertTrue(consistentHashExchange.getBindingsForRoute("key").isEmpty());
+    }
+
+    @DataProvider(name = "invalidWeights")
+    public Object[] invalidWeights() {
+        return new Object[]{"", "queue", "0", "-1", String.valueOf(ConsistentHashExchange.MAX_WEIGHT + 1)};
+    }
+
+    private QueueHandler[] bindQueues(int count, String weight, FieldTable arguments)
+            throws BrokerException, ValidationException {
+        QueueHandler[] handlers = new QueueHandler[count];
+        for (int i = 0; i < count; i++) {
+            handlers[i] = bind("queue-" + i, weight, arguments);
+        }
+        return handlers;
+    }
+
+    private QueueHandler bind(String queueName, String weight, FieldTable arguments)
+            throws BrokerException, ValidationException {
+        QueueHandler handler = queueHandlerFactory.createNonDurableQueueHandler(queueName, false);
+        consistentHashExchange.bind(handler, weight, arguments);
+        return handler;
+    }
+
+    private Map<String, String> assignKeys() {
+        Map<String, String> assignments = new HashMap<>();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            String key = "order-" + i;
+            assignments.put(key, queueNameOf(consistentHashExchange.getBindingsForRoute(key)));
+        }
+        return assignments;
+    }
+
+    private static String queueNameOf(BindingSet bindingSet) {
+        Assert.assertEquals(bindingSet.getUnfilteredBindings().size(), 1, "Should route to exactly one queue");
+        return bindingSet.getUnfilteredBindings().iterator().next().getQueue().getName();
+    }
+}
@@ -105,6 +105,22 @@ public class ExchangeRegistryTest {
         
     }
 
+    @Test(description = "Declare an exchange with an unknown type",
+          expectedExceptions = ValidationException.class)
+    public void testDeclareExchangeWithUnknownType() throws BrokerException, ValidationException {
+        exchangeRegistry.declareExchange(NON_EXISTING_EXCHANGE, "unknown", false, false);
+        Assert.fail("Declaring an exchange with an unknown type should throw a error.");
+    }
+
+    @Test(dataProvider = "exchangeTypes", description = "Create exchanges of each supported type")
+    public void testCreateExchangeOfType(Exchange.Type type) throws BrokerException, ValidationException {
+        exchangeRegistry.createExchange(NON_EXISTING_EXCHANGE, type.toString(), false);
+
+        Exchange exchange = exchangeRegistry.getExchange(NON_EXISTING_EXCHANGE);
+        Assert.assertNotNull(exchange, "unable to find the created exchange");
+        Assert.assertEquals(exchange.getType(), type, "invalid exchange type");
+    }
+
     @Test(dataProvider = "exchangeNames", description = "try to delete built in exchanges",
           expectedExceptions = ValidationException.class)
     public void testDeleteBuiltInExchanges(String exchangeName) throws BrokerException, ValidationException {
@@ -124,5 +140,15 @@ public class ExchangeRegistryTest {
         return new Object[][] { { "amq.direct" }, { "<<default>>" } };
     }
 
+    @DataProvider(name = "exchangeTypes")
+    public Object[][] exchangeTypes() {
+        Exchange.Type[] types = Exchange.Type.values();
+        Object[][] data = new Object[types.length][];
+        for (int i = 0; i < types.length; i++) {
+            data[i] = new Object[] { types[i] };
+        }
+        return data;
+    }
+
 
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.dao.impl.NoOpBindingDao;
+import io.ballerina.messaging.broker.core.trace.NoOpBrokerTracingManager;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Unit tests verifying fanout exchange related functionality.
+ */
+public class FanoutExchangeTest {
+
+    private FanoutExchange fanoutExchange;
+
+    private DbBackedQueueHandlerFactory queueHandlerFactory;
+
+    @BeforeMethod
+    public void beforeTestSetup() {
+        fanoutExchange = new FanoutExchange("amq.fanout", new NoOpBindingDao());
+        queueHandlerFactory = new DbBackedQueueHandlerFactory(null,
+                                                              new NullBrokerMetricManager(),
+                                                              new BrokerCoreConfiguration(),
+                                                              new NoOpBrokerTracingManager());
+    }
+
+    @Test
+    public void testGetType() {
+        Assert.assertEquals(fanoutExchange.getType(), Exchange.Type.FANOUT, "Invalid exchange type");
+    }
+
+    @Test(description = "Test messages are routed to all the bound queues irrespective of the routing key")
+    public void testRouteToAllBindings() throws BrokerException, ValidationException {
+        QueueHandler firstHandler = queueHandlerFactory.createNonDurableQueueHandler("first", false);
+        QueueHandler secondHandler = queueHandlerFactory.createNonDurableQueueHandler("second", false);
+        fanoutExchange.bind(firstHandler, "first", FieldTable.EMPTY_TABLE);
+        fanoutExchange.bind(secondHandler, "", FieldTable.EMPTY_TABLE);
+
+        BindingSet bindingSet = fanoutExchange.getBindingsForRoute("unrelated.key");
+        Assert.assertEquals(queueNamesOf(bindingSet), setOf("first", "second"), "All queues should be matched");
+        Assert.assertSame(fanoutExchange.getBindingsForRoute("other.key"), bindingSet,
+                          "Routing should reuse the binding snapshot");
+    }
+
+    @Test(description = "Test the binding snapshot is rebuilt on bind and unbind")
+    public void testSnapshotUpdatedOnBindingChange() throws BrokerException, ValidationException {
+        Assert.assertTrue(fanoutExchange.getBindingsForRoute("key").isEmpty(), "No bindings should match");
+
+        QueueHandler firstHandler = queueHandlerFactory.createNonDurableQueueHandler("first", false);
+        QueueHandler secondHandler = queueHandlerFactory.createNonDurableQueueHandler("second", false);
+        fanoutExchange.bind(firstHandler, "first", FieldTable.EMPTY_TABLE);
+        Assert.assertEquals(queueNamesOf(fanoutExchange.getBindingsForRoute("key")), setOf("first"));
+
+        fanoutExchange.bind(secondHandler, "second", FieldTable.EMPTY_TABLE);
+        Assert.assertEquals(queueNamesOf(fanoutExchange.getBindingsForRoute("key")), setOf("first", "second"));
+
+        fanoutExchange.unbind(firstHandler.getQueue(), "first");
+        Assert.assertEquals(queueNamesOf(fanoutExchange.getBindingsForRoute("key")), setOf("second"));
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class,
+          description = "Test the shared binding snapshot cannot be modified")
+    public void testSnapshotIsUnmodifiable() throws BrokerException, ValidationException {
+        QueueHandler handler = queueHandlerFactory.createNonDurableQueueHandler("first", false);
+        fanoutExchange.bind(handler, "first", FieldTable.EMPTY_TABLE);
+
+        fanoutExchange.getBindingsForRoute("key").remove(handler.getQueue());
+    }
+
+    private static Set<String> queueNamesOf(BindingSet bindingSet) {
+        Set<String> queueNames = new HashSet<>();
+        bindingSet.getUnfilteredBindings().forEach(binding -> queueNames.add(binding.getQueue().getName()));
+        bindingSet.getFilteredBindings().forEach(binding -> queueNames.add(binding.getQueue().getName()));
+        return queueNames;
+    }
+
+    private static Set<String> setOf(String... values) {
+        Set<String> set = new HashSet<>();
+        for (String value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.dao.impl.NoOpBindingDao;
+import io.ballerina.messaging.broker.core.trace.NoOpBrokerTracingManager;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Unit tests verifying headers exchange related functionality.
+ */
+public class HeadersExchangeTest {
+
+    private HeadersExchange headersExchange;
+
+    private DbBackedQueueHandlerFactory queueHandlerFactory;
+
+    @BeforeMethod
+    public void beforeTestSetup() {
+        headersExchange = new HeadersExchange("amq.match", new NoOpBindingDao());
+        queueHandlerFactory = new DbBackedQueueHandlerFactory(null,
+                                                              new NullBrokerMetricManager(),
+                                                              new BrokerCoreConfiguration(),
+                                                              new NoOpBrokerTracingManager());
+    }
+
+    @Test
+    public void testGetType() {
+        Assert.assertEquals(headersExchange.getType(), Exchange.Type.HEADERS, "Invalid exchange type");
+    }
+
+    @Test(dataProvider = "headerMatches", description = "Test matching message headers against binding arguments")
+    public void testHeaderMatching(String matchType, String[] headers, boolean expectedMatch)
+            throws BrokerException, ValidationException {
+        QueueHandler handler = queueHandlerFactory.createNonDurableQueueHandler("queue", false);
+        FieldTable arguments = new FieldTable();
+        if (matchType != null) {
+            arguments.add(HeadersExchange.X_MATCH_ARGUMENT, FieldValue.parseLongString(matchType));
+        }
+        arguments.add(ShortString.parseString("region"), FieldValue.parseLongString("eu"));
+        arguments.add(ShortString.parseString("tier"), FieldValue.parseLongString("gold"));
+        headersExchange.bind(handler, "", arguments);
+
+        Set<String> queueNames = queueNamesOf(headersExchange.getBindingsForRoute(metadataWithHeaders(headers)));
+        Assert.assertEquals(queueNames.contains("queue"), expectedMatch, "Invalid match for headers");
+    }
+
+    @Test(description = "Test short string headers match long string arguments")
+    public void testMatchingAcrossStringTypes() throws BrokerException, ValidationException {
+        QueueHandler handler = queueHandlerFactory.createNonDurableQueueHandler("queue", false);
+        FieldTable arguments = new FieldTable();
+        arguments.add(ShortString.parseString("region"), FieldValue.parseLongString("eu"));
+        headersExchange.bind(handler, "", arguments);
+
+        Metadata metadata = new Metadata("", "amq.match", 0);
+        metadata.getHeaders().add(ShortString.parseString("region"), FieldValue.parseShortString("eu"));
+        Assert.assertEquals(queueNamesOf(headersExchange.getBindingsForRoute(metadata)), setOf("queue"));
+    }
+
+    @Test(description = "Test a void argument matches any value of the header")
+    public void testVoidArgumentMatchesPresence() throws BrokerException, ValidationException {
+        QueueHandler handler = queueHandlerFactory.createNonDurableQueueHandler("queue", false);
+        FieldTable arguments = new FieldTable();
+        arguments.add(ShortString.parseString("region"), FieldValue.parseVoid());
+        arguments.add(ShortString.parseString("tier"), FieldValue.parseLongString("gold"));
+        headersExchange.bind(handler, "", arguments);
+
+        Assert.assertEquals(queueNamesOf(headersExchange.getBindingsForRoute(
+                metadataWithHeaders("region", "us", "tier", "gold"))), setOf("queue"));
+        Assert.assertEquals(queueNamesOf(headersExchange.getBindingsForRoute(
+                metadataWithHeaders("tier", "gold"))), setOf(), "Void argument should require the header");
+    }
+
+    @Test(description = "Test partial matches of a message do not carry over to the next message")
+    public void testConsecutiveMessages() throws BrokerException, ValidationException {
+        QueueHandler handler = queueHandlerFactory.createNonDurableQueueHandler("queue", false);
+        FieldTable arguments = regionArguments("eu");
+        arguments.add(ShortString.parseString("tier"), FieldValue.parseLongString("gold"));
+        headersExchange.bind(handler, "", arguments);
+
+        Assert.assertEquals(queueNamesOf(headersExchange.getBindingsForRoute(
+                metadataWithHeaders("region", "eu"))), setOf());
+        Assert.assertEquals(queueNamesOf(headersExchange.getBindingsForRoute(
+                metadataWithHeaders("tier", "gold"))), setOf());
+    }
+
+    @Test(description = "Test the index is rebuilt on bind and unbind")
+    public void testIndexUpdatedOnBindingChange() throws BrokerException, ValidationException {
+        QueueHandler euHandler = queueHandlerFactory.createNonDurableQueueHandler("eu", false);
+        QueueHandler usHandler = queueHandlerFactory.createNonDurableQueueHandler("us", false);
+        Metadata metadata = metadataWithHeaders("region", "eu", "tier", "gold");
+
+        headersExchange.bind(euHandler, "eu", regionArguments("eu"));
+        Assert.assertEquals(queueNamesOf(headersExchange.getBindingsForRoute(metadata)), setOf("eu"));
+
+        FieldTable tierArguments = new FieldTable();
+        tierArguments.add(ShortString.parseString("tier"), FieldValue.parseLongString("gold"));
+        headersExchange.bind(usHandler, "us", regionArguments("us"));
+        headersExchange.bind(usHandler, "gold", tierArguments);
+        Assert.assertEquals(queueNamesOf(headersExchange.getBindingsForRoute(metadata)), setOf("eu", "us"),
+                            "A queue matching through one of its bindings should be routed");
+
+        headersExchange.unbind(euHandler.getQueue(), "eu");
+        Assert.assertEquals(queueNamesOf(headersExchange.getBindingsForRoute(metadata)), setOf("us"));
+    }
+
+    @Test(expectedExceptions = ValidationException.class,
+          description = "Test binding with an invalid x-match argument")
+    public void testInvalidMatchType() throws BrokerException, ValidationException {
+        QueueHandler handler = queueHandlerFactory.createNonDurableQueueHandler("queue", false);
+        FieldTable arguments = regionArguments("eu");
+        arguments.add(HeadersExchange.X_MATCH_ARGUMENT, FieldValue.parseLongString("some"));
+        headersExchange.bind(handler, "", arguments);
+    }
+
+    @DataProvider(name = "headerMatches")
+    public Object[][] headerMatches() {
+        return new Object[][]{
+                {null, new String[]{"region", "eu", "tier", "gold"}, true},
+                {"all", new String[]{"region", "eu", "tier", "gold", "other", "value"}, true},
+                {"all", new String[]{"region", "eu"}, false},
+                {"all", new String[]{"region", "eu", "tier", "silver"}, false},
+                {"any", new String[]{"region", "eu"}, true},
+                {"any", new String[]{"region", "us", "tier", "gold"}, true},
+                {"any", new String[]{"region", "us", "tier", "silver"}, false},
+                {"any", new String[]{}, false}
+        };
+    }
+
+    private static FieldTable regionArguments(String region) {
+        FieldTable arguments = new FieldTable();
+        arguments.add(ShortString.parseString("region"), FieldValue.parseLongString(region));
+        return arguments;
+    }
+
+    private static Metadata metadataWithHeaders(String... headers) {
+        Metadata metadata = new Metadata("", "amq.match", 0);
+        for (int i = 0; i < headers.length; i += 2) {
+            metadata.addHeader(headers[i], headers[i + 1]);
+        }
+        return metadata;
+    }
+
+    private static Set<String> queueNamesOf(BindingSet bindingSet) {
+        Set<String> queueNames = new HashSet<>();
+        bindingSet.getUnfilteredBindings().forEach(binding -> queueNames.add(binding.getQueue().getName()));
+        bindingSet.getFilteredBindings().forEach(binding -> queueNames.add(binding.getQueue().getName()));
+        return queueNames;
+    }
+
+    private static Set<String> setOf(String... values) {
+        Set<String> set = new HashSet<>();
+        for (String value : values) {
+            set.add(value);
+        }
+        return set;
+    }
+}
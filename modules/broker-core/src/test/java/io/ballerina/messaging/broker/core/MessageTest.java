@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests verifying the content of a message is shared between its copies.
+ */
+public class MessageTest {
+
+    private ByteBuf content;
+
+    private Message message;
+
+    @BeforeMethod
+    public void setUp() {
+        content = Unpooled.buffer(16);
+        content.writeLong(42L);
+        message = new Message(1, new Metadata("queue", "amq.direct", 8));
+        message.addChunk(new ContentChunk(0, content));
+    }
+
+    @Test(description = "Test copies share the content and metadata of the message")
+    public void testCopiesShareContent() {
+        Message copy = message.shallowCopy();
+
+        Assert.assertSame(copy.getContentChunks().get(0), message.getContentChunks().get(0));
+        Assert.assertSame(copy.getMetadata(), message.getMetadata());
+        Assert.assertEquals(content.refCnt(), 1, "Copying should not retain the content chunks");
+
+        copy.release();
+        message.release();
+    }
+
+    @Test(description = "Test content is released with the last copy")
+    public void testContentReleasedWithLastCopy() {
+        Message first = message.shallowCopy();
+        Message second = first.shallowCopy();
+        Message deadLettered = message.shallowCopyWith(2, "dlc", "amq.dlx");
+
+        message.release();
+        first.release();
+        second.release();
+        Assert.assertEquals(content.refCnt(), 1, "Content should be retained while a copy is not released");
+        Assert.assertEquals(deadLettered.getContentChunks().get(0).getByteBuf().getLong(0), 42L);
+
+        deadLettered.release();
+        Assert.assertEquals(content.refCnt(), 0);
+    }
+
+    @Test(description = "Test releasing a copy more than once does not release the content of other copies")
+    public void testRepeatedRelease() {
+        Message copy = message.shallowCopy();
+
+        copy.release();
+        copy.release();
+        copy.clearData();
+        Assert.assertTrue(copy.getContentChunks().isEmpty());
+        Assert.assertEquals(content.refCnt(), 1);
+
+        message.clearData();
+        Assert.assertEquals(content.refCnt(), 0);
+    }
+
+    @Test(description = "Test cleared messages accept content read from the store")
+    public void testAddChunkAfterClear() {
+        message.clearData();
+        ByteBuf readContent = Unpooled.wrappedBuffer(new byte[8]);
+        message.addChunk(new ContentChunk(0, readContent));
+
+        Assert.assertEquals(message.getContentChunks().size(), 1);
+        message.release();
+        Assert.assertEquals(readContent.refCnt(), 0);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.ValidationException;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.dao.impl.NullQueueDao;
+import io.ballerina.messaging.broker.core.trace.NoOpBrokerTracingManager;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests adding and removing queues without a global broker lock.
+ */
+public class QueueRegistryTest {
+
+    private QueueRegistry queueRegistry;
+
+    @BeforeMethod
+    public void setUp() throws BrokerException {
+        queueRegistry = new QueueRegistry(new NullQueueDao(),
+                                          new DbBackedQueueHandlerFactory(null,
+                                                                          new NullBrokerMetricManager(),
+                                                                          new BrokerCoreConfiguration(),
+                                                                          new NoOpBrokerTracingManager()));
+    }
+
+    @Test(description = "Test messages routed to a queue after it is removed are dropped")
+    public void testEnqueueAfterRemove() throws Exception {
+        queueRegistry.addQueue("queue", false, false, false);
+        QueueHandler queueHandler = queueRegistry.getQueueHandler("queue");
+        queueHandler.enqueue(new Message(1, new Metadata("queue", "<<default>>", 0)));
+
+        Assert.assertEquals(queueRegistry.removeQueue("queue", false, false), 1);
+        Assert.assertTrue(queueHandler.isReleased(), "Removed queue should be released");
+
+        queueHandler.enqueue(new Message(2, new Metadata("queue", "<<default>>", 0)));
+        Assert.assertEquals(queueHandler.size(), 1, "Message should not be added to a removed queue");
+    }
+
+    @Test(expectedExceptions = ValidationException.class,
+          description = "Test a queue with consumers is not removed when the ifUnused parameter is set")
+    public void testRemoveUsedQueue() throws Exception {
+        queueRegistry.addQueue("queue", false, false, false);
+        QueueHandler queueHandler = queueRegistry.getQueueHandler("queue");
+        queueHandler.addConsumer(new TestConsumer("queue"));
+
+        queueRegistry.removeQueue("queue", true, false);
+    }
+
+    @Test(description = "Test queues are added and removed concurrently while publishing to them")
+    public void testConcurrentAddAndRemove() throws Exception {
+        int threadCount = 8;
+        int iterations = 500;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount * 2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                String queueName = "queue-" + i;
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < iterations; j++) {
+                        Assert.assertTrue(queueRegistry.addQueue(queueName, false, false, true));
+                        queueRegistry.removeQueue(queueName, false, false);
+                    }
+                    return null;
+                }));
+                futures.add(executorService.submit(() -> {
+                    for (int j = 0; j < iterations; j++) {
+                        QueueHandler queueHandler = queueRegistry.getQueueHandler(queueName);
+                        if (queueHandler != null) {
+                            queueHandler.enqueue(new Message(j, new Metadata(queueName, "<<default>>", 0)));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertTrue(queueRegistry.getAllQueues().isEmpty(), "All the queues should be removed");
+    }
+
+    /**
+     * Consumer which does not receive any message.
+     */
+    private static class TestConsumer extends Consumer {
+
+        private final String queueName;
+
+        TestConsumer(String queueName) {
+            this.queueName = queueName;
+        }
+
+        @Override
+        protected void send(Message message) {
+            message.release();
+        }
+
+        @Override
+        public String getQueueName() {
+            return queueName;
+        }
+
+        @Override
+        protected void close() {
+            // do nothing
+        }
+
+        @Override
+        public boolean isExclusive() {
+            return false;
+        }
+
+        @Override
+        public boolean isReady() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests verifying the parallel recovery of broker resources.
+ */
+public class RecoveryExecutorTest {
+
+    private static final List<String> RESOURCES = Arrays.asList("q1", "q2", "q3", "q4");
+
+    @Test(description = "Test resources are recovered in parallel and all of them are recovered before returning")
+    public void testRecoverAllInParallel() throws Exception {
+        RecoveryExecutor recoveryExecutor = new RecoveryExecutor(RESOURCES.size());
+        CountDownLatch started = new CountDownLatch(RESOURCES.size());
+        Set<String> recovered = ConcurrentHashMap.newKeySet();
+
+        recoveryExecutor.recoverAll(RESOURCES, resource -> {
+            started.countDown();
+            try {
+                // Completes only if all the resources are being recovered at the same time
+                if (!started.await(10, TimeUnit.SECONDS)) {
+                    throw new BrokerException("Resources were not recovered in parallel");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BrokerException("Interrupted", e);
+            }
+            recovered.add(resource);
+        });
+
+        Assert.assertEquals(recovered.size(), RESOURCES.size());
+    }
+
+    @Test(description = "Test a recovery failure is reported to the caller",
+          expectedExceptions = BrokerException.class,
+          expectedExceptionsMessageRegExp = "Error recovering q3")
+    public void testRecoveryFailure() throws Exception {
+        RecoveryExecutor recoveryExecutor = new RecoveryExecutor(2);
+
+        recoveryExecutor.recoverAll(RESOURCES, resource -> {
+            if ("q3".equals(resource)) {
+                throw new BrokerException("Error recovering " + resource);
+            }
+        });
+    }
+
+    @Test(description = "Test unexpected errors are reported as broker exceptions",
+          expectedExceptions = BrokerException.class)
+    public void testUnexpectedRecoveryFailure() throws Exception {
+        RecoveryExecutor recoveryExecutor = new RecoveryExecutor(2);
+
+        recoveryExecutor.recoverAll(RESOURCES, resource -> {
+            throw new IllegalStateException("Unexpected error recovering " + resource);
+        });
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RoutingCacheTest {
+
+    private List<String> computedRoutingKeys;
+
+    private RoutingCache routingCache;
+
+    @BeforeMethod
+    public void setUp() {
+        computedRoutingKeys = new ArrayList<>();
+        routingCache = new RoutingCache(3, new NullBrokerMetricManager(), routingKey -> {
+            computedRoutingKeys.add(routingKey);
+            return new BindingSet();
+        });
+    }
+
+    @Test
+    public void testCachedBindingsAreReused() {
+        BindingSet bindingSet = routingCache.get("sports.cricket");
+        Assert.assertSame(routingCache.get("sports.cricket"), bindingSet);
+        Assert.assertEquals(computedRoutingKeys.size(), 1, "Bindings should be computed only on a miss");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testCachedBindingsAreUnmodifiable() {
+        routingCache.get("sports.cricket").add(new BindingSet());
+    }
+
+    @Test
+    public void testOnlyMatchingRoutingKeysAreInvalidated() {
+        routingCache.get("sports.cricket");
+        routingCache.get("sports.football");
+        routingCache.get("news.local");
+
+        routingCache.invalidate("sports.#");
+        Assert.assertEquals(routingCache.size(), 1);
+
+        routingCache.get("news.local");
+        routingCache.get("sports.cricket");
+        Assert.assertEquals(computedRoutingKeys.size(), 4, "Only the invalidated routing key should be recomputed");
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        for (int i = 0; i < 10; i++) {
+            routingCache.get("key." + i);
+        }
+        Assert.assertTrue(routingCache.size() <= 3, "Cache should not grow beyond its maximum size");
+    }
+
+    @Test
+    public void testRecentlyReadKeysAreKept() {
+        routingCache.get("key.0");
+        routingCache.get("key.1");
+        routingCache.get("key.2");
+        for (int i = 3; i < 10; i++) {
+            routingCache.get("key.0");
+            routingCache.get("key." + i);
+        }
+        computedRoutingKeys.clear();
+
+        routingCache.get("key.0");
+        Assert.assertTrue(computedRoutingKeys.isEmpty(), "A key read between misses should not be evicted");
+    }
+
+    @Test
+    public void testDisabledCache() {
+        RoutingCache disabledCache = new RoutingCache(0, new NullBrokerMetricManager(), routingKey -> {
+            computedRoutingKeys.add(routingKey);
+            return new BindingSet();
+        });
+        disabledCache.get("sports.cricket");
+        disabledCache.get("sports.cricket");
+        Assert.assertEquals(computedRoutingKeys.size(), 2);
+        Assert.assertEquals(disabledCache.size(), 0);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.trace.NoOpBrokerTracingManager;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Unit tests verifying filtered bindings are matched through the selector index.
+ */
+public class SelectorIndexTest {
+
+    private static final String[] SELECTORS = {
+            "region = 'eu'",
+            "region = 'us'",
+            "region = 'eu'",
+            "priority = 5",
+            "priority = 7",
+            "region = 'us'",
+            "tier = 'gold'",
+            "JMSCorrelationID = 'id-1'",
+            "region = 'apac'",
+            "missing = 'value'",
+            "region IN ('eu', 'apac')",
+            "priority IN (5, 6)",
+            "region LIKE 'e%'",
+            "region = 'eu' AND tier = 'gold'",
+            "priority > 6",
+            "NOT region = 'eu'"
+    };
+
+    private DbBackedQueueHandlerFactory queueHandlerFactory;
+
+    private BindingSet bindingSet;
+
+    @BeforeMethod
+    public void setUp() throws BrokerException {
+        queueHandlerFactory = new DbBackedQueueHandlerFactory(null,
+                                                              new NullBrokerMetricManager(),
+                                                              new BrokerCoreConfiguration(),
+                                                              new NoOpBrokerTracingManager());
+        bindingSet = new BindingSet();
+        for (int i = 0; i < SELECTORS.length; i++) {
+            bindingSet.addMatched(createBinding("queue-" + i, SELECTORS[i]));
+        }
+    }
+
+    @Test(dataProvider = "messages", description = "Test indexed matching gives the same bindings as evaluating each "
+            + "selector")
+    public void testMatchesLinearEvaluation(Metadata metadata) {
+        Set<String> expected = new HashSet<>();
+        for (Binding binding : bindingSet.getFilteredBindings()) {
+            if (binding.getFilterExpression().evaluate(metadata)) {
+                expected.add(binding.getQueue().getName());
+            }
+        }
+
+        Assert.assertEquals(matchingQueueNames(metadata), expected);
+    }
+
+    @Test(description = "Test each binding is matched once")
+    public void testBindingMatchedOnce() {
+        List<String> matches = new ArrayList<>();
+        bindingSet.forEachMatchingFilteredBinding(metadataWith("region", FieldValue.parseLongString("eu")),
+                                                  binding -> matches.add(binding.getQueue().getName()));
+
+        Assert.assertEquals(new HashSet<>(matches), new HashSet<>(Arrays.asList("queue-0", "queue-2", "queue-10",
+                                                                              "queue-12")));
+        Assert.assertEquals(matches.size(), 4, "A binding was matched more than once " + matches);
+    }
+
+    @Test(description = "Test the index reflects added and removed bindings")
+    public void testIndexUpdatedOnBindingChange() throws BrokerException {
+        Metadata metadata = metadataWith("region", FieldValue.parseLongString("eu"));
+        Assert.assertTrue(matchingQueueNames(metadata).contains("queue-0"));
+
+        bindingSet.remove(bindingSet.getFilteredBindings().stream()
+                                    .filter(binding -> binding.getQueue().getName().equals("queue-0"))
+                                    .findFirst().get().getQueue());
+        Assert.assertFalse(matchingQueueNames(metadata).contains("queue-0"));
+
+        bindingSet.addMatched(createBinding("added", "region = 'eu'"));
+        Assert.assertTrue(matchingQueueNames(metadata).contains("added"));
+    }
+
+    @DataProvider(name = "messages")
+    public Object[][] messages() {
+        Metadata correlated = new Metadata("queue", "amq.direct", 0);
+        correlated.getProperties().add(Metadata.CORRELATION_ID, FieldValue.parseShortString("id-1"));
+        Metadata multipleHeaders = metadataWith("region", FieldValue.parseShortString("us"));
+        multipleHeaders.getHeaders().add(ShortString.parseString("tier"), FieldValue.parseLongString("gold"));
+        multipleHeaders.getHeaders().add(ShortString.parseString("priority"), FieldValue.parseLongInt(7));
+
+        return new Object[][]{
+                {metadataWith("region", FieldValue.parseLongString("eu"))},
+                {metadataWith("region", FieldValue.parseShortString("apac"))},
+                {metadataWith("region", FieldValue.parseLongString("other"))},
+                {metadataWith("region", FieldValue.parseLongInt(5))},
+                {metadataWith("priority", FieldValue.parseLongInt(5))},
+                {metadataWith("priority", FieldValue.parseLongLongInt(7L))},
+                {metadataWith("priority", FieldValue.parseShortShortInt((byte) 5))},
+                {metadataWith("priority", FieldValue.parseLongString("5"))},
+                {correlated},
+                {multipleHeaders},
+                {new Metadata("queue", "amq.direct", 0)}
+        };
+    }
+
+    private Binding createBinding(String queueName, String selector) throws BrokerException {
+        FieldTable arguments = new FieldTable();
+        arguments.add(Binding.JMS_SELECTOR_ARGUMENT, FieldValue.parseLongString(selector));
+        Queue queue = queueHandlerFactory.createNonDurableQueueHandler(queueName, false).getQueue();
+        return new Binding(queue, "queue", arguments);
+    }
+
+    private Set<String> matchingQueueNames(Metadata metadata) {
+        Set<String> queueNames = new HashSet<>();
+        bindingSet.forEachMatchingFilteredBinding(metadata, binding -> queueNames.add(binding.getQueue().getName()));
+        return queueNames;
+    }
+
+    private static Metadata metadataWith(String header, FieldValue value) {
+        Metadata metadata = new Metadata("queue", "amq.direct", 0);
+        metadata.getHeaders().add(ShortString.parseString(header), value);
+        return metadata;
+    }
+}
@@ -109,6 +109,27 @@ public class TopicExchangeTest {
         Assert.assertEquals(unfilteredBindings.iterator().hasNext(), false, "No topic should match");
     }
 
+    @Test(description = "Test cached routes are updated on bind and unbind")
+    public void testRoutingCacheInvalidation() throws BrokerException, ValidationException {
+        DbBackedQueueHandlerFactory factory = new DbBackedQueueHandlerFactory(null,
+                new NullBrokerMetricManager(),
+                new BrokerCoreConfiguration(),
+                new NoOpBrokerTracingManager());
+        QueueHandler firstHandler = factory.createNonDurableQueueHandler("first", false);
+        QueueHandler secondHandler = factory.createNonDurableQueueHandler("second", false);
+        topicExchange.bind(firstHandler, "sports.cricket", FieldTable.EMPTY_TABLE);
+        Assert.assertEquals(topicExchange.getBindingsForRoute("sports.cricket").getUnfilteredBindings().size(), 1);
+
+        topicExchange.bind(secondHandler, "sports.*", FieldTable.EMPTY_TABLE);
+        Assert.assertEquals(topicExchange.getBindingsForRoute("sports.cricket").getUnfilteredBindings().size(), 2,
+                            "Cached route should include the new binding");
+
+        topicExchange.unbind(firstHandler.getQueue(), "sports.cricket");
+        Collection<Binding> bindings = topicExchange.getBindingsForRoute("sports.cricket").getUnfilteredBindings();
+        Assert.assertEquals(bindings.size(), 1, "Cached route should not include the removed binding");
+        Assert.assertEquals(bindings.iterator().next().getQueue().getName(), "second");
+    }
+
     @Test
     public void testIsUnused() {
         Assert.assertEquals(topicExchange.isUnused(), true,
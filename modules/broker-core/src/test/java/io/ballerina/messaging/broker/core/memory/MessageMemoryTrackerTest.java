@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.memory;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class MessageMemoryTrackerTest {
+
+    private MessageMemoryTracker tracker;
+
+    private MemoryWatermarkListener listener;
+
+    @BeforeMethod
+    public void setUp() {
+        tracker = new MessageMemoryTracker(100, 50);
+        listener = Mockito.mock(MemoryWatermarkListener.class);
+        tracker.addListener(listener);
+    }
+
+    @Test
+    public void testContentIsTrackedUntilAllSlicesAreReleased() {
+        ByteBuf source = Unpooled.wrappedBuffer(new byte[64]).slice(8, 40);
+        ByteBuf content = tracker.track(source);
+
+        Assert.assertEquals(content.readableBytes(), 40);
+        Assert.assertEquals(tracker.getUsedBytes(), 40);
+
+        ByteBuf slice = content.retainedSlice();
+        content.release();
+        Assert.assertEquals(tracker.getUsedBytes(), 40, "Bytes should be tracked while a slice is retained");
+        Assert.assertEquals(source.refCnt(), 1, "Content should not be released while a slice is retained");
+
+        slice.release();
+        Assert.assertEquals(tracker.getUsedBytes(), 0);
+        Assert.assertEquals(source.refCnt(), 0, "Content should be released with the last slice");
+    }
+
+    @Test
+    public void testListenersNotifiedOnWatermarks() {
+        ByteBuf first = tracker.track(Unpooled.wrappedBuffer(new byte[60]));
+        Mockito.verify(listener, Mockito.never()).onHighWatermark();
+        Assert.assertFalse(tracker.isAboveHighWatermark());
+
+        ByteBuf second = tracker.track(Unpooled.wrappedBuffer(new byte[40]));
+        Assert.assertTrue(tracker.isAboveHighWatermark());
+
+        ByteBuf third = tracker.track(Unpooled.wrappedBuffer(new byte[10]));
+        second.release();
+        Assert.assertTrue(tracker.isAboveHighWatermark(), "Should stay blocked until the low watermark is reached");
+
+        first.release();
+        Assert.assertFalse(tracker.isAboveHighWatermark());
+        third.release();
+
+        InOrder inOrder = Mockito.inOrder(listener);
+        inOrder.verify(listener).onHighWatermark();
+        inOrder.verify(listener).onLowWatermark();
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    public void testRemovedListenerIsNotNotified() {
+        tracker.removeListener(listener);
+        tracker.track(Unpooled.wrappedBuffer(new byte[100])).release();
+
+        Mockito.verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void testDisabledWatermarkNeverBlocks() {
+        MessageMemoryTracker disabledTracker = new MessageMemoryTracker(0, 0);
+        ByteBuf content = disabledTracker.track(Unpooled.wrappedBuffer(new byte[1024]));
+
+        Assert.assertFalse(disabledTracker.isAboveHighWatermark());
+        Assert.assertEquals(disabledTracker.getUsedBytes(), 1024);
+        content.release();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testLowWatermarkAboveHighWatermark() {
+        new MessageMemoryTracker(50, 100);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.configuration.BrokerCoreConfiguration;
+import io.ballerina.messaging.broker.core.store.DbMessageStore;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests verifying the recovery of the stored messages of a durable queue.
+ */
+public class DbBackedQueueImplTest {
+
+    private static final String QUEUE_NAME = "stored-queue";
+
+    private static final int STORED_MESSAGE_COUNT = 3;
+
+    private DbMessageStore messageStore;
+
+    private QueueBufferFactory queueBufferFactory;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        messageStore = Mockito.mock(DbMessageStore.class);
+        Mockito.when(messageStore.getStoredMessageRange(QUEUE_NAME))
+               .thenReturn(new StoredMessageRange(STORED_MESSAGE_COUNT, STORED_MESSAGE_COUNT));
+        Mockito.when(messageStore.readMessagesForQueue(Mockito.eq(QUEUE_NAME), Mockito.anyLong(),
+                                                       Mockito.anyLong(), Mockito.anyInt()))
+               .thenAnswer(invocation -> {
+                   long afterMessageId = invocation.getArgument(1);
+                   long lastMessageId = invocation.getArgument(2);
+                   List<Message> messages = new ArrayList<>();
+                   for (long id = afterMessageId + 1; id <= lastMessageId; id++) {
+                       Message message = new Message(id, null);
+                       message.addAttachedDurableQueue(QUEUE_NAME);
+                       messages.add(message);
+                   }
+                   return messages;
+               });
+        queueBufferFactory = new QueueBufferFactory(new BrokerCoreConfiguration());
+    }
+
+    @Test(description = "Test stored messages are loaded when the queue is created")
+    public void testEagerRecovery() throws Exception {
+        DbBackedQueueImpl queue = createQueue(false);
+
+        Mockito.verify(messageStore).readMessagesForQueue(QUEUE_NAME, 0, STORED_MESSAGE_COUNT, 10);
+        Assert.assertEquals(queue.size(), STORED_MESSAGE_COUNT);
+        Assert.assertEquals(queue.getRecoveryProgress(), 1.0);
+    }
+
+    @Test(description = "Test a lazy queue reports the stored message count and loads messages for a consumer")
+    public void testLazyRecoveryOnConsumer() throws Exception {
+        DbBackedQueueImpl queue = createQueue(true);
+
+        Assert.assertEquals(queue.size(), STORED_MESSAGE_COUNT);
+        Assert.assertEquals(queue.getRecoveryProgress(), 0.0);
+        Mockito.verify(messageStore, Mockito.never()).readMessagesForQueue(Mockito.anyString(), Mockito.anyLong(),
+                                                                           Mockito.anyLong(), Mockito.anyInt());
+
+        queue.onConsumerAdded();
+        queue.onConsumerAdded();
+
+        Mockito.verify(messageStore, Mockito.times(1)).readMessagesForQueue(QUEUE_NAME, 0, STORED_MESSAGE_COUNT, 10);
+        Assert.assertEquals(queue.size(), STORED_MESSAGE_COUNT);
+        Assert.assertEquals(queue.getRecoveryProgress(), 1.0);
+    }
+
+    @Test(description = "Test a publish loads the stored messages of a lazy queue")
+    public void testLazyRecoveryOnPublish() throws Exception {
+        DbBackedQueueImpl queue = createQueue(true);
+
+        queue.enqueue(new Message(STORED_MESSAGE_COUNT + 1, Mockito.mock(Metadata.class)));
+
+        Mockito.verify(messageStore).readMessagesForQueue(QUEUE_NAME, 0, STORED_MESSAGE_COUNT, 10);
+        Assert.assertEquals(queue.size(), STORED_MESSAGE_COUNT + 1);
+    }
+
+    @Test(description = "Test purging a lazy queue detaches the stored messages")
+    public void testPurgeLazyQueue() throws Exception {
+        DbBackedQueueImpl queue = createQueue(true);
+
+        queue.clear();
+
+        Mockito.verify(messageStore, Mockito.times(STORED_MESSAGE_COUNT))
+               .detach(Mockito.eq(QUEUE_NAME), Mockito.any(Message.class));
+        Assert.assertEquals(queue.size(), 0);
+    }
+
+    @Test(description = "Test deleting a queue detaches the buffered messages")
+    public void testReleaseDetachesMessages() throws Exception {
+        DbBackedQueueImpl queue = createQueue(false);
+
+        queue.releaseResources();
+
+        Mockito.verify(messageStore, Mockito.times(STORED_MESSAGE_COUNT))
+               .detach(Mockito.eq(QUEUE_NAME), Mockito.any(Message.class));
+    }
+
+    private DbBackedQueueImpl createQueue(boolean lazyRecovery) throws Exception {
+        // Background recovery runs on the calling thread
+        return new DbBackedQueueImpl(QUEUE_NAME, false, messageStore, queueBufferFactory, Runnable::run, 10,
+                                     lazyRecovery);
+    }
+}
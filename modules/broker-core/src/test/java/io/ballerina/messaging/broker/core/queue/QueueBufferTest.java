@@ -19,16 +19,33 @@
 
 package io.ballerina.messaging.broker.core.queue;
 
+import io.ballerina.messaging.broker.core.ContentChunk;
 import io.ballerina.messaging.broker.core.Message;
 import io.ballerina.messaging.broker.core.Metadata;
+import io.netty.buffer.Unpooled;
 import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
 public class QueueBufferTest {
 
+    private static final int MESSAGE_CONTENT_SIZE = 40;
+
     private Metadata mockMetadata;
     private QueueBuffer.MessageReader messageReader;
+    private QueueBuffer.MessageReader contentReader;
 
     @BeforeClass
     public void setUp() {
@@ -37,11 +54,36 @@ public class QueueBufferTest {
             message.setMetadata(mockMetadata);
             buffer.markMessageFilled(message);
         };
+        contentReader = (buffer, message) -> {
+            message.setMetadata(mockMetadata);
+            message.addChunk(createContentChunk());
+            buffer.markMessageFilled(message);
+        };
+    }
+
+    @DataProvider(name = "bufferFactories")
+    public Object[][] bufferFactories() {
+        BiFunction<Integer, QueueBuffer.MessageReader, QueueBuffer> synchronizedBuffer = SynchronizedQueueBuffer::new;
+        BiFunction<Integer, QueueBuffer.MessageReader, QueueBuffer> concurrentBuffer = ConcurrentQueueBuffer::new;
+        return new Object[][]{
+                {synchronizedBuffer},
+                {concurrentBuffer}
+        };
+    }
+
+    @DataProvider(name = "budgetedBufferFactories")
+    public Object[][] budgetedBufferFactories() {
+        BudgetedBufferFactory synchronizedBuffer = SynchronizedQueueBuffer::new;
+        BudgetedBufferFactory concurrentBuffer = ConcurrentQueueBuffer::new;
+        return new Object[][]{
+                {synchronizedBuffer},
+                {concurrentBuffer}
+        };
     }
 
-    @Test
-    public void testAdd() {
-        QueueBuffer queueBuffer = new QueueBuffer(10, messageReader);
+    @Test(dataProvider = "bufferFactories")
+    public void testAdd(BiFunction<Integer, QueueBuffer.MessageReader, QueueBuffer> bufferFactory) {
+        QueueBuffer queueBuffer = bufferFactory.apply(10, messageReader);
         for (int i = 0; i < 10; i++) {
             Message message = new Message(i + 1, mockMetadata);
             queueBuffer.add(message);
@@ -56,9 +98,9 @@ public class QueueBufferTest {
         }
     }
 
-    @Test
-    public void testBareAdd() {
-        QueueBuffer queueBuffer = new QueueBuffer(10, messageReader);
+    @Test(dataProvider = "bufferFactories")
+    public void testBareAdd(BiFunction<Integer, QueueBuffer.MessageReader, QueueBuffer> bufferFactory) {
+        QueueBuffer queueBuffer = bufferFactory.apply(10, messageReader);
         for (int i = 0; i < 12; i++) {
             Message message = new Message(i + 1, null);
             queueBuffer.addBareMessage(message);
@@ -72,9 +114,30 @@ public class QueueBufferTest {
         }
     }
 
-    @Test
-    public void testSize() {
-        QueueBuffer queueBuffer = new QueueBuffer(10, messageReader);
+    @Test(dataProvider = "bufferFactories")
+    public void testAddAfterDeliveringAllInMemoryMessages(
+            BiFunction<Integer, QueueBuffer.MessageReader, QueueBuffer> bufferFactory) {
+        QueueBuffer queueBuffer = bufferFactory.apply(2, messageReader);
+        queueBuffer.add(new Message(1, mockMetadata));
+        queueBuffer.add(new Message(2, mockMetadata));
+        Message firstMessage = queueBuffer.getFirstDeliverable();
+        Assert.assertNotNull(firstMessage);
+        Assert.assertNotNull(queueBuffer.getFirstDeliverable());
+
+        // In flight messages are still counted towards the in-memory limit. Hence the data of this message is cleared
+        Message message = new Message(3, mockMetadata);
+        queueBuffer.add(message);
+        Assert.assertNull(message.getMetadata(), "Message data should be cleared when the queue limit is reached");
+
+        queueBuffer.remove(firstMessage);
+        Message deliverable = queueBuffer.getFirstDeliverable();
+        Assert.assertNotNull(deliverable, "Filled message should be deliverable");
+        Assert.assertEquals(deliverable.getInternalId(), 3);
+    }
+
+    @Test(dataProvider = "bufferFactories")
+    public void testSize(BiFunction<Integer, QueueBuffer.MessageReader, QueueBuffer> bufferFactory) {
+        QueueBuffer queueBuffer = bufferFactory.apply(10, messageReader);
         for (int i = 0; i < 12; i++) {
             Message message = new Message(i + 1, mockMetadata);
             queueBuffer.add(message);
@@ -83,9 +146,10 @@ public class QueueBufferTest {
         Assert.assertEquals(queueBuffer.size(), 12, "Message size should match the number of added items");
     }
 
-    @Test
-    public void testGetFirstDeliverable() throws Exception {
-        QueueBuffer queueBuffer = new QueueBuffer(10, messageReader);
+    @Test(dataProvider = "bufferFactories")
+    public void testGetFirstDeliverable(BiFunction<Integer, QueueBuffer.MessageReader, QueueBuffer> bufferFactory)
+            throws Exception {
+        QueueBuffer queueBuffer = bufferFactory.apply(10, messageReader);
         for (int i = 0; i < 12; i++) {
             Message message = new Message(i + 1, mockMetadata);
             queueBuffer.add(message);
@@ -100,4 +164,162 @@ public class QueueBufferTest {
 
         Assert.assertEquals(queueBuffer.size(), 0, "Buffer size should be 0 after removing all messages");
     }
+
+    @Test(dataProvider = "bufferFactories")
+    public void testConcurrentPublishDeliverAndRemove(
+            BiFunction<Integer, QueueBuffer.MessageReader, QueueBuffer> bufferFactory) throws Exception {
+        int publisherCount = 4;
+        int messagesPerPublisher = 5000;
+        int totalMessages = publisherCount * messagesPerPublisher;
+        QueueBuffer queueBuffer = bufferFactory.apply(100, messageReader);
+        BlockingQueue<Message> deliveredMessages = new LinkedBlockingQueue<>();
+        CountDownLatch startLatch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(publisherCount + 2);
+
+        try {
+            for (int publisher = 0; publisher < publisherCount; publisher++) {
+                long firstId = (long) publisher * messagesPerPublisher;
+                executorService.submit(() -> {
+                    startLatch.await();
+                    for (long id = firstId; id < firstId + messagesPerPublisher; id++) {
+                        queueBuffer.add(new Message(id, mockMetadata));
+                    }
+                    return null;
+                });
+            }
+
+            Future<List<Long>> deliveryResult = executorService.submit(() -> {
+                startLatch.await();
+                List<Long> deliveredIds = new ArrayList<>(totalMessages);
+                while (deliveredIds.size() < totalMessages) {
+                    Message message = queueBuffer.getFirstDeliverable();
+                    if (message == null) {
+                        Thread.yield();
+                    } else {
+                        Assert.assertNotNull(message.getMetadata(), "Delivered message should have data");
+                        deliveredIds.add(message.getInternalId());
+                        deliveredMessages.put(message);
+                    }
+                }
+                return deliveredIds;
+            });
+
+            Future<Integer> removeResult = executorService.submit(() -> {
+                startLatch.await();
+                int removedCount = 0;
+                while (removedCount < totalMessages) {
+                    Message message = deliveredMessages.poll(10, TimeUnit.SECONDS);
+                    Assert.assertNotNull(message, "Delivered message was not received for removal");
+                    queueBuffer.remove(message);
+                    removedCount++;
+                }
+                return removedCount;
+            });
+
+            startLatch.countDown();
+            List<Long> deliveredIds = deliveryResult.get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(removeResult.get(30, TimeUnit.SECONDS).intValue(), totalMessages);
+
+            long[] lastDeliveredIds = new long[publisherCount];
+            for (int publisher = 0; publisher < publisherCount; publisher++) {
+                lastDeliveredIds[publisher] = (long) publisher * messagesPerPublisher - 1;
+            }
+            for (long id : deliveredIds) {
+                int publisher = (int) (id / messagesPerPublisher);
+                Assert.assertEquals(id, lastDeliveredIds[publisher] + 1,
+                                    "Messages of a publisher should be delivered once and in order");
+                lastDeliveredIds[publisher] = id;
+            }
+
+            Assert.assertEquals(queueBuffer.size(), 0, "Buffer size should be 0 after removing all messages");
+            Assert.assertEquals(queueBuffer.getNumberOfInflightMessages(), 0);
+            Assert.assertEquals(queueBuffer.getNumberOfUndeliveredMessages(), 0);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test(dataProvider = "budgetedBufferFactories")
+    public void testQueueByteLimit(BudgetedBufferFactory bufferFactory) {
+        MessageMemoryBudget totalBudget = new MessageMemoryBudget(0);
+        QueueBuffer queueBuffer = bufferFactory.create(100, totalBudget.createChild(100), contentReader);
+
+        List<Message> messages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Message message = createMessageWithContent(i + 1);
+            messages.add(message);
+            queueBuffer.add(message);
+        }
+
+        Assert.assertNotNull(messages.get(1).getMetadata(), "Message data should be kept within the byte limit");
+        Assert.assertNull(messages.get(2).getMetadata(), "Message data should be cleared when the byte limit is "
+                + "reached");
+        Assert.assertEquals(queueBuffer.getResidentBytes(), 2 * MESSAGE_CONTENT_SIZE);
+        Assert.assertEquals(totalBudget.getResidentBytes(), 2 * MESSAGE_CONTENT_SIZE);
+
+        Message firstMessage = queueBuffer.getFirstDeliverable();
+        Assert.assertEquals(firstMessage.getInternalId(), 1);
+        Assert.assertEquals(queueBuffer.getResidentBytes(), 2 * MESSAGE_CONTENT_SIZE,
+                            "Delivered messages should be accounted until removed");
+
+        // Removing a message should make room to read the cleared message
+        queueBuffer.remove(firstMessage);
+        Assert.assertEquals(queueBuffer.getFirstDeliverable().getInternalId(), 2);
+        Message readMessage = queueBuffer.getFirstDeliverable();
+        Assert.assertNotNull(readMessage, "Cleared message should be read once there is room in the budget");
+        Assert.assertEquals(readMessage.getInternalId(), 3);
+        Assert.assertEquals(queueBuffer.getResidentBytes(), 2 * MESSAGE_CONTENT_SIZE);
+
+        queueBuffer.clear(message -> { });
+        Assert.assertEquals(queueBuffer.getResidentBytes(), 0);
+        Assert.assertEquals(totalBudget.getResidentBytes(), 0, "Bytes should be released from the total budget");
+    }
+
+    @Test(dataProvider = "budgetedBufferFactories")
+    public void testTotalByteLimit(BudgetedBufferFactory bufferFactory) {
+        MessageMemoryBudget totalBudget = new MessageMemoryBudget(3 * MESSAGE_CONTENT_SIZE);
+        QueueBuffer firstBuffer = bufferFactory.create(100, totalBudget.createChild(0), contentReader);
+        QueueBuffer secondBuffer = bufferFactory.create(100, totalBudget.createChild(0), contentReader);
+
+        firstBuffer.add(createMessageWithContent(1));
+        firstBuffer.add(createMessageWithContent(2));
+        secondBuffer.add(createMessageWithContent(3));
+        Message clearedMessage = createMessageWithContent(4);
+        secondBuffer.add(clearedMessage);
+
+        Assert.assertNull(clearedMessage.getMetadata(), "Message data should be cleared when the total byte limit is "
+                + "reached");
+        Assert.assertEquals(totalBudget.getResidentBytes(), 3 * MESSAGE_CONTENT_SIZE);
+
+        Message message = secondBuffer.getFirstDeliverable();
+        Assert.assertEquals(message.getInternalId(), 3);
+        Assert.assertNull(secondBuffer.getFirstDeliverable(), "Message should not be read while the total budget is "
+                + "exhausted");
+
+        // Removing a message from the other buffer should make room in the total budget
+        firstBuffer.remove(firstBuffer.getFirstDeliverable());
+        secondBuffer.remove(message);
+        Message readMessage = secondBuffer.getFirstDeliverable();
+        Assert.assertNotNull(readMessage, "Message should be read once there is room in the total budget");
+        Assert.assertEquals(readMessage.getInternalId(), 4);
+        Assert.assertEquals(totalBudget.getResidentBytes(), 2 * MESSAGE_CONTENT_SIZE);
+    }
+
+    private Message createMessageWithContent(long id) {
+        Message message = new Message(id, mockMetadata);
+        message.addChunk(createContentChunk());
+        return message;
+    }
+
+    private static ContentChunk createContentChunk() {
+        return new ContentChunk(0, Unpooled.wrappedBuffer(new byte[MESSAGE_CONTENT_SIZE]));
+    }
+
+    /**
+     * Creates a queue buffer with a memory budget.
+     */
+    @FunctionalInterface
+    private interface BudgetedBufferFactory {
+        QueueBuffer create(int inMemoryLimit, MessageMemoryBudget memoryBudget, QueueBuffer.MessageReader reader);
+    }
 }
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.queue;
+
+import io.ballerina.messaging.broker.core.BrokerException;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.store.MessageStore;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Unit tests verifying the paginated recovery of the stored messages of a queue.
+ */
+public class QueueRecoveryTaskTest {
+
+    private static final String QUEUE_NAME = "recovery-queue";
+
+    private static final long LAST_MESSAGE_ID = 5;
+
+    private MessageStore messageStore;
+
+    private List<Collection<Message>> pages;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        messageStore = Mockito.mock(MessageStore.class);
+        // Stored messages have ids 1 to 5
+        Mockito.when(messageStore.readMessagesForQueue(Mockito.eq(QUEUE_NAME), Mockito.anyLong(),
+                                                       Mockito.anyLong(), Mockito.anyInt()))
+               .thenAnswer(invocation -> {
+                   long afterMessageId = invocation.getArgument(1);
+                   long lastMessageId = invocation.getArgument(2);
+                   int pageSize = invocation.getArgument(3);
+                   List<Message> messages = new ArrayList<>();
+                   for (long id = afterMessageId + 1; id <= lastMessageId && messages.size() < pageSize; id++) {
+                       messages.add(new Message(id, null));
+                   }
+                   return messages;
+               });
+        pages = new ArrayList<>();
+    }
+
+    @Test(description = "Test messages are loaded page by page and progress is tracked")
+    public void testRecoverPages() throws Exception {
+        QueueRecoveryTask task = new QueueRecoveryTask(QUEUE_NAME, messageStore,
+                                                       new StoredMessageRange(5, LAST_MESSAGE_ID), 2, pages::add);
+
+        Assert.assertTrue(task.recoverPage());
+        Assert.assertEquals(task.getRemainingMessageCount(), 3);
+        Assert.assertEquals(task.getProgress(), 0.4, 0.001);
+        Assert.assertTrue(task.getEstimatedRemainingMillis() >= 0);
+
+        task.run();
+
+        Assert.assertTrue(task.isCompleted());
+        Assert.assertEquals(pages.size(), 3);
+        Assert.assertEquals(idsOf(pages.get(1)), ids(3, 4));
+        Assert.assertEquals(idsOf(pages.get(2)), ids(5));
+        Assert.assertEquals(task.getRemainingMessageCount(), 0);
+        Assert.assertEquals(task.getProgress(), 1.0);
+        Assert.assertEquals(task.getEstimatedRemainingMillis(), 0);
+    }
+
+    @Test(description = "Test messages stored after the recovery began are not loaded")
+    public void testRecoveryStopsAtLastMessageId() throws Exception {
+        QueueRecoveryTask task = new QueueRecoveryTask(QUEUE_NAME, messageStore, new StoredMessageRange(3, 3), 10,
+                                                       pages::add);
+
+        Assert.assertFalse(task.recoverPage());
+        Assert.assertEquals(idsOf(pages.get(0)), ids(1, 2, 3));
+        Assert.assertTrue(task.isCompleted());
+    }
+
+    @Test(description = "Test a queue without stored messages does not read the store")
+    public void testEmptyQueue() throws Exception {
+        QueueRecoveryTask task = new QueueRecoveryTask(QUEUE_NAME, messageStore, new StoredMessageRange(0, 0), 10,
+                                                       pages::add);
+
+        Assert.assertFalse(task.recoverPage());
+        Assert.assertTrue(task.isCompleted());
+        Assert.assertEquals(task.getProgress(), 1.0);
+        Mockito.verifyNoInteractions(messageStore);
+    }
+
+    @Test(description = "Test a cancelled recovery stops loading messages")
+    public void testCancel() throws Exception {
+        QueueRecoveryTask task = new QueueRecoveryTask(QUEUE_NAME, messageStore,
+                                                       new StoredMessageRange(5, LAST_MESSAGE_ID), 2, pages::add);
+
+        Assert.assertTrue(task.recoverPage());
+        task.cancel();
+        task.run();
+
+        Assert.assertEquals(pages.size(), 1);
+        Assert.assertTrue(task.isCompleted());
+        Assert.assertEquals(task.getRemainingMessageCount(), 0);
+    }
+
+    @Test(description = "Test a page which cannot be read is retried")
+    public void testRetryAfterError() throws Exception {
+        Mockito.doThrow(new BrokerException("Connection lost"))
+               .doReturn(messagesOf(ids(3, 4)))
+               .when(messageStore).readMessagesForQueue(QUEUE_NAME, 2, LAST_MESSAGE_ID, 2);
+        QueueRecoveryTask task = new QueueRecoveryTask(QUEUE_NAME, messageStore,
+                                                       new StoredMessageRange(5, LAST_MESSAGE_ID), 2, pages::add, 1);
+
+        Assert.assertTrue(task.recoverPage());
+        task.run();
+
+        Assert.assertTrue(task.isCompleted());
+        Assert.assertNull(task.getFailure());
+        Assert.assertEquals(pages.size(), 3);
+        Assert.assertEquals(idsOf(pages.get(1)), ids(3, 4));
+    }
+
+    @Test(description = "Test a failed recovery keeps counting the messages which are not loaded until restarted")
+    public void testFailureKeepsRemainingCount() throws Exception {
+        QueueRecoveryTask task = new QueueRecoveryTask(QUEUE_NAME, messageStore,
+                                                       new StoredMessageRange(5, LAST_MESSAGE_ID), 2, pages::add, 1);
+        Assert.assertTrue(task.recoverPage());
+        Mockito.doThrow(new BrokerException("Connection lost"))
+               .when(messageStore).readMessagesForQueue(QUEUE_NAME, 2, LAST_MESSAGE_ID, 2);
+
+        task.run();
+
+        Assert.assertFalse(task.isCompleted());
+        Assert.assertNotNull(task.getFailure());
+        Assert.assertEquals(task.getRemainingMessageCount(), 3);
+        Assert.assertEquals(task.getEstimatedRemainingMillis(), -1);
+
+        Mockito.doReturn(messagesOf(ids(3, 4)))
+               .when(messageStore).readMessagesForQueue(QUEUE_NAME, 2, LAST_MESSAGE_ID, 2);
+        Assert.assertTrue(task.clearFailure());
+        Assert.assertFalse(task.clearFailure(), "Recovery should be restarted only once");
+        task.run();
+
+        Assert.assertTrue(task.isCompleted());
+        Assert.assertEquals(pages.size(), 3);
+        Assert.assertEquals(task.getRemainingMessageCount(), 0);
+    }
+
+    private static List<Message> messagesOf(List<Long> ids) {
+        List<Message> messages = new ArrayList<>();
+        for (long id : ids) {
+            messages.add(new Message(id, null));
+        }
+        return messages;
+    }
+
+    private static List<Long> idsOf(Collection<Message> messages) {
+        List<Long> ids = new ArrayList<>();
+        for (Message message : messages) {
+            ids.add(message.getInternalId());
+        }
+        return ids;
+    }
+
+    private static List<Long> ids(long... values) {
+        List<Long> ids = new ArrayList<>();
+        for (long value : values) {
+            ids.add(value);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.selector.generated.MessageFilter;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Tests evaluating compiled equality selectors.
+ */
+public class EqualityExpressionTest {
+
+    @Test(description = "Test property comparisons with constants are compiled to specialized evaluators")
+    public void testCompiledEvaluators() throws Exception {
+        Assert.assertTrue(new MessageFilter("region = 'eu'").parse() instanceof StringEqualityExpression);
+        Assert.assertTrue(new MessageFilter("priority = 4").parse() instanceof IntegerEqualityExpression);
+        Assert.assertTrue(new MessageFilter("priority = 4L").parse() instanceof IntegerEqualityExpression);
+    }
+
+    @Test(dataProvider = "headerComparisons", description = "Test evaluating selectors against message headers")
+    public void testHeaderComparison(String selector, FieldValue headerValue, boolean expected) throws Exception {
+        Metadata metadata = new Metadata("queue", "amq.direct", 0);
+        metadata.getHeaders().add(ShortString.parseString("header"), headerValue);
+
+        Assert.assertEquals(new MessageFilter(selector).parse().evaluate(metadata), expected,
+                            "Invalid result for " + selector);
+    }
+
+    @Test(description = "Test selectors on a missing header evaluate to false")
+    public void testMissingHeader() throws Exception {
+        Metadata metadata = new Metadata("queue", "amq.direct", 0);
+
+        Assert.assertFalse(new MessageFilter("header = 'eu'").parse().evaluate(metadata));
+        Assert.assertFalse(new MessageFilter("header = 10").parse().evaluate(metadata));
+    }
+
+    @Test(description = "Test selectors on JMS properties read the message properties")
+    public void testJmsProperty() throws Exception {
+        Metadata metadata = new Metadata("queue", "amq.direct", 0);
+        metadata.getProperties().add(Metadata.CORRELATION_ID, FieldValue.parseShortString("id-1"));
+
+        Assert.assertTrue(new MessageFilter("JMSCorrelationID = 'id-1'").parse().evaluate(metadata));
+        Assert.assertFalse(new MessageFilter("JMSCorrelationID = 'id-2'").parse().evaluate(metadata));
+        Assert.assertFalse(new MessageFilter("JMSDestination = 'id-1'").parse().evaluate(metadata));
+    }
+
+    @DataProvider(name = "headerComparisons")
+    public Object[][] headerComparisons() {
+        return new Object[][]{
+                {"header = 'eu'", FieldValue.parseLongString("eu"), true},
+                {"header = 'eu'", FieldValue.parseShortString("eu"), true},
+                {"header = 'eu'", FieldValue.parseLongString("us"), false},
+                {"header = 'eu'", FieldValue.parseLongInt(10), false},
+                {"header = 'it''s'", FieldValue.parseLongString("it's"), true},
+                {"header = 10", FieldValue.parseLongInt(10), true},
+                {"header = 10", FieldValue.parseLongInt(11), false},
+                {"header = 10", FieldValue.parseLongLongInt(10L), true},
+                {"header = 10", FieldValue.parseShortShortInt((byte) 10), true},
+                {"header = 10", FieldValue.parseLongString("10"), false}
+        };
+    }
+}
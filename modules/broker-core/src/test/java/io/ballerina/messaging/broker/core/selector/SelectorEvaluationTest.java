@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+
+package io.ballerina.messaging.broker.core.selector;
+
+import io.ballerina.messaging.broker.common.data.types.FieldTable;
+import io.ballerina.messaging.broker.common.data.types.FieldValue;
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.selector.generated.MessageFilter;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests evaluating selectors using the complete selector grammar.
+ */
+public class SelectorEvaluationTest {
+
+    private Metadata metadata;
+
+    @BeforeClass
+    public void setUp() {
+        metadata = new Metadata("queue", "amq.direct", 0);
+        FieldTable headers = metadata.getHeaders();
+        headers.add(ShortString.parseString("region"), FieldValue.parseLongString("eu-1"));
+        headers.add(ShortString.parseString("tier"), FieldValue.parseShortString("gold"));
+        headers.add(ShortString.parseString("priority"), FieldValue.parseLongInt(5));
+        headers.add(ShortString.parseString("size"), FieldValue.parseLongLongInt(3000000000L));
+        headers.add(ShortString.parseString("level"), FieldValue.parseShortShortInt((byte) 2));
+        headers.add(ShortString.parseString("port"), FieldValue.parseShortInt((short) 8080));
+        headers.add(ShortString.parseString("vip"), FieldValue.parseBoolean(
+                io.ballerina.messaging.broker.common.data.types.Boolean.parse(true)));
+        headers.add(ShortString.parseString("flag"), FieldValue.parseBoolean(
+                io.ballerina.messaging.broker.common.data.types.Boolean.parse(false)));
+        headers.add(ShortString.parseString("nested"), FieldValue.parseFieldTable(new FieldTable()));
+        metadata.getProperties().add(Metadata.PRIORITY, FieldValue.parseShortShortInt((byte) 4));
+    }
+
+    @Test(dataProvider = "selectors", description = "Test evaluating selectors against message headers")
+    public void testEvaluation(String selector, boolean expected) throws Exception {
+        Assert.assertEquals(new MessageFilter(selector).parse().evaluate(metadata), expected,
+                            "Invalid result for " + selector);
+    }
+
+    @Test(description = "Test logical operators do not evaluate the right hand side when the left decides")
+    public void testShortCircuit() {
+        AtomicInteger evaluations = new AtomicInteger();
+        BooleanExpression counting = new BooleanExpression() {
+            @Override
+            public boolean evaluate(Metadata metadata) {
+                evaluations.incrementAndGet();
+                return true;
+            }
+
+            @Override
+            public boolean isFalse(Metadata metadata) {
+                evaluations.incrementAndGet();
+                return false;
+            }
+        };
+        BooleanExpression trueExpression = new BooleanValueExpression(message -> Boolean.TRUE);
+        BooleanExpression falseExpression = new BooleanValueExpression(message -> Boolean.FALSE);
+
+        Assert.assertTrue(new OrExpression(trueExpression, counting).evaluate(metadata));
+        Assert.assertFalse(new AndExpression(falseExpression, counting).evaluate(metadata));
+        Assert.assertTrue(new NotExpression(new AndExpression(falseExpression, counting)).evaluate(metadata));
+        Assert.assertFalse(new NotExpression(new OrExpression(trueExpression, counting)).evaluate(metadata));
+        Assert.assertEquals(evaluations.get(), 0, "Right hand side evaluated");
+    }
+
+    @Test(description = "Test LIKE patterns with wildcards only at the ends are matched without regular expressions")
+    public void testLikePatternCompilation() throws Exception {
+        for (String pattern : new String[]{"eu-1", "eu-%", "%-1", "%u-%", "%"}) {
+            Assert.assertTrue(new LikeExpression(new JmsPropertyExpression("region"), pattern, null)
+                                      .evaluate(metadata), "Invalid result for " + pattern);
+        }
+        Assert.assertFalse(new LikeExpression(new JmsPropertyExpression("region"), "%u_%x", null).evaluate(metadata));
+    }
+
+    @DataProvider(name = "selectors")
+    public Object[][] selectors() {
+        return new Object[][]{
+                // equality and three valued logic
+                {"region = 'eu-1'", true},
+                {"region <> 'eu-1'", false},
+                {"region <> 'us'", true},
+                {"'eu-1' = region", true},
+                {"missing = 'x'", false},
+                {"missing <> 'x'", false},
+                {"NOT missing = 'x'", false},
+                {"NOT missing = 'x' OR region = 'eu-1'", true},
+                {"missing = 'x' OR region = 'eu-1'", true},
+                {"NOT (missing = 'x' AND region = 'us')", true},
+                {"NOT (missing = 'x' AND region = 'eu-1')", false},
+                {"NOT (missing = 'x' OR region = 'us')", false},
+                {"nested IS NULL", true},
+                {"priority = '5'", false},
+                {"NOT priority = '5'", true},
+                {"priority = region", false},
+                {"tier = tier", true},
+                // numeric comparisons of any width
+                {"priority > 4", true},
+                {"priority >= 5", true},
+                {"priority < 5", false},
+                {"NOT priority < 5", true},
+                {"4 < priority", true},
+                {"priority <= 4.5", false},
+                {"size > 2147483647", true},
+                {"size = 3000000000", true},
+                {"level = 2", true},
+                {"level = 2.0", true},
+                {"JMSPriority = 4", true},
+                {"port = 8080", true},
+                {"port > 80", true},
+                {"port + level = 8082", true},
+                {"region > 1", false},
+                {"NOT region > 1", true},
+                {"NOT missing > 1", false},
+                // arithmetic
+                {"level * 2 = 4", true},
+                {"priority + 0.5 > 5", true},
+                {"priority / 2 = 2", true},
+                {"priority / 2.0 = 2.5", true},
+                {"priority / 0 = 1", false},
+                {"NOT priority / 0 = 1", false},
+                {"-priority = -5", true},
+                {"priority = -(-5)", true},
+                {"priority - level * 2 = 1", true},
+                {"(priority - level) * 2 = 6", true},
+                {"size - 3000000000 = 0", true},
+                // between
+                {"priority BETWEEN 1 AND 5", true},
+                {"priority BETWEEN 6 AND 10", false},
+                {"priority NOT BETWEEN 6 AND 10", true},
+                {"priority BETWEEN 1 AND 5 AND region = 'us'", false},
+                {"missing BETWEEN 1 AND 2", false},
+                {"missing NOT BETWEEN 1 AND 2", false},
+                // like
+                {"region LIKE 'eu-%'", true},
+                {"region LIKE '%-1'", true},
+                {"region LIKE '%u-%'", true},
+                {"region LIKE 'eu_1'", true},
+                {"region LIKE 'eu'", false},
+                {"region LIKE 'eu-1'", true},
+                {"tier LIKE 'g%d'", true},
+                {"tier LIKE 'g%x'", false},
+                {"region NOT LIKE 'us%'", true},
+                {"missing NOT LIKE 'x%'", false},
+                {"priority LIKE '5'", false},
+                {"NOT priority LIKE '5'", false},
+                {"priority NOT LIKE '5'", false},
+                {"region LIKE 'eu!-%' ESCAPE '!'", true},
+                {"region LIKE 'eu!%' ESCAPE '!'", false},
+                {"region LIKE 'eu.1'", false},
+                // in
+                {"region IN ('us', 'eu-1')", true},
+                {"region NOT IN ('us', 'eu-1')", false},
+                {"tier IN ('gold')", true},
+                {"priority IN (1, 5)", true},
+                {"level IN (2)", true},
+                {"size IN (3000000000)", true},
+                {"port IN (80, 8080)", true},
+                {"priority IN ('5')", false},
+                {"missing NOT IN ('x')", false},
+                {"vip IN ('true')", false},
+                {"NOT vip IN ('true')", true},
+                // null checks
+                {"region IS NULL", false},
+                {"region IS NOT NULL", true},
+                {"missing IS NULL", true},
+                {"missing IS NOT NULL", false},
+                {"NOT missing IS NULL", false},
+                // booleans
+                {"vip", true},
+                {"flag", false},
+                {"NOT flag", true},
+                {"vip = TRUE", true},
+                {"flag = FALSE", true},
+                {"vip <> flag", true},
+                {"NOT missing", false},
+                {"region", false},
+                {"NOT region", false},
+                {"TRUE", true},
+                {"FALSE OR vip", true},
+                {"region = 'eu-1' AND priority = 5 AND vip", true},
+                {"region = 'us' or priority = 5 and not flag", true}
+        };
+    }
+}
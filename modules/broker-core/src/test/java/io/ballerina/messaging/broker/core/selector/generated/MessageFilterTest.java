@@ -72,7 +72,35 @@ public class MessageFilterTest {
                 // numeric literals
                 "Age = 10",
                 "Age = 40l",
-                "Age = 45L"
+                "Age = 45L",
+                // operands of any kind on both sides of a comparison
+                "MyProperty = abcdef",
+                "'property' = 'abcdef'",
+                "10 = Age",
+                // decimal and boolean literals
+                "Price = 10.5",
+                "Price > .5E2",
+                "Price < 1e-3",
+                "IsVip = TRUE",
+                "IsVip",
+                // comparisons and arithmetic
+                "Age <> 10",
+                "Age >= 10 AND Age <= 20",
+                "Age + 1 > Limit * 2 - 3 / 4",
+                "-Age < -10",
+                // logical operators
+                "NOT Age = 10",
+                "Age = 10 OR (Region = 'eu' AND NOT IsVip)",
+                // special comparisons
+                "Age BETWEEN 10 AND 20",
+                "Age NOT BETWEEN 10 AND 20 AND Region = 'eu'",
+                "Region LIKE 'eu-%'",
+                "Region NOT LIKE 'eu\\_%' ESCAPE '\\'",
+                "Region IN ('eu', 'us')",
+                "Priority NOT IN (1, 2, 3)",
+                "Region IS NULL",
+                "Region IS NOT NULL",
+                "region = 'eu' and age between 1 and 2 or not isVip"
         };
     }
 
@@ -82,17 +110,31 @@ public class MessageFilterTest {
                 "",
                 // invalid string literals
                 "MyProperty = 'abcde'f'",
-                "MyProperty = abcdef",
                 // invalid identifiers
                 "$yProperty = 'abcdef'",
                 "_yProperty = 'abcdef'",
                 "1yProperty = 'abcdef'",
-                "'property' = 'abcdef'",
-                "10 = Age",
                 // invalid numeric literals
                 "myProperty = 123LL",
                 "myProperty = 123ll",
                 "myProperty = 123lLl",
+                // invalid operators
+                "Age == 10",
+                "Age = 10 AND",
+                "(Age = 10",
+                "Age BETWEEN 10",
+                // operators only applicable on identifiers
+                "'eu' LIKE 'e%'",
+                "10 IN (10, 20)",
+                "'eu' IS NULL",
+                // invalid escape and lists
+                "Region LIKE 'eu%' ESCAPE 'ab'",
+                "Region LIKE 'eu!' ESCAPE '!'",
+                "Region IN ()",
+                "Region IN (Other)",
+                // conditions used as values
+                "(Age = 10) = TRUE",
+                "(Age = 10) + 1 > 2",
         };
     }
 }
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import io.ballerina.messaging.broker.core.store.disruptor.SleepingBlockingWaitStrategy;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests verifying database writes of {@link DbAccessHandler}s.
+ */
+public class DbAccessHandlerTest {
+
+    private static final int WRITER_COUNT = 2;
+
+    private final Map<DbAccessHandler, Set<Long>> insertedIds = new HashMap<>();
+
+    private final Map<DbAccessHandler, Set<Long>> deletedIds = new HashMap<>();
+
+    private DbEventMatcher eventMatcher;
+
+    private List<DbAccessHandler> writers;
+
+    private final List<Message> submittedReads = new ArrayList<>();
+
+    private PendingMessageWrites pendingWrites;
+
+    private SleepingBlockingWaitStrategy waitStrategy;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        insertedIds.clear();
+        deletedIds.clear();
+        submittedReads.clear();
+        pendingWrites = new PendingMessageWrites((buffer, message) -> submittedReads.add(message));
+        waitStrategy = Mockito.mock(SleepingBlockingWaitStrategy.class);
+        eventMatcher = new DbEventMatcher(16, pendingWrites);
+        writers = new ArrayList<>();
+        for (int i = 0; i < WRITER_COUNT; i++) {
+            MessageDao messageDao = Mockito.mock(MessageDao.class);
+            DbAccessHandler writer = new DbAccessHandler(messageDao, 100, 0, i, WRITER_COUNT, pendingWrites,
+                                                         waitStrategy, new NullBrokerMetricManager());
+            insertedIds.put(writer, new TreeSet<>());
+            deletedIds.put(writer, new TreeSet<>());
+            Mockito.doAnswer(invocation -> {
+                TransactionData transactionData = invocation.getArgument(0);
+                transactionData.getEnqueueMessages().forEach(message -> insertedIds.get(writer)
+                                                                                    .add(message.getInternalId()));
+                deletedIds.get(writer).addAll(transactionData.getDeletableMessage());
+                return null;
+            }).when(messageDao).persist(Mockito.any(TransactionData.class));
+            writers.add(writer);
+        }
+    }
+
+    @Test(description = "Test each writer only persists the messages of its partition")
+    public void testWritesArePartitioned() throws Exception {
+        List<DbOperation> events = new ArrayList<>();
+        for (long id = 1; id <= 4; id++) {
+            DbOperation event = DbOperation.getFactory().newInstance();
+            event.insertMessage(new Message(id, new Metadata("queue1", "amq.direct", 0)));
+            events.add(event);
+        }
+        DbOperation delete = DbOperation.getFactory().newInstance();
+        delete.deleteMessage(5);
+        events.add(delete);
+
+        process(events);
+
+        Assert.assertEquals(insertedIds.get(writers.get(0)), new TreeSet<>(Arrays.asList(2L, 4L)));
+        Assert.assertEquals(insertedIds.get(writers.get(1)), new TreeSet<>(Arrays.asList(1L, 3L)));
+        Assert.assertTrue(deletedIds.get(writers.get(0)).isEmpty());
+        Assert.assertEquals(deletedIds.get(writers.get(1)), new TreeSet<>(Collections.singleton(5L)));
+    }
+
+    @Test(description = "Test canceled operations are skipped by the writer owning the message")
+    public void testCanceledOperationsSkipped() throws Exception {
+        List<DbOperation> events = new ArrayList<>();
+        for (long id = 1; id <= 2; id++) {
+            pendingWrites.add(id);
+            DbOperation event = DbOperation.getFactory().newInstance();
+            event.insertMessage(new Message(id, new Metadata("queue1", "amq.direct", 0)));
+            events.add(event);
+        }
+        DbOperation delete = DbOperation.getFactory().newInstance();
+        delete.deleteMessage(1);
+        events.add(delete);
+
+        process(events);
+
+        Assert.assertEquals(insertedIds.get(writers.get(0)), new TreeSet<>(Collections.singleton(2L)));
+        Assert.assertTrue(insertedIds.get(writers.get(1)).isEmpty(), "Canceled insert should not be persisted");
+        Assert.assertTrue(deletedIds.get(writers.get(1)).isEmpty(), "Canceled delete should not be persisted");
+        Assert.assertEquals(pendingWrites.size(), 0, "Committed and canceled inserts should not be pending");
+    }
+
+    @Test(description = "Test reads of a message are held back until its insert is committed")
+    public void testReadsWaitForInsert() throws Exception {
+        DbAccessHandler writer = groupCommitWriter(TimeUnit.SECONDS.toNanos(10), new ArrayList<>());
+        Message bareMessage = new Message(1, null);
+        pendingWrites.add(1);
+
+        Assert.assertTrue(pendingWrites.deferRead(null, bareMessage), "Read should wait for the pending insert");
+        Assert.assertFalse(pendingWrites.deferRead(null, new Message(2, null)),
+                           "Read of a message which is not being written should not wait");
+        Assert.assertTrue(submittedReads.isEmpty());
+
+        writer.onEvent(insertEvent(1), 0, true);
+
+        Assert.assertEquals(submittedReads, Collections.singletonList(bareMessage));
+        Assert.assertFalse(pendingWrites.isPending(1));
+    }
+
+    @Test(description = "Test writes are committed without waiting when traffic is light")
+    public void testLightTrafficCommitsImmediately() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        DbAccessHandler writer = groupCommitWriter(TimeUnit.SECONDS.toNanos(10), batchSizes);
+
+        writer.onEvent(insertEvent(1), 0, true);
+        writer.onEvent(insertEvent(2), 1, true);
+
+        Assert.assertEquals(batchSizes, Arrays.asList(1, 1));
+        Assert.assertEquals(writer.getTargetBatchSize(), 1);
+        Mockito.verify(waitStrategy, Mockito.never().description("Waits should not time out without an open batch"))
+               .setWaitDeadline(Mockito.anyLong());
+    }
+
+    @Test(description = "Test batches grow under load and are committed once they waited long enough")
+    public void testBatchesGrowUnderLoad() throws Exception {
+        List<Integer> batchSizes = new ArrayList<>();
+        DbAccessHandler writer = groupCommitWriter(TimeUnit.MILLISECONDS.toNanos(50), batchSizes);
+
+        for (int i = 0; i < 10; i++) {
+            writer.onEvent(insertEvent(i + 1), i, i == 9);
+        }
+        Assert.assertEquals(batchSizes, Arrays.asList(1, 2, 4), "Remaining writes should wait for the batch to fill");
+        Assert.assertEquals(writer.getTargetBatchSize(), 8);
+        Mockito.verify(waitStrategy, Mockito.times(3)).setWaitDeadline(Mockito.anyLong());
+        Mockito.verify(waitStrategy, Mockito.times(2).description("Waits should time out while a batch is open"))
+               .clearWaitDeadline();
+
+        writer.onTimeout(9);
+        Assert.assertEquals(batchSizes.size(), 3, "Writes should wait until the maximum wait");
+
+        TimeUnit.MILLISECONDS.sleep(60);
+        writer.onTimeout(9);
+        Assert.assertEquals(batchSizes, Arrays.asList(1, 2, 4, 3));
+        Assert.assertEquals(writer.getTargetBatchSize(), 4, "Batch target should shrink after waiting too long");
+        Mockito.verify(waitStrategy, Mockito.times(3)).clearWaitDeadline();
+    }
+
+    private DbAccessHandler groupCommitWriter(long maxBatchWait, List<Integer> batchSizes) throws Exception {
+        MessageDao messageDao = Mockito.mock(MessageDao.class);
+        Mockito.doAnswer(invocation -> {
+            batchSizes.add(((TransactionData) invocation.getArgument(0)).size());
+            return null;
+        }).when(messageDao).persist(Mockito.any(TransactionData.class));
+        return new DbAccessHandler(messageDao, 100, maxBatchWait, 0, 1, pendingWrites, waitStrategy,
+                                   new NullBrokerMetricManager());
+    }
+
+    private static DbOperation insertEvent(long messageId) {
+        DbOperation event = DbOperation.getFactory().newInstance();
+        event.insertMessage(new Message(messageId, new Metadata("queue1", "amq.direct", 0)));
+        event.completeProcessing();
+        return event;
+    }
+
+    private void process(List<DbOperation> events) throws Exception {
+        for (int i = 0; i < events.size(); i++) {
+            eventMatcher.onEvent(events.get(i), i, i == events.size() - 1);
+        }
+        for (DbAccessHandler writer : writers) {
+            for (int i = 0; i < events.size(); i++) {
+                writer.onEvent(events.get(i), i, i == events.size() - 1);
+            }
+        }
+    }
+}
@@ -49,7 +49,7 @@ public class DbEventMatcherTest {
 
     @BeforeMethod
     public void setUp() {
-        dbEventMatcher = new DbEventMatcher(BUFFER_SIZE);
+        dbEventMatcher = new DbEventMatcher(BUFFER_SIZE, new PendingMessageWrites((buffer, message) -> { }));
     }
 
     @Test(dataProvider = "testDbOperationData")
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.queue.QueueBuffer;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests verifying message data reads of {@link DbMessageStore}.
+ */
+public class DbReadHandlerTest {
+
+    private MessageDao messageDao;
+
+    private QueueBuffer queueBuffer;
+
+    private final List<Message> submittedReads = new ArrayList<>();
+
+    private PendingMessageWrites pendingWrites;
+
+    @BeforeMethod
+    public void setUp() {
+        messageDao = Mockito.mock(MessageDao.class);
+        queueBuffer = Mockito.mock(QueueBuffer.class);
+        submittedReads.clear();
+        pendingWrites = new PendingMessageWrites((buffer, message) -> submittedReads.add(message));
+    }
+
+    @Test(description = "Test each reader only reads the sequences assigned to it and batches them")
+    @SuppressWarnings("unchecked")
+    public void testReadersShareSequences() throws Exception {
+        List<Set<Long>> readIds = new ArrayList<>();
+        Mockito.doAnswer(invocation -> {
+            Map<Long, List<Message>> readList = invocation.getArgument(0);
+            readIds.add(new HashSet<>(readList.keySet()));
+            fillMetadata(readList);
+            return null;
+        }).when(messageDao).read(Mockito.anyMap());
+        DbReadHandler first = new DbReadHandler(messageDao, 100, 0, 2, pendingWrites, new NullBrokerMetricManager());
+        DbReadHandler second = new DbReadHandler(messageDao, 100, 1, 2, pendingWrites, new NullBrokerMetricManager());
+
+        Message[] messages = new Message[4];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = new Message(i, null);
+            DbOperation event = DbOperation.getFactory().newInstance();
+            event.readMessageData(queueBuffer, messages[i]);
+            boolean endOfBatch = i == messages.length - 1;
+            first.onEvent(event, i, endOfBatch);
+            second.onEvent(event, i, endOfBatch);
+        }
+
+        Assert.assertEquals(readIds.size(), 2, "Each reader should read its events in a single batch");
+        Assert.assertTrue(readIds.contains(new HashSet<>(Arrays.asList(0L, 2L))));
+        Assert.assertTrue(readIds.contains(new HashSet<>(Arrays.asList(1L, 3L))));
+        for (Message message : messages) {
+            Mockito.verify(queueBuffer).markMessageFilled(message);
+        }
+    }
+
+    @Test(description = "Test reads are flushed once the batch size is reached")
+    @SuppressWarnings("unchecked")
+    public void testMaxBatchSize() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            fillMetadata(invocation.getArgument(0));
+            return null;
+        }).when(messageDao).read(Mockito.anyMap());
+        DbReadHandler handler = new DbReadHandler(messageDao, 2, 0, 1, pendingWrites, new NullBrokerMetricManager());
+
+        for (int i = 0; i < 5; i++) {
+            DbOperation event = DbOperation.getFactory().newInstance();
+            event.readMessageData(queueBuffer, new Message(i, null));
+            handler.onEvent(event, i, false);
+        }
+
+        Mockito.verify(messageDao, Mockito.times(2)).read(Mockito.anyMap());
+        Mockito.verify(queueBuffer, Mockito.times(4)).markMessageFilled(Mockito.any(Message.class));
+    }
+
+    @Test(description = "Test messages which are still not found when read again are removed from the queue buffer")
+    @SuppressWarnings("unchecked")
+    public void testMissingMessageRemoved() throws Exception {
+        Message storedMessage = new Message(1, null);
+        Message deletedMessage = new Message(2, null);
+        Mockito.doAnswer(invocation -> {
+            Map<Long, List<Message>> readList = invocation.getArgument(0);
+            readList.getOrDefault(1L, Collections.emptyList())
+                    .forEach(message -> message.setMetadata(new Metadata("queue", "amq.direct", 0)));
+            return null;
+        }).when(messageDao).read(Mockito.anyMap());
+
+        read(storedMessage, deletedMessage);
+
+        Mockito.verify(messageDao, Mockito.times(2)).read(Mockito.anyMap());
+        Mockito.verify(queueBuffer).markMessageFilled(storedMessage);
+        Mockito.verify(queueBuffer).remove(deletedMessage);
+        Mockito.verify(queueBuffer, Mockito.never()).markMessageFilled(deletedMessage);
+    }
+
+    @Test(description = "Test a message committed after the first read is filled by the second read")
+    @SuppressWarnings("unchecked")
+    public void testMissingMessageReadAgain() throws Exception {
+        Message message = new Message(1, null);
+        AtomicInteger readCount = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            if (readCount.incrementAndGet() > 1) {
+                fillMetadata(invocation.getArgument(0));
+            }
+            return null;
+        }).when(messageDao).read(Mockito.anyMap());
+
+        read(message);
+
+        Mockito.verify(queueBuffer).markMessageFilled(message);
+        Mockito.verify(queueBuffer, Mockito.never()).remove(Mockito.any(Message.class));
+    }
+
+    @Test(description = "Test a message which is not found while its insert is pending is read again after the insert")
+    public void testMissingMessageWaitsForInsert() throws Exception {
+        Message message = new Message(1, null);
+        pendingWrites.add(1);
+
+        read(message);
+
+        Mockito.verify(messageDao, Mockito.times(1)).read(Mockito.anyMap());
+        Mockito.verifyNoInteractions(queueBuffer);
+        pendingWrites.complete(1);
+        Assert.assertEquals(submittedReads, Collections.singletonList(message));
+    }
+
+    private void read(Message... messages) throws Exception {
+        DbReadHandler handler = new DbReadHandler(messageDao, 100, 0, 1, pendingWrites, new NullBrokerMetricManager());
+        for (int i = 0; i < messages.length; i++) {
+            DbOperation event = DbOperation.getFactory().newInstance();
+            event.readMessageData(queueBuffer, messages[i]);
+            handler.onEvent(event, i, i == messages.length - 1);
+        }
+    }
+
+    private static void fillMetadata(Map<Long, List<Message>> readList) {
+        for (List<Message> messages : readList.values()) {
+            for (Message message : messages) {
+                message.setMetadata(new Metadata("queue", "amq.direct", 0));
+            }
+        }
+    }
+}
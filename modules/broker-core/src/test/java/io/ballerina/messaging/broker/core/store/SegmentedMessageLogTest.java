@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store;
+
+import io.ballerina.messaging.broker.common.data.types.ShortString;
+import io.ballerina.messaging.broker.core.ContentChunk;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.Metadata;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.file.SegmentedMessageLog;
+import io.ballerina.messaging.broker.core.transaction.XidImpl;
+import io.netty.buffer.Unpooled;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.transaction.xa.Xid;
+
+/**
+ * Unit tests verifying the segmented file message log.
+ */
+public class SegmentedMessageLogTest {
+
+    private static final long SEGMENT_SIZE = 4096;
+
+    private Path directory;
+
+    private SegmentedMessageLog messageLog;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("message-log");
+        messageLog = open();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        messageLog.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test(description = "Test stored messages are recovered with their queues, metadata and content")
+    public void testRecoverMessages() throws Exception {
+        TransactionData transactionData = new TransactionData();
+        transactionData.addEnqueueMessage(message(1, "content-1", "q1", "q2"));
+        transactionData.addEnqueueMessage(message(2, "content-2", "q1"));
+        messageLog.persist(transactionData);
+
+        reopen();
+
+        Assert.assertEquals(idsOf(messageLog.readAll("q1")), idsOf(1, 2));
+        Collection<Message> q2Messages = messageLog.readAll("q2");
+        Assert.assertEquals(idsOf(q2Messages), idsOf(1));
+        Assert.assertEquals(q2Messages.iterator().next().getAttachedDurableQueues().size(), 2,
+                            "Recovered message should know all its queues");
+
+        Message message = new Message(1, null);
+        messageLog.read(readList(message));
+        Assert.assertEquals(message.getMetadata().getRoutingKey(), "key");
+        Assert.assertEquals(message.getMetadata().getHeader(ShortString.parseString("region")).getValue().toString(),
+                            "eu");
+        Assert.assertEquals(contentOf(message), "content-1");
+    }
+
+    @Test(description = "Test queues share the recovered message only until all of them recovered it")
+    public void testRecoveredMessageReleased() throws Exception {
+        TransactionData transactionData = new TransactionData();
+        transactionData.addEnqueueMessage(message(1, "content-1", "q1", "q2"));
+        messageLog.persist(transactionData);
+
+        reopen();
+
+        Message first = messageLog.readAll("q1").iterator().next();
+        Message second = messageLog.readAll("q2").iterator().next();
+        second.getAttachedDurableQueues().remove("q2");
+        Assert.assertFalse(first.getAttachedDurableQueues().contains("q2"),
+                           "Queues should share the attached queues of the recovered message");
+
+        Message reread = messageLog.readAll("q1").iterator().next();
+        first.getAttachedDurableQueues().remove("q1");
+        Assert.assertTrue(reread.getAttachedDurableQueues().contains("q1"),
+                          "Recovered message should not be kept once all its queues recovered it");
+    }
+
+    @Test(description = "Test detached and deleted messages are not recovered")
+    public void testDetachAndDelete() throws Exception {
+        TransactionData transactionData = new TransactionData();
+        transactionData.addEnqueueMessage(message(1, "content-1", "q1", "q2"));
+        transactionData.addEnqueueMessage(message(2, "content-2", "q1"));
+        messageLog.persist(transactionData);
+
+        transactionData.clear();
+        transactionData.detach("q1", 1);
+        transactionData.addDeletableMessage(2);
+        messageLog.persist(transactionData);
+
+        reopen();
+
+        Assert.assertTrue(messageLog.readAll("q1").isEmpty(), "Detached and deleted messages should be gone");
+        Assert.assertEquals(idsOf(messageLog.readAll("q2")), idsOf(1));
+    }
+
+    @Test(description = "Test a partially written record at the end of the log is discarded")
+    public void testIncompleteRecordDiscarded() throws Exception {
+        TransactionData transactionData = new TransactionData();
+        transactionData.addEnqueueMessage(message(1, "content-1", "q1"));
+        messageLog.persist(transactionData);
+        messageLog.close();
+
+        Path lastSegment = segmentFiles().get(segmentFiles().size() - 1);
+        long validSize = Files.size(lastSegment);
+        Files.write(lastSegment, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        messageLog = open();
+        Assert.assertEquals(idsOf(messageLog.readAll("q1")), idsOf(1));
+        Assert.assertEquals(Files.size(lastSegment), validSize, "Incomplete record should be truncated");
+
+        transactionData.clear();
+        transactionData.addEnqueueMessage(message(2, "content-2", "q1"));
+        messageLog.persist(transactionData);
+        reopen();
+        Assert.assertEquals(idsOf(messageLog.readAll("q1")), idsOf(1, 2));
+    }
+
+    @Test(description = "Test compaction removes segments of deleted messages and keeps the live messages")
+    public void testCompaction() throws Exception {
+        TransactionData transactionData = new TransactionData();
+        for (long id = 1; id <= 100; id++) {
+            transactionData.clear();
+            transactionData.addEnqueueMessage(message(id, "content-" + id, "q1"));
+            messageLog.persist(transactionData);
+        }
+        int segmentCount = segmentFiles().size();
+        Assert.assertTrue(segmentCount > 2, "Messages should span several segments");
+
+        transactionData.clear();
+        for (long id = 1; id <= 100; id++) {
+            if (id % 10 != 0) {
+                transactionData.addDeletableMessage(id);
+            }
+        }
+        messageLog.persist(transactionData);
+
+        messageLog.compact();
+        Assert.assertTrue(segmentFiles().size() < segmentCount, "Compaction should delete segments");
+
+        reopen();
+        List<Long> expectedIds = new ArrayList<>();
+        for (long id = 10; id <= 100; id += 10) {
+            expectedIds.add(id);
+        }
+        Assert.assertEquals(idsOf(messageLog.readAll("q1")), expectedIds);
+
+        Message message = new Message(10, null);
+        messageLog.read(readList(message));
+        Assert.assertEquals(contentOf(message), "content-10");
+    }
+
+    @Test(description = "Test prepared transactions are recovered and committed")
+    public void testPrepareAndCommit() throws Exception {
+        TransactionData stored = new TransactionData();
+        stored.addEnqueueMessage(message(1, "content-1", "q1"));
+        messageLog.persist(stored);
+
+        Xid xid = new XidImpl(1, "branch".getBytes(StandardCharsets.UTF_8),
+                              "global".getBytes(StandardCharsets.UTF_8));
+        TransactionData prepared = new TransactionData();
+        prepared.addEnqueueMessage(message(2, "content-2", "q1"));
+        prepared.detach("q1", 1);
+        messageLog.prepare(xid, prepared);
+
+        reopen();
+
+        List<Xid> xids = new ArrayList<>();
+        messageLog.retrieveAllStoredXids(xids::add);
+        Assert.assertEquals(xids, Collections.singletonList(xid));
+        Collection<Message> enqueued = messageLog.retrieveAllEnqueuedMessages(xid);
+        Assert.assertEquals(idsOf(enqueued), idsOf(2));
+        Assert.assertEquals(contentOf(enqueued.iterator().next()), "content-2");
+        Assert.assertTrue(messageLog.readAll("q1").isEmpty(), "Prepared detach should be applied");
+
+        TransactionData committed = new TransactionData();
+        committed.addDeletableMessage(1);
+        messageLog.commitPreparedData(xid, committed);
+        reopen();
+
+        Assert.assertEquals(idsOf(messageLog.readAll("q1")), idsOf(2));
+        xids.clear();
+        messageLog.retrieveAllStoredXids(xids::add);
+        Assert.assertTrue(xids.isEmpty(), "Committed branch should be removed");
+    }
+
+    @Test(description = "Test rolling back a prepared transaction restores the detached messages")
+    public void testPrepareAndRollback() throws Exception {
+        TransactionData stored = new TransactionData();
+        stored.addEnqueueMessage(message(1, "content-1", "q1"));
+        messageLog.persist(stored);
+
+        Xid xid = new XidImpl(1, "branch".getBytes(StandardCharsets.UTF_8),
+                              "global".getBytes(StandardCharsets.UTF_8));
+        TransactionData prepared = new TransactionData();
+        prepared.addEnqueueMessage(message(2, "content-2", "q1"));
+        prepared.detach("q1", 1);
+        messageLog.prepare(xid, prepared);
+        messageLog.rollbackPreparedData(xid);
+
+        reopen();
+
+        Assert.assertEquals(idsOf(messageLog.readAll("q1")), idsOf(1));
+        Assert.assertTrue(messageLog.retrieveAllEnqueuedMessages(xid).isEmpty());
+    }
+
+    @Test(description = "Test the messages of each queue are tracked through detaches, deletes and compaction")
+    public void testQueueMessages() throws Exception {
+        TransactionData transactionData = new TransactionData();
+        for (long id = 1; id <= 60; id++) {
+            transactionData.clear();
+            transactionData.addEnqueueMessage(message(id, "content-" + id, id % 2 == 0 ? "q2" : "q1", "q3"));
+            messageLog.persist(transactionData);
+        }
+        transactionData.clear();
+        for (long id = 1; id <= 60; id++) {
+            if (id <= 40) {
+                transactionData.detach("q3", id);
+            }
+            if (id % 3 == 0) {
+                transactionData.addDeletableMessage(id);
+            }
+        }
+        messageLog.persist(transactionData);
+        messageLog.compact();
+
+        for (int i = 0; i < 2; i++) {
+            StoredMessageRange q1Range = messageLog.getStoredMessageRange("q1");
+            Assert.assertEquals(q1Range.getMessageCount(), 20);
+            Assert.assertEquals(q1Range.getLastMessageId(), 59);
+            Assert.assertEquals(idsOf(messageLog.readPage("q1", 0, 59, 3)), idsOf(1, 5, 7));
+            Assert.assertEquals(idsOf(messageLog.readPage("q2", 50, 60, 10)), idsOf(52, 56, 58));
+            Assert.assertEquals(idsOf(messageLog.readAll("q3")), idsOf(41, 43, 44, 46, 47, 49, 50, 52, 53, 55, 56,
+                                                                     58, 59));
+            Assert.assertEquals(messageLog.getStoredMessageRange("unknown").getMessageCount(), 0);
+            reopen();
+        }
+    }
+
+    private SegmentedMessageLog open() throws Exception {
+        return new SegmentedMessageLog(directory, SEGMENT_SIZE, 0.5, 0, new NullBrokerMetricManager());
+    }
+
+    private void reopen() throws Exception {
+        messageLog.close();
+        messageLog = open();
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static Message message(long id, String content, String... queues) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Metadata metadata = new Metadata("key", "amq.direct", bytes.length);
+        metadata.addHeader("region", "eu");
+        Message message = new Message(id, metadata);
+        message.addChunk(new ContentChunk(0, Unpooled.wrappedBuffer(bytes)));
+        for (String queue : queues) {
+            message.addAttachedDurableQueue(queue);
+        }
+        return message;
+    }
+
+    private static Map<Long, List<Message>> readList(Message message) {
+        Map<Long, List<Message>> readList = new HashMap<>();
+        readList.put(message.getInternalId(), Collections.singletonList(message));
+        return readList;
+    }
+
+    private static String contentOf(Message message) {
+        StringBuilder content = new StringBuilder();
+        for (ContentChunk chunk : message.getContentChunks()) {
+            content.append(new String(chunk.getBytes(), StandardCharsets.UTF_8));
+        }
+        return content.toString();
+    }
+
+    private static List<Long> idsOf(Collection<Message> messages) {
+        return messages.stream().map(Message::getInternalId).collect(Collectors.toList());
+    }
+
+    private static List<Long> idsOf(long... ids) {
+        List<Long> list = new ArrayList<>();
+        for (long id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
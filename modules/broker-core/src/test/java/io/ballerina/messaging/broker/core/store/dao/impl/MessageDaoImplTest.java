@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.dao.impl;
+
+import io.ballerina.messaging.broker.core.DbUtil;
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import io.ballerina.messaging.broker.core.store.StoredMessageRange;
+import io.ballerina.messaging.broker.core.store.dao.MessageDao;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+/**
+ * Tests verifying the paginated recovery of the messages of a queue.
+ */
+public class MessageDaoImplTest {
+
+    private static final String QUEUE = "page-queue";
+
+    private static final String OTHER_QUEUE = "page-other-queue";
+
+    private static final long[] MESSAGE_IDS = {9001, 9002, 9003, 9004, 9005};
+
+    private DataSource dataSource;
+
+    private MessageDao messageDao;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataSource = DbUtil.getDataSource();
+        messageDao = new DaoFactory(dataSource, new NullBrokerMetricManager()).createMessageDao(0);
+
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO MB_QUEUE_METADATA (QUEUE_NAME, QUEUE_ARGUMENTS) VALUES (?, ?)")) {
+                for (String queueName : Arrays.asList(QUEUE, OTHER_QUEUE)) {
+                    statement.setString(1, queueName);
+                    statement.setBytes(2, new byte[0]);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            try (PreparedStatement metadataStatement = connection.prepareStatement(
+                    "INSERT INTO MB_METADATA (MESSAGE_ID, EXCHANGE_NAME, ROUTING_KEY, CONTENT_LENGTH, "
+                            + "MESSAGE_METADATA) VALUES (?, 'amq.direct', 'key', 0, ?)");
+                 PreparedStatement mappingStatement = connection.prepareStatement(
+                         "INSERT INTO MB_QUEUE_MAPPING (MESSAGE_ID, QUEUE_NAME) VALUES (?, ?)")) {
+                for (long messageId : MESSAGE_IDS) {
+                    metadataStatement.setLong(1, messageId);
+                    metadataStatement.setBytes(2, new byte[0]);
+                    metadataStatement.addBatch();
+                    mappingStatement.setLong(1, messageId);
+                    mappingStatement.setString(2, QUEUE);
+                    mappingStatement.addBatch();
+                    if (messageId % 2 == 0) {
+                        mappingStatement.setLong(1, messageId);
+                        mappingStatement.setString(2, OTHER_QUEUE);
+                        mappingStatement.addBatch();
+                    }
+                }
+                metadataStatement.executeBatch();
+                mappingStatement.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM MB_METADATA WHERE MESSAGE_ID=?")) {
+                for (long messageId : MESSAGE_IDS) {
+                    statement.setLong(1, messageId);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM MB_QUEUE_METADATA WHERE QUEUE_NAME=?")) {
+                for (String queueName : Arrays.asList(QUEUE, OTHER_QUEUE)) {
+                    statement.setString(1, queueName);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    @Test(description = "Test the number of stored messages and the last message id of a queue")
+    public void testStoredMessageRange() throws Exception {
+        StoredMessageRange range = messageDao.getStoredMessageRange(QUEUE);
+        Assert.assertEquals(range.getMessageCount(), 5);
+        Assert.assertEquals(range.getLastMessageId(), 9005);
+
+        range = messageDao.getStoredMessageRange(OTHER_QUEUE);
+        Assert.assertEquals(range.getMessageCount(), 2);
+        Assert.assertEquals(range.getLastMessageId(), 9004);
+
+        range = messageDao.getStoredMessageRange("page-unknown-queue");
+        Assert.assertEquals(range.getMessageCount(), 0);
+    }
+
+    @Test(description = "Test paging through the messages of a queue with all their attached queues")
+    public void testReadPages() throws Exception {
+        Collection<Message> page = messageDao.readPage(QUEUE, 0, 9005, 2);
+        Assert.assertEquals(idsOf(page), Arrays.asList(9001L, 9002L));
+        Message sharedMessage = new ArrayList<>(page).get(1);
+        Assert.assertEquals(new HashSet<>(sharedMessage.getAttachedDurableQueues()),
+                            new HashSet<>(Arrays.asList(QUEUE, OTHER_QUEUE)));
+
+        Assert.assertEquals(idsOf(messageDao.readPage(QUEUE, 9002, 9005, 2)), Arrays.asList(9003L, 9004L));
+        Assert.assertEquals(idsOf(messageDao.readPage(QUEUE, 9004, 9005, 2)), Arrays.asList(9005L));
+        Assert.assertTrue(messageDao.readPage(QUEUE, 9005, 9005, 2).isEmpty());
+    }
+
+    @Test(description = "Test messages after the last message id are not read")
+    public void testReadPageUpToLastMessageId() throws Exception {
+        Assert.assertEquals(idsOf(messageDao.readPage(QUEUE, 0, 9003, 10)), Arrays.asList(9001L, 9002L, 9003L));
+        Assert.assertEquals(idsOf(messageDao.readPage(OTHER_QUEUE, 0, 9005, 10)), Arrays.asList(9002L, 9004L));
+    }
+
+    @Test(description = "Test queues are recovered from a checkpoint and the messages stored after it")
+    public void testRecoverFromCheckpoint() throws Exception {
+        Path directory = Files.createTempDirectory("queue-index");
+        try {
+            DaoFactory daoFactory = new DaoFactory(dataSource, new NullBrokerMetricManager());
+            MessageDao checkpointedDao = daoFactory.createCheckpointedMessageDao(0, directory, 3600, 2, () -> 9003);
+            Assert.assertEquals(checkpointedDao.getStoredMessageRange(QUEUE).getMessageCount(), 5);
+            Collection<Message> page = checkpointedDao.readPage(QUEUE, 0, 9005, 2);
+            Assert.assertEquals(idsOf(page), Arrays.asList(9001L, 9002L));
+            Assert.assertEquals(new HashSet<>(new ArrayList<>(page).get(1).getAttachedDurableQueues()),
+                                new HashSet<>(Arrays.asList(QUEUE, OTHER_QUEUE)));
+
+            Path checkpointFile = directory.resolve(QueueIndexCheckpoint.CHECKPOINT_FILE_NAME);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!Files.exists(checkpointFile) && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assert.assertTrue(Files.exists(checkpointFile), "Checkpoint should be written once the index is built");
+
+            // Mappings below the boundary are not read from the database on restart
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "DELETE FROM MB_QUEUE_MAPPING WHERE MESSAGE_ID IN (9001, 9005)")) {
+                statement.executeUpdate();
+                connection.commit();
+            }
+            checkpointedDao.close();
+            checkpointedDao = daoFactory.createCheckpointedMessageDao(0, directory, 3600, 2, () -> 9010);
+            Assert.assertEquals(idsOf(checkpointedDao.readPage(QUEUE, 0, 9005, 10)),
+                                Arrays.asList(9001L, 9002L, 9003L, 9004L));
+            Assert.assertEquals(idsOf(checkpointedDao.readPage(OTHER_QUEUE, 0, 9005, 10)),
+                                Arrays.asList(9002L, 9004L));
+            Assert.assertEquals(idsOf(checkpointedDao.readPage("page-unknown-queue", 0, 9005, 10)),
+                                Collections.emptyList());
+            checkpointedDao.close();
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static List<Long> idsOf(Collection<Message> messages) {
+        List<Long> ids = new ArrayList<>();
+        for (Message message : messages) {
+            ids.add(message.getInternalId());
+        }
+        return ids;
+    }
+}
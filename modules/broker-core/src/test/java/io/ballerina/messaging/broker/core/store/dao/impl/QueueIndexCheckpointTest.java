@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.dao.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Unit tests verifying the queue index checkpoint.
+ */
+public class QueueIndexCheckpointTest {
+
+    private Path directory;
+
+    private QueueIndexCheckpoint checkpoint;
+
+    /**
+     * Queue mappings stored in the database.
+     */
+    private NavigableMap<Long, List<String>> storedMappings;
+
+    /**
+     * Smallest message id read from the database by the last composed index.
+     */
+    private long firstReadMessageId;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("queue-index");
+        checkpoint = new QueueIndexCheckpoint(directory);
+        storedMappings = new TreeMap<>();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        checkpoint.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test(description = "Test only the messages stored after the checkpoint are read from the database")
+    public void testRestartFromCheckpoint() throws Exception {
+        store(10, "q1", "q2");
+        store(20, "q1");
+        store(30, "q2");
+
+        QueueIndexCheckpoint.Snapshot snapshot = compose(25);
+        Assert.assertEquals(firstReadMessageId, 10, "Without a checkpoint all the mappings should be read");
+        Assert.assertTrue(checkpoint.write(snapshot));
+
+        store(40, "q1");
+        restart();
+        snapshot = compose(50);
+
+        Assert.assertEquals(firstReadMessageId, 30, "Messages below the boundary should come from the checkpoint");
+        Assert.assertEquals(snapshot.getCheckpointMessageCount(), 3);
+        Assert.assertEquals(snapshot.getStoredMessageCount(), 2);
+        Assert.assertEquals(ids(snapshot, "q1"), Arrays.asList(10L, 20L, 40L));
+        Assert.assertEquals(ids(snapshot, "q2"), Arrays.asList(10L, 30L));
+    }
+
+    @Test(description = "Test journaled changes below the boundary are applied to the checkpoint")
+    public void testJournaledChanges() throws Exception {
+        store(10, "q1", "q2");
+        store(20, "q1");
+        store(30, "q3");
+        Assert.assertTrue(checkpoint.write(compose(100)));
+
+        Assert.assertTrue(checkpoint.isJournaled(99));
+        Assert.assertFalse(checkpoint.isJournaled(100));
+        checkpoint.journalAttached(Collections.singletonMap("q2", Collections.singletonList(5L)));
+        checkpoint.journalRemoved(Collections.singletonMap("q1", Collections.singletonList(10L)),
+                                  Collections.singletonList(20L));
+        checkpoint.journalDroppedQueue("q3");
+        checkpoint.journalAttached(Collections.singletonMap("q3", Collections.singletonList(35L)));
+        // Messages at or above the boundary are read from the database
+        checkpoint.journalAttached(Collections.singletonMap("q1", Collections.singletonList(150L)));
+
+        storedMappings.clear();
+        store(200, "q1");
+        restart();
+        QueueIndexCheckpoint.Snapshot snapshot = compose(300);
+
+        Assert.assertEquals(firstReadMessageId, 200);
+        Assert.assertEquals(ids(snapshot, "q1"), Collections.singletonList(200L));
+        Assert.assertEquals(ids(snapshot, "q2"), Arrays.asList(5L, 10L));
+        Assert.assertEquals(ids(snapshot, "q3"), Collections.singletonList(35L));
+    }
+
+    @Test(description = "Test the smallest boundary of the journals bounds the messages read from the checkpoint")
+    public void testDecreasingBoundary() throws Exception {
+        store(10, "q1");
+        store(20, "q1");
+        Assert.assertTrue(checkpoint.write(compose(30)));
+
+        // A restarted broker might generate smaller message ids than the previous run. Changes to messages from
+        // the new boundary onwards are not journaled.
+        restart();
+        compose(15);
+        store(17, "q1");
+        storedMappings.remove(20L);
+        Assert.assertFalse(checkpoint.isJournaled(20));
+
+        restart();
+        QueueIndexCheckpoint.Snapshot snapshot = compose(40);
+        Assert.assertEquals(firstReadMessageId, 17);
+        Assert.assertEquals(ids(snapshot, "q1"), Arrays.asList(10L, 17L));
+    }
+
+    @Test(description = "Test a new generation starts only after the database writes in progress are committed")
+    public void testGenerationWaitsForWrites() throws Exception {
+        store(10, "q1");
+        Assert.assertTrue(checkpoint.write(compose(20)));
+
+        // A write of a message from the boundary onwards, which is not journaled
+        Lock writeLock = checkpoint.getWriteLock();
+        writeLock.lock();
+        Assert.assertFalse(checkpoint.isJournaled(25));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<QueueIndexCheckpoint.Snapshot> composed = executor.submit(() -> compose(30));
+            try {
+                composed.get(200, TimeUnit.MILLISECONDS);
+                Assert.fail("New generation should wait for the write in progress");
+            } catch (TimeoutException e) {
+                // Expected
+            }
+            store(25, "q1");
+            writeLock.unlock();
+
+            QueueIndexCheckpoint.Snapshot snapshot = composed.get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(ids(snapshot, "q1"), Arrays.asList(10L, 25L));
+            Assert.assertTrue(checkpoint.write(snapshot));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        restart();
+        Assert.assertEquals(ids(compose(40), "q1"), Arrays.asList(10L, 25L));
+    }
+
+    @Test(description = "Test an incomplete journal record written before a crash is discarded")
+    public void testIncompleteJournalRecord() throws Exception {
+        store(10, "q1");
+        store(20, "q1");
+        Assert.assertTrue(checkpoint.write(compose(100)));
+        checkpoint.journalRemoved(Collections.singletonMap("q1", Collections.singletonList(10L)),
+                                  Collections.emptyList());
+        checkpoint.close();
+
+        Path journal = journalFiles().get(journalFiles().size() - 1);
+        Files.write(journal, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        restart();
+        QueueIndexCheckpoint.Snapshot snapshot = compose(100);
+        Assert.assertEquals(ids(snapshot, "q1"), Collections.singletonList(20L));
+    }
+
+    @Test(description = "Test a corrupted checkpoint makes the index read all the mappings from the database")
+    public void testCorruptedCheckpoint() throws Exception {
+        store(10, "q1");
+        Assert.assertTrue(checkpoint.write(compose(100)));
+
+        Path checkpointFile = directory.resolve(QueueIndexCheckpoint.CHECKPOINT_FILE_NAME);
+        byte[] bytes = Files.readAllBytes(checkpointFile);
+        bytes[bytes.length - 10] ^= 0xFF;
+        Files.write(checkpointFile, bytes);
+
+        restart();
+        QueueIndexCheckpoint.Snapshot snapshot = compose(100);
+        Assert.assertEquals(firstReadMessageId, 10);
+        Assert.assertEquals(snapshot.getCheckpointMessageCount(), 0);
+        Assert.assertEquals(ids(snapshot, "q1"), Collections.singletonList(10L));
+    }
+
+    @Test(description = "Test an invalidated checkpoint is not used and a concurrent checkpoint is not written")
+    public void testInvalidate() throws Exception {
+        store(10, "q1");
+        Assert.assertTrue(checkpoint.write(compose(100)));
+
+        QueueIndexCheckpoint.Snapshot snapshot = compose(100);
+        checkpoint.invalidate();
+        Assert.assertFalse(checkpoint.write(snapshot), "Checkpoint started before invalidation should be dropped");
+
+        restart();
+        compose(100);
+        Assert.assertEquals(firstReadMessageId, 10);
+    }
+
+    @Test(description = "Test the index shares the queues of messages attached to several queues")
+    public void testQueueIndex() {
+        Map<String, long[]> queueMessageIds = new HashMap<>();
+        queueMessageIds.put("q1", new long[]{1, 2, 3, 4});
+        queueMessageIds.put("q2", new long[]{2, 4});
+        QueueIndex index = new QueueIndex(queueMessageIds);
+
+        Assert.assertEquals(index.getStoredMessageRange("q1").getMessageCount(), 4);
+        Assert.assertEquals(index.getStoredMessageRange("q1").getLastMessageId(), 4);
+        Assert.assertEquals(index.getQueues(1, "q1"), Collections.singletonList("q1"));
+        Assert.assertEquals(new ArrayList<>(index.getQueues(2, "q1")).stream().sorted().collect(Collectors.toList()),
+                            Arrays.asList("q1", "q2"));
+
+        Assert.assertEquals(index.getPage("q1", 0, 4, 2), new long[]{1, 2});
+        Assert.assertEquals(index.getPage("q1", 2, 4, 2), new long[]{3, 4});
+        Assert.assertEquals(index.getStoredMessageRange("q1").getMessageCount(), 0,
+                            "Ids of a queue should be released once read");
+    }
+
+    @Test(description = "Test a shared message recovered after it is detached from a queue no longer has that queue")
+    public void testQueueIndexDetach() {
+        Map<String, long[]> queueMessageIds = new HashMap<>();
+        queueMessageIds.put("q1", new long[]{1, 2});
+        queueMessageIds.put("q2", new long[]{1, 2});
+        queueMessageIds.put("q3", new long[]{1});
+        QueueIndex index = new QueueIndex(queueMessageIds);
+
+        index.detach(1, "q1");
+        Assert.assertEquals(index.getQueues(1, "q2").stream().sorted().collect(Collectors.toList()),
+                            Arrays.asList("q2", "q3"));
+        index.detach(1, "q3");
+        Assert.assertEquals(index.getQueues(1, "q2"), Collections.singletonList("q2"));
+
+        index.delete(2);
+        Assert.assertEquals(index.getQueues(2, "q2"), Collections.singletonList("q2"));
+    }
+
+    private void store(long messageId, String... queueNames) {
+        storedMappings.put(messageId, Arrays.asList(queueNames));
+    }
+
+    private void restart() throws IOException {
+        checkpoint.close();
+        checkpoint = new QueueIndexCheckpoint(directory);
+    }
+
+    private QueueIndexCheckpoint.Snapshot compose(long boundary) throws Exception {
+        firstReadMessageId = Long.MAX_VALUE;
+        return checkpoint.compose(this::readPage, boundary);
+    }
+
+    private long readPage(long afterMessageId, MessageCrudOperationsDao.QueueMappingConsumer consumer) {
+        Map.Entry<Long, List<String>> entry = storedMappings.higherEntry(afterMessageId);
+        if (entry == null) {
+            return afterMessageId;
+        }
+        firstReadMessageId = Math.min(firstReadMessageId, entry.getKey());
+        for (String queueName : entry.getValue()) {
+            consumer.accept(entry.getKey(), queueName);
+        }
+        return entry.getKey();
+    }
+
+    private List<Path> journalFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(".journal")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static List<Long> ids(QueueIndexCheckpoint.Snapshot snapshot, String queueName) {
+        List<Long> ids = new ArrayList<>();
+        for (long messageId : snapshot.getQueueMessageIds().getOrDefault(queueName, new long[0])) {
+            ids.add(messageId);
+        }
+        return ids;
+    }
+}
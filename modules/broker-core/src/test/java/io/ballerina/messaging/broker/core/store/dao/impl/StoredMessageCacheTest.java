@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.store.dao.impl;
+
+import io.ballerina.messaging.broker.core.Message;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+
+/**
+ * Unit tests verifying the bounded cache of messages recovered from the database.
+ */
+public class StoredMessageCacheTest {
+
+    private StoredMessageCache cache;
+
+    @BeforeMethod
+    public void setUp() {
+        cache = new StoredMessageCache(2, new NullBrokerMetricManager());
+    }
+
+    @Test(description = "Test messages attached to a single queue are not cached")
+    public void testSingleQueueMessageNotCached() {
+        cache.add(message(1, "q1"));
+
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertNull(cache.recover(1));
+        Assert.assertFalse(cache.isEvicted(1));
+    }
+
+    @Test(description = "Test queues share the attached queues and the entry is removed once all queues recover it")
+    public void testRecoverSharesAttachedQueues() {
+        Message message = message(1, "q1", "q2", "q3");
+        cache.add(message);
+
+        Message second = cache.recover(1);
+        Assert.assertNotNull(second);
+        Assert.assertEquals(cache.size(), 1, "Message should be cached until the last queue recovers it");
+        Message third = cache.recover(1);
+        Assert.assertNotNull(third);
+        Assert.assertEquals(cache.size(), 0);
+
+        second.getAttachedDurableQueues().remove("q2");
+        Assert.assertFalse(message.getAttachedDurableQueues().contains("q2"),
+                           "Recovered copies should share the attached queues");
+        Assert.assertFalse(third.getAttachedDurableQueues().contains("q2"),
+                           "Recovered copies should share the attached queues");
+    }
+
+    @Test(description = "Test the oldest message is evicted when the cache is full")
+    public void testEviction() {
+        cache.add(message(1, "q1", "q2"));
+        cache.add(message(2, "q1", "q2"));
+        cache.add(message(3, "q1", "q2"));
+
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertTrue(cache.isEvicted(1));
+        Assert.assertTrue(cache.isUnattachedCheckRequired(1));
+        Assert.assertNull(cache.recover(1));
+        Assert.assertNotNull(cache.recover(2));
+        Assert.assertNotNull(cache.recover(3));
+        Assert.assertFalse(cache.isEvicted(2));
+    }
+
+    @Test(description = "Test deleted messages are forgotten")
+    public void testRemoveDeletedMessages() {
+        cache.add(message(1, "q1", "q2"));
+        cache.add(message(2, "q1", "q2"));
+        cache.add(message(3, "q1", "q2"));
+
+        cache.removeAll(Collections.singletonList(1L));
+        Assert.assertFalse(cache.isEvicted(1));
+        cache.removeAll(Collections.singletonList(2L));
+        Assert.assertNull(cache.recover(2));
+        Assert.assertEquals(cache.size(), 1);
+    }
+
+    @Test(description = "Test every multi-queue message is treated as evicted when the cache is disabled")
+    public void testDisabledCache() {
+        cache = new StoredMessageCache(0, new NullBrokerMetricManager());
+        cache.add(message(1, "q1", "q2"));
+
+        Assert.assertEquals(cache.size(), 0);
+        Assert.assertTrue(cache.isUnattachedCheckRequired(1));
+    }
+
+    @Test(description = "Test evicted ids are bounded and every detach is checked once more messages are evicted")
+    public void testEvictedIdsOverflow() {
+        for (long id = 1; id <= 4; id++) {
+            cache.add(message(id, "q1", "q2"));
+        }
+        Assert.assertTrue(cache.isEvicted(1));
+        Assert.assertTrue(cache.isEvicted(2));
+        Assert.assertFalse(cache.isUnattachedCheckRequired(3));
+
+        cache.add(message(5, "q1", "q2"));
+        Assert.assertFalse(cache.isEvicted(1), "Evicted ids should not be remembered beyond the cache size");
+        Assert.assertTrue(cache.isUnattachedCheckRequired(1));
+        Assert.assertTrue(cache.isUnattachedCheckRequired(5));
+        Assert.assertNotNull(cache.recover(5), "Messages should still be cached after the overflow");
+    }
+
+    private static Message message(long id, String... queues) {
+        Message message = new Message(id, null);
+        for (String queue : queues) {
+            message.addAttachedDurableQueue(queue);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ *
+ */
+
+package io.ballerina.messaging.broker.core.task;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.ballerina.messaging.broker.core.metrics.NullBrokerMetricManager;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TaskExecutorServiceTest {
+
+    private TaskExecutorService<CountingTask> taskExecutorService;
+
+    @BeforeMethod
+    public void setUp() {
+        taskExecutorService = createTaskExecutorService(2);
+        taskExecutorService.start();
+    }
+
+    private static TaskExecutorService<CountingTask> createTaskExecutorService(int workerCount) {
+        return new TaskExecutorService<>(workerCount, new ThreadFactoryBuilder()
+                .setNameFormat("TaskExecutorServiceTest-%d").build(), new NullBrokerMetricManager());
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        taskExecutorService.shutdown();
+    }
+
+    @Test
+    public void testIdleTaskIsParkedUntilSignalled() throws Exception {
+        CountingTask task = new CountingTask("parked");
+        taskExecutorService.add(task);
+        Assert.assertTrue(task.awaitRuns(1), "Newly added task should be processed");
+
+        Thread.sleep(200);
+        Assert.assertEquals(task.runCount.get(), 1, "Idle task should not be processed without a signal");
+
+        task.pendingWork.set(3);
+        task.signal();
+        Assert.assertTrue(task.awaitRuns(5), "Signalled task should be processed until it becomes idle");
+
+        Thread.sleep(200);
+        Assert.assertEquals(task.runCount.get(), 5, "Task should be parked once the work is done");
+        Assert.assertEquals(task.pendingWork.get(), 0);
+    }
+
+    @Test
+    public void testSignalWhileRunningProcessesTaskAgain() throws Exception {
+        CountingTask task = new CountingTask("signalled-while-running") {
+            @Override
+            public TaskHint call() throws Exception {
+                if (runCount.get() == 0) {
+                    // Work arriving while the task is running must not be missed
+                    pendingWork.set(1);
+                    signal();
+                    super.call();
+                    return TaskHint.IDLE;
+                }
+                return super.call();
+            }
+        };
+        taskExecutorService.add(task);
+
+        Assert.assertTrue(task.awaitRuns(2), "Task signalled while running should be processed again");
+    }
+
+    @Test
+    public void testRemoveParkedTask() throws Exception {
+        CountingTask task = new CountingTask("removed");
+        taskExecutorService.add(task);
+        Assert.assertTrue(task.awaitRuns(1));
+
+        taskExecutorService.remove(task.getId());
+        Assert.assertTrue(task.removed.await(5, TimeUnit.SECONDS), "Parked task should be removed");
+        Assert.assertNull(taskExecutorService.getTask(task.getId()));
+    }
+
+    @Test
+    public void testTasksAreStolenFromBusyWorker() throws Exception {
+        CountDownLatch blockerStarted = new CountDownLatch(1);
+        CountDownLatch releaseBlocker = new CountDownLatch(1);
+        BlockingTask blocker = new BlockingTask("blocker", blockerStarted, releaseBlocker);
+        taskExecutorService.add(blocker);
+        Assert.assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+
+        try {
+            // Some of these tasks are queued to the busy worker and should be processed by the other worker
+            List<CountingTask> tasks = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                CountingTask task = new CountingTask("task-" + i);
+                task.pendingWork.set(2);
+                tasks.add(task);
+                taskExecutorService.add(task);
+            }
+
+            for (CountingTask task : tasks) {
+                Assert.assertTrue(task.awaitRuns(3), "Task " + task.getId() + " should be processed while a worker"
+                        + " is busy");
+            }
+        } finally {
+            releaseBlocker.countDown();
+        }
+    }
+
+    @Test
+    public void testTaskWeightsAreHonoured() throws Exception {
+        TaskExecutorService<CountingTask> singleWorkerService = createTaskExecutorService(1);
+        singleWorkerService.start();
+        try {
+            CountDownLatch blockerStarted = new CountDownLatch(1);
+            CountDownLatch releaseBlocker = new CountDownLatch(1);
+            singleWorkerService.add(new BlockingTask("blocker", blockerStarted, releaseBlocker));
+            Assert.assertTrue(blockerStarted.await(5, TimeUnit.SECONDS));
+
+            List<String> runOrder = Collections.synchronizedList(new ArrayList<>());
+            RecordingTask heavy = new RecordingTask("heavy", 3, runOrder);
+            heavy.pendingWork.set(5);
+            RecordingTask light = new RecordingTask("light", 1, runOrder);
+            light.pendingWork.set(1);
+
+            // Queue both tasks behind the blocker to get a deterministic run order
+            singleWorkerService.add(heavy);
+            singleWorkerService.add(light);
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((singleWorkerService.getTask("heavy") == null || singleWorkerService.getTask("light") == null)
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            releaseBlocker.countDown();
+
+            Assert.assertTrue(heavy.awaitRuns(6));
+            Assert.assertTrue(light.awaitRuns(2));
+            Assert.assertEquals(runOrder, Arrays.asList("heavy", "heavy", "heavy", "light",
+                                                        "heavy", "heavy", "heavy", "light"));
+        } finally {
+            singleWorkerService.shutdown();
+        }
+    }
+
+    /**
+     * Task which is active while it has pending work.
+     */
+    private static class CountingTask extends Task {
+
+        private final String id;
+
+        final AtomicInteger runCount = new AtomicInteger();
+
+        final AtomicInteger pendingWork = new AtomicInteger();
+
+        final CountDownLatch removed = new CountDownLatch(1);
+
+        CountingTask(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public void onAdd() {
+        }
+
+        @Override
+        public void onRemove() {
+            removed.countDown();
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public TaskHint call() throws Exception {
+            runCount.incrementAndGet();
+            if (pendingWork.get() > 0) {
+                pendingWork.decrementAndGet();
+                return TaskHint.ACTIVE;
+            }
+            return TaskHint.IDLE;
+        }
+
+        boolean awaitRuns(int expectedRuns) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (runCount.get() < expectedRuns && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            return runCount.get() >= expectedRuns;
+        }
+    }
+
+    /**
+     * Task which records its runs to a shared list.
+     */
+    private static class RecordingTask extends CountingTask {
+
+        private final int weight;
+
+        private final List<String> runOrder;
+
+        RecordingTask(String id, int weight, List<String> runOrder) {
+            super(id);
+            this.weight = weight;
+            this.runOrder = runOrder;
+        }
+
+        @Override
+        public int getWeight() {
+            return weight;
+        }
+
+        @Override
+        public TaskHint call() throws Exception {
+            runOrder.add(getId());
+            return super.call();
+        }
+    }
+
+    /**
+     * Task which occupies a worker until it is released.
+     */
+    private static class BlockingTask extends CountingTask {
+
+        private final CountDownLatch started;
+
+        private final CountDownLatch release;
+
+        BlockingTask(String id, CountDownLatch started, CountDownLatch release) {
+            super(id);
+            this.started = started;
+            this.release = release;
+        }
+
+        @Override
+        public TaskHint call() throws Exception {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return super.call();
+        }
+    }
+}
@@ -139,6 +139,8 @@ CREATE TABLE MB_AUTH_RESOURCE_MAPPING (
 
 CREATE INDEX IDX_RESOURCE_KEY ON MB_AUTH_RESOURCE (RESOURCE_TYPE, RESOURCE_NAME);
 
+CREATE INDEX IDX_QUEUE_MAPPING_QUEUE ON MB_QUEUE_MAPPING (QUEUE_NAME, MESSAGE_ID);
+
 INSERT INTO MB_AUTH_SCOPE (SCOPE_NAME) VALUES ('exchanges:create');
 INSERT INTO MB_AUTH_SCOPE (SCOPE_NAME) VALUES ('exchanges:delete');
 INSERT INTO MB_AUTH_SCOPE (SCOPE_NAME) VALUES ('exchanges:get');